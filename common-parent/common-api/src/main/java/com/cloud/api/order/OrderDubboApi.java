@@ -10,5 +10,7 @@ public interface OrderDubboApi {
 
   List<ProductSellStatDTO> statSellCountToday(Integer limit);
 
+  List<ProductSellStatDTO> statSellCountInWindow(Integer days, Integer limit);
+
   List<ProductSellStatDTO> statSellCountByProductIds(List<Long> productIds);
 }
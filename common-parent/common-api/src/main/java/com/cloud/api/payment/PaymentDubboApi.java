@@ -2,9 +2,11 @@ package com.cloud.api.payment;
 
 import com.cloud.common.domain.dto.payment.PaymentCallbackCommandDTO;
 import com.cloud.common.domain.dto.payment.PaymentOrderCommandDTO;
+import com.cloud.common.domain.dto.payment.PaymentOrderLookupDTO;
 import com.cloud.common.domain.dto.payment.PaymentRefundCommandDTO;
 import com.cloud.common.domain.vo.payment.PaymentOrderVO;
 import com.cloud.common.domain.vo.payment.PaymentRefundVO;
+import java.util.List;
 
 public interface PaymentDubboApi {
 
@@ -14,6 +16,12 @@ public interface PaymentDubboApi {
 
   PaymentOrderVO getPaymentOrderByOrderNo(String mainOrderNo, String subOrderNo);
 
+  /**
+   * Latest payment of each sub-order, for status checks. Orders without a payment are left out;
+   * entries answered from the status cache carry only the numbers, user id and status.
+   */
+  List<PaymentOrderVO> listPaymentOrdersByOrderNos(List<PaymentOrderLookupDTO> lookups);
+
   Boolean handlePaymentCallback(PaymentCallbackCommandDTO command);
 
   Long createRefund(PaymentRefundCommandDTO command);
@@ -15,10 +15,16 @@ public interface ProductDubboApi {
 
   SpuDetailVO getSpuById(Long spuId);
 
+  List<SpuDetailVO> listSpuByIds(List<Long> spuIds);
+
   List<SpuDetailVO> listSpuByCategory(Long categoryId, Integer status);
 
   List<SpuDetailVO> listSpuByPage(Integer page, Integer size, Integer status);
 
+  List<SpuDetailVO> listSpuAfterId(Long afterSpuId, Integer size, Integer status);
+
+  Long countSpu(Integer status);
+
   List<SkuDetailVO> listSkuByIds(List<Long> skuIds);
 
   List<ProductSearchItemDTO> searchProducts(String name, Integer size);
@@ -18,5 +18,11 @@ public interface StockDubboApi {
 
   Boolean release(StockOperateCommandDTO command);
 
+  Boolean reserveBatch(List<StockOperateCommandDTO> commands);
+
+  Boolean confirmBatch(List<StockOperateCommandDTO> commands);
+
+  Boolean releaseBatch(List<StockOperateCommandDTO> commands);
+
   Boolean rollback(StockOperateCommandDTO command);
 }
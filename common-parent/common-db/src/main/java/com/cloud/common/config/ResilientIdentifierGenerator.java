@@ -54,6 +54,11 @@ public class ResilientIdentifierGenerator implements IdentifierGenerator {
     this(nodeIds[0], nodeIds[1], clock);
   }
 
+  /** Datacenter and worker bits combined, unique per node as long as the node ids are. */
+  public long getNodeId() {
+    return (datacenterId << WORKER_ID_BITS) | workerId;
+  }
+
   @Override
   public synchronized Long nextId(Object entity) {
     long timestamp = clock.getAsLong();
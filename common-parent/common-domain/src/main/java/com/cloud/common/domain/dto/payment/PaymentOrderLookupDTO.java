@@ -0,0 +1,18 @@
+package com.cloud.common.domain.dto.payment;
+
+import java.io.Serial;
+import java.io.Serializable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentOrderLookupDTO implements Serializable {
+  @Serial private static final long serialVersionUID = 1L;
+
+  private String mainOrderNo;
+
+  private String subOrderNo;
+}
@@ -0,0 +1,20 @@
+package com.cloud.common.domain.vo.stock;
+
+import java.io.Serial;
+import java.io.Serializable;
+import lombok.Data;
+
+@Data
+public class StockSegmentStatsVO implements Serializable {
+  @Serial private static final long serialVersionUID = 1L;
+
+  private Long skuId;
+  private Integer segmentCount;
+  private Integer liveSegmentCount;
+  private Integer availableQty;
+  private Boolean adapted;
+  private Long reserveAttempts;
+  private Long reserveConflicts;
+  private Double conflictRate;
+  private Double avgLockWaitMs;
+}
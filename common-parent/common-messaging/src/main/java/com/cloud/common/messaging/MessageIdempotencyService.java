@@ -1,13 +1,25 @@
 package com.cloud.common.messaging;
 
 import cn.hutool.core.util.StrUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.stereotype.Component;
 
 @Slf4j
@@ -18,8 +30,25 @@ public class MessageIdempotencyService {
   private static final String KEY_PREFIX = "mq:consumed";
   private static final String STATUS_PROCESSING = "PROCESSING";
   private static final String STATUS_SUCCESS = "SUCCESS";
+  private static final String RESULT_ACQUIRED = "ACQUIRED";
+  private static final long LOCAL_SUCCESS_MAX_SIZE = 50_000L;
+  private static final Duration LOCAL_SUCCESS_TTL = Duration.ofMinutes(10);
+  private static final DefaultRedisScript<String> ACQUIRE_SCRIPT =
+      new DefaultRedisScript<>(
+          """
+          if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'EX', tonumber(ARGV[2])) then
+              return 'ACQUIRED'
+          end
+          return redis.call('GET', KEYS[1]) or ''
+          """,
+          String.class);
 
   private final StringRedisTemplate stringRedisTemplate;
+  private final Cache<String, Boolean> recentlySucceeded =
+      Caffeine.newBuilder()
+          .maximumSize(LOCAL_SUCCESS_MAX_SIZE)
+          .expireAfterWrite(LOCAL_SUCCESS_TTL)
+          .build();
   private final ConcurrentMap<String, LocalIdempotencyState> localFallbackStates =
       new ConcurrentHashMap<>();
 
@@ -41,6 +70,9 @@ public class MessageIdempotencyService {
     }
 
     String key = buildKey(namespace, eventId);
+    if (recentlySucceeded.getIfPresent(key) != null) {
+      return false;
+    }
     evictExpiredLocalState(key);
     try {
       boolean acquired = tryAcquireInRedis(key);
@@ -67,6 +99,7 @@ public class MessageIdempotencyService {
     }
     String key = buildKey(namespace, eventId);
     localFallbackStates.remove(key);
+    recentlySucceeded.invalidate(key);
     try {
       stringRedisTemplate.delete(key);
     } catch (Exception e) {
@@ -84,6 +117,7 @@ public class MessageIdempotencyService {
 
     String key = buildKey(namespace, eventId);
     evictExpiredLocalState(key);
+    recentlySucceeded.put(key, Boolean.TRUE);
     try {
       stringRedisTemplate
           .opsForValue()
@@ -103,31 +137,137 @@ public class MessageIdempotencyService {
     }
   }
 
+  public Map<String, Boolean> tryAcquireBatch(String namespace, Collection<String> eventIds) {
+    Map<String, Boolean> results = new LinkedHashMap<>();
+    if (eventIds == null || eventIds.isEmpty()) {
+      return results;
+    }
+    if (!idempotentEnabled || StrUtil.isBlank(namespace)) {
+      eventIds.forEach(eventId -> results.put(eventId, true));
+      return results;
+    }
+
+    List<String> pendingEventIds = new ArrayList<>();
+    for (String eventId : eventIds) {
+      if (results.containsKey(eventId)) {
+        continue;
+      }
+      if (StrUtil.isBlank(eventId)) {
+        results.put(eventId, true);
+        continue;
+      }
+      String key = buildKey(namespace, eventId);
+      if (recentlySucceeded.getIfPresent(key) != null) {
+        results.put(eventId, false);
+        continue;
+      }
+      evictExpiredLocalState(key);
+      results.put(eventId, false);
+      pendingEventIds.add(eventId);
+    }
+    if (pendingEventIds.isEmpty()) {
+      return results;
+    }
+
+    Expiration expiration = Expiration.seconds(Math.max(30, processingExpireSeconds));
+    byte[] value = STATUS_PROCESSING.getBytes(StandardCharsets.UTF_8);
+    try {
+      List<Object> acquired =
+          stringRedisTemplate.executePipelined(
+              (RedisCallback<Object>)
+                  connection -> {
+                    for (String eventId : pendingEventIds) {
+                      connection
+                          .stringCommands()
+                          .set(
+                              buildKey(namespace, eventId).getBytes(StandardCharsets.UTF_8),
+                              value,
+                              expiration,
+                              RedisStringCommands.SetOption.ifAbsent());
+                    }
+                    return null;
+                  });
+      for (int i = 0; i < pendingEventIds.size(); i++) {
+        boolean success = i < acquired.size() && Boolean.TRUE.equals(acquired.get(i));
+        results.put(pendingEventIds.get(i), success);
+        if (success) {
+          localFallbackStates.remove(buildKey(namespace, pendingEventIds.get(i)));
+        }
+      }
+    } catch (Exception e) {
+      log.warn(
+          "Idempotent batch acquire failed in Redis, falling back to local guard: namespace={}, size={}",
+          namespace,
+          pendingEventIds.size(),
+          e);
+      for (String eventId : pendingEventIds) {
+        results.put(eventId, tryAcquireLocally(buildKey(namespace, eventId)));
+      }
+    }
+    return results;
+  }
+
+  public void markSuccessBatch(String namespace, Collection<String> eventIds) {
+    if (!idempotentEnabled || StrUtil.isBlank(namespace) || eventIds == null) {
+      return;
+    }
+    List<String> keys =
+        eventIds.stream()
+            .filter(StrUtil::isNotBlank)
+            .distinct()
+            .map(eventId -> buildKey(namespace, eventId))
+            .toList();
+    if (keys.isEmpty()) {
+      return;
+    }
+    keys.forEach(key -> recentlySucceeded.put(key, Boolean.TRUE));
+    Duration ttl = Duration.ofSeconds(Math.max(60, idempotentExpireSeconds));
+    try {
+      stringRedisTemplate.executePipelined(
+          (RedisCallback<Object>)
+              connection -> {
+                byte[] value = STATUS_SUCCESS.getBytes(StandardCharsets.UTF_8);
+                for (String key : keys) {
+                  connection
+                      .stringCommands()
+                      .set(
+                          key.getBytes(StandardCharsets.UTF_8),
+                          value,
+                          Expiration.from(ttl),
+                          RedisStringCommands.SetOption.upsert());
+                }
+                return null;
+              });
+      keys.forEach(localFallbackStates::remove);
+    } catch (Exception e) {
+      log.warn(
+          "Idempotent batch mark success failed in Redis, falling back to local success marker: namespace={}, size={}",
+          namespace,
+          keys.size(),
+          e);
+      long expiresAt = System.currentTimeMillis() + ttl.toMillis();
+      keys.forEach(key -> localFallbackStates.put(key, LocalIdempotencyState.success(expiresAt)));
+    }
+  }
+
   private String buildKey(String namespace, String eventId) {
     return KEY_PREFIX + ":" + namespace + ":" + eventId;
   }
 
   private boolean tryAcquireInRedis(String key) {
-    Boolean acquired =
-        stringRedisTemplate
-            .opsForValue()
-            .setIfAbsent(
-                key, STATUS_PROCESSING, Duration.ofSeconds(Math.max(30, processingExpireSeconds)));
-    if (Boolean.TRUE.equals(acquired)) {
+    String result =
+        stringRedisTemplate.execute(
+            ACQUIRE_SCRIPT,
+            List.of(key),
+            STATUS_PROCESSING,
+            String.valueOf(Math.max(30, processingExpireSeconds)));
+    if (RESULT_ACQUIRED.equals(result)) {
       return true;
     }
-
-    String status = stringRedisTemplate.opsForValue().get(key);
-    if (STATUS_SUCCESS.equals(status) || STATUS_PROCESSING.equals(status)) {
-      return false;
+    if (STATUS_SUCCESS.equals(result)) {
+      recentlySucceeded.put(key, Boolean.TRUE);
     }
-
-    Boolean reacquired =
-        stringRedisTemplate
-            .opsForValue()
-            .setIfAbsent(
-                key, STATUS_PROCESSING, Duration.ofSeconds(Math.max(30, processingExpireSeconds)));
-    return Boolean.TRUE.equals(reacquired);
+    return false;
   }
 
   private boolean tryAcquireLocally(String key) {
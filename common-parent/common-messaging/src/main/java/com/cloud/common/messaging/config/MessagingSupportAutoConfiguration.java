@@ -8,14 +8,17 @@ import com.cloud.common.messaging.outbox.OutboxEventMapper;
 import com.cloud.common.messaging.outbox.OutboxGovernanceController;
 import com.cloud.common.messaging.outbox.OutboxGovernanceService;
 import com.cloud.common.messaging.outbox.OutboxProperties;
+import com.cloud.common.messaging.outbox.OutboxRetentionService;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.env.Environment;
 
 @AutoConfiguration
 @EnableConfigurationProperties({MessageProperties.class, OutboxProperties.class})
@@ -76,6 +79,21 @@ public class MessagingSupportAutoConfiguration {
     return new OutboxMetricsMonitor(outboxEventMapper, meterRegistry);
   }
 
+  @Bean
+  @ConditionalOnBean(OutboxEventMapper.class)
+  @ConditionalOnProperty(name = "app.outbox.retention.enabled", havingValue = "true")
+  public OutboxRetentionService outboxRetentionService(
+      OutboxEventMapper outboxEventMapper,
+      OutboxProperties outboxProperties,
+      Environment environment,
+      ObjectProvider<MeterRegistry> meterRegistryProvider) {
+    return new OutboxRetentionService(
+        outboxEventMapper,
+        outboxProperties,
+        environment.getProperty("spring.application.name", "application"),
+        meterRegistryProvider.getIfAvailable());
+  }
+
   @Bean
   @ConditionalOnProperty(
       name = "app.message.monitor.admin-endpoint-enabled",
@@ -0,0 +1,176 @@
+package com.cloud.common.messaging.consumer;
+
+import com.cloud.common.trace.TraceIdUtil;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.client.consumer.DefaultMQPushConsumer;
+import org.apache.rocketmq.client.consumer.listener.ConsumeConcurrentlyStatus;
+import org.apache.rocketmq.client.consumer.listener.MessageListenerConcurrently;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.spring.annotation.ConsumeMode;
+import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
+import org.apache.rocketmq.spring.core.RocketMQPushConsumerLifecycleListener;
+import org.slf4j.MDC;
+import org.springframework.core.annotation.AnnotationUtils;
+
+@Slf4j
+public abstract class AbstractJsonBatchMqConsumer<T> extends AbstractJsonMqConsumer<T>
+    implements RocketMQPushConsumerLifecycleListener {
+
+  @Override
+  public void prepareStart(DefaultMQPushConsumer consumer) {
+    RocketMQMessageListener annotation =
+        AnnotationUtils.findAnnotation(getClass(), RocketMQMessageListener.class);
+    if (annotation != null && annotation.consumeMode() == ConsumeMode.ORDERLY) {
+      return;
+    }
+    int batchSize = Math.max(1, consumeBatchSize());
+    consumer.setConsumeMessageBatchMaxSize(batchSize);
+    consumer.setPullBatchSize(Math.max(consumer.getPullBatchSize(), batchSize));
+    consumer.setMessageListener(
+        (MessageListenerConcurrently)
+            (messages, context) ->
+                consumeBatch(messages)
+                    ? ConsumeConcurrentlyStatus.CONSUME_SUCCESS
+                    : ConsumeConcurrentlyStatus.RECONSUME_LATER);
+  }
+
+  public final boolean consumeBatch(List<MessageExt> messages) {
+    if (messages == null || messages.isEmpty()) {
+      return true;
+    }
+    if (messages.size() == 1) {
+      return consumeOne(messages.get(0));
+    }
+
+    MessageExt first = messages.get(0);
+    String topic = resolveTopic(first);
+    MDC.put(TraceIdUtil.TRACE_ID_KEY, resolveTraceId(first, first.getMsgId()));
+    try {
+      List<MessageExt> singles = new ArrayList<>();
+      Map<String, List<BatchEntry<T>>> entriesByNamespace = new LinkedHashMap<>();
+      Set<String> seenKeys = new HashSet<>();
+      for (MessageExt msgExt : messages) {
+        if (msgExt == null) {
+          continue;
+        }
+        if (resolveReconsumeTimes(msgExt) >= getMaxReconsumeTimes()) {
+          singles.add(msgExt);
+          continue;
+        }
+        T payload;
+        try {
+          payload = deserialize(msgExt.getBody());
+        } catch (Exception ex) {
+          singles.add(msgExt);
+          continue;
+        }
+        String namespace = resolveIdempotentNamespace(topic, msgExt, payload);
+        String key = buildIdempotentKey(topic, msgExt.getMsgId(), payload, msgExt);
+        if (!seenKeys.add(namespace + ":" + key)) {
+          logDuplicate(topic, msgExt, key);
+          continue;
+        }
+        entriesByNamespace
+            .computeIfAbsent(namespace, ignored -> new ArrayList<>())
+            .add(new BatchEntry<>(msgExt, payload, namespace, key));
+      }
+
+      List<BatchEntry<T>> acquired = acquire(topic, entriesByNamespace);
+      if (!acquired.isEmpty()) {
+        try {
+          doConsumeBatch(acquired.stream().map(BatchEntry::payload).toList());
+          markSuccess(topic, acquired);
+        } catch (Exception ex) {
+          log.warn(
+              "[MQ][{}] Batch consume failed, fall back to per-message consume: size={}",
+              topic,
+              acquired.size(),
+              ex);
+          increment("mq.consume.batch_fallback", "topic", topic);
+          for (BatchEntry<T> entry : acquired) {
+            messageIdempotencyService.release(entry.namespace(), entry.key());
+            singles.add(entry.msgExt());
+          }
+        }
+      }
+      if (meterRegistry != null) {
+        meterRegistry.summary("mq.consume.batch.size", "topic", topic).record(messages.size());
+      }
+
+      boolean allAcked = true;
+      for (MessageExt msgExt : singles) {
+        allAcked &= consumeOne(msgExt);
+      }
+      return allAcked;
+    } finally {
+      MDC.remove(TraceIdUtil.TRACE_ID_KEY);
+    }
+  }
+
+  @Override
+  protected void doConsume(T payload, MessageExt msgExt) {
+    doConsumeBatch(Collections.singletonList(payload));
+  }
+
+  protected abstract void doConsumeBatch(List<T> payloads);
+
+  protected int consumeBatchSize() {
+    return 32;
+  }
+
+  private List<BatchEntry<T>> acquire(
+      String topic, Map<String, List<BatchEntry<T>>> entriesByNamespace) {
+    List<BatchEntry<T>> acquired = new ArrayList<>();
+    entriesByNamespace.forEach(
+        (namespace, entries) -> {
+          Map<String, Boolean> results =
+              messageIdempotencyService.tryAcquireBatch(
+                  namespace, entries.stream().map(BatchEntry::key).toList());
+          for (BatchEntry<T> entry : entries) {
+            if (Boolean.TRUE.equals(results.get(entry.key()))) {
+              acquired.add(entry);
+            } else {
+              logDuplicate(topic, entry.msgExt(), entry.key());
+            }
+          }
+        });
+    return acquired;
+  }
+
+  private void markSuccess(String topic, List<BatchEntry<T>> acquired) {
+    Map<String, List<String>> keysByNamespace = new LinkedHashMap<>();
+    for (BatchEntry<T> entry : acquired) {
+      keysByNamespace
+          .computeIfAbsent(entry.namespace(), ignored -> new ArrayList<>())
+          .add(entry.key());
+    }
+    keysByNamespace.forEach(messageIdempotencyService::markSuccessBatch);
+    for (BatchEntry<T> entry : acquired) {
+      increment("mq.consume.success", "topic", topic);
+      onConsumeSuccess(entry.msgExt(), entry.payload());
+    }
+  }
+
+  private boolean consumeOne(MessageExt msgExt) {
+    try {
+      onMessage(msgExt);
+      return true;
+    } catch (Exception ex) {
+      return false;
+    }
+  }
+
+  private void logDuplicate(String topic, MessageExt msgExt, String key) {
+    log.info("[MQ][{}] Duplicate message, skip msgId={} key={}", topic, msgExt.getMsgId(), key);
+    increment("mq.consume.duplicate", "topic", topic);
+  }
+
+  private record BatchEntry<T>(MessageExt msgExt, T payload, String namespace, String key) {}
+}
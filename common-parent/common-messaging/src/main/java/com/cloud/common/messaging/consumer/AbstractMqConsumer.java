@@ -147,7 +147,7 @@ public abstract class AbstractMqConsumer<T> implements RocketMQListener<MessageE
     return 16;
   }
 
-  private String resolveTopic(MessageExt msgExt) {
+  protected final String resolveTopic(MessageExt msgExt) {
     if (msgExt == null || msgExt.getTopic() == null || msgExt.getTopic().isBlank()) {
       return "unknown";
     }
@@ -162,7 +162,7 @@ public abstract class AbstractMqConsumer<T> implements RocketMQListener<MessageE
     return msgId == null ? "" : msgId;
   }
 
-  private int resolveReconsumeTimes(MessageExt msgExt) {
+  protected final int resolveReconsumeTimes(MessageExt msgExt) {
     if (msgExt == null) {
       return 0;
     }
@@ -202,7 +202,7 @@ public abstract class AbstractMqConsumer<T> implements RocketMQListener<MessageE
     return TraceIdUtil.generateTraceId();
   }
 
-  private void increment(String name, String... tags) {
+  protected final void increment(String name, String... tags) {
     if (meterRegistry == null) {
       return;
     }
@@ -0,0 +1,41 @@
+package com.cloud.common.messaging.event;
+
+import java.io.Serializable;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockChangedEvent implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private List<Item> items;
+
+  private Long timestamp;
+
+  private String eventId;
+
+  private String eventType;
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Item implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long spuId;
+
+    private List<Long> skuIds;
+
+    private Integer stockDelta;
+
+    private Integer salesDelta;
+  }
+}
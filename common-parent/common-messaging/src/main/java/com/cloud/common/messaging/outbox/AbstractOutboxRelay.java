@@ -4,9 +4,11 @@ import com.cloud.common.trace.TraceIdUtil;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.rocketmq.common.message.MessageConst;
 import org.springframework.cloud.stream.function.StreamBridge;
@@ -49,13 +51,18 @@ public abstract class AbstractOutboxRelay {
     if (!outboxProperties.isEnabled()) {
       return;
     }
+    if (outboxProperties.isBatchEnabled()) {
+      dispatchDueBatches();
+      return;
+    }
     List<OutboxEvent> events = outboxEventService.fetchDueEvents(outboxProperties.getBatchSize());
     if (events.isEmpty()) {
       return;
     }
 
     for (OutboxEvent event : events) {
-      if (!outboxEventService.markProcessing(event.getId())) {
+      if (!outboxEventService.markProcessing(
+          event.getId(), outboxProperties.getClaimLeaseSeconds())) {
         continue;
       }
       boolean sent = false;
@@ -84,6 +91,54 @@ public abstract class AbstractOutboxRelay {
     }
   }
 
+  private void dispatchDueBatches() {
+    int batchSize = Math.max(1, outboxProperties.getBatchSize());
+    int maxBatches = Math.max(1, outboxProperties.getMaxBatchesPerPoll());
+    for (int batch = 0; batch < maxBatches; batch++) {
+      if (dispatchBatch(batchSize) < batchSize) {
+        return;
+      }
+    }
+  }
+
+  private int dispatchBatch(int batchSize) {
+    long startNanos = System.nanoTime();
+    List<OutboxEvent> events =
+        outboxEventService.claimDueEvents(batchSize, outboxProperties.getClaimLeaseSeconds());
+    if (events.isEmpty()) {
+      return 0;
+    }
+
+    List<Long> sentIds = new ArrayList<>(events.size());
+    List<OutboxEvent> failedEvents = new ArrayList<>();
+    for (OutboxEvent event : events) {
+      boolean sent = false;
+      try {
+        sent = relay(event);
+      } catch (Exception ex) {
+        onDispatchFailure(event, ex);
+      }
+      if (sent) {
+        sentIds.add(event.getId());
+      } else {
+        failedEvents.add(event);
+      }
+    }
+
+    outboxEventService.markSentBatch(sentIds);
+    outboxEventService.markFailedBatch(
+        failedEvents, outboxProperties.getMaxRetry(), outboxProperties.getRetryBackoffSeconds());
+    if (meterRegistry != null) {
+      meterRegistry.summary("outbox.relay.batch.size").record(events.size());
+      meterRegistry.counter("outbox.relay.batch.sent").increment(sentIds.size());
+      meterRegistry.counter("outbox.relay.batch.retry").increment(failedEvents.size());
+      meterRegistry
+          .timer("outbox.relay.batch.latency")
+          .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+    return events.size();
+  }
+
   protected abstract boolean relay(OutboxEvent event) throws Exception;
 
   protected final <T> T readPayload(OutboxEvent event, Class<T> type) throws Exception {
@@ -4,6 +4,8 @@ import com.baomidou.mybatisplus.annotation.InterceptorIgnore;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import java.time.LocalDateTime;
 import java.util.List;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
@@ -17,23 +19,80 @@ public interface OutboxEventMapper extends BaseMapper<OutboxEvent> {
           + "created_at, updated_at, deleted, version "
           + "FROM outbox_event "
           + "WHERE deleted = 0 "
-          + "AND status IN ('NEW','FAILED') "
-          + "AND (next_retry_at IS NULL OR next_retry_at <= NOW()) "
-          + "ORDER BY created_at ASC "
+          + "AND next_retry_at <= NOW() "
+          + "AND status IN ('NEW','FAILED','PROCESSING') "
+          + "ORDER BY next_retry_at ASC "
           + "LIMIT #{limit}")
   @InterceptorIgnore(illegalSql = "1")
   List<OutboxEvent> selectDueEvents(@Param("limit") int limit);
 
+  @Select(
+      "SELECT id, event_id, aggregate_type, aggregate_id, event_type, payload, status, retry_count, next_retry_at, "
+          + "created_at, updated_at, deleted, version "
+          + "FROM outbox_event "
+          + "WHERE deleted = 0 "
+          + "AND next_retry_at <= NOW() "
+          + "AND status IN ('NEW','FAILED','PROCESSING') "
+          + "ORDER BY next_retry_at ASC "
+          + "LIMIT #{limit} "
+          + "FOR UPDATE SKIP LOCKED")
+  @InterceptorIgnore(illegalSql = "1")
+  List<OutboxEvent> selectDueEventsForUpdate(@Param("limit") int limit);
+
   @Update(
-      "UPDATE outbox_event SET status = 'PROCESSING', updated_at = NOW() "
-          + "WHERE id = #{id} AND status IN ('NEW','FAILED') AND deleted = 0")
-  int markProcessing(@Param("id") Long id);
+      "UPDATE outbox_event SET status = 'PROCESSING', "
+          + "next_retry_at = DATE_ADD(NOW(), INTERVAL #{leaseSeconds} SECOND), updated_at = NOW() "
+          + "WHERE id = #{id} AND deleted = 0 AND next_retry_at <= NOW() "
+          + "AND status IN ('NEW','FAILED','PROCESSING')")
+  int markProcessing(@Param("id") Long id, @Param("leaseSeconds") int leaseSeconds);
+
+  @Update({
+    "<script>",
+    "UPDATE outbox_event ",
+    "SET status = 'PROCESSING', next_retry_at = DATE_ADD(NOW(), INTERVAL #{leaseSeconds} SECOND), ",
+    "updated_at = NOW() ",
+    "WHERE deleted = 0 AND id IN ",
+    "<foreach collection='ids' item='id' open='(' separator=',' close=')'>",
+    "#{id}",
+    "</foreach>",
+    "</script>"
+  })
+  int markProcessingBatch(@Param("ids") List<Long> ids, @Param("leaseSeconds") int leaseSeconds);
 
   @Update(
-      "UPDATE outbox_event SET status = 'SENT', updated_at = NOW() "
+      "UPDATE outbox_event SET status = 'SENT', next_retry_at = NULL, updated_at = NOW() "
           + "WHERE id = #{id} AND deleted = 0")
   int markSent(@Param("id") Long id);
 
+  @Update({
+    "<script>",
+    "UPDATE outbox_event SET status = 'SENT', next_retry_at = NULL, updated_at = NOW() ",
+    "WHERE deleted = 0 AND status = 'PROCESSING' AND id IN ",
+    "<foreach collection='ids' item='id' open='(' separator=',' close=')'>",
+    "#{id}",
+    "</foreach>",
+    "</script>"
+  })
+  int markSentBatch(@Param("ids") List<Long> ids);
+
+  @Update({
+    "<script>",
+    "UPDATE outbox_event ",
+    "SET status = CASE WHEN retry_count + 1 &gt;= #{maxRetry} THEN 'DEAD' ELSE 'FAILED' END, ",
+    "next_retry_at = CASE WHEN retry_count + 1 &gt;= #{maxRetry} THEN NULL ",
+    "ELSE DATE_ADD(NOW(), INTERVAL #{backoffSeconds} * (retry_count + 1) SECOND) END, ",
+    "retry_count = retry_count + 1, updated_at = NOW() ",
+    "WHERE deleted = 0 AND status = 'PROCESSING' AND id IN ",
+    "<foreach collection='ids' item='id' open='(' separator=',' close=')'>",
+    "#{id}",
+    "</foreach>",
+    "</script>"
+  })
+  int markFailedBatch(
+      @Param("ids") List<Long> ids,
+      @Param("maxRetry") int maxRetry,
+      @Param("backoffSeconds") int backoffSeconds);
+
   @Update(
       "UPDATE outbox_event SET status = #{status}, retry_count = #{retryCount}, next_retry_at = #{nextRetryAt}, "
           + "updated_at = NOW() WHERE id = #{id} AND deleted = 0")
@@ -43,14 +102,13 @@ public interface OutboxEventMapper extends BaseMapper<OutboxEvent> {
       @Param("retryCount") int retryCount,
       @Param("nextRetryAt") LocalDateTime nextRetryAt);
 
-  @Select(
-      "SELECT COUNT(1) FROM outbox_event WHERE deleted = 0 AND status IN ('NEW','FAILED','PROCESSING')")
+  @Select("SELECT COUNT(1) FROM outbox_event WHERE deleted = 0 AND next_retry_at IS NOT NULL")
   @InterceptorIgnore(illegalSql = "1")
   long countPending();
 
   @Select(
-      "SELECT COALESCE(TIMESTAMPDIFF(SECOND, MIN(created_at), NOW()), 0) "
-          + "FROM outbox_event WHERE deleted = 0 AND status IN ('NEW','FAILED','PROCESSING')")
+      "SELECT COALESCE(TIMESTAMPDIFF(SECOND, MIN(next_retry_at), NOW()), 0) "
+          + "FROM outbox_event WHERE deleted = 0 AND next_retry_at IS NOT NULL")
   @InterceptorIgnore(illegalSql = "1")
   long oldestPendingAgeSeconds();
 
@@ -91,4 +149,38 @@ public interface OutboxEventMapper extends BaseMapper<OutboxEvent> {
     "</script>"
   })
   int requeueBatch(@Param("ids") List<Long> ids);
+
+  @Select(
+      "SELECT id, created_at FROM outbox_event "
+          + "WHERE status = 'SENT' AND updated_at < #{before} "
+          + "ORDER BY updated_at ASC "
+          + "LIMIT #{limit}")
+  @InterceptorIgnore(illegalSql = "1")
+  List<OutboxEvent> selectSentBefore(
+      @Param("before") LocalDateTime before, @Param("limit") int limit);
+
+  @Update("CREATE TABLE IF NOT EXISTS ${table} LIKE outbox_event")
+  @InterceptorIgnore(illegalSql = "1")
+  void createArchiveTable(@Param("table") String table);
+
+  @Insert({
+    "<script>",
+    "INSERT IGNORE INTO ${table} SELECT * FROM outbox_event WHERE status = 'SENT' AND id IN ",
+    "<foreach collection='ids' item='id' open='(' separator=',' close=')'>",
+    "#{id}",
+    "</foreach>",
+    "</script>"
+  })
+  @InterceptorIgnore(illegalSql = "1")
+  int archiveSentByIds(@Param("table") String table, @Param("ids") List<Long> ids);
+
+  @Delete({
+    "<script>",
+    "DELETE FROM outbox_event WHERE status = 'SENT' AND id IN ",
+    "<foreach collection='ids' item='id' open='(' separator=',' close=')'>",
+    "#{id}",
+    "</foreach>",
+    "</script>"
+  })
+  int purgeSentByIds(@Param("ids") List<Long> ids);
 }
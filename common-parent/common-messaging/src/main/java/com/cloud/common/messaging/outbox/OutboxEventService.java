@@ -39,6 +39,7 @@ public class OutboxEventService {
     event.setPayload(safePayload);
     event.setStatus(STATUS_NEW);
     event.setRetryCount(0);
+    event.setNextRetryAt(LocalDateTime.now());
 
     requireMapper().insert(event);
     return event;
@@ -49,11 +50,25 @@ public class OutboxEventService {
     return requireMapper().selectDueEvents(safeLimit);
   }
 
-  public boolean markProcessing(Long id) {
+  @Transactional(rollbackFor = Exception.class)
+  public List<OutboxEvent> claimDueEvents(int limit, int leaseSeconds) {
+    int safeLimit = Math.max(1, limit);
+    OutboxEventMapper mapper = requireMapper();
+    List<OutboxEvent> events = mapper.selectDueEventsForUpdate(safeLimit);
+    if (events == null || events.isEmpty()) {
+      return List.of();
+    }
+    List<Long> ids = events.stream().map(OutboxEvent::getId).toList();
+    mapper.markProcessingBatch(ids, Math.max(1, leaseSeconds));
+    events.forEach(event -> event.setStatus(STATUS_PROCESSING));
+    return events;
+  }
+
+  public boolean markProcessing(Long id, int leaseSeconds) {
     if (id == null) {
       return false;
     }
-    return requireMapper().markProcessing(id) > 0;
+    return requireMapper().markProcessing(id, Math.max(1, leaseSeconds)) > 0;
   }
 
   public void markSent(Long id) {
@@ -63,6 +78,34 @@ public class OutboxEventService {
     requireMapper().markSent(id);
   }
 
+  public void markSentBatch(List<Long> ids) {
+    if (ids == null || ids.isEmpty()) {
+      return;
+    }
+    requireMapper().markSentBatch(ids);
+  }
+
+  public void markFailedBatch(List<OutboxEvent> events, int maxRetry, int backoffSeconds) {
+    if (events == null || events.isEmpty()) {
+      return;
+    }
+    int safeMaxRetry = Math.max(1, maxRetry);
+    List<Long> ids = events.stream().map(OutboxEvent::getId).filter(id -> id != null).toList();
+    if (ids.isEmpty()) {
+      return;
+    }
+    requireMapper().markFailedBatch(ids, safeMaxRetry, Math.max(1, backoffSeconds));
+    for (OutboxEvent event : events) {
+      int retry = event.getRetryCount() == null ? 0 : event.getRetryCount();
+      if (retry + 1 >= safeMaxRetry) {
+        log.warn(
+            "Outbox event reached max retry, marked dead: eventId={}, eventType={}",
+            event.getEventId(),
+            event.getEventType());
+      }
+    }
+  }
+
   public void markFailed(OutboxEvent event, int maxRetry, int backoffSeconds) {
     if (event == null || event.getId() == null) {
       return;
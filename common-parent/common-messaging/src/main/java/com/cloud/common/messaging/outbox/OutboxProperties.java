@@ -16,4 +16,28 @@ public class OutboxProperties {
   private int maxRetry = 8;
 
   private int retryBackoffSeconds = 30;
+
+  private boolean batchEnabled = false;
+
+  private int claimLeaseSeconds = 60;
+
+  private int maxBatchesPerPoll = 10;
+
+  private Retention retention = new Retention();
+
+  @Data
+  public static class Retention {
+
+    private boolean enabled = false;
+
+    private long intervalMs = 300000L;
+
+    private int sentRetentionHours = 72;
+
+    private int chunkSize = 1000;
+
+    private int maxChunksPerRun = 50;
+
+    private boolean archiveEnabled = false;
+  }
 }
@@ -0,0 +1,109 @@
+package com.cloud.common.messaging.outbox;
+
+import com.cloud.common.annotation.DistributedLock;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+
+@Slf4j
+public class OutboxRetentionService {
+
+  private static final String ARCHIVE_TABLE_PREFIX = "outbox_event_archive_";
+  private static final DateTimeFormatter ARCHIVE_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+  private final OutboxEventMapper outboxEventMapper;
+  private final OutboxProperties outboxProperties;
+  private final String lockScope;
+  @Nullable private final MeterRegistry meterRegistry;
+  private final Set<String> createdArchiveTables = ConcurrentHashMap.newKeySet();
+
+  public OutboxRetentionService(
+      OutboxEventMapper outboxEventMapper,
+      OutboxProperties outboxProperties,
+      String lockScope,
+      @Nullable MeterRegistry meterRegistry) {
+    this.outboxEventMapper = outboxEventMapper;
+    this.outboxProperties = outboxProperties;
+    this.lockScope = lockScope;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Scheduled(fixedDelayString = "${app.outbox.retention.interval-ms:300000}")
+  @DistributedLock(
+      key = "'outbox:retention:' + #target.lockScope",
+      waitTime = 0,
+      leaseTime = 600,
+      failStrategy = DistributedLock.LockFailStrategy.RETURN_NULL)
+  public void onScheduledPurge() {
+    if (!outboxProperties.getRetention().isEnabled()) {
+      return;
+    }
+    try {
+      purgeSentEvents();
+    } catch (Exception ex) {
+      log.error("Outbox retention purge failed", ex);
+    }
+  }
+
+  public int purgeSentEvents() {
+    OutboxProperties.Retention retention = outboxProperties.getRetention();
+    LocalDateTime before =
+        LocalDateTime.now().minusHours(Math.max(1, retention.getSentRetentionHours()));
+    int chunkSize = Math.max(1, retention.getChunkSize());
+    int maxChunks = Math.max(1, retention.getMaxChunksPerRun());
+    int total = 0;
+    for (int chunk = 0; chunk < maxChunks; chunk++) {
+      List<OutboxEvent> events = outboxEventMapper.selectSentBefore(before, chunkSize);
+      if (events == null || events.isEmpty()) {
+        break;
+      }
+      if (retention.isArchiveEnabled()) {
+        archive(events);
+      }
+      total += outboxEventMapper.purgeSentByIds(events.stream().map(OutboxEvent::getId).toList());
+      if (events.size() < chunkSize) {
+        break;
+      }
+    }
+    if (total > 0) {
+      log.info("Outbox retention purged sent events: total={}, before={}", total, before);
+      if (meterRegistry != null) {
+        meterRegistry.counter("outbox.retention.purged").increment(total);
+      }
+    }
+    return total;
+  }
+
+  /** Lock scope for the purge; each service purges its own outbox table. */
+  public String getLockScope() {
+    return lockScope;
+  }
+
+  private void archive(List<OutboxEvent> events) {
+    Map<String, List<Long>> idsByTable = new LinkedHashMap<>();
+    for (OutboxEvent event : events) {
+      LocalDateTime createdAt =
+          event.getCreatedAt() == null ? LocalDateTime.now() : event.getCreatedAt();
+      idsByTable
+          .computeIfAbsent(
+              ARCHIVE_TABLE_PREFIX + ARCHIVE_SUFFIX.format(createdAt), key -> new ArrayList<>())
+          .add(event.getId());
+    }
+    idsByTable.forEach(
+        (table, ids) -> {
+          if (createdArchiveTables.add(table)) {
+            outboxEventMapper.createArchiveTable(table);
+          }
+          outboxEventMapper.archiveSentByIds(table, ids);
+        });
+  }
+}
@@ -4,8 +4,11 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,6 +16,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.test.util.ReflectionTestUtils;
 
 @ExtendWith(MockitoExtension.class)
@@ -34,10 +38,9 @@ class MessageIdempotencyServiceTest {
 
   @Test
   void tryAcquireShouldReturnFalseWhenMessageIsAlreadyProcessed() {
-    when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
-    when(valueOperations.setIfAbsent(eq("mq:consumed:order:evt-1"), eq("PROCESSING"), any()))
-        .thenReturn(false);
-    when(valueOperations.get("mq:consumed:order:evt-1")).thenReturn("SUCCESS");
+    when(stringRedisTemplate.execute(
+            any(RedisScript.class), eq(List.of("mq:consumed:order:evt-1")), any(), any()))
+        .thenReturn("SUCCESS");
 
     boolean acquired = service.tryAcquire("order", "evt-1");
 
@@ -46,8 +49,8 @@ class MessageIdempotencyServiceTest {
 
   @Test
   void tryAcquireShouldFallBackToLocalGuardWhenRedisIsUnavailable() {
-    when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
-    when(valueOperations.setIfAbsent(eq("mq:consumed:order:evt-2"), eq("PROCESSING"), any()))
+    when(stringRedisTemplate.execute(
+            any(RedisScript.class), eq(List.of("mq:consumed:order:evt-2")), any(), any()))
         .thenThrow(new IllegalStateException("redis down"));
 
     boolean firstAcquire = service.tryAcquire("order", "evt-2");
@@ -60,7 +63,8 @@ class MessageIdempotencyServiceTest {
   @Test
   void markSuccessShouldFallBackToLocalSuccessMarkerWhenRedisIsUnavailable() {
     when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
-    when(valueOperations.setIfAbsent(eq("mq:consumed:order:evt-3"), eq("PROCESSING"), any()))
+    when(stringRedisTemplate.execute(
+            any(RedisScript.class), eq(List.of("mq:consumed:order:evt-3")), any(), any()))
         .thenThrow(new IllegalStateException("redis down"));
     doThrow(new IllegalStateException("redis down"))
         .when(valueOperations)
@@ -75,8 +79,8 @@ class MessageIdempotencyServiceTest {
 
   @Test
   void releaseShouldClearLocalFallbackState() {
-    when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
-    when(valueOperations.setIfAbsent(eq("mq:consumed:order:evt-4"), eq("PROCESSING"), any()))
+    when(stringRedisTemplate.execute(
+            any(RedisScript.class), eq(List.of("mq:consumed:order:evt-4")), any(), any()))
         .thenThrow(new IllegalStateException("redis down"));
 
     assertThat(service.tryAcquire("order", "evt-4")).isTrue();
@@ -85,4 +89,15 @@ class MessageIdempotencyServiceTest {
 
     assertThat(service.tryAcquire("order", "evt-4")).isTrue();
   }
+
+  @Test
+  void tryAcquireShouldShortCircuitRecentlySucceededMessageWithoutRedis() {
+    when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+
+    service.markSuccess("order", "evt-5");
+
+    assertThat(service.tryAcquire("order", "evt-5")).isFalse();
+    verify(stringRedisTemplate, never())
+        .execute(any(RedisScript.class), eq(List.of("mq:consumed:order:evt-5")), any(), any());
+  }
 }
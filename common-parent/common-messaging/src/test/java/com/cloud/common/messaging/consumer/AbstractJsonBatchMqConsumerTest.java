@@ -0,0 +1,151 @@
+package com.cloud.common.messaging.consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.cloud.common.enums.ResultCode;
+import com.cloud.common.exception.BizException;
+import com.cloud.common.messaging.MessageIdempotencyService;
+import com.cloud.common.messaging.deadletter.DeadLetterReason;
+import com.cloud.common.messaging.deadletter.DeadLetterService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class AbstractJsonBatchMqConsumerTest {
+
+  private final MessageIdempotencyService messageIdempotencyService =
+      mock(MessageIdempotencyService.class);
+  private final DeadLetterService deadLetterService = mock(DeadLetterService.class);
+  private TestBatchConsumer consumer;
+
+  @BeforeEach
+  void setUp() {
+    consumer = new TestBatchConsumer();
+    ReflectionTestUtils.setField(consumer, "mqObjectMapper", new ObjectMapper());
+    ReflectionTestUtils.setField(consumer, "messageIdempotencyService", messageIdempotencyService);
+    ReflectionTestUtils.setField(consumer, "deadLetterService", deadLetterService);
+  }
+
+  @Test
+  void consumeBatchHandsAcquiredPayloadsToHookAndMarksSuccessInBulk() {
+    when(messageIdempotencyService.tryAcquireBatch(eq("test"), anyList()))
+        .thenReturn(Map.of("evt-1", true, "evt-2", false, "evt-3", true));
+
+    boolean acked =
+        consumer.consumeBatch(
+            List.of(message("m1", "evt-1"), message("m2", "evt-2"), message("m3", "evt-3")));
+
+    assertThat(acked).isTrue();
+    assertThat(consumer.batches).containsExactly(List.of("evt-1", "evt-3"));
+    verify(messageIdempotencyService).markSuccessBatch("test", List.of("evt-1", "evt-3"));
+  }
+
+  @Test
+  void consumeBatchFallsBackToPerMessageClassificationWhenBatchFails() {
+    consumer.failingEventId = "evt-2";
+    when(messageIdempotencyService.tryAcquireBatch(eq("test"), anyList()))
+        .thenReturn(Map.of("evt-1", true, "evt-2", true));
+    when(messageIdempotencyService.tryAcquire("test", "evt-1")).thenReturn(true);
+    when(messageIdempotencyService.tryAcquire("test", "evt-2")).thenReturn(true);
+
+    boolean acked = consumer.consumeBatch(List.of(message("m1", "evt-1"), message("m2", "evt-2")));
+
+    assertThat(acked).isTrue();
+    verify(messageIdempotencyService).release("test", "evt-1");
+    verify(messageIdempotencyService).release("test", "evt-2");
+    verify(messageIdempotencyService).markSuccess("test", "evt-1");
+    verify(messageIdempotencyService).markSuccess("test", "evt-2");
+    verify(deadLetterService)
+        .record(
+            eq("test-topic"),
+            eq("m2"),
+            eq(new TestEvent("evt-2")),
+            eq(DeadLetterReason.BIZ_FAIL),
+            org.mockito.ArgumentMatchers.any(BizException.class));
+  }
+
+  private MessageExt message(String msgId, String eventId) {
+    MessageExt msgExt = new MessageExt();
+    msgExt.setTopic("test-topic");
+    msgExt.setMsgId(msgId);
+    msgExt.setBody(("{\"eventId\":\"" + eventId + "\"}").getBytes(StandardCharsets.UTF_8));
+    return msgExt;
+  }
+
+  private static final class TestBatchConsumer extends AbstractJsonBatchMqConsumer<TestEvent> {
+
+    private final List<List<String>> batches = new ArrayList<>();
+    private String failingEventId;
+
+    @Override
+    protected void doConsumeBatch(List<TestEvent> payloads) {
+      if (payloads.stream().anyMatch(payload -> payload.getEventId().equals(failingEventId))) {
+        throw new BizException(ResultCode.BUSINESS_ERROR, "boom");
+      }
+      batches.add(payloads.stream().map(TestEvent::getEventId).toList());
+    }
+
+    @Override
+    protected Class<TestEvent> payloadClass() {
+      return TestEvent.class;
+    }
+
+    @Override
+    protected String payloadDescription() {
+      return "TestEvent";
+    }
+
+    @Override
+    protected String resolveIdempotentNamespace(
+        String topic, MessageExt msgExt, TestEvent payload) {
+      return "test";
+    }
+
+    @Override
+    protected String buildIdempotentKey(
+        String topic, String msgId, TestEvent payload, MessageExt msgExt) {
+      return payload.getEventId();
+    }
+  }
+
+  public static class TestEvent {
+
+    private String eventId;
+
+    public TestEvent() {}
+
+    public TestEvent(String eventId) {
+      this.eventId = eventId;
+    }
+
+    public String getEventId() {
+      return eventId;
+    }
+
+    public void setEventId(String eventId) {
+      this.eventId = eventId;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof TestEvent event && Objects.equals(eventId, event.eventId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(eventId);
+    }
+  }
+}
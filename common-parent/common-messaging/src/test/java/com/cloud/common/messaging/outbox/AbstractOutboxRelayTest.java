@@ -2,6 +2,7 @@ package com.cloud.common.messaging.outbox;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -35,7 +36,8 @@ class AbstractOutboxRelayTest {
     OutboxProperties properties = new OutboxProperties();
     OutboxEvent event = newEvent(1L, "ORDER_CREATED");
     when(outboxEventService.fetchDueEvents(properties.getBatchSize())).thenReturn(List.of(event));
-    when(outboxEventService.markProcessing(event.getId())).thenReturn(true);
+    when(outboxEventService.markProcessing(event.getId(), properties.getClaimLeaseSeconds()))
+        .thenReturn(true);
     TestRelay relay = new TestRelay(properties, null, candidate -> true);
 
     relay.dispatch();
@@ -50,7 +52,8 @@ class AbstractOutboxRelayTest {
     OutboxProperties properties = new OutboxProperties();
     OutboxEvent event = newEvent(2L, "STOCK_ALERT");
     when(outboxEventService.fetchDueEvents(properties.getBatchSize())).thenReturn(List.of(event));
-    when(outboxEventService.markProcessing(event.getId())).thenReturn(true);
+    when(outboxEventService.markProcessing(event.getId(), properties.getClaimLeaseSeconds()))
+        .thenReturn(true);
     SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
     TestRelay relay =
         new TestRelay(
@@ -74,6 +77,33 @@ class AbstractOutboxRelayTest {
         .isEqualTo(1.0d);
   }
 
+  @Test
+  void batchDispatchMarksSentAndFailedEventsWithBulkUpdates() {
+    OutboxProperties properties = new OutboxProperties();
+    properties.setBatchEnabled(true);
+    OutboxEvent sentEvent = newEvent(3L, "ORDER_CREATED");
+    OutboxEvent failedEvent = newEvent(4L, "STOCK_ALERT");
+    when(outboxEventService.claimDueEvents(
+            properties.getBatchSize(), properties.getClaimLeaseSeconds()))
+        .thenReturn(List.of(sentEvent, failedEvent));
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    TestRelay relay =
+        new TestRelay(
+            properties,
+            meterRegistry,
+            candidate -> "ORDER_CREATED".equals(candidate.getEventType()));
+
+    relay.dispatch();
+
+    verify(outboxEventService).markSentBatch(List.of(sentEvent.getId()));
+    verify(outboxEventService)
+        .markFailedBatch(
+            List.of(failedEvent), properties.getMaxRetry(), properties.getRetryBackoffSeconds());
+    verify(outboxEventService, never()).markProcessing(anyLong(), anyInt());
+    assertThat(meterRegistry.get("outbox.relay.batch.size").summary().totalAmount())
+        .isEqualTo(2.0d);
+  }
+
   private OutboxEvent newEvent(Long id, String eventType) {
     OutboxEvent event = new OutboxEvent();
     event.setId(id);
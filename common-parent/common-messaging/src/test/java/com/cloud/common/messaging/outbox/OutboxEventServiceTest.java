@@ -0,0 +1,42 @@
+package com.cloud.common.messaging.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+class OutboxEventServiceTest {
+
+  private final OutboxEventMapper outboxEventMapper = mock(OutboxEventMapper.class);
+
+  @SuppressWarnings("unchecked")
+  private final ObjectProvider<OutboxEventMapper> mapperProvider = mock(ObjectProvider.class);
+
+  @Test
+  void perRowClaimUsesConfiguredLease() {
+    when(mapperProvider.getIfAvailable()).thenReturn(outboxEventMapper);
+    when(outboxEventMapper.markProcessing(5L, 180)).thenReturn(1);
+    OutboxEventService service = new OutboxEventService(mapperProvider);
+
+    assertThat(service.markProcessing(5L, 180)).isTrue();
+
+    verify(outboxEventMapper).markProcessing(5L, 180);
+  }
+
+  @Test
+  void batchClaimUsesConfiguredLease() {
+    when(mapperProvider.getIfAvailable()).thenReturn(outboxEventMapper);
+    OutboxEvent event = new OutboxEvent();
+    event.setId(9L);
+    when(outboxEventMapper.selectDueEventsForUpdate(10)).thenReturn(List.of(event));
+    OutboxEventService service = new OutboxEventService(mapperProvider);
+
+    service.claimDueEvents(10, 180);
+
+    verify(outboxEventMapper).markProcessingBatch(List.of(9L), 180);
+  }
+}
@@ -0,0 +1,120 @@
+package com.cloud.common.messaging.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.cloud.common.annotation.DistributedLock;
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Select;
+import org.junit.jupiter.api.Test;
+
+class OutboxRetentionServiceTest {
+
+  private final OutboxEventMapper outboxEventMapper = mock(OutboxEventMapper.class);
+
+  @Test
+  void purgeDeletesSentEventsInBoundedChunks() {
+    OutboxProperties properties = new OutboxProperties();
+    properties.getRetention().setChunkSize(2);
+    properties.getRetention().setMaxChunksPerRun(2);
+    when(outboxEventMapper.selectSentBefore(any(LocalDateTime.class), eq(2)))
+        .thenReturn(List.of(event(1L), event(2L)), List.of(event(3L), event(4L)));
+    when(outboxEventMapper.purgeSentByIds(anyList())).thenReturn(2);
+    OutboxRetentionService service =
+        new OutboxRetentionService(outboxEventMapper, properties, "order-service", null);
+
+    assertThat(service.purgeSentEvents()).isEqualTo(4);
+
+    verify(outboxEventMapper).purgeSentByIds(List.of(1L, 2L));
+    verify(outboxEventMapper).purgeSentByIds(List.of(3L, 4L));
+    verify(outboxEventMapper, times(2)).selectSentBefore(any(LocalDateTime.class), anyInt());
+    verify(outboxEventMapper, never()).archiveSentByIds(any(), anyList());
+  }
+
+  @Test
+  void purgeArchivesIntoMonthlyTablesBeforeDeleting() {
+    OutboxProperties properties = new OutboxProperties();
+    properties.getRetention().setArchiveEnabled(true);
+    OutboxEvent january = event(1L);
+    january.setCreatedAt(LocalDateTime.of(2026, 1, 31, 23, 0));
+    OutboxEvent february = event(2L);
+    february.setCreatedAt(LocalDateTime.of(2026, 2, 1, 1, 0));
+    when(outboxEventMapper.selectSentBefore(any(LocalDateTime.class), anyInt()))
+        .thenReturn(List.of(january, february));
+    when(outboxEventMapper.purgeSentByIds(anyList())).thenReturn(2);
+    OutboxRetentionService service =
+        new OutboxRetentionService(outboxEventMapper, properties, "order-service", null);
+
+    service.purgeSentEvents();
+
+    verify(outboxEventMapper).createArchiveTable("outbox_event_archive_202601");
+    verify(outboxEventMapper).archiveSentByIds("outbox_event_archive_202601", List.of(1L));
+    verify(outboxEventMapper).archiveSentByIds("outbox_event_archive_202602", List.of(2L));
+  }
+
+  @Test
+  void scheduledPurgeRunsUnderPerServiceLock() throws Exception {
+    Method method = OutboxRetentionService.class.getMethod("onScheduledPurge");
+    DistributedLock lock = method.getAnnotation(DistributedLock.class);
+
+    assertThat(lock).isNotNull();
+    assertThat(lock.key()).contains("#target.lockScope");
+    assertThat(
+            new OutboxRetentionService(
+                    outboxEventMapper, new OutboxProperties(), "stock-service", null)
+                .getLockScope())
+        .isEqualTo("stock-service");
+  }
+
+  @Test
+  void dueScansRangeOverNextRetryAtAndRetentionOnlyTouchesSentRows() throws Exception {
+    for (String methodName : List.of("selectDueEvents", "selectDueEventsForUpdate")) {
+      String sql = selectSql(methodName, int.class);
+      assertThat(sql).contains("next_retry_at <= NOW()").contains("ORDER BY next_retry_at ASC");
+      assertThat(sql).doesNotContain(" OR (").doesNotContain("created_at ASC");
+    }
+    assertThat(selectSql("selectDueEventsForUpdate", int.class)).endsWith("FOR UPDATE SKIP LOCKED");
+
+    String retentionScan = selectSql("selectSentBefore", LocalDateTime.class, int.class);
+    assertThat(retentionScan)
+        .contains("status = 'SENT' AND updated_at < #{before}")
+        .contains("ORDER BY updated_at ASC");
+
+    String purge =
+        String.join(
+            "",
+            OutboxEventMapper.class
+                .getMethod("purgeSentByIds", List.class)
+                .getAnnotation(Delete.class)
+                .value());
+    assertThat(purge).contains("DELETE FROM outbox_event WHERE status = 'SENT' AND id IN");
+  }
+
+  private String selectSql(String methodName, Class<?>... parameterTypes) throws Exception {
+    return String.join(
+            "",
+            OutboxEventMapper.class
+                .getMethod(methodName, parameterTypes)
+                .getAnnotation(Select.class)
+                .value())
+        .trim();
+  }
+
+  private OutboxEvent event(Long id) {
+    OutboxEvent event = new OutboxEvent();
+    event.setId(id);
+    event.setCreatedAt(LocalDateTime.now());
+    return event;
+  }
+}
@@ -294,6 +294,98 @@ WHERE g.app_name = 'order-service'
         AND j.executor_handler = 'orderArchiveJob'
   );
 
+INSERT INTO xxl_job_info (
+    job_group,
+    job_desc,
+    author,
+    schedule_type,
+    schedule_conf,
+    misfire_strategy,
+    executor_route_strategy,
+    executor_handler,
+    executor_param,
+    executor_block_strategy,
+    executor_timeout,
+    executor_fail_retry_count,
+    glue_type,
+    glue_remark,
+    trigger_status,
+    trigger_last_time,
+    trigger_next_time
+)
+SELECT
+    g.id,
+    'Compact sales counters',
+    'system',
+    'CRON',
+    '0 10 0 * * ?',
+    'DO_NOTHING',
+    'FIRST',
+    'orderSalesCounterCompactJob',
+    NULL,
+    'SERIAL_EXECUTION',
+    300,
+    0,
+    'BEAN',
+    'seeded by init.sql',
+    1,
+    0,
+    0
+FROM xxl_job_group g
+WHERE g.app_name = 'order-service'
+  AND NOT EXISTS (
+      SELECT 1
+      FROM xxl_job_info j
+      WHERE j.job_group = g.id
+        AND j.executor_handler = 'orderSalesCounterCompactJob'
+  );
+
+INSERT INTO xxl_job_info (
+    job_group,
+    job_desc,
+    author,
+    schedule_type,
+    schedule_conf,
+    misfire_strategy,
+    executor_route_strategy,
+    executor_handler,
+    executor_param,
+    executor_block_strategy,
+    executor_timeout,
+    executor_fail_retry_count,
+    glue_type,
+    glue_remark,
+    trigger_status,
+    trigger_last_time,
+    trigger_next_time
+)
+SELECT
+    g.id,
+    'Rebuild sales counters',
+    'system',
+    'CRON',
+    '0 30 0 * * ?',
+    'DO_NOTHING',
+    'FIRST',
+    'orderSalesCounterRebuildJob',
+    NULL,
+    'SERIAL_EXECUTION',
+    1800,
+    0,
+    'BEAN',
+    'seeded by init.sql',
+    0,
+    0,
+    0
+FROM xxl_job_group g
+WHERE g.app_name = 'order-service'
+  AND NOT EXISTS (
+      SELECT 1
+      FROM xxl_job_info j
+      WHERE j.job_group = g.id
+        AND j.executor_handler = 'orderSalesCounterRebuildJob'
+  );
+
 INSERT INTO xxl_job_group (app_name, title, address_type, address_list)
 SELECT 'payment-service', 'payment-service', 0, NULL
 WHERE NOT EXISTS (SELECT 1 FROM xxl_job_group WHERE app_name = 'payment-service');
@@ -556,7 +648,7 @@ SELECT
     'Refresh sell rank',
     'system',
     'CRON',
-    '0 */30 * * * ?',
+    '0 * * * * ?',
     'DO_NOTHING',
     'FIRST',
     'sellRankRefreshJob',
@@ -29,6 +29,7 @@ CREATE TABLE IF NOT EXISTS order_main
     INDEX idx_order_main_user_deleted_id (user_id, deleted, id),
     INDEX idx_order_main_deleted_id (deleted, id),
     INDEX idx_order_main_user_status_deleted (user_id, order_status, deleted),
+    INDEX idx_order_main_status_deleted_updated (order_status, deleted, updated_at),
     INDEX idx_order_main_created_deleted (created_at, deleted)
 ) ENGINE = InnoDB
   DEFAULT CHARSET = utf8mb4
@@ -65,6 +66,7 @@ CREATE TABLE IF NOT EXISTS order_sub
     UNIQUE KEY uk_order_sub_no (sub_order_no),
     INDEX idx_order_sub_main_deleted (main_order_id, deleted),
     INDEX idx_order_sub_merchant_status_deleted (merchant_id, order_status, deleted),
+    INDEX idx_order_sub_status_deleted_created (order_status, deleted, created_at),
     INDEX idx_order_sub_after_sale_deleted (after_sale_status, deleted)
 ) ENGINE = InnoDB
   DEFAULT CHARSET = utf8mb4
@@ -94,6 +96,27 @@ CREATE TABLE IF NOT EXISTS order_item
   DEFAULT CHARSET = utf8mb4
   COLLATE = utf8mb4_unicode_ci;
 
+CREATE TABLE IF NOT EXISTS order_summary_view
+(
+    main_order_id    BIGINT UNSIGNED NOT NULL,
+    merchant_id      BIGINT UNSIGNED NOT NULL DEFAULT 0 COMMENT '0 = whole order, otherwise the merchant slice',
+    user_id          BIGINT UNSIGNED NOT NULL,
+    main_order_no    VARCHAR(64)     NOT NULL,
+    status_code      TINYINT         NOT NULL DEFAULT 0,
+    order_status     VARCHAR(32)     NOT NULL,
+    summary_json     JSON            NOT NULL,
+    order_created_at DATETIME        NULL,
+    created_at       DATETIME        NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at       DATETIME        NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (main_order_id, merchant_id),
+    INDEX idx_order_summary_view_user_id (user_id, merchant_id, main_order_id),
+    INDEX idx_order_summary_view_user_status_id (user_id, merchant_id, status_code, main_order_id),
+    INDEX idx_order_summary_view_merchant_id (merchant_id, main_order_id),
+    INDEX idx_order_summary_view_merchant_status_id (merchant_id, status_code, main_order_id)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4
+  COLLATE = utf8mb4_unicode_ci;
+
 CREATE TABLE IF NOT EXISTS order_main_archive
 (
     id               BIGINT UNSIGNED PRIMARY KEY,
@@ -118,7 +141,8 @@ CREATE TABLE IF NOT EXISTS order_main_archive
     UNIQUE KEY uk_order_main_archive_user_client_order (user_id, client_order_id),
     UNIQUE KEY uk_order_main_archive_idempotency_key (idempotency_key),
     INDEX idx_order_main_archive_user_status_deleted (user_id, order_status, deleted),
-    INDEX idx_order_main_archive_created_deleted (created_at, deleted)
+    INDEX idx_order_main_archive_created_deleted (created_at, deleted),
+    INDEX idx_order_main_archive_archived_at (archived_at)
 ) ENGINE = InnoDB
   DEFAULT CHARSET = utf8mb4
   COLLATE = utf8mb4_unicode_ci;
@@ -332,8 +356,8 @@ CREATE TABLE IF NOT EXISTS outbox_event
     deleted            TINYINT         NOT NULL DEFAULT 0,
     version            INT             NOT NULL DEFAULT 0,
     UNIQUE KEY uk_outbox_event_id (event_id),
-    INDEX idx_outbox_status_next_retry_deleted (status, next_retry_at, deleted),
-    INDEX idx_outbox_deleted_status_retry (deleted, status, next_retry_at, created_at)
+    INDEX idx_outbox_due (deleted, next_retry_at),
+    INDEX idx_outbox_status_updated (status, updated_at)
 ) ENGINE = InnoDB
   DEFAULT CHARSET = utf8mb4
   COLLATE = utf8mb4_unicode_ci;
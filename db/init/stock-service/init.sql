@@ -24,6 +24,23 @@ CREATE TABLE IF NOT EXISTS stock_segment
   DEFAULT CHARSET = utf8mb4
   COLLATE = utf8mb4_unicode_ci;
 
+CREATE TABLE IF NOT EXISTS stock_ledger_summary
+(
+    sku_id            BIGINT UNSIGNED PRIMARY KEY,
+    available_qty     INT             NOT NULL DEFAULT 0,
+    locked_qty        INT             NOT NULL DEFAULT 0,
+    sold_qty          INT             NOT NULL DEFAULT 0,
+    segment_count     INT             NOT NULL DEFAULT 0,
+    alert_threshold   INT             NOT NULL DEFAULT 0,
+    status            TINYINT         NOT NULL DEFAULT 1,
+    stock_gap         INT GENERATED ALWAYS AS (available_qty - alert_threshold) STORED,
+    created_at        DATETIME        NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at        DATETIME        NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    INDEX idx_stock_ledger_summary_status_gap (status, stock_gap)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4
+  COLLATE = utf8mb4_unicode_ci;
+
 CREATE TABLE IF NOT EXISTS stock_reservation
 (
     id                BIGINT UNSIGNED PRIMARY KEY,
@@ -87,8 +104,8 @@ CREATE TABLE IF NOT EXISTS outbox_event
     deleted            TINYINT       NOT NULL DEFAULT 0,
     version            INT           NOT NULL DEFAULT 0,
     UNIQUE KEY uk_outbox_event_id (event_id),
-    INDEX idx_outbox_status_next_retry_deleted (status, next_retry_at, deleted),
-    INDEX idx_outbox_deleted_status_retry (deleted, status, next_retry_at, created_at)
+    INDEX idx_outbox_due (deleted, next_retry_at),
+    INDEX idx_outbox_status_updated (status, updated_at)
 ) ENGINE = InnoDB
   DEFAULT CHARSET = utf8mb4
   COLLATE = utf8mb4_unicode_ci;
@@ -5,6 +5,7 @@ DELETE FROM outbox_event;
 DELETE FROM stock_txn;
 DELETE FROM stock_reservation;
 DELETE FROM stock_segment;
+DELETE FROM stock_ledger_summary;
 
 INSERT INTO stock_segment (
     id, sku_id, segment_id, available_qty, locked_qty, sold_qty, alert_threshold, status, deleted, version
@@ -42,6 +43,15 @@ VALUES (600011, 51001, 0, 125, 0, 16, 20, 1, 0, 0),
        (600083, 51008, 2, 36, 0, 14, 8, 1, 0, 0),
        (600084, 51008, 3, 36, 0, 15, 8, 1, 0, 0);
 
+INSERT INTO stock_ledger_summary (
+    sku_id, available_qty, locked_qty, sold_qty, segment_count, alert_threshold, status
+)
+SELECT sku_id, SUM(available_qty), SUM(locked_qty), SUM(sold_qty), COUNT(*), MAX(alert_threshold), MAX(status)
+FROM stock_segment
+WHERE deleted = 0
+  AND status = 1
+GROUP BY sku_id;
+
 INSERT INTO stock_reservation (
     id, main_order_no, sub_order_no, sku_id, segment_id, quantity, status, idempotency_key, deleted, version
 )
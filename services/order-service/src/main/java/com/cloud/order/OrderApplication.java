@@ -1,6 +1,7 @@
 package com.cloud.order;
 
 import com.cloud.common.boot.CloudBootstrap;
+import com.cloud.common.minio.MinioAutoConfiguration;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
 import io.swagger.v3.oas.annotations.enums.SecuritySchemeType;
 import io.swagger.v3.oas.annotations.info.Info;
@@ -27,7 +28,7 @@ import org.springframework.scheduling.annotation.EnableScheduling;
             description = "Order service endpoints",
             version = "1.0.0"),
     security = @SecurityRequirement(name = "Authorization"))
-@SpringBootApplication
+@SpringBootApplication(exclude = {MinioAutoConfiguration.class})
 @EnableDubbo
 @EnableDiscoveryClient
 @EnableScheduling
@@ -0,0 +1,27 @@
+package com.cloud.order.config;
+
+import com.cloud.order.service.support.OrderAggregateCacheService;
+import java.nio.charset.StandardCharsets;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+public class OrderAggregateCacheConfig {
+
+  @Bean
+  public RedisMessageListenerContainer orderAggregateCacheListenerContainer(
+      RedisConnectionFactory connectionFactory,
+      OrderAggregateCacheService orderAggregateCacheService) {
+    RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+    container.addMessageListener(
+        (message, pattern) ->
+            orderAggregateCacheService.onInvalidation(
+                new String(message.getBody(), StandardCharsets.UTF_8)),
+        new ChannelTopic(OrderAggregateCacheService.INVALIDATION_CHANNEL));
+    return container;
+  }
+}
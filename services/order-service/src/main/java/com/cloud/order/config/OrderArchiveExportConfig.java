@@ -0,0 +1,26 @@
+package com.cloud.order.config;
+
+import com.cloud.common.minio.MinioProperties;
+import io.minio.MinioClient;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * MinIO client for the archive export. The shared auto-configuration is excluded in this service so
+ * that the client, and the empty-endpoint check it fails on, only exist when export is on.
+ */
+@Configuration
+@ConditionalOnProperty(name = "order.archive.export.enabled", havingValue = "true")
+@EnableConfigurationProperties(MinioProperties.class)
+public class OrderArchiveExportConfig {
+
+  @Bean
+  public MinioClient minioClient(MinioProperties properties) {
+    return MinioClient.builder()
+        .endpoint(properties.getEndpoint())
+        .credentials(properties.getAccessKey(), properties.getSecretKey())
+        .build();
+  }
+}
@@ -113,9 +113,11 @@ public class OrderController {
       @RequestParam(required = false) Long userId,
       @RequestParam(required = false) Long merchantId,
       @RequestParam(required = false) Integer status,
+      @RequestParam(required = false) Long cursor,
       Authentication authentication) {
     return Result.success(
-        orderQueryService.listOrders(authentication, page, size, userId, merchantId, status));
+        orderQueryService.listOrders(
+            authentication, page, size, userId, merchantId, status, cursor));
   }
 
   @GetMapping("/orders/{orderId}")
@@ -3,6 +3,7 @@ package com.cloud.order.mapper;
 import com.baomidou.mybatisplus.annotation.InterceptorIgnore;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.cloud.order.entity.AfterSale;
+import java.util.List;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
@@ -13,12 +14,20 @@ public interface AfterSaleMapper extends BaseMapper<AfterSale> {
   @InterceptorIgnore(illegalSql = "1")
   @Select(
       """
-            SELECT *
-            FROM after_sale FORCE INDEX (idx_after_sale_sub_status_deleted)
-            WHERE sub_order_id = #{subOrderId}
-              AND deleted = 0
-            ORDER BY id DESC
-            LIMIT 1
+            <script>
+            SELECT a.*
+            FROM after_sale a
+            JOIN (
+              SELECT MAX(id) AS id
+              FROM after_sale FORCE INDEX (idx_after_sale_sub_status_deleted)
+              WHERE deleted = 0
+                AND sub_order_id IN
+                <foreach collection="subOrderIds" item="subOrderId" open="(" separator="," close=")">
+                  #{subOrderId}
+                </foreach>
+              GROUP BY sub_order_id
+            ) latest ON latest.id = a.id
+            </script>
             """)
-  AfterSale selectLatestActiveBySubOrderId(@Param("subOrderId") Long subOrderId);
+  List<AfterSale> listLatestActiveBySubOrderIds(@Param("subOrderIds") List<Long> subOrderIds);
 }
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.annotation.InterceptorIgnore;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.cloud.order.entity.Cart;
 import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
@@ -24,6 +25,25 @@ public interface CartMapper extends BaseMapper<Cart> {
             """)
   Cart selectActiveByUserId(@Param("userId") Long userId);
 
+  @InterceptorIgnore(illegalSql = "1")
+  @Select(
+      """
+            SELECT *
+            FROM cart
+            WHERE id = #{cartId}
+            FOR UPDATE
+            """)
+  Cart selectByIdForUpdate(@Param("cartId") Long cartId);
+
+  @InterceptorIgnore(illegalSql = "1")
+  @Insert(
+      """
+            INSERT IGNORE INTO cart (id, cart_no, user_id, cart_status)
+            VALUES (#{cartId}, #{cartNo}, #{userId}, 'CHECKED_OUT')
+            """)
+  int insertCheckedOutIfAbsent(
+      @Param("cartId") Long cartId, @Param("cartNo") String cartNo, @Param("userId") Long userId);
+
   @InterceptorIgnore(illegalSql = "1")
   @Delete(
       """
@@ -6,6 +6,7 @@ import com.cloud.common.domain.dto.order.ProductSellStatDTO;
 import com.cloud.order.entity.OrderItem;
 import java.time.LocalDateTime;
 import java.util.List;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
@@ -40,44 +41,58 @@ public interface OrderItemMapper extends BaseMapper<OrderItem> {
             """)
   List<OrderItem> listActiveBySubOrderIds(@Param("subOrderIds") List<Long> subOrderIds);
 
+  /**
+   * Paid units per SPU of sub-orders that reached PAID, bucketed by the main order's paid_at, live
+   * and archived rows alike. Only the sales counter rebuild runs this aggregate.
+   */
   @InterceptorIgnore(illegalSql = "1")
   @Select(
       """
-            SELECT oi.spu_id AS productId,
-                   SUM(oi.quantity) AS sellCount
-            FROM order_item oi
-            JOIN order_sub os ON oi.sub_order_id = os.id
-            WHERE oi.deleted = 0
-              AND os.deleted = 0
-              AND os.order_status = 'DONE'
-              AND os.done_at &gt;= #{start}
-              AND os.done_at &lt; #{end}
-            GROUP BY oi.spu_id
-            ORDER BY sellCount DESC
-            LIMIT #{limit}
+            <script>
+            SELECT paid.spu_id AS productId,
+                   SUM(paid.quantity) AS sellCount
+            FROM (
+              SELECT oi.spu_id, oi.quantity
+              FROM order_item oi
+              JOIN order_sub os ON oi.sub_order_id = os.id
+              JOIN order_main om ON os.main_order_id = om.id
+              WHERE oi.deleted = 0
+                AND os.deleted = 0
+                AND os.order_status IN ('PAID', 'SHIPPED', 'DONE')
+                <if test="start != null">AND om.paid_at &gt;= #{start}</if>
+                AND om.paid_at &lt; #{end}
+              UNION ALL
+              SELECT oi.spu_id, oi.quantity
+              FROM order_item_archive oi
+              JOIN order_sub_archive os ON oi.sub_order_id = os.id
+              JOIN order_main_archive om ON os.main_order_id = om.id
+              WHERE oi.deleted = 0
+                AND os.deleted = 0
+                AND os.order_status IN ('PAID', 'SHIPPED', 'DONE')
+                <if test="start != null">AND om.paid_at &gt;= #{start}</if>
+                AND om.paid_at &lt; #{end}
+            ) paid
+            GROUP BY paid.spu_id
+            </script>
             """)
-  List<ProductSellStatDTO> listDailySellStats(
-      @Param("start") LocalDateTime start,
-      @Param("end") LocalDateTime end,
-      @Param("limit") Integer limit);
+  List<ProductSellStatDTO> listPaidSellStats(
+      @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
   @InterceptorIgnore(illegalSql = "1")
-  @Select(
+  @Insert(
       """
             <script>
-            SELECT oi.spu_id AS productId,
-                   SUM(oi.quantity) AS sellCount
-            FROM order_item oi
-            JOIN order_sub os ON oi.sub_order_id = os.id
-            WHERE oi.deleted = 0
-              AND os.deleted = 0
-              AND os.order_status = 'DONE'
-              AND oi.spu_id IN
-              <foreach collection="productIds" item="productId" open="(" separator="," close=")">
-                #{productId}
-              </foreach>
-            GROUP BY oi.spu_id
+            INSERT INTO order_item
+              (id, main_order_id, sub_order_id, spu_id, sku_id, sku_code, sku_name, sku_snapshot,
+               quantity, unit_price, total_price, created_at, updated_at, deleted, version)
+            VALUES
+            <foreach collection="items" item="item" separator=",">
+              (#{item.id}, #{item.mainOrderId}, #{item.subOrderId}, #{item.spuId}, #{item.skuId},
+               #{item.skuCode}, #{item.skuName}, #{item.skuSnapshot}, #{item.quantity},
+               #{item.unitPrice}, #{item.totalPrice},
+               #{item.createdAt}, #{item.updatedAt}, #{item.deleted}, #{item.version})
+            </foreach>
             </script>
             """)
-  List<ProductSellStatDTO> listSellStatsByProductIds(@Param("productIds") List<Long> productIds);
+  int insertBatch(@Param("items") List<OrderItem> items);
 }
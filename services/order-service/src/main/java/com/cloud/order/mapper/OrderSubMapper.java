@@ -6,6 +6,7 @@ import com.cloud.order.entity.OrderSub;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
@@ -102,6 +103,28 @@ public interface OrderSubMapper extends BaseMapper<OrderSub> {
       @Param("timeoutPoint") LocalDateTime timeoutPoint,
       @Param("limit") Integer limit);
 
+  @InterceptorIgnore(illegalSql = "1")
+  @Select(
+      """
+            <script>
+            SELECT id, main_order_id, created_at
+            FROM order_sub
+            WHERE order_status = #{status}
+              AND deleted = 0
+              <if test="afterCreatedAt != null">
+                AND (created_at &gt; #{afterCreatedAt}
+                  OR (created_at = #{afterCreatedAt} AND id &gt; #{afterId}))
+              </if>
+            ORDER BY created_at ASC, id ASC
+            LIMIT #{limit}
+            </script>
+            """)
+  List<OrderSub> listPendingTimeouts(
+      @Param("status") String status,
+      @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+      @Param("afterId") Long afterId,
+      @Param("limit") int limit);
+
   @InterceptorIgnore(illegalSql = "1")
   @Select(
       """
@@ -126,7 +149,8 @@ public interface OrderSubMapper extends BaseMapper<OrderSub> {
                 tracking_number = #{trackingNumber},
                 estimated_arrival = #{estimatedArrival},
                 shipping_status = #{shippingStatus},
-                shipped_at = COALESCE(shipped_at, #{shippedAt})
+                shipped_at = COALESCE(shipped_at, #{shippedAt}),
+                version = version + 1
             WHERE id = #{subOrderId}
               AND deleted = 0
             """)
@@ -137,4 +161,25 @@ public interface OrderSubMapper extends BaseMapper<OrderSub> {
       @Param("estimatedArrival") LocalDate estimatedArrival,
       @Param("shippedAt") LocalDateTime shippedAt,
       @Param("shippingStatus") String shippingStatus);
+
+  @InterceptorIgnore(illegalSql = "1")
+  @Insert(
+      """
+            <script>
+            INSERT INTO order_sub
+              (id, sub_order_no, main_order_id, merchant_id, order_status, shipping_status,
+               after_sale_status, item_amount, shipping_fee, discount_amount, payable_amount,
+               receiver_name, receiver_phone, receiver_address,
+               created_at, updated_at, deleted, version)
+            VALUES
+            <foreach collection="subs" item="sub" separator=",">
+              (#{sub.id}, #{sub.subOrderNo}, #{sub.mainOrderId}, #{sub.merchantId},
+               #{sub.orderStatus}, #{sub.shippingStatus}, #{sub.afterSaleStatus},
+               #{sub.itemAmount}, #{sub.shippingFee}, #{sub.discountAmount}, #{sub.payableAmount},
+               #{sub.receiverName}, #{sub.receiverPhone}, #{sub.receiverAddress},
+               #{sub.createdAt}, #{sub.updatedAt}, #{sub.deleted}, #{sub.version})
+            </foreach>
+            </script>
+            """)
+  int insertBatch(@Param("subs") List<OrderSub> subs);
 }
@@ -0,0 +1,134 @@
+package com.cloud.order.mapper;
+
+import com.baomidou.mybatisplus.annotation.InterceptorIgnore;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+@Mapper
+public interface OrderSummaryViewMapper {
+
+  long WHOLE_ORDER = 0L;
+
+  @InterceptorIgnore(illegalSql = "1")
+  @Select(
+      """
+            <script>
+            SELECT summary_json
+            FROM order_summary_view
+            WHERE merchant_id = #{merchantId}
+              <if test="userId != null">
+                AND user_id = #{userId}
+              </if>
+              <if test="statusCode != null">
+                AND status_code = #{statusCode}
+              </if>
+              <if test="cursor != null">
+                AND main_order_id &lt; #{cursor}
+              </if>
+            ORDER BY main_order_id DESC
+            LIMIT #{offset}, #{limit}
+            </script>
+            """)
+  List<String> listSummaries(
+      @Param("merchantId") Long merchantId,
+      @Param("userId") Long userId,
+      @Param("statusCode") Integer statusCode,
+      @Param("cursor") Long cursor,
+      @Param("offset") long offset,
+      @Param("limit") int limit);
+
+  @InterceptorIgnore(illegalSql = "1")
+  @Select(
+      """
+            <script>
+            SELECT COUNT(*) FROM (
+              SELECT 1
+              FROM order_summary_view
+              WHERE merchant_id = #{merchantId}
+                <if test="userId != null">
+                  AND user_id = #{userId}
+                </if>
+                <if test="statusCode != null">
+                  AND status_code = #{statusCode}
+                </if>
+              LIMIT #{cap}
+            ) capped
+            </script>
+            """)
+  long countSummaries(
+      @Param("merchantId") Long merchantId,
+      @Param("userId") Long userId,
+      @Param("statusCode") Integer statusCode,
+      @Param("cap") int cap);
+
+  @InterceptorIgnore(illegalSql = "1")
+  @Insert(
+      """
+            <script>
+            INSERT INTO order_summary_view
+              (main_order_id, merchant_id, user_id, main_order_no, status_code, order_status,
+               summary_json, order_created_at)
+            VALUES
+            <foreach collection="rows" item="row" separator=",">
+              (#{row.mainOrderId}, #{row.merchantId}, #{row.userId}, #{row.mainOrderNo},
+               #{row.statusCode}, #{row.orderStatus}, #{row.summaryJson}, #{row.orderCreatedAt})
+            </foreach>
+            ON DUPLICATE KEY UPDATE
+              user_id = VALUES(user_id),
+              main_order_no = VALUES(main_order_no),
+              status_code = VALUES(status_code),
+              order_status = VALUES(order_status),
+              summary_json = VALUES(summary_json),
+              order_created_at = VALUES(order_created_at),
+              updated_at = NOW()
+            </script>
+            """)
+  int upsertBatch(@Param("rows") List<SummaryRow> rows);
+
+  @InterceptorIgnore(illegalSql = "1")
+  @Delete(
+      """
+            <script>
+            DELETE FROM order_summary_view
+            WHERE main_order_id IN
+              <foreach collection="mainOrderIds" item="mainOrderId" open="(" separator="," close=")">
+                #{mainOrderId}
+              </foreach>
+            </script>
+            """)
+  int deleteByMainOrderIds(@Param("mainOrderIds") List<Long> mainOrderIds);
+
+  @InterceptorIgnore(illegalSql = "1")
+  @Delete(
+      """
+            <script>
+            DELETE FROM order_summary_view
+            WHERE main_order_id = #{mainOrderId}
+              AND merchant_id NOT IN
+              <foreach collection="merchantIds" item="merchantId" open="(" separator="," close=")">
+                #{merchantId}
+              </foreach>
+            </script>
+            """)
+  int deleteSlicesOtherThan(
+      @Param("mainOrderId") Long mainOrderId, @Param("merchantIds") List<Long> merchantIds);
+
+  /**
+   * One listing row: {@code merchantId} is {@link #WHOLE_ORDER} for the user/admin row covering
+   * every sub-order, otherwise the slice a merchant sees.
+   */
+  record SummaryRow(
+      Long mainOrderId,
+      Long merchantId,
+      Long userId,
+      String mainOrderNo,
+      Integer statusCode,
+      String orderStatus,
+      String summaryJson,
+      LocalDateTime orderCreatedAt) {}
+}
@@ -24,6 +24,11 @@ public class OrderDubboService implements OrderDubboApi {
     return orderQueryService.statSellCountToday(limit);
   }
 
+  @Override
+  public List<ProductSellStatDTO> statSellCountInWindow(Integer days, Integer limit) {
+    return orderQueryService.statSellCountInWindow(days, limit);
+  }
+
   @Override
   public List<ProductSellStatDTO> statSellCountByProductIds(List<Long> productIds) {
     return orderQueryService.statSellCountByProductIds(productIds);
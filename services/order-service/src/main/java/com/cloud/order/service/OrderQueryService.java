@@ -16,7 +16,8 @@ public interface OrderQueryService {
       Integer size,
       Long userId,
       Long merchantId,
-      Integer status);
+      Integer status,
+      Long cursor);
 
   OrderSummaryDTO getOrderSummary(Long orderId, Authentication authentication);
 
@@ -28,5 +29,7 @@ public interface OrderQueryService {
 
   List<ProductSellStatDTO> statSellCountToday(Integer limit);
 
+  List<ProductSellStatDTO> statSellCountInWindow(Integer days, Integer limit);
+
   List<ProductSellStatDTO> statSellCountByProductIds(List<Long> productIds);
 }
@@ -11,12 +11,15 @@ import java.util.List;
 
 public interface OrderService {
 
-  OrderMain createMainOrder(CreateMainOrderRequest request);
+  OrderAggregateResponse createMainOrder(CreateMainOrderRequest request);
 
   OrderMain getMainOrder(Long mainOrderId);
 
   OrderAggregateResponse getOrderAggregate(Long mainOrderId);
 
+  /** Assembles the aggregate from the database, bypassing the aggregate cache. */
+  OrderAggregateResponse loadOrderAggregate(Long mainOrderId);
+
   List<OrderSub> listSubOrders(Long mainOrderId);
 
   OrderSub getSubOrder(Long subOrderId);
@@ -7,20 +7,17 @@ import com.cloud.common.remote.RemoteCallSupport;
 import com.cloud.order.dto.CartDTO;
 import com.cloud.order.dto.CartItemDTO;
 import com.cloud.order.dto.CartSyncRequest;
-import com.cloud.order.entity.Cart;
 import com.cloud.order.entity.CartItem;
-import com.cloud.order.mapper.CartItemMapper;
-import com.cloud.order.mapper.CartMapper;
 import com.cloud.order.service.CartService;
+import com.cloud.order.service.support.CartHotStore;
+import com.cloud.order.service.support.ProductSnapshotLoader;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import org.apache.dubbo.config.annotation.DubboReference;
 import org.springframework.stereotype.Service;
@@ -31,8 +28,7 @@ public class CartServiceImpl implements CartService {
 
   private static final String CART_STATUS_ACTIVE = "ACTIVE";
 
-  private final CartMapper cartMapper;
-  private final CartItemMapper cartItemMapper;
+  private final CartHotStore cartHotStore;
   private final RemoteCallSupport remoteCallSupport;
 
   @DubboReference(check = false, timeout = 5000, retries = 0)
@@ -41,7 +37,7 @@ public class CartServiceImpl implements CartService {
   @Override
   public CartDTO getCurrentCart(Long userId) {
     Long safeUserId = requireUserId(userId);
-    Cart cart = findOrCreateActiveCart(safeUserId, false);
+    CartHotStore.Snapshot cart = cartHotStore.load(safeUserId);
     if (cart == null) {
       CartDTO empty = new CartDTO();
       empty.setUserId(safeUserId);
@@ -51,58 +47,28 @@ public class CartServiceImpl implements CartService {
       empty.setItems(List.of());
       return empty;
     }
-    return toCartDto(cart, listActiveItems(cart.getId(), safeUserId));
+    return toCartDto(cart);
   }
 
   @Override
   public CartDTO syncCart(Long userId, CartSyncRequest request) {
     Long safeUserId = requireUserId(userId);
-    Cart cart = findOrCreateActiveCart(safeUserId, true);
     List<CartSyncRequest.CartSyncItemRequest> requests =
         request == null || request.getItems() == null ? List.of() : request.getItems();
     Map<Long, CartSyncRequest.CartSyncItemRequest> requestBySkuId = normalizeRequests(requests);
-    List<CartItem> activeItems = listActiveItems(cart.getId(), safeUserId);
-    Map<Long, CartItem> activeBySkuId = new HashMap<>();
-    for (CartItem activeItem : activeItems) {
-      activeBySkuId.put(activeItem.getSkuId(), activeItem);
-    }
-    Map<Long, CartItem> existingBySkuId =
-        loadExistingItemsBySkuId(safeUserId, new ArrayList<>(requestBySkuId.keySet()));
-
+    List<CartItem> items = new ArrayList<>(requestBySkuId.size());
     for (CartSyncRequest.CartSyncItemRequest itemRequest : requestBySkuId.values()) {
-      CartItem existing = existingBySkuId.get(itemRequest.getSkuId());
-      if (existing == null) {
-        CartItem created = new CartItem();
-        created.setCartId(cart.getId());
-        created.setUserId(safeUserId);
-        created.setSpuId(itemRequest.getSpuId());
-        created.setSkuId(itemRequest.getSkuId());
-        created.setSkuName(itemRequest.getSkuName().trim());
-        created.setUnitPrice(itemRequest.getUnitPrice());
-        created.setQuantity(itemRequest.getQuantity());
-        created.setSelected(normalizeSelected(itemRequest.getSelected()));
-        created.setCheckedOut(0);
-        cartItemMapper.insert(created);
-        continue;
-      }
-      existing.setCartId(cart.getId());
-      existing.setSpuId(itemRequest.getSpuId());
-      existing.setSkuName(itemRequest.getSkuName().trim());
-      existing.setUnitPrice(itemRequest.getUnitPrice());
-      existing.setQuantity(itemRequest.getQuantity());
-      existing.setSelected(normalizeSelected(itemRequest.getSelected()));
-      existing.setCheckedOut(0);
-      cartItemMapper.updateById(existing);
-      activeBySkuId.remove(itemRequest.getSkuId());
-    }
-
-    for (CartItem staleItem : activeBySkuId.values()) {
-      cartItemMapper.deleteById(staleItem.getId());
-    }
-
-    List<CartItem> syncedItems = listActiveItems(cart.getId(), safeUserId);
-    refreshCartSummary(cart, syncedItems);
-    return toCartDto(cart, syncedItems);
+      CartItem item = new CartItem();
+      item.setSpuId(itemRequest.getSpuId());
+      item.setSkuId(itemRequest.getSkuId());
+      item.setSkuName(itemRequest.getSkuName().trim());
+      item.setUnitPrice(itemRequest.getUnitPrice());
+      item.setQuantity(itemRequest.getQuantity());
+      item.setSelected(normalizeSelected(itemRequest.getSelected()));
+      items.add(item);
+    }
+    // Persisted to cart and cart_item by CartWriteBehindFlusher.
+    return toCartDto(cartHotStore.sync(safeUserId, items));
   }
 
   private Map<Long, CartSyncRequest.CartSyncItemRequest> normalizeRequests(
@@ -132,50 +98,10 @@ public class CartServiceImpl implements CartService {
     return normalized;
   }
 
-  private Cart findOrCreateActiveCart(Long userId, boolean createIfMissing) {
-    Cart cart = cartMapper.selectActiveByUserId(userId);
-    if (cart != null || !createIfMissing) {
-      return cart;
-    }
-    Cart created = new Cart();
-    created.setCartNo(buildCartNo(userId));
-    created.setUserId(userId);
-    created.setCartStatus(CART_STATUS_ACTIVE);
-    created.setSelectedCount(0);
-    created.setTotalAmount(BigDecimal.ZERO);
-    cartMapper.insert(created);
-    return created;
-  }
-
-  private List<CartItem> listActiveItems(Long cartId, Long userId) {
-    if (cartId == null || userId == null) {
-      return List.of();
-    }
-    List<CartItem> items = cartItemMapper.listActiveByCartIdAndUserId(cartId, userId);
-    return items == null ? List.of() : items;
-  }
-
-  private Map<Long, CartItem> loadExistingItemsBySkuId(Long userId, List<Long> skuIds) {
-    if (userId == null || skuIds == null || skuIds.isEmpty()) {
-      return Map.of();
-    }
-    List<CartItem> items = cartItemMapper.selectByUserIdAndSkuIds(userId, skuIds);
-    if (items == null || items.isEmpty()) {
-      return Map.of();
-    }
-    Map<Long, CartItem> existingBySkuId = new HashMap<>();
-    for (CartItem item : items) {
-      if (item != null && item.getSkuId() != null) {
-        existingBySkuId.put(item.getSkuId(), item);
-      }
-    }
-    return existingBySkuId;
-  }
-
-  private void refreshCartSummary(Cart cart, List<CartItem> items) {
+  private CartDTO toCartDto(CartHotStore.Snapshot cart) {
     int selectedCount = 0;
     BigDecimal totalAmount = BigDecimal.ZERO;
-    for (CartItem item : items) {
+    for (CartItem item : cart.items()) {
       if (normalizeSelected(item.getSelected()) == 1) {
         selectedCount += 1;
         totalAmount =
@@ -185,20 +111,14 @@ public class CartServiceImpl implements CartService {
                         BigDecimal.valueOf(item.getQuantity() == null ? 0 : item.getQuantity())));
       }
     }
-    cart.setSelectedCount(selectedCount);
-    cart.setTotalAmount(totalAmount);
-    cartMapper.updateById(cart);
-  }
-
-  private CartDTO toCartDto(Cart cart, List<CartItem> items) {
     CartDTO dto = new CartDTO();
-    dto.setId(cart.getId());
-    dto.setCartNo(cart.getCartNo());
-    dto.setUserId(cart.getUserId());
-    dto.setCartStatus(cart.getCartStatus());
-    dto.setSelectedCount(cart.getSelectedCount());
-    dto.setTotalAmount(defaultAmount(cart.getTotalAmount()));
-    dto.setItems(toItemDtos(items));
+    dto.setId(cart.cartId());
+    dto.setCartNo(cart.cartNo());
+    dto.setUserId(cart.userId());
+    dto.setCartStatus(CART_STATUS_ACTIVE);
+    dto.setSelectedCount(selectedCount);
+    dto.setTotalAmount(totalAmount);
+    dto.setItems(toItemDtos(cart.items()));
     return dto;
   }
 
@@ -206,7 +126,9 @@ public class CartServiceImpl implements CartService {
     if (items == null || items.isEmpty()) {
       return List.of();
     }
-    Map<Long, SpuDetailVO> spuDetails = loadSpuDetails(items);
+    Map<Long, SpuDetailVO> spuDetails =
+        ProductSnapshotLoader.lenient(productDubboApi, remoteCallSupport)
+            .loadSpus(items.stream().map(CartItem::getSpuId).toList());
     List<CartItemDTO> result = new ArrayList<>(items.size());
     for (CartItem item : items) {
       CartItemDTO dto = new CartItemDTO();
@@ -234,24 +156,6 @@ public class CartServiceImpl implements CartService {
     return result;
   }
 
-  private Map<Long, SpuDetailVO> loadSpuDetails(List<CartItem> items) {
-    Map<Long, SpuDetailVO> result = new HashMap<>();
-    for (CartItem item : items) {
-      if (item.getSpuId() == null || result.containsKey(item.getSpuId())) {
-        continue;
-      }
-      SpuDetailVO spuDetail =
-          remoteCallSupport.queryOrFallback(
-              "product-service.get spu by id",
-              () -> productDubboApi.getSpuById(item.getSpuId()),
-              ex -> null);
-      if (spuDetail != null && spuDetail.getSpuId() != null) {
-        result.put(spuDetail.getSpuId(), spuDetail);
-      }
-    }
-    return result;
-  }
-
   private int normalizeSelected(Integer selected) {
     return Objects.equals(selected, 0) ? 0 : 1;
   }
@@ -266,8 +170,4 @@ public class CartServiceImpl implements CartService {
     }
     return userId;
   }
-
-  private String buildCartNo(Long userId) {
-    return "CART-" + userId + "-" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
-  }
 }
@@ -16,6 +16,7 @@ import com.cloud.order.messaging.OrderTimeoutMessageProducer;
 import com.cloud.order.service.OrderPlacementService;
 import com.cloud.order.service.OrderService;
 import com.cloud.order.service.support.OrderPlacementSupport;
+import com.cloud.order.service.support.OrderTimeoutScheduler;
 import com.cloud.order.service.support.StockReservationRemoteService;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
@@ -35,6 +36,7 @@ public class OrderPlacementServiceImpl implements OrderPlacementService {
   private final StockReservationRemoteService stockReservationRemoteService;
   private final OrderMessageProducer orderMessageProducer;
   private final OrderTimeoutMessageProducer orderTimeoutMessageProducer;
+  private final OrderTimeoutScheduler orderTimeoutScheduler;
 
   @Override
   @Transactional(rollbackFor = Exception.class)
@@ -62,12 +64,10 @@ public class OrderPlacementServiceImpl implements OrderPlacementService {
       throw new BizException("insufficient available stock");
     }
 
-    OrderMain mainOrder = orderService.createMainOrder(request);
+    OrderAggregateResponse aggregate = requireAggregate(orderService.createMainOrder(request));
     if (request.getCartId() != null) {
       orderPlacementSupport.markCartCheckedOut(request.getCartId(), request.getUserId());
     }
-    OrderAggregateResponse aggregate =
-        requireAggregate(orderService.getOrderAggregate(mainOrder.getId()));
     emitReserveRequest(aggregate);
     emitTimeoutEvents(aggregate);
     return aggregate;
@@ -98,6 +98,7 @@ public class OrderPlacementServiceImpl implements OrderPlacementService {
               .userId(aggregate.getMainOrder().getUserId())
               .build();
       orderTimeoutMessageProducer.sendAfterCommit(event);
+      orderTimeoutScheduler.scheduleAfterCommit(subOrder);
     }
   }
 
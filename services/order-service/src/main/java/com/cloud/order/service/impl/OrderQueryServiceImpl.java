@@ -1,7 +1,5 @@
 package com.cloud.order.service.impl;
 
-import com.baomidou.mybatisplus.core.metadata.IPage;
-import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.cloud.api.product.ProductDubboApi;
 import com.cloud.api.user.UserDubboApi;
 import com.cloud.common.domain.dto.order.ProductSellStatDTO;
@@ -9,25 +7,27 @@ import com.cloud.common.domain.vo.order.OrderSubStatusVO;
 import com.cloud.common.domain.vo.product.SkuDetailVO;
 import com.cloud.common.domain.vo.product.SpuDetailVO;
 import com.cloud.common.exception.BizException;
+import com.cloud.common.exception.SystemException;
 import com.cloud.common.remote.RemoteCallSupport;
 import com.cloud.common.result.PageResult;
 import com.cloud.common.security.SecurityPermissionUtils;
+import com.cloud.order.dto.OrderAggregateResponse;
 import com.cloud.order.dto.OrderSummaryDTO;
 import com.cloud.order.entity.AfterSale;
 import com.cloud.order.entity.OrderItem;
 import com.cloud.order.entity.OrderMain;
 import com.cloud.order.entity.OrderSub;
 import com.cloud.order.mapper.AfterSaleMapper;
-import com.cloud.order.mapper.OrderItemMapper;
 import com.cloud.order.mapper.OrderMainMapper;
 import com.cloud.order.mapper.OrderSubMapper;
+import com.cloud.order.mapper.OrderSummaryViewMapper;
 import com.cloud.order.service.OrderQueryService;
 import com.cloud.order.service.OrderService;
-import com.cloud.order.service.support.OrderRefundSagaCoordinator;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.cloud.order.service.support.OrderAggregateCacheService;
+import com.cloud.order.service.support.OrderSalesCounterService;
+import com.cloud.order.service.support.OrderSummaryAssembler;
+import com.cloud.order.service.support.ProductSnapshotLoader;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -36,6 +36,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
@@ -44,16 +45,20 @@ import org.springframework.util.StringUtils;
 @RequiredArgsConstructor
 public class OrderQueryServiceImpl implements OrderQueryService {
 
-  private static final TypeReference<Map<String, Object>> SNAPSHOT_TYPE = new TypeReference<>() {};
-
   private final OrderService orderService;
   private final OrderMainMapper orderMainMapper;
   private final OrderSubMapper orderSubMapper;
-  private final OrderItemMapper orderItemMapper;
   private final AfterSaleMapper afterSaleMapper;
+  private final OrderSummaryViewMapper orderSummaryViewMapper;
+  private final OrderAggregateCacheService orderAggregateCacheService;
+  private final OrderSummaryAssembler orderSummaryAssembler;
+  private final OrderSalesCounterService orderSalesCounterService;
   private final RemoteCallSupport remoteCallSupport;
   private final ObjectMapper objectMapper;
 
+  @Value("${order.query.count-cap:1000}")
+  private int countCap;
+
   @org.apache.dubbo.config.annotation.DubboReference private ProductDubboApi productDubboApi;
 
   @org.apache.dubbo.config.annotation.DubboReference(check = false, timeout = 5000, retries = 0)
@@ -66,34 +71,89 @@ public class OrderQueryServiceImpl implements OrderQueryService {
       Integer size,
       Long userId,
       Long merchantId,
-      Integer status) {
+      Integer status,
+      Long cursor) {
     int safePage = page == null || page < 1 ? 1 : page;
     int safeSize = size == null || size <= 0 ? 20 : size;
     safeSize = Math.min(safeSize, 100);
 
-    IPage<OrderMain> pageResult =
-        queryMainOrders(authentication, safePage, safeSize, userId, merchantId, status);
-    List<OrderMain> mains = pageResult == null ? Collections.emptyList() : pageResult.getRecords();
-    Long summaryMerchantId = resolveSummaryMerchantId(authentication, merchantId);
-    Map<Long, List<OrderSub>> subOrdersByMainId = loadSubOrdersByMainIds(mains, summaryMerchantId);
-
-    List<OrderSummaryDTO> summaries = new ArrayList<>(mains.size());
-    for (OrderMain main : mains) {
-      List<OrderSub> subs = subOrdersByMainId.getOrDefault(main.getId(), List.of());
-      summaries.add(toSummary(main, subs, loadItemsBySubOrders(subs)));
-    }
-
-    long total = pageResult == null ? 0L : pageResult.getTotal();
-    return PageResult.of((long) safePage, (long) safeSize, total, summaries);
+    Long viewMerchantId;
+    Long viewUserId;
+    if (isAdmin(authentication)) {
+      viewMerchantId = merchantId;
+      viewUserId = userId;
+    } else if (isMerchant(authentication)) {
+      viewMerchantId = requireCurrentMerchantId(authentication);
+      viewUserId = null;
+    } else {
+      viewMerchantId = null;
+      viewUserId = requireCurrentUserId(authentication);
+    }
+
+    // A cursor (the last order id of the previous page) turns the read into a pure keyset scan.
+    long offset = cursor == null ? (long) (safePage - 1) * safeSize : 0L;
+    long viewScope = viewMerchantId == null ? OrderSummaryViewMapper.WHOLE_ORDER : viewMerchantId;
+    List<String> rows =
+        orderSummaryViewMapper.listSummaries(
+            viewScope, viewUserId, status, cursor, offset, safeSize + 1);
+    boolean hasMore = rows.size() > safeSize;
+    List<OrderSummaryDTO> summaries = new ArrayList<>(Math.min(rows.size(), safeSize));
+    for (String row : rows.subList(0, Math.min(rows.size(), safeSize))) {
+      summaries.add(readSummary(row));
+    }
+
+    // hasNext comes from the probe row. Keyset reads skip the count; offset reads count at most
+    // count-cap rows, so total is exact for small scopes and otherwise a floor that never falls
+    // below the rows already paged through.
+    long total = (long) (safePage - 1) * safeSize + summaries.size() + (hasMore ? 1 : 0);
+    if (cursor == null) {
+      total =
+          Math.max(
+              total,
+              orderSummaryViewMapper.countSummaries(
+                  viewScope, viewUserId, status, Math.max(1, countCap)));
+    }
+    PageResult<OrderSummaryDTO> result =
+        PageResult.of((long) safePage, (long) safeSize, total, summaries);
+    result.setHasNext(hasMore);
+    return result;
   }
 
   @Override
   public OrderSummaryDTO getOrderSummary(Long orderId, Authentication authentication) {
-    OrderMain main = requireAccessibleMainOrder(orderId, authentication);
+    OrderAggregateResponse aggregate = orderService.getOrderAggregate(orderId);
+    if (aggregate == null || aggregate.getMainOrder() == null) {
+      throw new BizException("main order not found");
+    }
+    OrderMain main = aggregate.getMainOrder();
+    List<OrderSub> allSubs = new ArrayList<>();
+    Map<Long, List<OrderItem>> itemsBySubOrderId = new HashMap<>();
+    if (aggregate.getSubOrders() != null) {
+      for (OrderAggregateResponse.SubOrderWithItems wrapped : aggregate.getSubOrders()) {
+        if (wrapped == null || wrapped.getSubOrder() == null) {
+          continue;
+        }
+        allSubs.add(wrapped.getSubOrder());
+        itemsBySubOrderId.put(
+            wrapped.getSubOrder().getId(),
+            wrapped.getItems() == null ? List.of() : wrapped.getItems());
+      }
+    }
     Long summaryMerchantId = resolveSummaryMerchantId(authentication, null);
-    List<OrderSub> subs =
-        filterSummarySubOrders(orderService.listSubOrders(orderId), summaryMerchantId);
-    return toSummary(main, subs, loadItemsBySubOrders(subs));
+    List<OrderSub> subs = filterSummarySubOrders(allSubs, summaryMerchantId);
+    if (!isAdmin(authentication)) {
+      if (summaryMerchantId != null) {
+        if (subs.isEmpty()) {
+          throw new BizException("forbidden");
+        }
+      } else if (!Objects.equals(main.getUserId(), requireCurrentUserId(authentication))) {
+        throw new BizException("forbidden");
+      }
+    }
+    OrderSummaryDTO summary =
+        orderSummaryAssembler.assemble(main, subs, itemsBySubOrderId, loadLatestAfterSales(subs));
+    applyLatestProducts(summary.getItems());
+    return summary;
   }
 
   @Override
@@ -135,6 +195,7 @@ public class OrderQueryServiceImpl implements OrderQueryService {
     }
     main.setCancelReason(cancelReason.trim());
     orderMainMapper.updateById(main);
+    orderAggregateCacheService.refreshAfterCommit(mainOrderId);
   }
 
   @Override
@@ -165,10 +226,14 @@ public class OrderQueryServiceImpl implements OrderQueryService {
 
   @Override
   public List<ProductSellStatDTO> statSellCountToday(Integer limit) {
+    return statSellCountInWindow(1, limit);
+  }
+
+  @Override
+  public List<ProductSellStatDTO> statSellCountInWindow(Integer days, Integer limit) {
+    int safeDays = days == null || days <= 0 ? 1 : days;
     int safeLimit = limit == null || limit <= 0 ? 100 : Math.min(limit, 1000);
-    LocalDateTime start = LocalDate.now().atStartOfDay();
-    LocalDateTime end = start.plusDays(1);
-    return orderItemMapper.listDailySellStats(start, end, safeLimit);
+    return orderSalesCounterService.topSellers(safeDays, safeLimit);
   }
 
   @Override
@@ -185,7 +250,7 @@ public class OrderQueryServiceImpl implements OrderQueryService {
     if (safeProductIds.isEmpty()) {
       return List.of();
     }
-    return orderItemMapper.listSellStatsByProductIds(safeProductIds);
+    return orderSalesCounterService.lifetimeSales(safeProductIds);
   }
 
   private boolean isAdmin(Authentication authentication) {
@@ -196,66 +261,6 @@ public class OrderQueryServiceImpl implements OrderQueryService {
     return SecurityPermissionUtils.isMerchant(authentication);
   }
 
-  private IPage<OrderMain> queryMainOrders(
-      Authentication authentication,
-      int page,
-      int size,
-      Long userId,
-      Long merchantId,
-      Integer status) {
-    Page<OrderMain> pageData = new Page<>(page, size);
-    if (status != null) {
-      if (isAdmin(authentication)) {
-        return orderMainMapper.selectPageByVisibleStatus(pageData, merchantId, userId, status);
-      }
-      if (isMerchant(authentication)) {
-        Long currentMerchantId = requireCurrentMerchantId(authentication);
-        return orderMainMapper.selectPageByVisibleStatus(pageData, currentMerchantId, null, status);
-      }
-      Long currentUserId = requireCurrentUserId(authentication);
-      return orderMainMapper.selectPageByVisibleStatus(pageData, null, currentUserId, status);
-    }
-
-    if (isAdmin(authentication)) {
-      if (merchantId != null) {
-        return orderMainMapper.selectPageByMerchant(pageData, merchantId, List.of(), userId);
-      }
-      return orderMainMapper.selectPageActive(pageData, userId);
-    }
-
-    if (isMerchant(authentication)) {
-      Long currentMerchantId = requireCurrentMerchantId(authentication);
-      return orderMainMapper.selectPageByMerchant(pageData, currentMerchantId, List.of(), null);
-    }
-
-    Long currentUserId = requireCurrentUserId(authentication);
-    return orderMainMapper.selectPageActive(pageData, currentUserId);
-  }
-
-  private Map<Long, List<OrderSub>> loadSubOrdersByMainIds(
-      List<OrderMain> mains, Long summaryMerchantId) {
-    if (mains == null || mains.isEmpty()) {
-      return Collections.emptyMap();
-    }
-    List<Long> mainIds = mains.stream().map(OrderMain::getId).filter(id -> id != null).toList();
-    if (mainIds.isEmpty()) {
-      return Collections.emptyMap();
-    }
-    List<OrderSub> subs = orderSubMapper.listActiveByMainOrderIds(mainIds);
-    subs = filterSummarySubOrders(subs, summaryMerchantId);
-    if (subs == null || subs.isEmpty()) {
-      return Collections.emptyMap();
-    }
-    Map<Long, List<OrderSub>> grouped = new java.util.HashMap<>();
-    for (OrderSub sub : subs) {
-      if (sub == null || sub.getMainOrderId() == null) {
-        continue;
-      }
-      grouped.computeIfAbsent(sub.getMainOrderId(), ignored -> new ArrayList<>()).add(sub);
-    }
-    return grouped;
-  }
-
   private List<OrderSub> filterSummarySubOrders(List<OrderSub> subs, Long summaryMerchantId) {
     if (subs == null || subs.isEmpty()) {
       return Collections.emptyList();
@@ -268,211 +273,48 @@ public class OrderQueryServiceImpl implements OrderQueryService {
         .toList();
   }
 
-  private OrderSummaryDTO toSummary(
-      OrderMain main, List<OrderSub> subs, Map<Long, List<OrderItem>> itemsBySubOrderId) {
-    OrderSummaryDTO summary = new OrderSummaryDTO();
-    summary.setId(main.getId());
-    summary.setOrderNo(main.getMainOrderNo());
-    summary.setUserId(main.getUserId());
-    summary.setTotalAmount(main.getTotalAmount());
-    summary.setPayAmount(main.getPayableAmount());
-    summary.setCreatedAt(main.getCreatedAt());
-    summary.setOrderStatusRaw(main.getOrderStatus());
-    summary.setStatus(resolveStatusCode(subs));
-    summary.setItems(buildItemSummaries(subs, itemsBySubOrderId));
-    List<OrderSummaryDTO.SubOrderSummaryDTO> subSummaries = buildSubOrderSummaries(subs);
-    summary.setSubOrders(subSummaries);
-    if (subSummaries.size() == 1) {
-      applySingleSubOrderSummary(summary, subSummaries.get(0));
-    }
-    return summary;
-  }
-
-  private List<OrderSummaryDTO.SubOrderSummaryDTO> buildSubOrderSummaries(List<OrderSub> subs) {
-    if (subs == null || subs.isEmpty()) {
-      return List.of();
-    }
-    List<OrderSummaryDTO.SubOrderSummaryDTO> summaries = new ArrayList<>(subs.size());
-    for (OrderSub sub : subs) {
-      if (sub == null) {
-        continue;
-      }
-      OrderSummaryDTO.SubOrderSummaryDTO summary = new OrderSummaryDTO.SubOrderSummaryDTO();
-      summary.setSubOrderId(sub.getId());
-      summary.setSubOrderNo(sub.getSubOrderNo());
-      summary.setMerchantId(sub.getMerchantId());
-      summary.setPayAmount(sub.getPayableAmount());
-      summary.setStatus(resolveSubStatusCode(sub));
-      summary.setOrderStatusRaw(sub.getOrderStatus());
-      summary.setAfterSaleStatus(sub.getAfterSaleStatus());
-
-      AfterSale latestAfterSale = findLatestAfterSale(sub.getId());
-      if (latestAfterSale != null) {
-        summary.setAfterSaleId(latestAfterSale.getId());
-        summary.setAfterSaleNo(latestAfterSale.getAfterSaleNo());
-        summary.setAfterSaleType(latestAfterSale.getAfterSaleType());
-        if (StringUtils.hasText(latestAfterSale.getAfterSaleNo())) {
-          summary.setRefundNo(
-              OrderRefundSagaCoordinator.buildRefundNo(latestAfterSale.getAfterSaleNo()));
-        }
-      }
-      summaries.add(summary);
-    }
-    return summaries;
-  }
-
-  private void applySingleSubOrderSummary(
-      OrderSummaryDTO summary, OrderSummaryDTO.SubOrderSummaryDTO subSummary) {
-    if (summary == null || subSummary == null) {
-      return;
-    }
-    summary.setSubOrderId(subSummary.getSubOrderId());
-    summary.setSubOrderNo(subSummary.getSubOrderNo());
-    summary.setMerchantId(subSummary.getMerchantId());
-    summary.setAfterSaleId(subSummary.getAfterSaleId());
-    summary.setAfterSaleNo(subSummary.getAfterSaleNo());
-    summary.setAfterSaleType(subSummary.getAfterSaleType());
-    summary.setRefundNo(subSummary.getRefundNo());
-    summary.setOrderStatusRaw(subSummary.getOrderStatusRaw());
-    summary.setAfterSaleStatus(subSummary.getAfterSaleStatus());
-  }
-
-  private Map<Long, List<OrderItem>> loadItemsBySubOrders(List<OrderSub> subs) {
+  private Map<Long, AfterSale> loadLatestAfterSales(List<OrderSub> subs) {
     if (subs == null || subs.isEmpty()) {
       return Collections.emptyMap();
     }
-    List<Long> subOrderIds = subs.stream().map(OrderSub::getId).filter(Objects::nonNull).toList();
-    if (subOrderIds.isEmpty()) {
-      return Collections.emptyMap();
-    }
-    List<OrderItem> items = orderItemMapper.listActiveBySubOrderIds(subOrderIds);
-    if (items == null || items.isEmpty()) {
-      return Collections.emptyMap();
-    }
-    Map<Long, List<OrderItem>> grouped = new HashMap<>();
-    for (OrderItem item : items) {
-      if (item == null || item.getSubOrderId() == null) {
-        continue;
-      }
-      grouped.computeIfAbsent(item.getSubOrderId(), ignored -> new ArrayList<>()).add(item);
-    }
-    return grouped;
-  }
-
-  private List<OrderSummaryDTO.OrderItemSummaryDTO> buildItemSummaries(
-      List<OrderSub> subs, Map<Long, List<OrderItem>> itemsBySubOrderId) {
-    if (subs == null
-        || subs.isEmpty()
-        || itemsBySubOrderId == null
-        || itemsBySubOrderId.isEmpty()) {
-      return List.of();
-    }
-    List<OrderItem> allItems = new ArrayList<>();
-    for (OrderSub sub : subs) {
-      if (sub == null || sub.getId() == null) {
-        continue;
-      }
-      allItems.addAll(itemsBySubOrderId.getOrDefault(sub.getId(), List.of()));
-    }
-    if (allItems.isEmpty()) {
-      return List.of();
-    }
-
-    Map<Long, SkuDetailVO> latestSkuMap = loadLatestSkuMap(allItems);
-    Map<Long, SpuDetailVO> latestSpuMap = loadLatestSpuMap(latestSkuMap.values());
-    List<OrderSummaryDTO.OrderItemSummaryDTO> result = new ArrayList<>(allItems.size());
-    for (OrderItem item : allItems) {
-      result.add(toItemSummary(item, latestSkuMap.get(item.getSkuId()), latestSpuMap));
-    }
-    return result;
-  }
-
-  private Map<Long, SkuDetailVO> loadLatestSkuMap(List<OrderItem> items) {
-    List<Long> skuIds =
-        items.stream()
-            .map(OrderItem::getSkuId)
-            .filter(Objects::nonNull)
-            .collect(java.util.stream.Collectors.toCollection(LinkedHashSet::new))
-            .stream()
-            .toList();
-    if (skuIds.isEmpty()) {
-      return Collections.emptyMap();
-    }
-    List<SkuDetailVO> skuDetails =
-        remoteCallSupport.queryOrFallback(
-            "product-service.list sku by ids",
-            () -> productDubboApi.listSkuByIds(skuIds),
-            ex -> List.of());
-    if (skuDetails == null || skuDetails.isEmpty()) {
-      return Collections.emptyMap();
-    }
-    Map<Long, SkuDetailVO> latestSkuMap = new HashMap<>();
-    for (SkuDetailVO skuDetail : skuDetails) {
-      if (skuDetail != null && skuDetail.getSkuId() != null) {
-        latestSkuMap.put(skuDetail.getSkuId(), skuDetail);
-      }
-    }
-    return latestSkuMap;
-  }
-
-  private Map<Long, SpuDetailVO> loadLatestSpuMap(java.util.Collection<SkuDetailVO> skuDetails) {
-    if (skuDetails == null || skuDetails.isEmpty()) {
-      return Collections.emptyMap();
-    }
-    List<Long> spuIds =
-        skuDetails.stream()
-            .map(SkuDetailVO::getSpuId)
+    List<Long> subOrderIds =
+        subs.stream()
+            .filter(
+                sub ->
+                    StringUtils.hasText(sub.getAfterSaleStatus())
+                        && !"NONE".equals(sub.getAfterSaleStatus().trim()))
+            .map(OrderSub::getId)
             .filter(Objects::nonNull)
-            .collect(java.util.stream.Collectors.toCollection(LinkedHashSet::new))
-            .stream()
             .toList();
-    if (spuIds.isEmpty()) {
+    if (subOrderIds.isEmpty()) {
       return Collections.emptyMap();
     }
-    Map<Long, SpuDetailVO> latestSpuMap = new HashMap<>();
-    for (Long spuId : spuIds) {
-      SpuDetailVO spuDetail =
-          remoteCallSupport.queryOrFallback(
-              "product-service.get spu by id", () -> productDubboApi.getSpuById(spuId), ex -> null);
-      if (spuDetail != null && spuDetail.getSpuId() != null) {
-        latestSpuMap.put(spuDetail.getSpuId(), spuDetail);
-      }
+    Map<Long, AfterSale> latest = new HashMap<>();
+    for (AfterSale afterSale : afterSaleMapper.listLatestActiveBySubOrderIds(subOrderIds)) {
+      latest.put(afterSale.getSubOrderId(), afterSale);
     }
-    return latestSpuMap;
-  }
-
-  private OrderSummaryDTO.OrderItemSummaryDTO toItemSummary(
-      OrderItem item, SkuDetailVO latestSku, Map<Long, SpuDetailVO> latestSpuMap) {
-    OrderSummaryDTO.OrderItemSummaryDTO summary = new OrderSummaryDTO.OrderItemSummaryDTO();
-    summary.setId(item.getId());
-    summary.setSubOrderId(item.getSubOrderId());
-    summary.setSpuId(item.getSpuId());
-    summary.setSkuId(item.getSkuId());
-    summary.setSkuCode(item.getSkuCode());
-    summary.setSkuName(item.getSkuName());
-    summary.setQuantity(item.getQuantity());
-    summary.setUnitPrice(item.getUnitPrice());
-    summary.setTotalPrice(item.getTotalPrice());
-    summary.setSkuSnapshot(parseSnapshot(item.getSkuSnapshot()));
-    summary.setLatestProduct(buildLatestProduct(item, latestSku, latestSpuMap));
-    return summary;
+    return latest;
   }
 
-  private Map<String, Object> parseSnapshot(String snapshot) {
-    if (!StringUtils.hasText(snapshot)) {
-      return Collections.emptyMap();
+  private void applyLatestProducts(List<OrderSummaryDTO.OrderItemSummaryDTO> items) {
+    if (items == null || items.isEmpty()) {
+      return;
     }
-    try {
-      return objectMapper.readValue(snapshot, SNAPSHOT_TYPE);
-    } catch (Exception ex) {
-      Map<String, Object> fallback = new HashMap<>();
-      fallback.put("raw", snapshot);
-      return fallback;
+    ProductSnapshotLoader productLoader =
+        ProductSnapshotLoader.lenient(productDubboApi, remoteCallSupport);
+    Map<Long, SkuDetailVO> latestSkuMap =
+        productLoader.loadSkus(
+            items.stream().map(OrderSummaryDTO.OrderItemSummaryDTO::getSkuId).toList());
+    Map<Long, SpuDetailVO> latestSpuMap =
+        productLoader.loadSpus(latestSkuMap.values().stream().map(SkuDetailVO::getSpuId).toList());
+    for (OrderSummaryDTO.OrderItemSummaryDTO item : items) {
+      item.setLatestProduct(
+          buildLatestProduct(item.getSpuId(), latestSkuMap.get(item.getSkuId()), latestSpuMap));
     }
   }
 
   private OrderSummaryDTO.LatestProductDTO buildLatestProduct(
-      OrderItem item, SkuDetailVO latestSku, Map<Long, SpuDetailVO> latestSpuMap) {
+      Long itemSpuId, SkuDetailVO latestSku, Map<Long, SpuDetailVO> latestSpuMap) {
     if (latestSku == null) {
       return null;
     }
@@ -495,63 +337,17 @@ public class OrderQueryServiceImpl implements OrderQueryService {
       latestProduct.setMerchantId(latestSpu.getMerchantId());
       latestProduct.setShopName(latestSpu.getShopName());
     } else {
-      latestProduct.setSpuId(item.getSpuId());
+      latestProduct.setSpuId(itemSpuId);
     }
     return latestProduct;
   }
 
-  private AfterSale findLatestAfterSale(Long subOrderId) {
-    if (subOrderId == null) {
-      return null;
-    }
-    return afterSaleMapper.selectLatestActiveBySubOrderId(subOrderId);
-  }
-
-  private Integer resolveStatusCode(List<OrderSub> subs) {
-    if (subs == null || subs.isEmpty()) {
-      return 0;
-    }
-    boolean allDone = subs.stream().allMatch(sub -> "DONE".equals(sub.getOrderStatus()));
-    if (allDone) {
-      return 3;
-    }
-    boolean allClosed =
-        subs.stream()
-            .allMatch(
-                sub ->
-                    "CANCELLED".equals(sub.getOrderStatus())
-                        || "CLOSED".equals(sub.getOrderStatus()));
-    if (allClosed) {
-      return 4;
-    }
-    boolean anyShipped = subs.stream().anyMatch(sub -> "SHIPPED".equals(sub.getOrderStatus()));
-    if (anyShipped) {
-      return 2;
-    }
-    boolean anyPaid = subs.stream().anyMatch(sub -> "PAID".equals(sub.getOrderStatus()));
-    if (anyPaid) {
-      return 1;
-    }
-    return 0;
-  }
-
-  private Integer resolveSubStatusCode(OrderSub sub) {
-    if (sub == null) {
-      return 0;
-    }
-    if ("DONE".equals(sub.getOrderStatus())) {
-      return 3;
-    }
-    if ("CANCELLED".equals(sub.getOrderStatus()) || "CLOSED".equals(sub.getOrderStatus())) {
-      return 4;
-    }
-    if ("SHIPPED".equals(sub.getOrderStatus())) {
-      return 2;
-    }
-    if ("PAID".equals(sub.getOrderStatus())) {
-      return 1;
+  private OrderSummaryDTO readSummary(String json) {
+    try {
+      return objectMapper.readValue(json, OrderSummaryDTO.class);
+    } catch (Exception ex) {
+      throw new SystemException("failed to read order summary view row", ex);
     }
-    return 0;
   }
 
   private Long resolveSummaryMerchantId(Authentication authentication, Long requestedMerchantId) {
@@ -1,6 +1,8 @@
 package com.cloud.order.service.impl;
 
 import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
+import com.cloud.common.domain.BaseEntity;
 import com.cloud.common.domain.dto.stock.StockOperateCommandDTO;
 import com.cloud.common.enums.ResultCode;
 import com.cloud.common.exception.BizException;
@@ -25,7 +27,9 @@ import com.cloud.order.messaging.OrderMessageProducer;
 import com.cloud.order.messaging.OrderShippedMessageProducer;
 import com.cloud.order.service.OrderService;
 import com.cloud.order.service.support.OrderAggregateCacheService;
+import com.cloud.order.service.support.OrderNoGenerator;
 import com.cloud.order.service.support.OrderRefundSagaCoordinator;
+import com.cloud.order.service.support.OrderSummaryViewService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.math.BigDecimal;
@@ -37,7 +41,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.dao.DuplicateKeyException;
@@ -86,13 +89,16 @@ public class OrderServiceImpl implements OrderService {
   private final ObjectProvider<OrderRefundSagaCoordinator> orderRefundSagaCoordinatorProvider;
   private final TradeMetrics tradeMetrics;
   private final OrderAggregateCacheService orderAggregateCacheService;
+  private final OrderSummaryViewService orderSummaryViewService;
   private final OrderShippedMessageProducer orderShippedMessageProducer;
   private final OrderAutoReceiveMessageProducer orderAutoReceiveMessageProducer;
   private final OrderMessageProducer orderMessageProducer;
+  private final IdentifierGenerator identifierGenerator;
+  private final OrderNoGenerator orderNoGenerator;
 
   @Override
   @Transactional(rollbackFor = Exception.class)
-  public OrderMain createMainOrder(CreateMainOrderRequest request) {
+  public OrderAggregateResponse createMainOrder(CreateMainOrderRequest request) {
     try {
       String idempotencyKey =
           buildScopedIdempotencyKey(request.getUserId(), request.getIdempotencyKey());
@@ -106,18 +112,18 @@ public class OrderServiceImpl implements OrderService {
       if (existingByClientOrderId != null) {
         tradeMetrics.incrementOrder("success");
         tradeMetrics.incrementOrderPlacement("success");
-        return existingByClientOrderId;
+        return getOrderAggregate(existingByClientOrderId.getId());
       }
 
       OrderMain existing = findActiveMainOrderByIdempotencyKey(idempotencyKey);
       if (existing != null) {
         tradeMetrics.incrementOrder("success");
         tradeMetrics.incrementOrderPlacement("success");
-        return existing;
+        return getOrderAggregate(existing.getId());
       }
 
       OrderMain main = new OrderMain();
-      main.setMainOrderNo("M" + UUID.randomUUID().toString().replace("-", ""));
+      main.setMainOrderNo(orderNoGenerator.nextMainOrderNo());
       main.setUserId(request.getUserId());
       main.setOrderStatus("CREATED");
       main.setTotalAmount(defaultAmount(request.getTotalAmount()));
@@ -134,20 +140,26 @@ public class OrderServiceImpl implements OrderService {
         if (duplicatedByClientOrderId != null) {
           tradeMetrics.incrementOrder("success");
           tradeMetrics.incrementOrderPlacement("success");
-          return duplicatedByClientOrderId;
+          return getOrderAggregate(duplicatedByClientOrderId.getId());
         }
         OrderMain duplicated = findActiveMainOrderByIdempotencyKey(idempotencyKey);
         if (duplicated != null) {
           tradeMetrics.incrementOrder("success");
           tradeMetrics.incrementOrderPlacement("success");
-          return duplicated;
+          return getOrderAggregate(duplicated.getId());
         }
         throw duplicateKeyException;
       }
 
+      LocalDateTime now = main.getCreatedAt() == null ? LocalDateTime.now() : main.getCreatedAt();
+      List<OrderSub> subs = new ArrayList<>(request.getSubOrders().size());
+      List<OrderItem> items = new ArrayList<>();
+      List<OrderAggregateResponse.SubOrderWithItems> wrapped =
+          new ArrayList<>(request.getSubOrders().size());
       for (CreateMainOrderRequest.CreateSubOrderRequest subRequest : request.getSubOrders()) {
         OrderSub sub = new OrderSub();
-        sub.setSubOrderNo("S" + UUID.randomUUID().toString().replace("-", ""));
+        sub.setId(identifierGenerator.nextId(sub).longValue());
+        sub.setSubOrderNo(orderNoGenerator.nextSubOrderNo());
         sub.setMainOrderId(main.getId());
         sub.setMerchantId(subRequest.getMerchantId());
         sub.setOrderStatus("CREATED");
@@ -160,10 +172,13 @@ public class OrderServiceImpl implements OrderService {
         sub.setReceiverName(subRequest.getReceiverName());
         sub.setReceiverPhone(subRequest.getReceiverPhone());
         sub.setReceiverAddress(subRequest.getReceiverAddress());
-        orderSubMapper.insert(sub);
+        fillInsertDefaults(sub, now);
+        subs.add(sub);
 
+        List<OrderItem> subItems = new ArrayList<>(subRequest.getItems().size());
         for (CreateMainOrderRequest.CreateOrderItemRequest itemRequest : subRequest.getItems()) {
           OrderItem item = new OrderItem();
+          item.setId(identifierGenerator.nextId(item).longValue());
           item.setMainOrderId(main.getId());
           item.setSubOrderId(sub.getId());
           item.setSpuId(itemRequest.getSpuId());
@@ -174,12 +189,30 @@ public class OrderServiceImpl implements OrderService {
           item.setQuantity(itemRequest.getQuantity());
           item.setUnitPrice(defaultAmount(itemRequest.getUnitPrice()));
           item.setTotalPrice(defaultAmount(itemRequest.getTotalPrice()));
-          orderItemMapper.insert(item);
+          fillInsertDefaults(item, now);
+          subItems.add(item);
         }
+        items.addAll(subItems);
+
+        OrderAggregateResponse.SubOrderWithItems subWithItems =
+            new OrderAggregateResponse.SubOrderWithItems();
+        subWithItems.setSubOrder(sub);
+        subWithItems.setItems(subItems);
+        wrapped.add(subWithItems);
+      }
+      orderSubMapper.insertBatch(subs);
+      if (!items.isEmpty()) {
+        orderItemMapper.insertBatch(items);
       }
+
+      OrderAggregateResponse response = new OrderAggregateResponse();
+      response.setMainOrder(main);
+      response.setSubOrders(wrapped);
+      orderSummaryViewService.project(response);
+      orderAggregateCacheService.putAfterCommit(response);
       tradeMetrics.incrementOrder("success");
       tradeMetrics.incrementOrderPlacement("success");
-      return main;
+      return response;
     } catch (Exception ex) {
       tradeMetrics.incrementOrder("failed");
       tradeMetrics.incrementOrderPlacement("failed");
@@ -187,6 +220,13 @@ public class OrderServiceImpl implements OrderService {
     }
   }
 
+  private void fillInsertDefaults(BaseEntity<?> entity, LocalDateTime now) {
+    entity.setCreatedAt(now);
+    entity.setUpdatedAt(now);
+    entity.setDeleted(0);
+    entity.setVersion(1);
+  }
+
   private OrderMain findActiveMainOrderByIdempotencyKey(String idempotencyKey) {
     return orderMainMapper.selectActiveByIdempotencyKey(idempotencyKey);
   }
@@ -206,6 +246,13 @@ public class OrderServiceImpl implements OrderService {
     if (cached != null) {
       return cached;
     }
+    OrderAggregateResponse response = loadOrderAggregate(mainOrderId);
+    orderAggregateCacheService.put(response);
+    return response;
+  }
+
+  @Override
+  public OrderAggregateResponse loadOrderAggregate(Long mainOrderId) {
     OrderMain main = orderMainMapper.selectById(mainOrderId);
     if (main == null || Integer.valueOf(1).equals(main.getDeleted())) {
       return null;
@@ -242,9 +289,6 @@ public class OrderServiceImpl implements OrderService {
       wrapped.add(item);
     }
     response.setSubOrders(wrapped);
-    if ("DONE".equals(main.getOrderStatus())) {
-      orderAggregateCacheService.put(mainOrderId, response);
-    }
     return response;
   }
 
@@ -297,7 +341,8 @@ public class OrderServiceImpl implements OrderService {
       orderAutoReceiveMessageProducer.sendAfterCommit(buildOrderAutoReceiveEvent(sub));
     }
     refreshMainOrderStatus(sub.getMainOrderId());
-    orderAggregateCacheService.evict(sub.getMainOrderId());
+    orderAggregateCacheService.refreshAfterCommit(sub.getMainOrderId());
+    orderSummaryViewService.refresh(sub.getMainOrderId());
     return sub;
   }
 
@@ -313,7 +358,8 @@ public class OrderServiceImpl implements OrderService {
     afterSale.setCloseReason(null);
     afterSaleMapper.insert(afterSale);
     syncSubOrderAfterSaleStatus(afterSale.getSubOrderId(), afterSale.getStatus());
-    orderAggregateCacheService.evict(afterSale.getMainOrderId());
+    orderAggregateCacheService.refreshAfterCommit(afterSale.getMainOrderId());
+    orderSummaryViewService.refresh(afterSale.getMainOrderId());
     return afterSale;
   }
 
@@ -349,7 +395,8 @@ public class OrderServiceImpl implements OrderService {
       }
       afterSaleMapper.updateById(afterSale);
       syncSubOrderAfterSaleStatus(afterSale.getSubOrderId(), afterSale.getStatus());
-      orderAggregateCacheService.evict(afterSale.getMainOrderId());
+      orderAggregateCacheService.refreshAfterCommit(afterSale.getMainOrderId());
+      orderSummaryViewService.refresh(afterSale.getMainOrderId());
 
       if (refundSuccess) {
         tradeMetrics.incrementRefund("success");
@@ -58,7 +58,7 @@ public class OrderShippingServiceImpl implements OrderShippingService {
     }
 
     OrderSub latest = orderSubMapper.selectById(subOrderId);
-    orderAggregateCacheService.evict(latest.getMainOrderId());
+    orderAggregateCacheService.refreshAfterCommit(latest.getMainOrderId());
     return latest;
   }
 }
@@ -1,5 +1,6 @@
 package com.cloud.order.service.impl;
 
+import com.cloud.common.domain.dto.payment.PaymentOrderLookupDTO;
 import com.cloud.common.domain.vo.payment.PaymentOrderVO;
 import com.cloud.common.exception.BizException;
 import com.cloud.order.entity.OrderMain;
@@ -11,7 +12,12 @@ import com.cloud.order.service.OrderService;
 import com.cloud.order.service.OrderTimeoutService;
 import com.cloud.order.service.support.PaymentOrderRemoteService;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -39,9 +45,14 @@ public class OrderTimeoutServiceImpl implements OrderTimeoutService {
   @Value("${order.timeout.batch-size:200}")
   private Integer timeoutBatchSize;
 
+  @Value("${order.timeout.reconcile-grace-minutes:5}")
+  private int reconcileGraceMinutes;
+
   @Override
   public int checkAndHandleTimeoutOrders() {
-    List<Long> timeoutSubOrderIds = getTimeoutSubOrderIds(timeoutMinutes);
+    // The timeout wheel cancels on time; this sweep only picks up orders it missed.
+    List<Long> timeoutSubOrderIds =
+        getTimeoutSubOrderIds(timeoutMinutes + Math.max(0, reconcileGraceMinutes));
     if (timeoutSubOrderIds.isEmpty()) {
       return 0;
     }
@@ -67,21 +78,25 @@ public class OrderTimeoutServiceImpl implements OrderTimeoutService {
       return false;
     }
     OrderSub currentSubOrder = orderSubMapper.selectById(subOrderId);
-    if (currentSubOrder == null || Integer.valueOf(1).equals(currentSubOrder.getDeleted())) {
-      return false;
-    }
-    if (!CANCELLABLE_TIMEOUT_STATUSES.contains(currentSubOrder.getOrderStatus())) {
+    if (!isCancellable(currentSubOrder)) {
       return false;
     }
     OrderMain mainOrder = orderMainMapper.selectById(currentSubOrder.getMainOrderId());
     if (hasCompletedRemotePayment(mainOrder, currentSubOrder)) {
-      log.info(
-          "Skip timeout cancel because payment is already confirmed: subOrderId={}, subOrderNo={}",
-          subOrderId,
-          currentSubOrder.getSubOrderNo());
+      logPaidSkip(currentSubOrder);
       return false;
     }
-    OrderSub updated = orderService.advanceSubOrderStatus(subOrderId, OrderAction.CANCEL);
+    return cancel(currentSubOrder);
+  }
+
+  private boolean isCancellable(OrderSub subOrder) {
+    return subOrder != null
+        && !Integer.valueOf(1).equals(subOrder.getDeleted())
+        && CANCELLABLE_TIMEOUT_STATUSES.contains(subOrder.getOrderStatus());
+  }
+
+  private boolean cancel(OrderSub subOrder) {
+    OrderSub updated = orderService.advanceSubOrderStatus(subOrder.getId(), OrderAction.CANCEL);
     if (updated == null) {
       return false;
     }
@@ -89,14 +104,15 @@ public class OrderTimeoutServiceImpl implements OrderTimeoutService {
     return true;
   }
 
+  private void logPaidSkip(OrderSub subOrder) {
+    log.info(
+        "Skip timeout cancel because payment is already confirmed: subOrderId={}, subOrderNo={}",
+        subOrder.getId(),
+        subOrder.getSubOrderNo());
+  }
+
   private boolean hasCompletedRemotePayment(OrderMain mainOrder, OrderSub subOrder) {
-    if (mainOrder == null
-        || Integer.valueOf(1).equals(mainOrder.getDeleted())
-        || mainOrder.getMainOrderNo() == null
-        || mainOrder.getMainOrderNo().isBlank()
-        || subOrder == null
-        || subOrder.getSubOrderNo() == null
-        || subOrder.getSubOrderNo().isBlank()) {
+    if (!hasOrderNos(mainOrder, subOrder)) {
       return false;
     }
     PaymentOrderVO paymentOrder =
@@ -105,26 +121,98 @@ public class OrderTimeoutServiceImpl implements OrderTimeoutService {
     return paymentOrder != null && PAYMENT_STATUS_PAID.equals(paymentOrder.getStatus());
   }
 
+  private static boolean hasOrderNos(OrderMain mainOrder, OrderSub subOrder) {
+    return mainOrder != null
+        && !Integer.valueOf(1).equals(mainOrder.getDeleted())
+        && mainOrder.getMainOrderNo() != null
+        && !mainOrder.getMainOrderNo().isBlank()
+        && subOrder.getSubOrderNo() != null
+        && !subOrder.getSubOrderNo().isBlank();
+  }
+
+  /**
+   * Resolves the payment status of the whole batch with one payment-service call before any cancel
+   * runs, then cancels each sub-order in its own transaction.
+   */
   @Override
-  @Transactional(rollbackFor = Exception.class)
   public int batchCancelTimeoutOrders(List<Long> subOrderIds) {
     if (subOrderIds == null || subOrderIds.isEmpty()) {
       return 0;
     }
+    List<OrderSub> subOrders =
+        orderSubMapper.selectBatchIds(new LinkedHashSet<>(subOrderIds)).stream()
+            .filter(this::isCancellable)
+            .toList();
+    if (subOrders.isEmpty()) {
+      return 0;
+    }
+    Map<Long, OrderMain> mainOrders = new HashMap<>();
+    for (OrderMain mainOrder :
+        orderMainMapper.selectBatchIds(
+            subOrders.stream().map(OrderSub::getMainOrderId).distinct().toList())) {
+      mainOrders.put(mainOrder.getId(), mainOrder);
+    }
+    Set<String> paidOrderNos;
+    try {
+      paidOrderNos = loadPaidOrderNos(subOrders, mainOrders);
+    } catch (Exception e) {
+      log.warn(
+          "Skip timeout order batch because payment status lookup failed: size={}",
+          subOrders.size(),
+          e);
+      return 0;
+    }
 
     int successCount = 0;
-    for (Long subOrderId : subOrderIds) {
+    for (OrderSub subOrder : subOrders) {
+      OrderMain mainOrder = mainOrders.get(subOrder.getMainOrderId());
+      if (hasOrderNos(mainOrder, subOrder)
+          && paidOrderNos.contains(
+              orderNoKey(mainOrder.getMainOrderNo(), subOrder.getSubOrderNo()))) {
+        logPaidSkip(subOrder);
+        continue;
+      }
       try {
-        if (cancelTimeoutOrder(subOrderId)) {
+        if (cancel(subOrder)) {
           successCount++;
         }
       } catch (Exception e) {
-        log.warn("Skip timeout order cancel failure: subOrderId={}", subOrderId);
+        log.warn("Skip timeout order cancel failure: subOrderId={}", subOrder.getId());
       }
     }
     return successCount;
   }
 
+  private Set<String> loadPaidOrderNos(List<OrderSub> subOrders, Map<Long, OrderMain> mainOrders) {
+    List<PaymentOrderLookupDTO> lookups = new ArrayList<>();
+    for (OrderSub subOrder : subOrders) {
+      OrderMain mainOrder = mainOrders.get(subOrder.getMainOrderId());
+      if (hasOrderNos(mainOrder, subOrder)) {
+        lookups.add(
+            new PaymentOrderLookupDTO(mainOrder.getMainOrderNo(), subOrder.getSubOrderNo()));
+      }
+    }
+    if (lookups.isEmpty()) {
+      return Set.of();
+    }
+    List<PaymentOrderVO> paymentOrders =
+        paymentOrderRemoteService.listPaymentOrdersByOrderNos(lookups);
+    if (paymentOrders == null) {
+      return Set.of();
+    }
+    Set<String> paidOrderNos = new HashSet<>();
+    for (PaymentOrderVO paymentOrder : paymentOrders) {
+      if (PAYMENT_STATUS_PAID.equals(paymentOrder.getStatus())) {
+        paidOrderNos.add(orderNoKey(paymentOrder.getMainOrderNo(), paymentOrder.getSubOrderNo()));
+      }
+    }
+    return paidOrderNos;
+  }
+
+  private static String orderNoKey(String mainOrderNo, String subOrderNo) {
+    return mainOrderNo + ":" + subOrderNo;
+  }
+
   @Override
   public Integer getTimeoutConfig() {
     return timeoutMinutes;
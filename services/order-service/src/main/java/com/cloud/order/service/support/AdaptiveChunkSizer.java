@@ -0,0 +1,33 @@
+package com.cloud.order.service.support;
+
+/**
+ * Sizes archive chunks from the latency of the previous one: halves the chunk when it ran past the
+ * target and grows it by a quarter while it stays under half of it, so each transaction stays short
+ * whatever the current load on the primary.
+ */
+final class AdaptiveChunkSizer {
+
+  private final int minSize;
+  private final int maxSize;
+  private final long targetMillis;
+  private int size;
+
+  AdaptiveChunkSizer(int initialSize, int minSize, int maxSize, long targetMillis) {
+    this.minSize = Math.max(1, minSize);
+    this.maxSize = Math.max(this.minSize, maxSize);
+    this.targetMillis = Math.max(1L, targetMillis);
+    this.size = Math.min(this.maxSize, Math.max(this.minSize, initialSize));
+  }
+
+  int size() {
+    return size;
+  }
+
+  void record(long elapsedMillis) {
+    if (elapsedMillis > targetMillis) {
+      size = Math.max(minSize, size / 2);
+    } else if (elapsedMillis * 2 < targetMillis) {
+      size = Math.min(maxSize, size + Math.max(1, size / 4));
+    }
+  }
+}
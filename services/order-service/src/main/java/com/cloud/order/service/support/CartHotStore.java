@@ -0,0 +1,350 @@
+package com.cloud.order.service.support;
+
+import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
+import com.cloud.common.exception.SystemException;
+import com.cloud.order.entity.Cart;
+import com.cloud.order.entity.CartItem;
+import com.cloud.order.mapper.CartItemMapper;
+import com.cloud.order.mapper.CartMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Live carts as one Redis hash per user: the cart id and number, a version bumped by every sync and
+ * one {@code sku:{skuId}} field per item. A sync replaces the items in a single script and marks
+ * the user in a due-time sorted set, which {@link CartWriteBehindFlusher} drains into {@code cart}
+ * and {@code cart_item}. Draining leases the entry by moving its score past the lease end and only
+ * removes it once the snapshot is persisted, so a flusher that dies mid-write leaves the user to be
+ * claimed again. A user without a hash is loaded from the database on first read.
+ */
+@Component
+@RequiredArgsConstructor
+public class CartHotStore {
+
+  static final String DIRTY_KEY = "order:cart:dirty";
+
+  private static final String KEY_PREFIX = "order:cart:";
+  private static final String FIELD_CART_ID = "cartId";
+  private static final String FIELD_CART_NO = "cartNo";
+  private static final String FIELD_VERSION = "version";
+  private static final String ITEM_FIELD_PREFIX = "sku:";
+
+  @SuppressWarnings("rawtypes")
+  private static final RedisScript<List> SYNC_SCRIPT =
+      new DefaultRedisScript<>(
+          """
+          local keep = {}
+          for i = 6, #ARGV, 2 do
+            keep[ARGV[i]] = true
+          end
+          for _, field in ipairs(redis.call('HKEYS', KEYS[1])) do
+            if string.sub(field, 1, 4) == 'sku:' and not keep[field] then
+              redis.call('HDEL', KEYS[1], field)
+            end
+          end
+          redis.call('HSETNX', KEYS[1], 'cartId', ARGV[1])
+          redis.call('HSETNX', KEYS[1], 'cartNo', ARGV[2])
+          for i = 6, #ARGV, 2 do
+            redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+          end
+          local version = redis.call('HINCRBY', KEYS[1], 'version', 1)
+          redis.call('EXPIRE', KEYS[1], tonumber(ARGV[3]))
+          redis.call('ZADD', KEYS[2], 'NX', ARGV[4], ARGV[5])
+          return {tostring(version), redis.call('HGET', KEYS[1], 'cartId'),
+                  redis.call('HGET', KEYS[1], 'cartNo')}
+          """,
+          List.class);
+
+  private static final RedisScript<Long> HYDRATE_SCRIPT =
+      new DefaultRedisScript<>(
+          """
+          if redis.call('EXISTS', KEYS[1]) == 1 then
+            return 0
+          end
+          for i = 2, #ARGV, 2 do
+            redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+          end
+          redis.call('EXPIRE', KEYS[1], tonumber(ARGV[1]))
+          return 1
+          """,
+          Long.class);
+
+  @SuppressWarnings("rawtypes")
+  private static final RedisScript<List> CLAIM_SCRIPT =
+      new DefaultRedisScript<>(
+          """
+          local ids = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, tonumber(ARGV[2]))
+          for _, id in ipairs(ids) do
+            redis.call('ZADD', KEYS[1], 'XX', ARGV[3], id)
+          end
+          return ids
+          """,
+          List.class);
+
+  private static final RedisScript<Long> COMPLETE_SCRIPT =
+      new DefaultRedisScript<>(
+          """
+          local score = redis.call('ZSCORE', KEYS[1], ARGV[1])
+          if not score or tonumber(score) ~= tonumber(ARGV[2]) then
+            return 0
+          end
+          local version = redis.call('HGET', KEYS[2], 'version')
+          if version and version ~= ARGV[3] then
+            redis.call('ZADD', KEYS[1], 'XX', ARGV[4], ARGV[1])
+            return 0
+          end
+          redis.call('ZREM', KEYS[1], ARGV[1])
+          return 1
+          """,
+          Long.class);
+
+  private final StringRedisTemplate stringRedisTemplate;
+  private final CartMapper cartMapper;
+  private final CartItemMapper cartItemMapper;
+  private final IdentifierGenerator identifierGenerator;
+  private final ObjectMapper objectMapper;
+
+  @Value("${order.cart.hot-ttl-seconds:604800}")
+  private long hotTtlSeconds;
+
+  @Value("${order.cart.write-behind.delay-ms:2000}")
+  private long writeBehindDelayMs;
+
+  /** Current cart of the user, loading it from the database when it is not hot; null if none. */
+  public Snapshot load(Long userId) {
+    Snapshot hot = peek(userId);
+    return hot != null ? hot : hydrate(userId);
+  }
+
+  /** Current hot cart of the user without falling back to the database. */
+  public Snapshot peek(Long userId) {
+    Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(buildKey(userId));
+    if (entries.isEmpty() || entries.get(FIELD_CART_ID) == null) {
+      return null;
+    }
+    Long cartId = Long.valueOf(String.valueOf(entries.get(FIELD_CART_ID)));
+    List<StoredItem> stored = new ArrayList<>();
+    for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+      if (String.valueOf(entry.getKey()).startsWith(ITEM_FIELD_PREFIX)) {
+        stored.add(decode(String.valueOf(entry.getValue())));
+      }
+    }
+    stored.sort(Comparator.comparingInt(StoredItem::position));
+    List<CartItem> items = new ArrayList<>(stored.size());
+    for (StoredItem item : stored) {
+      items.add(item.toCartItem(cartId, userId));
+    }
+    Object version = entries.get(FIELD_VERSION);
+    return new Snapshot(
+        cartId,
+        String.valueOf(entries.get(FIELD_CART_NO)),
+        userId,
+        version == null ? 0L : Long.parseLong(String.valueOf(version)),
+        items);
+  }
+
+  /** Replaces the user's cart items atomically and schedules the change for write-behind. */
+  public Snapshot sync(Long userId, List<CartItem> items) {
+    Snapshot current = load(userId);
+    Long cartId =
+        current == null ? identifierGenerator.nextId(new Cart()).longValue() : current.cartId();
+    String cartNo = current == null ? buildCartNo(userId) : current.cartNo();
+    List<Object> args = new ArrayList<>();
+    args.add(String.valueOf(cartId));
+    args.add(cartNo);
+    args.add(String.valueOf(Math.max(60L, hotTtlSeconds)));
+    args.add(String.valueOf(System.currentTimeMillis() + Math.max(0L, writeBehindDelayMs)));
+    args.add(String.valueOf(userId));
+    addItemArgs(args, items);
+    @SuppressWarnings("unchecked")
+    List<Object> result =
+        stringRedisTemplate.execute(
+            SYNC_SCRIPT, List.of(buildKey(userId), DIRTY_KEY), args.toArray());
+    if (result == null || result.size() < 3) {
+      throw new SystemException("sync hot cart failed: userId=" + userId);
+    }
+    Long syncedCartId = Long.valueOf(String.valueOf(result.get(1)));
+    List<CartItem> synced = new ArrayList<>(items.size());
+    for (int position = 0; position < items.size(); position++) {
+      synced.add(StoredItem.of(position, items.get(position)).toCartItem(syncedCartId, userId));
+    }
+    return new Snapshot(
+        syncedCartId,
+        String.valueOf(result.get(2)),
+        userId,
+        Long.parseLong(String.valueOf(result.get(0))),
+        synced);
+  }
+
+  /** Drops the hot cart once the checkout transaction commits. */
+  public void evictAfterCommit(Long userId) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      evict(userId);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            evict(userId);
+          }
+        });
+  }
+
+  /**
+   * Leases up to {@code limit} users due by {@code dueByMs} until {@code leaseUntilMs}; each user
+   * goes to one caller while the lease holds.
+   */
+  public List<Long> claimDue(long dueByMs, int limit, long leaseUntilMs) {
+    @SuppressWarnings("unchecked")
+    List<Object> claimed =
+        stringRedisTemplate.execute(
+            CLAIM_SCRIPT,
+            List.of(DIRTY_KEY),
+            String.valueOf(dueByMs),
+            String.valueOf(limit),
+            String.valueOf(leaseUntilMs));
+    if (claimed == null || claimed.isEmpty()) {
+      return List.of();
+    }
+    return claimed.stream().map(id -> Long.valueOf(String.valueOf(id))).toList();
+  }
+
+  /**
+   * Ends the lease taken by {@link #claimDue} once {@code flushedVersion} is persisted. The entry
+   * is removed only while it still carries this lease; when a sync bumped the version in the
+   * meantime it is made due again instead. Returns true when the entry was removed.
+   */
+  public boolean completeFlush(Long userId, long leaseUntilMs, long flushedVersion) {
+    Long removed =
+        stringRedisTemplate.execute(
+            COMPLETE_SCRIPT,
+            List.of(DIRTY_KEY, buildKey(userId)),
+            String.valueOf(userId),
+            String.valueOf(leaseUntilMs),
+            String.valueOf(flushedVersion),
+            String.valueOf(System.currentTimeMillis()));
+    return removed != null && removed == 1L;
+  }
+
+  public void markDirty(Long userId, long dueAtMs) {
+    stringRedisTemplate.opsForZSet().add(DIRTY_KEY, String.valueOf(userId), dueAtMs);
+  }
+
+  private Snapshot hydrate(Long userId) {
+    Cart cart = cartMapper.selectActiveByUserId(userId);
+    if (cart == null) {
+      return null;
+    }
+    List<CartItem> items = cartItemMapper.listActiveByCartIdAndUserId(cart.getId(), userId);
+    List<CartItem> safeItems = items == null ? List.of() : items;
+    List<Object> args = new ArrayList<>();
+    args.add(String.valueOf(Math.max(60L, hotTtlSeconds)));
+    args.add(FIELD_CART_ID);
+    args.add(String.valueOf(cart.getId()));
+    args.add(FIELD_CART_NO);
+    args.add(cart.getCartNo());
+    args.add(FIELD_VERSION);
+    args.add("0");
+    addItemArgs(args, safeItems);
+    Long written =
+        stringRedisTemplate.execute(HYDRATE_SCRIPT, List.of(buildKey(userId)), args.toArray());
+    if (written == null || written == 0L) {
+      // Another request hydrated or synced the cart first; its state wins.
+      Snapshot hot = peek(userId);
+      if (hot != null) {
+        return hot;
+      }
+    }
+    return new Snapshot(cart.getId(), cart.getCartNo(), userId, 0L, safeItems);
+  }
+
+  private void evict(Long userId) {
+    stringRedisTemplate.delete(buildKey(userId));
+    stringRedisTemplate.opsForZSet().remove(DIRTY_KEY, String.valueOf(userId));
+  }
+
+  private void addItemArgs(List<Object> args, List<CartItem> items) {
+    for (int position = 0; position < items.size(); position++) {
+      CartItem item = items.get(position);
+      args.add(ITEM_FIELD_PREFIX + item.getSkuId());
+      args.add(encode(StoredItem.of(position, item)));
+    }
+  }
+
+  private String encode(StoredItem item) {
+    try {
+      return objectMapper.writeValueAsString(item);
+    } catch (JsonProcessingException ex) {
+      throw new SystemException("encode hot cart item failed", ex);
+    }
+  }
+
+  private StoredItem decode(String value) {
+    try {
+      return objectMapper.readValue(value, StoredItem.class);
+    } catch (JsonProcessingException ex) {
+      throw new SystemException("decode hot cart item failed", ex);
+    }
+  }
+
+  private static String buildKey(Long userId) {
+    return KEY_PREFIX + userId;
+  }
+
+  private static String buildCartNo(Long userId) {
+    return "CART-" + userId + "-" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+  }
+
+  public record Snapshot(
+      Long cartId, String cartNo, Long userId, long version, List<CartItem> items) {}
+
+  record StoredItem(
+      int position,
+      Long spuId,
+      Long skuId,
+      String skuName,
+      BigDecimal unitPrice,
+      Integer quantity,
+      Integer selected) {
+
+    static StoredItem of(int position, CartItem item) {
+      return new StoredItem(
+          position,
+          item.getSpuId(),
+          item.getSkuId(),
+          item.getSkuName(),
+          item.getUnitPrice(),
+          item.getQuantity(),
+          item.getSelected());
+    }
+
+    CartItem toCartItem(Long cartId, Long userId) {
+      CartItem item = new CartItem();
+      item.setCartId(cartId);
+      item.setUserId(userId);
+      item.setSpuId(spuId);
+      item.setSkuId(skuId);
+      item.setSkuName(skuName);
+      item.setUnitPrice(unitPrice);
+      item.setQuantity(quantity);
+      item.setSelected(selected);
+      item.setCheckedOut(0);
+      return item;
+    }
+  }
+}
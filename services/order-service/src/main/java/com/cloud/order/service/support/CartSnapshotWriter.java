@@ -0,0 +1,144 @@
+package com.cloud.order.service.support;
+
+import com.cloud.order.entity.Cart;
+import com.cloud.order.entity.CartItem;
+import com.cloud.order.mapper.CartItemMapper;
+import com.cloud.order.mapper.CartMapper;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Persists a hot cart snapshot into {@code cart} and {@code cart_item}, touching changed rows only.
+ */
+@Component
+@RequiredArgsConstructor
+public class CartSnapshotWriter {
+
+  private static final String CART_STATUS_ACTIVE = "ACTIVE";
+
+  private final CartMapper cartMapper;
+  private final CartItemMapper cartItemMapper;
+
+  /**
+   * Writes the snapshot under a row lock on the cart. Returns false when the cart has been checked
+   * out in the meantime, in which case nothing is written.
+   */
+  @Transactional(rollbackFor = Exception.class)
+  public boolean persist(CartHotStore.Snapshot snapshot) {
+    Cart cart = cartMapper.selectByIdForUpdate(snapshot.cartId());
+    if (cart == null) {
+      cart = new Cart();
+      cart.setId(snapshot.cartId());
+      cart.setCartNo(snapshot.cartNo());
+      cart.setUserId(snapshot.userId());
+      cart.setCartStatus(CART_STATUS_ACTIVE);
+      applySummary(cart, snapshot.items());
+      cartMapper.insert(cart);
+    } else if (!CART_STATUS_ACTIVE.equals(cart.getCartStatus())
+        || Integer.valueOf(1).equals(cart.getDeleted())
+        || !Objects.equals(cart.getUserId(), snapshot.userId())) {
+      return false;
+    } else if (applySummary(cart, snapshot.items())) {
+      cartMapper.updateById(cart);
+    }
+
+    Map<Long, CartItem> activeBySkuId = new HashMap<>();
+    for (CartItem activeItem :
+        cartItemMapper.listActiveByCartIdAndUserId(cart.getId(), cart.getUserId())) {
+      activeBySkuId.put(activeItem.getSkuId(), activeItem);
+    }
+    Map<Long, CartItem> existingBySkuId =
+        loadExistingItemsBySkuId(
+            cart.getUserId(), snapshot.items().stream().map(CartItem::getSkuId).toList());
+
+    for (CartItem item : snapshot.items()) {
+      CartItem active = activeBySkuId.remove(item.getSkuId());
+      if (active != null && sameContent(active, item)) {
+        continue;
+      }
+      CartItem existing = active != null ? active : existingBySkuId.get(item.getSkuId());
+      if (existing == null) {
+        CartItem created = new CartItem();
+        created.setCartId(cart.getId());
+        created.setUserId(cart.getUserId());
+        copyContent(item, created);
+        cartItemMapper.insert(created);
+        continue;
+      }
+      // cart_item is unique per (user_id, sku_id), so rows left by an earlier checkout are reused.
+      existing.setCartId(cart.getId());
+      copyContent(item, existing);
+      cartItemMapper.updateById(existing);
+    }
+
+    for (CartItem staleItem : activeBySkuId.values()) {
+      cartItemMapper.deleteById(staleItem.getId());
+    }
+    return true;
+  }
+
+  private Map<Long, CartItem> loadExistingItemsBySkuId(Long userId, List<Long> skuIds) {
+    if (skuIds.isEmpty()) {
+      return Map.of();
+    }
+    List<CartItem> items = cartItemMapper.selectByUserIdAndSkuIds(userId, skuIds);
+    if (items == null || items.isEmpty()) {
+      return Map.of();
+    }
+    Map<Long, CartItem> existingBySkuId = new HashMap<>();
+    for (CartItem item : items) {
+      if (item != null && item.getSkuId() != null) {
+        existingBySkuId.put(item.getSkuId(), item);
+      }
+    }
+    return existingBySkuId;
+  }
+
+  private boolean applySummary(Cart cart, List<CartItem> items) {
+    int selectedCount = 0;
+    BigDecimal totalAmount = BigDecimal.ZERO;
+    for (CartItem item : items) {
+      if (!Objects.equals(item.getSelected(), 0)) {
+        selectedCount += 1;
+        totalAmount =
+            totalAmount.add(
+                (item.getUnitPrice() == null ? BigDecimal.ZERO : item.getUnitPrice())
+                    .multiply(
+                        BigDecimal.valueOf(item.getQuantity() == null ? 0 : item.getQuantity())));
+      }
+    }
+    boolean changed =
+        !Objects.equals(cart.getSelectedCount(), selectedCount)
+            || cart.getTotalAmount() == null
+            || cart.getTotalAmount().compareTo(totalAmount) != 0;
+    cart.setSelectedCount(selectedCount);
+    cart.setTotalAmount(totalAmount);
+    return changed;
+  }
+
+  private boolean sameContent(CartItem stored, CartItem item) {
+    return Objects.equals(stored.getSpuId(), item.getSpuId())
+        && Objects.equals(stored.getSkuName(), item.getSkuName())
+        && stored.getUnitPrice() != null
+        && item.getUnitPrice() != null
+        && stored.getUnitPrice().compareTo(item.getUnitPrice()) == 0
+        && Objects.equals(stored.getQuantity(), item.getQuantity())
+        && Objects.equals(stored.getSelected(), item.getSelected());
+  }
+
+  private void copyContent(CartItem source, CartItem target) {
+    target.setSpuId(source.getSpuId());
+    target.setSkuId(source.getSkuId());
+    target.setSkuName(source.getSkuName());
+    target.setUnitPrice(source.getUnitPrice());
+    target.setQuantity(source.getQuantity());
+    target.setSelected(source.getSelected());
+    target.setCheckedOut(0);
+  }
+}
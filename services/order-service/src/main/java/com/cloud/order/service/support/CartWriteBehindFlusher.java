@@ -0,0 +1,113 @@
+package com.cloud.order.service.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drains due carts from {@link CartHotStore} into the database. Every sync of a user inside the
+ * write-behind delay collapses into one write of the latest snapshot; a sync that lands while the
+ * write runs bumps the cart version, so the lease ends by making the user due again and the newer
+ * state is written on a later pass.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CartWriteBehindFlusher implements InitializingBean, DisposableBean {
+
+  private final CartHotStore cartHotStore;
+  private final CartSnapshotWriter cartSnapshotWriter;
+
+  @Value("${order.cart.write-behind.interval-ms:500}")
+  private long intervalMs;
+
+  @Value("${order.cart.write-behind.batch-size:100}")
+  private int batchSize;
+
+  @Value("${order.cart.write-behind.retry-delay-ms:5000}")
+  private long retryDelayMs;
+
+  @Value("${order.cart.write-behind.lease-ms:30000}")
+  private long leaseMs;
+
+  private volatile boolean running;
+  private Thread flusher;
+
+  @Override
+  public void afterPropertiesSet() {
+    running = true;
+    flusher = new Thread(this::runLoop, "cart-write-behind");
+    flusher.setDaemon(true);
+    flusher.start();
+  }
+
+  @Override
+  public void destroy() throws InterruptedException {
+    running = false;
+    if (flusher != null) {
+      flusher.interrupt();
+      flusher.join(TimeUnit.SECONDS.toMillis(5));
+    }
+    try {
+      // Everything still pending is written now rather than left for another node.
+      flushDue(Long.MAX_VALUE);
+    } catch (Exception ex) {
+      log.warn("Final cart write-behind flush failed", ex);
+    }
+  }
+
+  private void runLoop() {
+    while (running) {
+      try {
+        flushDue(System.currentTimeMillis());
+      } catch (Exception ex) {
+        log.warn("Cart write-behind pass failed", ex);
+      }
+      LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(Math.max(10L, intervalMs)));
+    }
+  }
+
+  int flushDue(long nowMs) {
+    int safeBatchSize = Math.max(1, batchSize);
+    int written = 0;
+    // One lease end per pass keeps the users leased in it above the claim range.
+    long leaseUntilMs = System.currentTimeMillis() + Math.max(1000L, leaseMs);
+    long dueByMs = Math.min(nowMs, leaseUntilMs - 1);
+    List<Long> failed = new ArrayList<>();
+    try {
+      while (true) {
+        List<Long> userIds = cartHotStore.claimDue(dueByMs, safeBatchSize, leaseUntilMs);
+        for (Long userId : userIds) {
+          try {
+            CartHotStore.Snapshot snapshot = cartHotStore.peek(userId);
+            // No hash means the cart was checked out or expired; the database is already final.
+            if (snapshot != null && cartSnapshotWriter.persist(snapshot)) {
+              written++;
+            }
+            cartHotStore.completeFlush(
+                userId, leaseUntilMs, snapshot == null ? 0L : snapshot.version());
+          } catch (Exception ex) {
+            log.warn("Cart write-behind failed, retrying later: userId={}", userId, ex);
+            failed.add(userId);
+          }
+        }
+        if (userIds.size() < safeBatchSize) {
+          return written;
+        }
+      }
+    } finally {
+      // Requeued only after the pass so a failing cart is not claimed again within it.
+      long retryAt = System.currentTimeMillis() + Math.max(0L, retryDelayMs);
+      for (Long userId : failed) {
+        cartHotStore.markDirty(userId, retryAt);
+      }
+    }
+  }
+}
@@ -1,24 +1,61 @@
 package com.cloud.order.service.support;
 
 import com.cloud.order.dto.OrderAggregateResponse;
+import com.cloud.order.service.OrderService;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import jakarta.annotation.PostConstruct;
 import java.time.Duration;
-import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+/**
+ * Two-level cache of order aggregates for every order state. Entries carry the aggregate version,
+ * the sum of the main and sub-order {@code version} columns, which grows with every row update.
+ * Redis only accepts a write whose version is higher than the stored one, so a slow reader or a
+ * late writer can never replace a newer aggregate. Writers refresh the entry after commit and
+ * publish the new version so other replicas drop older L1 copies.
+ */
 @Slf4j
 @Service
 public class OrderAggregateCacheService {
 
+  public static final String INVALIDATION_CHANNEL = "order:aggregate:invalidate";
+
   private static final String KEY_PREFIX = "order:aggregate:";
+  private static final String FIELD_VERSION = "v";
+  private static final String FIELD_DATA = "d";
+  private static final Object PENDING_REFRESH_KEY = new Object();
+
+  private static final RedisScript<Long> PUT_IF_NEWER_SCRIPT =
+      new DefaultRedisScript<>(
+          """
+          local current = redis.call('HGET', KEYS[1], 'v')
+          if current and tonumber(current) >= tonumber(ARGV[1]) then
+            return 0
+          end
+          redis.call('HSET', KEYS[1], 'v', ARGV[1], 'd', ARGV[2])
+          redis.call('EXPIRE', KEYS[1], tonumber(ARGV[3]))
+          return 1
+          """,
+          Long.class);
 
   private final RedisTemplate<String, Object> redisTemplate;
-  private Cache<Long, OrderAggregateResponse> localCache;
+  private final StringRedisTemplate stringRedisTemplate;
+  private final ObjectProvider<OrderService> orderServiceProvider;
+  private Cache<Long, VersionedAggregate> localCache;
 
   @Value("${order.cache.aggregate-ttl-seconds:3600}")
   private long aggregateTtlSeconds;
@@ -26,11 +63,16 @@ public class OrderAggregateCacheService {
   @Value("${order.cache.aggregate-l1-max-size:2000}")
   private long aggregateL1MaxSize;
 
-  @Value("${order.cache.aggregate-l1-ttl-seconds:15}")
+  @Value("${order.cache.aggregate-l1-ttl-seconds:300}")
   private long aggregateL1TtlSeconds;
 
-  public OrderAggregateCacheService(RedisTemplate<String, Object> redisTemplate) {
+  public OrderAggregateCacheService(
+      RedisTemplate<String, Object> redisTemplate,
+      StringRedisTemplate stringRedisTemplate,
+      ObjectProvider<OrderService> orderServiceProvider) {
     this.redisTemplate = redisTemplate;
+    this.stringRedisTemplate = stringRedisTemplate;
+    this.orderServiceProvider = orderServiceProvider;
   }
 
   @PostConstruct
@@ -46,62 +88,189 @@ public class OrderAggregateCacheService {
     if (mainOrderId == null) {
       return null;
     }
-    OrderAggregateResponse local = localCache == null ? null : localCache.getIfPresent(mainOrderId);
+    VersionedAggregate local = localCache == null ? null : localCache.getIfPresent(mainOrderId);
     if (local != null) {
-      return local;
+      return local.aggregate();
     }
     try {
-      Object value = redisTemplate.opsForValue().get(buildKey(mainOrderId));
-      if (value instanceof OrderAggregateResponse response) {
-        if (localCache != null) {
-          localCache.put(mainOrderId, response);
-        }
+      List<Object> values =
+          redisTemplate
+              .opsForHash()
+              .multiGet(buildKey(mainOrderId), List.<Object>of(FIELD_VERSION, FIELD_DATA));
+      if (values != null
+          && values.size() == 2
+          && values.get(0) instanceof Number version
+          && values.get(1) instanceof OrderAggregateResponse response) {
+        keepLocal(mainOrderId, new VersionedAggregate(version.longValue(), response));
         return response;
       }
     } catch (Exception ex) {
       log.warn("Read order aggregate cache failed: mainOrderId={}", mainOrderId, ex);
-      if (localCache != null) {
-        localCache.invalidate(mainOrderId);
-      }
+      invalidateLocal(mainOrderId);
     }
     return null;
   }
 
-  public void put(Long mainOrderId, OrderAggregateResponse response) {
-    if (mainOrderId == null || response == null) {
+  /** Stores an aggregate unless a newer version is already cached. */
+  public void put(OrderAggregateResponse response) {
+    if (response == null || response.getMainOrder() == null) {
+      return;
+    }
+    Long mainOrderId = response.getMainOrder().getId();
+    if (mainOrderId == null) {
       return;
     }
+    long version = versionOf(response);
+    VersionedAggregate candidate = new VersionedAggregate(version, response);
+    keepLocal(mainOrderId, candidate);
     try {
-      long ttlSeconds = Math.max(60L, aggregateTtlSeconds);
-      if (localCache != null) {
-        localCache.put(mainOrderId, response);
+      Long written =
+          redisTemplate.execute(
+              PUT_IF_NEWER_SCRIPT,
+              List.of(buildKey(mainOrderId)),
+              version,
+              response,
+              Math.max(60L, aggregateTtlSeconds));
+      if (written != null && written > 0) {
+        stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, mainOrderId + ":" + version);
+      } else if (localCache != null) {
+        // Redis already holds a newer aggregate; do not keep serving this one locally.
+        localCache.asMap().remove(mainOrderId, candidate);
       }
-      redisTemplate
-          .opsForValue()
-          .set(buildKey(mainOrderId), response, ttlSeconds, TimeUnit.SECONDS);
     } catch (Exception ex) {
       log.warn("Write order aggregate cache failed: mainOrderId={}", mainOrderId, ex);
-      if (localCache != null) {
+      invalidateLocal(mainOrderId);
+    }
+  }
+
+  /** Writes a freshly created aggregate through once the creating transaction commits. */
+  public void putAfterCommit(OrderAggregateResponse response) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      put(response);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            put(response);
+          }
+        });
+  }
+
+  /**
+   * Re-reads the aggregate in beforeCommit, where the transaction sees its own writes, and writes
+   * it through after commit. Several refreshes of the same order in one transaction collapse into
+   * one load.
+   */
+  public void refreshAfterCommit(Long mainOrderId) {
+    if (mainOrderId == null) {
+      return;
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      put(orderServiceProvider.getObject().loadOrderAggregate(mainOrderId));
+      return;
+    }
+    @SuppressWarnings("unchecked")
+    Set<Long> pending =
+        (Set<Long>) TransactionSynchronizationManager.getResource(PENDING_REFRESH_KEY);
+    if (pending == null) {
+      Set<Long> orders = new LinkedHashSet<>();
+      TransactionSynchronizationManager.bindResource(PENDING_REFRESH_KEY, orders);
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            private final List<OrderAggregateResponse> loaded = new ArrayList<>();
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+              OrderService orderService = orderServiceProvider.getObject();
+              for (Long orderId : orders) {
+                OrderAggregateResponse aggregate = orderService.loadOrderAggregate(orderId);
+                if (aggregate == null) {
+                  invalidateLocal(orderId);
+                } else {
+                  loaded.add(aggregate);
+                }
+              }
+            }
+
+            @Override
+            public void afterCommit() {
+              loaded.forEach(OrderAggregateCacheService.this::put);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+              TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_REFRESH_KEY);
+              if (status != STATUS_COMMITTED) {
+                orders.forEach(OrderAggregateCacheService.this::invalidateLocal);
+              }
+            }
+          });
+      pending = orders;
+    }
+    invalidateLocal(mainOrderId);
+    pending.add(mainOrderId);
+  }
+
+  /** Handles a peer's {@code mainOrderId:version} notice by dropping older L1 copies. */
+  public void onInvalidation(String message) {
+    if (message == null || localCache == null) {
+      return;
+    }
+    int separator = message.indexOf(':');
+    if (separator <= 0) {
+      return;
+    }
+    try {
+      Long mainOrderId = Long.valueOf(message.substring(0, separator));
+      long version = Long.parseLong(message.substring(separator + 1));
+      VersionedAggregate local = localCache.getIfPresent(mainOrderId);
+      if (local != null && local.version() < version) {
         localCache.invalidate(mainOrderId);
       }
+    } catch (NumberFormatException ex) {
+      log.warn("Ignore malformed order aggregate invalidation: {}", message);
     }
   }
 
-  public void evict(Long mainOrderId) {
-    if (mainOrderId == null) {
+  static long versionOf(OrderAggregateResponse response) {
+    long version = versionValue(response.getMainOrder().getVersion());
+    if (response.getSubOrders() != null) {
+      for (OrderAggregateResponse.SubOrderWithItems wrapped : response.getSubOrders()) {
+        if (wrapped != null && wrapped.getSubOrder() != null) {
+          version += versionValue(wrapped.getSubOrder().getVersion());
+        }
+      }
+    }
+    return version;
+  }
+
+  private static long versionValue(Integer version) {
+    return version == null ? 0L : version;
+  }
+
+  private void keepLocal(Long mainOrderId, VersionedAggregate candidate) {
+    if (localCache == null) {
       return;
     }
+    localCache
+        .asMap()
+        .merge(
+            mainOrderId,
+            candidate,
+            (current, next) -> next.version() >= current.version() ? next : current);
+  }
+
+  private void invalidateLocal(Long mainOrderId) {
     if (localCache != null) {
       localCache.invalidate(mainOrderId);
     }
-    try {
-      redisTemplate.delete(buildKey(mainOrderId));
-    } catch (Exception ex) {
-      log.warn("Evict order aggregate cache failed: mainOrderId={}", mainOrderId, ex);
-    }
   }
 
   private String buildKey(Long mainOrderId) {
     return KEY_PREFIX + mainOrderId;
   }
+
+  private record VersionedAggregate(long version, OrderAggregateResponse aggregate) {}
 }
@@ -0,0 +1,88 @@
+package com.cloud.order.service.support;
+
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/** One short transaction per archive chunk, driven by {@link OrderArchiveStreamer}. */
+@Component
+@RequiredArgsConstructor
+public class OrderArchiveChunkWriter {
+
+  private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+  /**
+   * Copies the main orders and their sub-orders and items to the archive tables, then drops them.
+   */
+  @Transactional(rollbackFor = Exception.class)
+  public int archive(List<Long> mainIds) {
+    Map<String, List<Long>> params = Map.of("ids", mainIds);
+    int archivedMain =
+        namedParameterJdbcTemplate.update(
+            """
+                INSERT IGNORE INTO order_main_archive (
+                    id, main_order_no, user_id, order_status, total_amount, payable_amount, pay_channel,
+                    paid_at, cancelled_at, cancel_reason, remark, client_order_id, idempotency_key, created_at, updated_at,
+                    deleted, version, archived_at
+                )
+                SELECT id, main_order_no, user_id, order_status, total_amount, payable_amount, pay_channel,
+                       paid_at, cancelled_at, cancel_reason, remark, client_order_id, idempotency_key, created_at, updated_at,
+                       deleted, version, NOW()
+                FROM order_main
+                WHERE id IN (:ids)
+                """,
+            params);
+    namedParameterJdbcTemplate.update(
+        """
+            INSERT IGNORE INTO order_sub_archive (
+                id, sub_order_no, main_order_id, merchant_id, order_status, shipping_status, after_sale_status,
+                item_amount, shipping_fee, discount_amount, payable_amount, receiver_name, receiver_phone,
+                receiver_address, shipping_company, tracking_number, shipped_at, estimated_arrival, received_at,
+                done_at, closed_at, close_reason, created_at, updated_at, deleted, version, archived_at
+            )
+            SELECT id, sub_order_no, main_order_id, merchant_id, order_status, shipping_status, after_sale_status,
+                   item_amount, shipping_fee, discount_amount, payable_amount, receiver_name, receiver_phone,
+                   receiver_address, shipping_company, tracking_number, shipped_at, estimated_arrival, received_at,
+                   done_at, closed_at, close_reason, created_at, updated_at, deleted, version, NOW()
+            FROM order_sub
+            WHERE main_order_id IN (:ids)
+            """,
+        params);
+    namedParameterJdbcTemplate.update(
+        """
+            INSERT IGNORE INTO order_item_archive (
+                id, main_order_id, sub_order_id, spu_id, sku_id, sku_code, sku_name, sku_snapshot,
+                quantity, unit_price, total_price, created_at, updated_at, deleted, version, archived_at
+            )
+            SELECT id, main_order_id, sub_order_id, spu_id, sku_id, sku_code, sku_name, sku_snapshot,
+                   quantity, unit_price, total_price, created_at, updated_at, deleted, version, NOW()
+            FROM order_item
+            WHERE main_order_id IN (:ids)
+            """,
+        params);
+
+    namedParameterJdbcTemplate.update(
+        "DELETE FROM order_item WHERE main_order_id IN (:ids)", params);
+    namedParameterJdbcTemplate.update(
+        "DELETE FROM order_sub WHERE main_order_id IN (:ids)", params);
+    namedParameterJdbcTemplate.update("DELETE FROM order_main WHERE id IN (:ids)", params);
+    namedParameterJdbcTemplate.update(
+        "DELETE FROM order_summary_view WHERE main_order_id IN (:ids)", params);
+    return archivedMain;
+  }
+
+  /** Drops archived aggregates that have already been exported to object storage. */
+  @Transactional(rollbackFor = Exception.class)
+  public int purgeArchived(List<Long> mainIds) {
+    Map<String, List<Long>> params = Map.of("ids", mainIds);
+    namedParameterJdbcTemplate.update(
+        "DELETE FROM order_item_archive WHERE main_order_id IN (:ids)", params);
+    namedParameterJdbcTemplate.update(
+        "DELETE FROM order_sub_archive WHERE main_order_id IN (:ids)", params);
+    return namedParameterJdbcTemplate.update(
+        "DELETE FROM order_main_archive WHERE id IN (:ids)", params);
+  }
+}
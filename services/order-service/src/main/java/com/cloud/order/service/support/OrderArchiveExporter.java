@@ -0,0 +1,208 @@
+package com.cloud.order.service.support;
+
+import com.cloud.common.exception.SystemException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.minio.BucketExistsArgs;
+import io.minio.MakeBucketArgs;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ships archived order aggregates older than the retention window to object storage as gzipped
+ * NDJSON, one object per chunk and one line per main order with its sub-orders and items, and drops
+ * them from the archive tables once the upload has succeeded. Only registered when export is
+ * enabled, together with its MinIO client.
+ */
+@Component
+@ConditionalOnProperty(name = "order.archive.export.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class OrderArchiveExporter implements InitializingBean {
+
+  private static final DateTimeFormatter DATE_PATH = DateTimeFormatter.ofPattern("yyyy/MM/dd");
+
+  private static final String FIRST_KEYS_SQL =
+      """
+          SELECT id, archived_at
+          FROM order_main_archive
+          WHERE archived_at < ?
+          ORDER BY archived_at ASC, id ASC
+          LIMIT ?
+          """;
+
+  private static final String NEXT_KEYS_SQL =
+      """
+          SELECT id, archived_at
+          FROM order_main_archive
+          WHERE archived_at < ?
+            AND (archived_at > ? OR (archived_at = ? AND id > ?))
+          ORDER BY archived_at ASC, id ASC
+          LIMIT ?
+          """;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+  private final OrderArchiveChunkWriter orderArchiveChunkWriter;
+  private final MinioClient minioClient;
+  private final ObjectMapper objectMapper;
+  private final MeterRegistry meterRegistry;
+
+  @Value("${order.archive.export.bucket:order-archive}")
+  private String bucket;
+
+  @Value("${order.archive.export.prefix:orders/}")
+  private String prefix;
+
+  @Value("${order.archive.export.retention-days:30}")
+  private int retentionDays;
+
+  @Value("${order.archive.export.chunk-size:500}")
+  private int chunkSize;
+
+  private Counter exportedCounter;
+
+  @Override
+  public void afterPropertiesSet() {
+    exportedCounter = meterRegistry.counter("order.archive.exported.rows");
+  }
+
+  /** Exports and purges archived aggregates until none are due or {@code deadlineMillis} passes. */
+  public int export(long deadlineMillis) {
+    ensureBucket();
+    int safeRetentionDays = retentionDays <= 0 ? 30 : retentionDays;
+    int safeChunkSize = chunkSize <= 0 ? 500 : chunkSize;
+    Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(safeRetentionDays));
+    String datePath = LocalDate.now().format(DATE_PATH);
+    int exported = 0;
+    ArchiveKey after = null;
+    while (System.currentTimeMillis() < deadlineMillis) {
+      List<ArchiveKey> keys = nextKeys(cutoff, after, safeChunkSize);
+      if (keys.isEmpty()) {
+        break;
+      }
+      List<Long> mainIds = keys.stream().map(ArchiveKey::id).toList();
+      byte[] payload = writeChunk(mainIds);
+      upload(objectName(datePath, mainIds), payload);
+      int purged = orderArchiveChunkWriter.purgeArchived(mainIds);
+      exported += purged;
+      exportedCounter.increment(purged);
+      if (keys.size() < safeChunkSize) {
+        break;
+      }
+      after = keys.get(keys.size() - 1);
+    }
+    return exported;
+  }
+
+  private List<ArchiveKey> nextKeys(Timestamp cutoff, ArchiveKey after, int limit) {
+    if (after == null) {
+      return jdbcTemplate.query(FIRST_KEYS_SQL, this::mapKey, cutoff, limit);
+    }
+    return jdbcTemplate.query(
+        NEXT_KEYS_SQL,
+        this::mapKey,
+        cutoff,
+        after.archivedAt(),
+        after.archivedAt(),
+        after.id(),
+        limit);
+  }
+
+  private ArchiveKey mapKey(ResultSet rs, int rowNum) throws SQLException {
+    return new ArchiveKey(rs.getLong("id"), rs.getTimestamp("archived_at"));
+  }
+
+  private byte[] writeChunk(List<Long> mainIds) {
+    Map<String, List<Long>> params = Map.of("ids", mainIds);
+    Map<Object, List<Map<String, Object>>> subsByMain =
+        groupByMain(
+            namedParameterJdbcTemplate.queryForList(
+                "SELECT * FROM order_sub_archive WHERE main_order_id IN (:ids)", params));
+    Map<Object, List<Map<String, Object>>> itemsByMain =
+        groupByMain(
+            namedParameterJdbcTemplate.queryForList(
+                "SELECT * FROM order_item_archive WHERE main_order_id IN (:ids)", params));
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    try (OutputStream out = new GZIPOutputStream(buffer)) {
+      for (Map<String, Object> main :
+          namedParameterJdbcTemplate.queryForList(
+              "SELECT * FROM order_main_archive WHERE id IN (:ids) ORDER BY id", params)) {
+        Map<String, Object> aggregate = new LinkedHashMap<>();
+        aggregate.put("main", main);
+        aggregate.put("subs", subsByMain.getOrDefault(main.get("id"), List.of()));
+        aggregate.put("items", itemsByMain.getOrDefault(main.get("id"), List.of()));
+        out.write(objectMapper.writeValueAsBytes(aggregate));
+        out.write('\n');
+      }
+    } catch (IOException ex) {
+      throw new SystemException("write order archive chunk failed", ex);
+    }
+    return buffer.toByteArray();
+  }
+
+  private Map<Object, List<Map<String, Object>>> groupByMain(List<Map<String, Object>> rows) {
+    Map<Object, List<Map<String, Object>>> grouped = new HashMap<>();
+    for (Map<String, Object> row : rows) {
+      grouped.computeIfAbsent(row.get("main_order_id"), key -> new ArrayList<>()).add(row);
+    }
+    return grouped;
+  }
+
+  private String objectName(String datePath, List<Long> mainIds) {
+    return prefix
+        + datePath
+        + "/orders-"
+        + mainIds.get(0)
+        + "-"
+        + mainIds.get(mainIds.size() - 1)
+        + ".ndjson.gz";
+  }
+
+  private void ensureBucket() {
+    try {
+      if (!minioClient.bucketExists(BucketExistsArgs.builder().bucket(bucket).build())) {
+        minioClient.makeBucket(MakeBucketArgs.builder().bucket(bucket).build());
+      }
+    } catch (Exception ex) {
+      throw new SystemException("prepare order archive bucket failed: " + bucket, ex);
+    }
+  }
+
+  private void upload(String objectName, byte[] payload) {
+    try {
+      minioClient.putObject(
+          PutObjectArgs.builder().bucket(bucket).object(objectName).stream(
+                  new ByteArrayInputStream(payload), payload.length, -1)
+              .contentType("application/gzip")
+              .build());
+    } catch (Exception ex) {
+      throw new SystemException("upload order archive chunk failed: " + objectName, ex);
+    }
+  }
+
+  private record ArchiveKey(long id, Timestamp archivedAt) {}
+}
@@ -0,0 +1,195 @@
+package com.cloud.order.service.support;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves closed orders into the archive tables by walking {@code order_main} in (updated_at, id)
+ * order per status. Each chunk commits on its own, the chunk size follows the observed commit
+ * latency, and the run is paced to a row-rate ceiling and a time budget inside the job's lock
+ * lease.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderArchiveStreamer implements InitializingBean {
+
+  private static final List<String> ARCHIVABLE_STATUSES = List.of("DONE", "CANCELLED", "CLOSED");
+
+  private static final String FIRST_KEYS_SQL =
+      """
+          SELECT id, updated_at
+          FROM order_main
+          WHERE order_status = ?
+            AND deleted = 0
+            AND updated_at < ?
+          ORDER BY updated_at ASC, id ASC
+          LIMIT ?
+          """;
+
+  private static final String NEXT_KEYS_SQL =
+      """
+          SELECT id, updated_at
+          FROM order_main
+          WHERE order_status = ?
+            AND deleted = 0
+            AND updated_at < ?
+            AND (updated_at > ? OR (updated_at = ? AND id > ?))
+          ORDER BY updated_at ASC, id ASC
+          LIMIT ?
+          """;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final OrderArchiveChunkWriter orderArchiveChunkWriter;
+  private final MeterRegistry meterRegistry;
+
+  private final AtomicLong rowsPerSecond = new AtomicLong();
+  private final AtomicLong lagSeconds = new AtomicLong();
+
+  @Value("${order.archive.after-days:180}")
+  private int archiveAfterDays;
+
+  @Value("${order.archive.batch-size:200}")
+  private int batchSize;
+
+  @Value("${order.archive.min-chunk-size:20}")
+  private int minChunkSize;
+
+  @Value("${order.archive.max-chunk-size:1000}")
+  private int maxChunkSize;
+
+  @Value("${order.archive.target-chunk-millis:200}")
+  private long targetChunkMillis;
+
+  @Value("${order.archive.max-rows-per-second:500}")
+  private int maxRowsPerSecond;
+
+  private Counter archivedCounter;
+  private Timer chunkTimer;
+
+  @Override
+  public void afterPropertiesSet() {
+    archivedCounter = meterRegistry.counter("order.archive.rows");
+    chunkTimer = meterRegistry.timer("order.archive.chunk.latency");
+    Gauge.builder("order.archive.rows.per.second", rowsPerSecond, AtomicLong::get)
+        .register(meterRegistry);
+    Gauge.builder("order.archive.lag.seconds", lagSeconds, AtomicLong::get).register(meterRegistry);
+  }
+
+  /** Archives eligible main orders until none are left or {@code deadlineMillis} passes. */
+  public Result archive(long deadlineMillis) {
+    int safeAfterDays = archiveAfterDays <= 0 ? 180 : archiveAfterDays;
+    Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(safeAfterDays));
+    AdaptiveChunkSizer sizer =
+        new AdaptiveChunkSizer(
+            batchSize <= 0 ? 200 : batchSize, minChunkSize, maxChunkSize, targetChunkMillis);
+    long startMillis = System.currentTimeMillis();
+    int archived = 0;
+    int chunks = 0;
+    for (String status : ARCHIVABLE_STATUSES) {
+      ArchiveKey after = null;
+      while (System.currentTimeMillis() < deadlineMillis) {
+        int chunkSize = sizer.size();
+        List<ArchiveKey> keys = nextKeys(status, cutoff, after, chunkSize);
+        if (keys.isEmpty()) {
+          break;
+        }
+        long begin = System.nanoTime();
+        int rows = orderArchiveChunkWriter.archive(keys.stream().map(ArchiveKey::id).toList());
+        long elapsedNanos = System.nanoTime() - begin;
+        chunkTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        sizer.record(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        archived += rows;
+        chunks++;
+        archivedCounter.increment(rows);
+        after = keys.get(keys.size() - 1);
+        if (keys.size() < chunkSize || !throttle(startMillis, archived)) {
+          break;
+        }
+      }
+    }
+    long elapsedMillis = Math.max(1L, System.currentTimeMillis() - startMillis);
+    rowsPerSecond.set(archived * 1000L / elapsedMillis);
+    lagSeconds.set(measureLagSeconds(cutoff));
+    return new Result(archived, chunks, elapsedMillis, lagSeconds.get(), sizer.size());
+  }
+
+  private List<ArchiveKey> nextKeys(
+      String status, Timestamp cutoff, ArchiveKey after, int chunkSize) {
+    if (after == null) {
+      return jdbcTemplate.query(FIRST_KEYS_SQL, this::mapKey, status, cutoff, chunkSize);
+    }
+    return jdbcTemplate.query(
+        NEXT_KEYS_SQL,
+        this::mapKey,
+        status,
+        cutoff,
+        after.updatedAt(),
+        after.updatedAt(),
+        after.id(),
+        chunkSize);
+  }
+
+  private ArchiveKey mapKey(ResultSet rs, int rowNum) throws SQLException {
+    return new ArchiveKey(rs.getLong("id"), rs.getTimestamp("updated_at"));
+  }
+
+  /** Sleeps until the run is back under the row-rate ceiling; false when interrupted. */
+  private boolean throttle(long startMillis, int archived) {
+    if (maxRowsPerSecond <= 0) {
+      return true;
+    }
+    long dueMillis = startMillis + archived * 1000L / maxRowsPerSecond;
+    long waitMillis = dueMillis - System.currentTimeMillis();
+    if (waitMillis > 0) {
+      LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(waitMillis));
+    }
+    return !Thread.currentThread().isInterrupted();
+  }
+
+  /** Age past the cutoff of the oldest order still waiting to be archived. */
+  private long measureLagSeconds(Timestamp cutoff) {
+    long lag = 0L;
+    for (String status : ARCHIVABLE_STATUSES) {
+      Timestamp oldest =
+          jdbcTemplate.queryForObject(
+              """
+                  SELECT MIN(updated_at)
+                  FROM order_main
+                  WHERE order_status = ?
+                    AND deleted = 0
+                    AND updated_at < ?
+                  """,
+              Timestamp.class,
+              status,
+              cutoff);
+      if (oldest != null) {
+        lag =
+            Math.max(
+                lag,
+                Duration.between(oldest.toLocalDateTime(), cutoff.toLocalDateTime()).toSeconds());
+      }
+    }
+    return lag;
+  }
+
+  private record ArchiveKey(long id, Timestamp updatedAt) {}
+
+  public record Result(
+      int archived, int chunks, long elapsedMillis, long lagSeconds, int chunkSize) {}
+}
@@ -58,6 +58,8 @@ public class OrderInventoryEventService {
   private final com.cloud.order.messaging.OrderMessageProducer orderMessageProducer;
   private final PaymentOrderRemoteService paymentOrderRemoteService;
   private final OrderAggregateCacheService orderAggregateCacheService;
+  private final OrderSummaryViewService orderSummaryViewService;
+  private final OrderSalesCounterService orderSalesCounterService;
 
   @Transactional(rollbackFor = Exception.class)
   public void handlePaymentSuccess(PaymentSuccessEvent event) {
@@ -68,7 +70,7 @@ public class OrderInventoryEventService {
     if (mainOrder == null) {
       return;
     }
-    OrderAggregateResponse aggregate = orderService.getOrderAggregate(mainOrder.getId());
+    OrderAggregateResponse aggregate = orderService.loadOrderAggregate(mainOrder.getId());
     if (aggregate == null || aggregate.getSubOrders() == null) {
       return;
     }
@@ -86,6 +88,7 @@ public class OrderInventoryEventService {
         continue;
       }
       orderService.advanceSubOrderStatus(subOrder.getId(), OrderAction.PAY);
+      orderSalesCounterService.recordPaidAfterCommit(wrapped.getItems());
       if (STATUS_STOCK_RESERVED.equals(previousStatus)) {
         sendConfirmRequest(mainOrder.getMainOrderNo(), subOrder, wrapped.getItems());
       }
@@ -101,7 +104,7 @@ public class OrderInventoryEventService {
     if (mainOrder == null) {
       return;
     }
-    OrderAggregateResponse aggregate = orderService.getOrderAggregate(mainOrder.getId());
+    OrderAggregateResponse aggregate = orderService.loadOrderAggregate(mainOrder.getId());
     if (aggregate == null || aggregate.getSubOrders() == null) {
       return;
     }
@@ -248,7 +251,8 @@ public class OrderInventoryEventService {
             mainOrder, subOrder, paymentOrder, afterSaleNo, refundAmount, reason, description);
     if (STATUS_REFUNDED.equals(afterSale.getStatus())) {
       syncSubOrderAfterSaleStatus(subOrder, STATUS_REFUNDED);
-      orderAggregateCacheService.evict(mainOrder.getId());
+      orderAggregateCacheService.refreshAfterCommit(mainOrder.getId());
+      orderSummaryViewService.refresh(mainOrder.getId());
       return;
     }
 
@@ -308,7 +312,8 @@ public class OrderInventoryEventService {
         afterSaleMapper.updateById(existing);
       }
       syncSubOrderAfterSaleStatus(subOrder, existing.getStatus());
-      orderAggregateCacheService.evict(mainOrder.getId());
+      orderAggregateCacheService.refreshAfterCommit(mainOrder.getId());
+      orderSummaryViewService.refresh(mainOrder.getId());
       return existing;
     }
 
@@ -333,11 +338,13 @@ public class OrderInventoryEventService {
         throw duplicateKeyException;
       }
       syncSubOrderAfterSaleStatus(subOrder, duplicated.getStatus());
-      orderAggregateCacheService.evict(mainOrder.getId());
+      orderAggregateCacheService.refreshAfterCommit(mainOrder.getId());
+      orderSummaryViewService.refresh(mainOrder.getId());
       return duplicated;
     }
     syncSubOrderAfterSaleStatus(subOrder, STATUS_REFUNDING);
-    orderAggregateCacheService.evict(mainOrder.getId());
+    orderAggregateCacheService.refreshAfterCommit(mainOrder.getId());
+    orderSummaryViewService.refresh(mainOrder.getId());
     return created;
   }
 
@@ -0,0 +1,112 @@
+package com.cloud.order.service.support;
+
+import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
+import com.cloud.common.config.ResilientIdentifierGenerator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Issues order numbers as a one-letter prefix plus 19 zero-padded digits. The numeric part has the
+ * snowflake layout (milliseconds since 2024-01-01, 10 node bits from {@link
+ * ResilientIdentifierGenerator}, 12 sequence bits), so numbers are node-unique and sort by time,
+ * and new rows append at the right edge of the order-number indexes.
+ *
+ * <p>Threads reserve blocks of ticks (timestamp and sequence) from a shared cursor with one CAS and
+ * then issue from the block without contention. A block older than a few milliseconds is dropped so
+ * an idle thread does not hand out stale timestamps. When demand exceeds the sequence space the
+ * cursor runs ahead of the wall clock, and a clock that moves backwards never moves the cursor
+ * back.
+ */
+@Slf4j
+@Component
+public class OrderNoGenerator {
+
+  private static final long EPOCH = 1704067200000L;
+  private static final int NODE_BITS = 10;
+  private static final int SEQUENCE_BITS = 12;
+  private static final long NODE_MASK = ~(-1L << NODE_BITS);
+  private static final long SEQUENCE_MASK = ~(-1L << SEQUENCE_BITS);
+  private static final int NUMBER_WIDTH = 19;
+  private static final int DEFAULT_BLOCK_SIZE = 32;
+  private static final long MAX_BLOCK_AGE_MS = 5L;
+
+  private final long nodeId;
+  private final LongSupplier clock;
+  private final int blockSize;
+  private final AtomicLong cursor = new AtomicLong();
+  private final ThreadLocal<long[]> blocks = ThreadLocal.withInitial(() -> new long[2]);
+
+  @Autowired
+  public OrderNoGenerator(IdentifierGenerator identifierGenerator) {
+    this(resolveNodeId(identifierGenerator), System::currentTimeMillis, DEFAULT_BLOCK_SIZE);
+  }
+
+  OrderNoGenerator(long nodeId, LongSupplier clock, int blockSize) {
+    if (nodeId < 0 || nodeId > NODE_MASK) {
+      throw new IllegalArgumentException("nodeId out of range: " + nodeId);
+    }
+    if (blockSize <= 0 || blockSize > SEQUENCE_MASK + 1) {
+      throw new IllegalArgumentException("blockSize out of range: " + blockSize);
+    }
+    this.nodeId = nodeId;
+    this.clock = clock;
+    this.blockSize = blockSize;
+  }
+
+  public String nextMainOrderNo() {
+    return format('M', nextValue());
+  }
+
+  public String nextSubOrderNo() {
+    return format('S', nextValue());
+  }
+
+  long nextValue() {
+    long[] block = blocks.get();
+    long elapsed = clock.getAsLong() - EPOCH;
+    if (block[0] >= block[1] || (block[0] >>> SEQUENCE_BITS) + MAX_BLOCK_AGE_MS < elapsed) {
+      reserveBlock(block, elapsed);
+    }
+    long tick = block[0]++;
+    return ((tick >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS))
+        | (nodeId << SEQUENCE_BITS)
+        | (tick & SEQUENCE_MASK);
+  }
+
+  private void reserveBlock(long[] block, long elapsed) {
+    long floor = Math.max(0L, elapsed) << SEQUENCE_BITS;
+    while (true) {
+      long current = cursor.get();
+      long start = Math.max(current, floor);
+      long end = start + blockSize;
+      if (cursor.compareAndSet(current, end)) {
+        block[0] = start;
+        block[1] = end;
+        return;
+      }
+    }
+  }
+
+  static String format(char prefix, long value) {
+    char[] chars = new char[NUMBER_WIDTH + 1];
+    chars[0] = prefix;
+    long remaining = value;
+    for (int i = NUMBER_WIDTH; i > 0; i--) {
+      chars[i] = (char) ('0' + remaining % 10);
+      remaining /= 10;
+    }
+    return new String(chars);
+  }
+
+  private static long resolveNodeId(IdentifierGenerator identifierGenerator) {
+    if (identifierGenerator instanceof ResilientIdentifierGenerator resilient) {
+      return resilient.getNodeId();
+    }
+    long fallback = (identifierGenerator.nextId(null).longValue() >>> SEQUENCE_BITS) & NODE_MASK;
+    log.warn("IdentifierGenerator exposes no node id, derived order number node id {}", fallback);
+    return fallback;
+  }
+}
@@ -6,7 +6,6 @@ import com.cloud.common.domain.vo.product.SpuDetailVO;
 import com.cloud.common.exception.BizException;
 import com.cloud.common.remote.RemoteCallSupport;
 import com.cloud.order.dto.CreateMainOrderRequest;
-import com.cloud.order.entity.Cart;
 import com.cloud.order.entity.CartItem;
 import com.cloud.order.mapper.CartItemMapper;
 import com.cloud.order.mapper.CartMapper;
@@ -19,7 +18,6 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
 import org.apache.dubbo.config.annotation.DubboReference;
 import org.springframework.stereotype.Component;
@@ -29,11 +27,11 @@ import org.springframework.transaction.annotation.Transactional;
 @RequiredArgsConstructor
 public class OrderPlacementSupport {
 
-  private static final String CART_STATUS_ACTIVE = "ACTIVE";
   private static final String CART_STATUS_CHECKED_OUT = "CHECKED_OUT";
 
   private final CartMapper cartMapper;
   private final CartItemMapper cartItemMapper;
+  private final CartHotStore cartHotStore;
   private final RemoteCallSupport remoteCallSupport;
   private final ObjectMapper objectMapper;
 
@@ -61,7 +59,12 @@ public class OrderPlacementSupport {
     }
     cartItemMapper.deletePhysicalByCartIdAndUserId(cartId, userId);
     cartMapper.deleteCheckedOutByUserId(userId);
-    cartMapper.markCheckedOutByIdAndUserId(cartId, userId);
+    if (cartMapper.markCheckedOutByIdAndUserId(cartId, userId) == 0) {
+      // The cart only lived in the hot store; the row keeps a pending write-behind from reviving
+      // it.
+      cartMapper.insertCheckedOutIfAbsent(cartId, "CART-" + userId + "-" + cartId, userId);
+    }
+    cartHotStore.evictAfterCommit(userId);
   }
 
   private void buildFromCart(CreateMainOrderRequest request) {
@@ -72,25 +75,22 @@ public class OrderPlacementSupport {
     if (request.getUserId() == null) {
       throw new BizException("user id is required for cart checkout");
     }
-    Cart cart = cartMapper.selectById(cartId);
-    if (cart == null || cart.getDeleted() == 1) {
+    CartHotStore.Snapshot cart = cartHotStore.load(request.getUserId());
+    if (cart == null || !cartId.equals(cart.cartId())) {
       throw new BizException("cart not found");
     }
-    if (!request.getUserId().equals(cart.getUserId())) {
-      throw new BizException("cart does not belong to current user");
-    }
-    if (cart.getCartStatus() != null && !CART_STATUS_ACTIVE.equals(cart.getCartStatus())) {
-      throw new BizException("cart is not active");
-    }
 
-    List<CartItem> cartItems =
-        cartItemMapper.listActiveByCartIdAndUserId(request.getCartId(), request.getUserId());
-    if (cartItems == null || cartItems.isEmpty()) {
+    List<CartItem> cartItems = cart.items();
+    if (cartItems.isEmpty()) {
       throw new BizException("cart has no selectable items");
     }
 
-    Map<Long, SpuDetailVO> spuDetails = loadSpuDetails(cartItems);
-    Map<Long, SkuDetailVO> skuDetails = loadSkuDetails(cartItems);
+    ProductSnapshotLoader productLoader =
+        ProductSnapshotLoader.strict(productDubboApi, remoteCallSupport);
+    Map<Long, SpuDetailVO> spuDetails =
+        productLoader.loadSpus(cartItems.stream().map(CartItem::getSpuId).toList());
+    Map<Long, SkuDetailVO> skuDetails =
+        productLoader.loadSkus(cartItems.stream().map(CartItem::getSkuId).toList());
     Map<Long, List<CartItem>> itemsByMerchant = new HashMap<>();
     for (CartItem item : cartItems) {
       if (item.getSpuId() == null) {
@@ -175,15 +175,13 @@ public class OrderPlacementSupport {
       throw new BizException("quantity is required for direct item checkout");
     }
 
-    SpuDetailVO spuDetail =
-        invokeProductService("get spu by id", () -> productDubboApi.getSpuById(request.getSpuId()));
+    ProductSnapshotLoader productLoader =
+        ProductSnapshotLoader.strict(productDubboApi, remoteCallSupport);
+    SpuDetailVO spuDetail = productLoader.getSpu(request.getSpuId());
     if (spuDetail == null || spuDetail.getMerchantId() == null) {
       throw new BizException("spu not found for direct checkout");
     }
-    List<SkuDetailVO> skuDetails =
-        invokeProductService(
-            "list sku by ids", () -> productDubboApi.listSkuByIds(List.of(request.getSkuId())));
-    SkuDetailVO skuDetail = skuDetails == null || skuDetails.isEmpty() ? null : skuDetails.get(0);
+    SkuDetailVO skuDetail = productLoader.getSku(request.getSkuId());
     if (skuDetail == null) {
       throw new BizException("sku not found for direct checkout");
     }
@@ -224,45 +222,6 @@ public class OrderPlacementSupport {
     request.setPayableAmount(totalPrice);
   }
 
-  private Map<Long, SpuDetailVO> loadSpuDetails(List<CartItem> cartItems) {
-    Map<Long, SpuDetailVO> result = new HashMap<>();
-    for (CartItem item : cartItems) {
-      if (item.getSpuId() == null || result.containsKey(item.getSpuId())) {
-        continue;
-      }
-      SpuDetailVO detail =
-          invokeProductService("get spu by id", () -> productDubboApi.getSpuById(item.getSpuId()));
-      if (detail != null) {
-        result.put(item.getSpuId(), detail);
-      }
-    }
-    return result;
-  }
-
-  private Map<Long, SkuDetailVO> loadSkuDetails(List<CartItem> cartItems) {
-    List<Long> skuIds =
-        cartItems.stream().map(CartItem::getSkuId).filter(id -> id != null).distinct().toList();
-    if (skuIds.isEmpty()) {
-      return Map.of();
-    }
-    List<SkuDetailVO> skuDetails =
-        invokeProductService("list sku by ids", () -> productDubboApi.listSkuByIds(skuIds));
-    if (skuDetails == null || skuDetails.isEmpty()) {
-      return Map.of();
-    }
-    Map<Long, SkuDetailVO> result = new HashMap<>();
-    for (SkuDetailVO detail : skuDetails) {
-      if (detail != null && detail.getSkuId() != null) {
-        result.put(detail.getSkuId(), detail);
-      }
-    }
-    return result;
-  }
-
-  private <T> T invokeProductService(String action, Supplier<T> supplier) {
-    return remoteCallSupport.query("product-service." + action, supplier);
-  }
-
   private String buildSkuSnapshot(
       SpuDetailVO spuDetail, SkuDetailVO skuDetail, BigDecimal unitPrice, Integer quantity) {
     Map<String, Object> snapshot = new LinkedHashMap<>();
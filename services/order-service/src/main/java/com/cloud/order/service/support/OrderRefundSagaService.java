@@ -20,6 +20,7 @@ public class OrderRefundSagaService {
   private final OrderSubMapper orderSubMapper;
   private final PaymentOrderRemoteService paymentOrderRemoteService;
   private final OrderAggregateCacheService orderAggregateCacheService;
+  private final OrderSummaryViewService orderSummaryViewService;
 
   @Transactional(rollbackFor = Exception.class)
   public boolean applyRefund(Map<String, Object> params) {
@@ -42,7 +43,8 @@ public class OrderRefundSagaService {
     afterSale.setStatus("REFUNDING");
     afterSaleMapper.updateById(afterSale);
     syncSubOrderAfterSaleStatus(afterSale.getSubOrderId(), "REFUNDING");
-    orderAggregateCacheService.evict(afterSale.getMainOrderId());
+    orderAggregateCacheService.refreshAfterCommit(afterSale.getMainOrderId());
+    orderSummaryViewService.refresh(afterSale.getMainOrderId());
     return true;
   }
 
@@ -114,7 +116,8 @@ public class OrderRefundSagaService {
     afterSale.setStatus(targetStatus);
     afterSaleMapper.updateById(afterSale);
     syncSubOrderAfterSaleStatus(afterSale.getSubOrderId(), targetStatus);
-    orderAggregateCacheService.evict(afterSale.getMainOrderId());
+    orderAggregateCacheService.refreshAfterCommit(afterSale.getMainOrderId());
+    orderSummaryViewService.refresh(afterSale.getMainOrderId());
     return true;
   }
 
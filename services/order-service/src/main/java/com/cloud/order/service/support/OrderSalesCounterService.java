@@ -0,0 +1,346 @@
+package com.cloud.order.service.support;
+
+import com.cloud.common.domain.dto.order.ProductSellStatDTO;
+import com.cloud.order.entity.OrderItem;
+import com.cloud.order.mapper.OrderItemMapper;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Streaming per-SPU sales counters fed by paid sub-orders. Every paid unit lands in a day hash
+ * (exact counts) and a day sorted set (rank); closed days are later folded into a lifetime hash by
+ * {@link #compact()}. Rank windows longer than a day are rolled up from the day sets on demand.
+ * {@link #rebuild()} seeds the counters from the order tables and recovers them after Redis loss.
+ *
+ * <p>Counts are gross: refunds do not decrement them, matching the rebuild, which counts a
+ * sub-order by its order status whatever its after-sale status. Every key carries the {@code
+ * {order:sales}} hash tag so the multi-key scripts and rank unions stay in one Redis Cluster slot.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrderSalesCounterService {
+
+  private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+  private static final String KEY_TAG = "{order:sales}";
+  private static final String DAY_KEY_PREFIX = KEY_TAG + ":day:";
+  private static final String RANK_KEY_PREFIX = KEY_TAG + ":rank:";
+  private static final String ROLLUP_KEY_PREFIX = KEY_TAG + ":rank:last";
+  private static final String TOTAL_KEY = KEY_TAG + ":total";
+  private static final String REBUILD_SUFFIX = ":rebuild";
+  private static final int SUM_BATCH_SIZE = 500;
+
+  private static final RedisScript<Long> RECORD_SCRIPT =
+      new DefaultRedisScript<>(
+          """
+          for i = 2, #ARGV, 2 do
+            redis.call('HINCRBY', KEYS[1], ARGV[i], ARGV[i + 1])
+            redis.call('ZINCRBY', KEYS[2], ARGV[i + 1], ARGV[i])
+          end
+          redis.call('EXPIRE', KEYS[1], tonumber(ARGV[1]))
+          redis.call('EXPIRE', KEYS[2], tonumber(ARGV[1]))
+          return (#ARGV - 1) / 2
+          """,
+          Long.class);
+
+  @SuppressWarnings("rawtypes")
+  private static final RedisScript<List> SUM_SCRIPT =
+      new DefaultRedisScript<>(
+          """
+          local sums = {}
+          for i = 1, #ARGV do
+            sums[i] = 0
+          end
+          for _, key in ipairs(KEYS) do
+            local values = redis.call('HMGET', key, unpack(ARGV))
+            for i = 1, #ARGV do
+              if values[i] then
+                sums[i] = sums[i] + tonumber(values[i])
+              end
+            end
+          end
+          return sums
+          """,
+          List.class);
+
+  private static final RedisScript<Long> COMPACT_SCRIPT =
+      new DefaultRedisScript<>(
+          """
+          local entries = redis.call('HGETALL', KEYS[1])
+          for i = 1, #entries, 2 do
+            redis.call('HINCRBY', KEYS[2], entries[i], entries[i + 1])
+          end
+          redis.call('DEL', KEYS[1])
+          local keep = tonumber(ARGV[1])
+          if redis.call('ZCARD', KEYS[3]) > keep then
+            redis.call('ZREMRANGEBYRANK', KEYS[3], 0, -keep - 1)
+          end
+          return #entries / 2
+          """,
+          Long.class);
+
+  private static final RedisScript<Long> SWAP_TOTAL_SCRIPT =
+      new DefaultRedisScript<>(
+          """
+          if redis.call('EXISTS', KEYS[1]) == 1 then
+            redis.call('RENAME', KEYS[1], KEYS[2])
+          else
+            redis.call('DEL', KEYS[2])
+          end
+          for i = 3, #KEYS do
+            redis.call('DEL', KEYS[i])
+          end
+          return #KEYS - 2
+          """,
+          Long.class);
+
+  private final StringRedisTemplate stringRedisTemplate;
+  private final OrderItemMapper orderItemMapper;
+
+  @Value("${order.sales-counter.retention-days:35}")
+  private int retentionDays;
+
+  @Value("${order.sales-counter.compact-after-days:2}")
+  private int compactAfterDays;
+
+  @Value("${order.sales-counter.rank-keep:1000}")
+  private int rankKeep;
+
+  @Value("${order.sales-counter.rollup-ttl-seconds:60}")
+  private long rollupTtlSeconds;
+
+  /** Counts the paid items once the surrounding transaction commits. */
+  public void recordPaidAfterCommit(List<OrderItem> items) {
+    Map<Long, Long> quantities = new LinkedHashMap<>();
+    if (items != null) {
+      for (OrderItem item : items) {
+        if (item == null || item.getSpuId() == null || item.getQuantity() == null) {
+          continue;
+        }
+        if (item.getQuantity() > 0) {
+          quantities.merge(item.getSpuId(), item.getQuantity().longValue(), Long::sum);
+        }
+      }
+    }
+    if (quantities.isEmpty()) {
+      return;
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      recordQuietly(quantities);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            recordQuietly(quantities);
+          }
+        });
+  }
+
+  void record(LocalDate day, Map<Long, Long> quantities) {
+    List<Object> args = new ArrayList<>(quantities.size() * 2 + 1);
+    args.add(String.valueOf(TimeUnit.DAYS.toSeconds(safeRetentionDays())));
+    quantities.forEach(
+        (spuId, quantity) -> {
+          args.add(String.valueOf(spuId));
+          args.add(String.valueOf(quantity));
+        });
+    stringRedisTemplate.execute(RECORD_SCRIPT, List.of(dayKey(day), rankKey(day)), args.toArray());
+  }
+
+  /** Best sellers over the last {@code days} days, today included, highest count first. */
+  public List<ProductSellStatDTO> topSellers(int days, int limit) {
+    int safeDays = Math.max(1, Math.min(days, safeRetentionDays()));
+    LocalDate today = LocalDate.now();
+    String rankKey = safeDays == 1 ? rankKey(today) : rollup(today, safeDays);
+    Set<ZSetOperations.TypedTuple<String>> tuples =
+        stringRedisTemplate.opsForZSet().reverseRangeWithScores(rankKey, 0, limit - 1L);
+    if (tuples == null || tuples.isEmpty()) {
+      return List.of();
+    }
+    List<ProductSellStatDTO> stats = new ArrayList<>(tuples.size());
+    for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+      if (tuple.getValue() == null || tuple.getScore() == null) {
+        continue;
+      }
+      stats.add(toStat(Long.valueOf(tuple.getValue()), tuple.getScore().longValue()));
+    }
+    return stats;
+  }
+
+  /**
+   * Lifetime paid units per SPU, refunds included: the compacted total plus every day not yet
+   * folded into it.
+   */
+  public List<ProductSellStatDTO> lifetimeSales(List<Long> spuIds) {
+    if (spuIds == null || spuIds.isEmpty()) {
+      return List.of();
+    }
+    LocalDate today = LocalDate.now();
+    List<String> keys = new ArrayList<>();
+    keys.add(TOTAL_KEY);
+    for (int offset = 0; offset < safeRetentionDays(); offset++) {
+      keys.add(dayKey(today.minusDays(offset)));
+    }
+    List<ProductSellStatDTO> stats = new ArrayList<>(spuIds.size());
+    for (int from = 0; from < spuIds.size(); from += SUM_BATCH_SIZE) {
+      List<Long> batch = spuIds.subList(from, Math.min(spuIds.size(), from + SUM_BATCH_SIZE));
+      @SuppressWarnings("unchecked")
+      List<Object> sums =
+          stringRedisTemplate.execute(
+              SUM_SCRIPT, keys, batch.stream().map(String::valueOf).toArray());
+      if (sums == null || sums.size() != batch.size()) {
+        continue;
+      }
+      for (int i = 0; i < batch.size(); i++) {
+        long count = Long.parseLong(String.valueOf(sums.get(i)));
+        if (count > 0) {
+          stats.add(toStat(batch.get(i), count));
+        }
+      }
+    }
+    return stats;
+  }
+
+  /**
+   * Folds closed day hashes into the lifetime total and trims their rank sets to the head. Returns
+   * the number of SPU counters folded.
+   */
+  public int compact() {
+    int safeRetentionDays = safeRetentionDays();
+    int safeCompactAfterDays = Math.max(1, Math.min(compactAfterDays, safeRetentionDays - 1));
+    LocalDate today = LocalDate.now();
+    int folded = 0;
+    for (int offset = safeRetentionDays - 1; offset >= safeCompactAfterDays; offset--) {
+      LocalDate day = today.minusDays(offset);
+      Long count =
+          stringRedisTemplate.execute(
+              COMPACT_SCRIPT,
+              List.of(dayKey(day), TOTAL_KEY, rankKey(day)),
+              String.valueOf(Math.max(1, rankKeep)));
+      folded += count == null ? 0 : count.intValue();
+    }
+    return folded;
+  }
+
+  /**
+   * Reloads the counters from the order tables. Every unit paid before today goes into the lifetime
+   * hash, swapped in together with dropping the day hashes it now covers, and the closed day rank
+   * sets inside the retention window are reloaded. Today's live counters are left alone, so a run
+   * after midnight also recovers the part of a day lost with Redis. Returns the SPUs in the total.
+   */
+  public int rebuild() {
+    LocalDate today = LocalDate.now();
+    int safeRetentionDays = safeRetentionDays();
+    List<ProductSellStatDTO> totals = orderItemMapper.listPaidSellStats(null, today.atStartOfDay());
+    String stagingKey = TOTAL_KEY + REBUILD_SUFFIX;
+    stringRedisTemplate.delete(stagingKey);
+    for (int from = 0; from < totals.size(); from += SUM_BATCH_SIZE) {
+      Map<String, String> counts = new HashMap<>();
+      for (ProductSellStatDTO stat :
+          totals.subList(from, Math.min(totals.size(), from + SUM_BATCH_SIZE))) {
+        if (stat.getProductId() != null && stat.getSellCount() != null) {
+          counts.put(String.valueOf(stat.getProductId()), String.valueOf(stat.getSellCount()));
+        }
+      }
+      if (!counts.isEmpty()) {
+        stringRedisTemplate.opsForHash().putAll(stagingKey, counts);
+      }
+    }
+    List<String> keys = new ArrayList<>(safeRetentionDays + 1);
+    keys.add(stagingKey);
+    keys.add(TOTAL_KEY);
+    for (int offset = 1; offset < safeRetentionDays; offset++) {
+      keys.add(dayKey(today.minusDays(offset)));
+    }
+    stringRedisTemplate.execute(SWAP_TOTAL_SCRIPT, keys);
+
+    for (int offset = 1; offset < safeRetentionDays; offset++) {
+      LocalDate day = today.minusDays(offset);
+      List<ProductSellStatDTO> stats =
+          orderItemMapper.listPaidSellStats(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+      replaceRank(rankKey(day), stats, TimeUnit.DAYS.toSeconds(safeRetentionDays - offset));
+    }
+    return totals.size();
+  }
+
+  private void replaceRank(String rankKey, List<ProductSellStatDTO> stats, long ttlSeconds) {
+    Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
+    for (ProductSellStatDTO stat : stats) {
+      if (stat.getProductId() != null && stat.getSellCount() != null) {
+        tuples.add(
+            ZSetOperations.TypedTuple.of(
+                String.valueOf(stat.getProductId()), stat.getSellCount().doubleValue()));
+      }
+    }
+    if (tuples.isEmpty()) {
+      stringRedisTemplate.delete(rankKey);
+      return;
+    }
+    String stagingKey = rankKey + REBUILD_SUFFIX;
+    stringRedisTemplate.delete(stagingKey);
+    stringRedisTemplate.opsForZSet().add(stagingKey, tuples);
+    stringRedisTemplate.rename(stagingKey, rankKey);
+    stringRedisTemplate.expire(rankKey, Math.max(1L, ttlSeconds), TimeUnit.SECONDS);
+  }
+
+  private String rollup(LocalDate today, int days) {
+    String rollupKey = ROLLUP_KEY_PREFIX + days + ":" + today.format(DAY_FORMAT);
+    if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(rollupKey))) {
+      return rollupKey;
+    }
+    List<String> dayKeys = new ArrayList<>(days - 1);
+    for (int offset = 1; offset < days; offset++) {
+      dayKeys.add(rankKey(today.minusDays(offset)));
+    }
+    stringRedisTemplate.opsForZSet().unionAndStore(rankKey(today), dayKeys, rollupKey);
+    stringRedisTemplate.expire(rollupKey, Math.max(1L, rollupTtlSeconds), TimeUnit.SECONDS);
+    return rollupKey;
+  }
+
+  private void recordQuietly(Map<Long, Long> quantities) {
+    try {
+      record(LocalDate.now(), quantities);
+    } catch (Exception ex) {
+      log.warn("Record sales counters failed: spuIds={}", quantities.keySet(), ex);
+    }
+  }
+
+  private int safeRetentionDays() {
+    return Math.max(2, retentionDays);
+  }
+
+  private static ProductSellStatDTO toStat(Long productId, long sellCount) {
+    ProductSellStatDTO stat = new ProductSellStatDTO();
+    stat.setProductId(productId);
+    stat.setSellCount(sellCount);
+    return stat;
+  }
+
+  private static String dayKey(LocalDate day) {
+    return DAY_KEY_PREFIX + day.format(DAY_FORMAT);
+  }
+
+  private static String rankKey(LocalDate day) {
+    return RANK_KEY_PREFIX + day.format(DAY_FORMAT);
+  }
+}
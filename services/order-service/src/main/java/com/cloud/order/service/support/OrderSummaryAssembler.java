@@ -0,0 +1,201 @@
+package com.cloud.order.service.support;
+
+import com.cloud.order.dto.OrderSummaryDTO;
+import com.cloud.order.entity.AfterSale;
+import com.cloud.order.entity.OrderItem;
+import com.cloud.order.entity.OrderMain;
+import com.cloud.order.entity.OrderSub;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * Builds {@link OrderSummaryDTO} from already loaded order rows. Shared by the detail read and the
+ * order summary view projection so both render the same shape; latest product data is left to the
+ * caller.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderSummaryAssembler {
+
+  private static final TypeReference<Map<String, Object>> SNAPSHOT_TYPE = new TypeReference<>() {};
+
+  private final ObjectMapper objectMapper;
+
+  public OrderSummaryDTO assemble(
+      OrderMain main,
+      List<OrderSub> subs,
+      Map<Long, List<OrderItem>> itemsBySubOrderId,
+      Map<Long, AfterSale> latestAfterSaleBySubOrderId) {
+    OrderSummaryDTO summary = new OrderSummaryDTO();
+    summary.setId(main.getId());
+    summary.setOrderNo(main.getMainOrderNo());
+    summary.setUserId(main.getUserId());
+    summary.setTotalAmount(main.getTotalAmount());
+    summary.setPayAmount(main.getPayableAmount());
+    summary.setCreatedAt(main.getCreatedAt());
+    summary.setOrderStatusRaw(main.getOrderStatus());
+    summary.setStatus(resolveStatusCode(subs));
+    summary.setItems(buildItemSummaries(subs, itemsBySubOrderId));
+    List<OrderSummaryDTO.SubOrderSummaryDTO> subSummaries =
+        buildSubOrderSummaries(subs, latestAfterSaleBySubOrderId);
+    summary.setSubOrders(subSummaries);
+    if (subSummaries.size() == 1) {
+      applySingleSubOrderSummary(summary, subSummaries.get(0));
+    }
+    return summary;
+  }
+
+  public static Integer resolveStatusCode(List<OrderSub> subs) {
+    if (subs == null || subs.isEmpty()) {
+      return 0;
+    }
+    boolean allDone = subs.stream().allMatch(sub -> "DONE".equals(sub.getOrderStatus()));
+    if (allDone) {
+      return 3;
+    }
+    boolean allClosed =
+        subs.stream()
+            .allMatch(
+                sub ->
+                    "CANCELLED".equals(sub.getOrderStatus())
+                        || "CLOSED".equals(sub.getOrderStatus()));
+    if (allClosed) {
+      return 4;
+    }
+    boolean anyShipped = subs.stream().anyMatch(sub -> "SHIPPED".equals(sub.getOrderStatus()));
+    if (anyShipped) {
+      return 2;
+    }
+    boolean anyPaid = subs.stream().anyMatch(sub -> "PAID".equals(sub.getOrderStatus()));
+    if (anyPaid) {
+      return 1;
+    }
+    return 0;
+  }
+
+  private List<OrderSummaryDTO.SubOrderSummaryDTO> buildSubOrderSummaries(
+      List<OrderSub> subs, Map<Long, AfterSale> latestAfterSaleBySubOrderId) {
+    if (subs == null || subs.isEmpty()) {
+      return List.of();
+    }
+    List<OrderSummaryDTO.SubOrderSummaryDTO> summaries = new ArrayList<>(subs.size());
+    for (OrderSub sub : subs) {
+      if (sub == null) {
+        continue;
+      }
+      OrderSummaryDTO.SubOrderSummaryDTO summary = new OrderSummaryDTO.SubOrderSummaryDTO();
+      summary.setSubOrderId(sub.getId());
+      summary.setSubOrderNo(sub.getSubOrderNo());
+      summary.setMerchantId(sub.getMerchantId());
+      summary.setPayAmount(sub.getPayableAmount());
+      summary.setStatus(resolveSubStatusCode(sub));
+      summary.setOrderStatusRaw(sub.getOrderStatus());
+      summary.setAfterSaleStatus(sub.getAfterSaleStatus());
+
+      AfterSale latestAfterSale =
+          latestAfterSaleBySubOrderId == null ? null : latestAfterSaleBySubOrderId.get(sub.getId());
+      if (latestAfterSale != null) {
+        summary.setAfterSaleId(latestAfterSale.getId());
+        summary.setAfterSaleNo(latestAfterSale.getAfterSaleNo());
+        summary.setAfterSaleType(latestAfterSale.getAfterSaleType());
+        if (StringUtils.hasText(latestAfterSale.getAfterSaleNo())) {
+          summary.setRefundNo(
+              OrderRefundSagaCoordinator.buildRefundNo(latestAfterSale.getAfterSaleNo()));
+        }
+      }
+      summaries.add(summary);
+    }
+    return summaries;
+  }
+
+  private void applySingleSubOrderSummary(
+      OrderSummaryDTO summary, OrderSummaryDTO.SubOrderSummaryDTO subSummary) {
+    if (summary == null || subSummary == null) {
+      return;
+    }
+    summary.setSubOrderId(subSummary.getSubOrderId());
+    summary.setSubOrderNo(subSummary.getSubOrderNo());
+    summary.setMerchantId(subSummary.getMerchantId());
+    summary.setAfterSaleId(subSummary.getAfterSaleId());
+    summary.setAfterSaleNo(subSummary.getAfterSaleNo());
+    summary.setAfterSaleType(subSummary.getAfterSaleType());
+    summary.setRefundNo(subSummary.getRefundNo());
+    summary.setOrderStatusRaw(subSummary.getOrderStatusRaw());
+    summary.setAfterSaleStatus(subSummary.getAfterSaleStatus());
+  }
+
+  private List<OrderSummaryDTO.OrderItemSummaryDTO> buildItemSummaries(
+      List<OrderSub> subs, Map<Long, List<OrderItem>> itemsBySubOrderId) {
+    if (subs == null
+        || subs.isEmpty()
+        || itemsBySubOrderId == null
+        || itemsBySubOrderId.isEmpty()) {
+      return List.of();
+    }
+    List<OrderSummaryDTO.OrderItemSummaryDTO> result = new ArrayList<>();
+    for (OrderSub sub : subs) {
+      if (sub == null || sub.getId() == null) {
+        continue;
+      }
+      for (OrderItem item : itemsBySubOrderId.getOrDefault(sub.getId(), List.of())) {
+        result.add(toItemSummary(item));
+      }
+    }
+    return result;
+  }
+
+  private OrderSummaryDTO.OrderItemSummaryDTO toItemSummary(OrderItem item) {
+    OrderSummaryDTO.OrderItemSummaryDTO summary = new OrderSummaryDTO.OrderItemSummaryDTO();
+    summary.setId(item.getId());
+    summary.setSubOrderId(item.getSubOrderId());
+    summary.setSpuId(item.getSpuId());
+    summary.setSkuId(item.getSkuId());
+    summary.setSkuCode(item.getSkuCode());
+    summary.setSkuName(item.getSkuName());
+    summary.setQuantity(item.getQuantity());
+    summary.setUnitPrice(item.getUnitPrice());
+    summary.setTotalPrice(item.getTotalPrice());
+    summary.setSkuSnapshot(parseSnapshot(item.getSkuSnapshot()));
+    return summary;
+  }
+
+  private Map<String, Object> parseSnapshot(String snapshot) {
+    if (!StringUtils.hasText(snapshot)) {
+      return Collections.emptyMap();
+    }
+    try {
+      return objectMapper.readValue(snapshot, SNAPSHOT_TYPE);
+    } catch (Exception ex) {
+      Map<String, Object> fallback = new HashMap<>();
+      fallback.put("raw", snapshot);
+      return fallback;
+    }
+  }
+
+  private Integer resolveSubStatusCode(OrderSub sub) {
+    if (sub == null) {
+      return 0;
+    }
+    if ("DONE".equals(sub.getOrderStatus())) {
+      return 3;
+    }
+    if ("CANCELLED".equals(sub.getOrderStatus()) || "CLOSED".equals(sub.getOrderStatus())) {
+      return 4;
+    }
+    if ("SHIPPED".equals(sub.getOrderStatus())) {
+      return 2;
+    }
+    if ("PAID".equals(sub.getOrderStatus())) {
+      return 1;
+    }
+    return 0;
+  }
+}
@@ -0,0 +1,202 @@
+package com.cloud.order.service.support;
+
+import com.cloud.common.exception.SystemException;
+import com.cloud.order.dto.OrderAggregateResponse;
+import com.cloud.order.dto.OrderSummaryDTO;
+import com.cloud.order.entity.AfterSale;
+import com.cloud.order.entity.OrderItem;
+import com.cloud.order.entity.OrderMain;
+import com.cloud.order.entity.OrderSub;
+import com.cloud.order.mapper.AfterSaleMapper;
+import com.cloud.order.mapper.OrderItemMapper;
+import com.cloud.order.mapper.OrderMainMapper;
+import com.cloud.order.mapper.OrderSubMapper;
+import com.cloud.order.mapper.OrderSummaryViewMapper;
+import com.cloud.order.mapper.OrderSummaryViewMapper.SummaryRow;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Maintains {@code order_summary_view}, the listing read model. Each main order has one row for the
+ * whole order plus one row per merchant slice, holding the rendered {@link OrderSummaryDTO} and the
+ * status code it is filtered by. Writers mark a main order dirty; dirty orders are re-projected
+ * once in beforeCommit, so the view commits atomically with the order rows it reflects.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderSummaryViewService {
+
+  private static final Object PENDING_ORDERS_KEY = new Object();
+  private static final Set<String> NO_AFTER_SALE_STATUSES = Set.of("", "NONE");
+
+  private final OrderSummaryViewMapper orderSummaryViewMapper;
+  private final OrderMainMapper orderMainMapper;
+  private final OrderSubMapper orderSubMapper;
+  private final OrderItemMapper orderItemMapper;
+  private final AfterSaleMapper afterSaleMapper;
+  private final OrderSummaryAssembler orderSummaryAssembler;
+  private final ObjectMapper objectMapper;
+
+  /** Projects a freshly created order from memory, without reading back the inserted rows. */
+  public void project(OrderAggregateResponse aggregate) {
+    if (aggregate == null || aggregate.getMainOrder() == null) {
+      return;
+    }
+    List<OrderSub> subs = new ArrayList<>();
+    Map<Long, List<OrderItem>> itemsBySubOrderId = new HashMap<>();
+    if (aggregate.getSubOrders() != null) {
+      for (OrderAggregateResponse.SubOrderWithItems wrapped : aggregate.getSubOrders()) {
+        subs.add(wrapped.getSubOrder());
+        itemsBySubOrderId.put(
+            wrapped.getSubOrder().getId(),
+            wrapped.getItems() == null ? List.of() : wrapped.getItems());
+      }
+    }
+    List<SummaryRow> rows = buildRows(aggregate.getMainOrder(), subs, itemsBySubOrderId, Map.of());
+    if (!rows.isEmpty()) {
+      orderSummaryViewMapper.upsertBatch(rows);
+    }
+  }
+
+  public void refresh(Long mainOrderId) {
+    if (mainOrderId == null) {
+      return;
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      apply(mainOrderId);
+      return;
+    }
+    @SuppressWarnings("unchecked")
+    Set<Long> pending =
+        (Set<Long>) TransactionSynchronizationManager.getResource(PENDING_ORDERS_KEY);
+    if (pending == null) {
+      Set<Long> orders = new TreeSet<>();
+      TransactionSynchronizationManager.bindResource(PENDING_ORDERS_KEY, orders);
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+              orders.forEach(OrderSummaryViewService.this::apply);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+              TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_ORDERS_KEY);
+            }
+          });
+      pending = orders;
+    }
+    pending.add(mainOrderId);
+  }
+
+  @Transactional(rollbackFor = Exception.class)
+  public int rebuild(List<Long> mainOrderIds) {
+    if (mainOrderIds == null || mainOrderIds.isEmpty()) {
+      return 0;
+    }
+    mainOrderIds.forEach(this::apply);
+    return mainOrderIds.size();
+  }
+
+  private void apply(Long mainOrderId) {
+    OrderMain main = orderMainMapper.selectById(mainOrderId);
+    if (main == null || Integer.valueOf(1).equals(main.getDeleted())) {
+      orderSummaryViewMapper.deleteByMainOrderIds(List.of(mainOrderId));
+      return;
+    }
+    List<OrderSub> subs = orderSubMapper.listActiveByMainOrderId(mainOrderId);
+    if (subs == null || subs.isEmpty()) {
+      orderSummaryViewMapper.deleteByMainOrderIds(List.of(mainOrderId));
+      return;
+    }
+    List<Long> subOrderIds = subs.stream().map(OrderSub::getId).filter(Objects::nonNull).toList();
+    Map<Long, List<OrderItem>> itemsBySubOrderId = new HashMap<>();
+    for (OrderItem item : orderItemMapper.listActiveBySubOrderIds(subOrderIds)) {
+      if (item != null && item.getSubOrderId() != null) {
+        itemsBySubOrderId
+            .computeIfAbsent(item.getSubOrderId(), ignored -> new ArrayList<>())
+            .add(item);
+      }
+    }
+    List<SummaryRow> rows = buildRows(main, subs, itemsBySubOrderId, loadLatestAfterSales(subs));
+    orderSummaryViewMapper.upsertBatch(rows);
+    // A merchant whose last sub-order left the order keeps its old slice unless it is removed.
+    orderSummaryViewMapper.deleteSlicesOtherThan(
+        mainOrderId, rows.stream().map(SummaryRow::merchantId).toList());
+  }
+
+  private Map<Long, AfterSale> loadLatestAfterSales(List<OrderSub> subs) {
+    List<Long> subOrderIds =
+        subs.stream()
+            .filter(
+                sub ->
+                    sub.getAfterSaleStatus() != null
+                        && !NO_AFTER_SALE_STATUSES.contains(sub.getAfterSaleStatus().trim()))
+            .map(OrderSub::getId)
+            .filter(Objects::nonNull)
+            .toList();
+    if (subOrderIds.isEmpty()) {
+      return Map.of();
+    }
+    Map<Long, AfterSale> latest = new HashMap<>();
+    for (AfterSale afterSale : afterSaleMapper.listLatestActiveBySubOrderIds(subOrderIds)) {
+      latest.put(afterSale.getSubOrderId(), afterSale);
+    }
+    return latest;
+  }
+
+  private List<SummaryRow> buildRows(
+      OrderMain main,
+      List<OrderSub> subs,
+      Map<Long, List<OrderItem>> itemsBySubOrderId,
+      Map<Long, AfterSale> latestAfterSales) {
+    if (subs.isEmpty()) {
+      return List.of();
+    }
+    Map<Long, List<OrderSub>> subsByMerchant = new LinkedHashMap<>();
+    subsByMerchant.put(OrderSummaryViewMapper.WHOLE_ORDER, subs);
+    for (OrderSub sub : subs) {
+      if (sub.getMerchantId() != null) {
+        subsByMerchant.computeIfAbsent(sub.getMerchantId(), ignored -> new ArrayList<>()).add(sub);
+      }
+    }
+    List<SummaryRow> rows = new ArrayList<>(subsByMerchant.size());
+    for (Map.Entry<Long, List<OrderSub>> entry : subsByMerchant.entrySet()) {
+      OrderSummaryDTO summary =
+          orderSummaryAssembler.assemble(
+              main, entry.getValue(), itemsBySubOrderId, latestAfterSales);
+      rows.add(
+          new SummaryRow(
+              main.getId(),
+              entry.getKey(),
+              main.getUserId(),
+              main.getMainOrderNo(),
+              summary.getStatus(),
+              main.getOrderStatus(),
+              write(summary),
+              main.getCreatedAt()));
+    }
+    return rows;
+  }
+
+  private String write(OrderSummaryDTO summary) {
+    try {
+      return objectMapper.writeValueAsString(summary);
+    } catch (JsonProcessingException ex) {
+      throw new SystemException("failed to serialize order summary: " + summary.getId());
+    }
+  }
+}
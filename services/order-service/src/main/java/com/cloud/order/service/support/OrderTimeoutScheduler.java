@@ -0,0 +1,246 @@
+package com.cloud.order.service.support;
+
+import com.cloud.order.entity.OrderSub;
+import com.cloud.order.mapper.OrderSubMapper;
+import com.cloud.order.service.OrderTimeoutService;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Fires sub-order payment timeouts from an in-process {@link OrderTimeoutWheel}. A node schedules
+ * the orders it creates; on startup it reloads the pending sub-orders it owns on the
+ * consistent-hash ring of registered order-service instances. Due timeouts are cancelled in batches
+ * on the wheel's driver thread with one payment-status lookup per batch, and {@code
+ * orderTimeoutCheckJob} only reconciles what no node picked up. Deadlines are re-checked against
+ * the current timeout config when they fire, so a longer timeout set at runtime re-schedules the
+ * entry instead of cancelling early; a shorter one is caught by the reconcile job.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderTimeoutScheduler implements DisposableBean {
+
+  private static final List<String> PENDING_STATUSES = List.of("CREATED", "STOCK_RESERVED");
+  private static final int WHEEL_LEVELS = 3;
+
+  private final OrderSubMapper orderSubMapper;
+  private final OrderTimeoutService orderTimeoutService;
+  private final DiscoveryClient discoveryClient;
+  private final ObjectProvider<Registration> registrationProvider;
+
+  private final Queue<Pending> incoming = new ConcurrentLinkedQueue<>();
+
+  @Value("${order.timeout.wheel.enabled:true}")
+  private boolean enabled;
+
+  @Value("${order.timeout.wheel.tick-ms:1000}")
+  private long tickMs;
+
+  @Value("${order.timeout.wheel.wheel-size:60}")
+  private int wheelSize;
+
+  @Value("${order.timeout.wheel.fire-batch-size:200}")
+  private int fireBatchSize;
+
+  @Value("${order.timeout.wheel.rebuild-page-size:500}")
+  private int rebuildPageSize;
+
+  @Value("${order.timeout.wheel.virtual-nodes:64}")
+  private int virtualNodes;
+
+  @Value("${spring.application.name:order-service}")
+  private String serviceId;
+
+  private volatile boolean running;
+  private Thread driver;
+
+  /** Schedules the sub-order's timeout once the creating transaction commits. */
+  public void scheduleAfterCommit(OrderSub subOrder) {
+    if (!enabled || subOrder == null || subOrder.getId() == null) {
+      return;
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      schedule(subOrder);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            schedule(subOrder);
+          }
+        });
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (!enabled || running) {
+      return;
+    }
+    running = true;
+    driver = new Thread(this::runDriver, "order-timeout-wheel");
+    driver.setDaemon(true);
+    driver.start();
+  }
+
+  @Override
+  public void destroy() {
+    running = false;
+    if (driver != null) {
+      driver.interrupt();
+    }
+  }
+
+  private void schedule(OrderSub subOrder) {
+    incoming.add(new Pending(subOrder.getId(), deadlineOf(subOrder.getCreatedAt())));
+  }
+
+  private void runDriver() {
+    long safeTickMs = Math.max(10L, tickMs);
+    OrderTimeoutWheel wheel =
+        new OrderTimeoutWheel(
+            safeTickMs, Math.max(8, wheelSize), WHEEL_LEVELS, System.currentTimeMillis());
+    List<Long> due = new ArrayList<>();
+    try {
+      int loaded = rebuild(wheel, due);
+      log.info("Order timeout wheel started: loaded={}, tickMs={}", loaded, safeTickMs);
+    } catch (Exception ex) {
+      log.warn("Rebuild order timeout wheel failed, relying on reconcile job", ex);
+    }
+    while (running) {
+      try {
+        Pending pending;
+        while ((pending = incoming.poll()) != null) {
+          wheel.add(pending.subOrderId(), pending.deadlineMs(), due::add);
+        }
+        wheel.advance(System.currentTimeMillis(), due::add);
+        if (!due.isEmpty()) {
+          fire(due);
+          due.clear();
+        }
+      } catch (Exception ex) {
+        log.warn("Order timeout wheel tick failed", ex);
+        due.clear();
+      }
+      LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(safeTickMs));
+    }
+  }
+
+  private int rebuild(OrderTimeoutWheel wheel, List<Long> due) {
+    OrderTimeoutShardRing ring = buildRing();
+    int safePageSize = Math.max(1, rebuildPageSize);
+    int loaded = 0;
+    for (String status : PENDING_STATUSES) {
+      LocalDateTime afterCreatedAt = null;
+      Long afterId = null;
+      while (true) {
+        List<OrderSub> page =
+            orderSubMapper.listPendingTimeouts(status, afterCreatedAt, afterId, safePageSize);
+        for (OrderSub subOrder : page) {
+          if (ring.owns(subOrder.getMainOrderId())) {
+            wheel.add(subOrder.getId(), deadlineOf(subOrder.getCreatedAt()), due::add);
+            loaded++;
+          }
+        }
+        if (page.size() < safePageSize) {
+          break;
+        }
+        OrderSub last = page.get(page.size() - 1);
+        afterCreatedAt = last.getCreatedAt();
+        afterId = last.getId();
+      }
+    }
+    return loaded;
+  }
+
+  private OrderTimeoutShardRing buildRing() {
+    Registration registration = registrationProvider.getIfAvailable();
+    if (registration == null) {
+      return new OrderTimeoutShardRing(List.of(), null, 0);
+    }
+    String self = memberKey(registration);
+    List<String> members = new ArrayList<>();
+    members.add(self);
+    for (ServiceInstance instance : discoveryClient.getInstances(serviceId)) {
+      String member = memberKey(instance);
+      if (!members.contains(member)) {
+        members.add(member);
+      }
+    }
+    return new OrderTimeoutShardRing(members, self, Math.max(1, virtualNodes));
+  }
+
+  private void fire(List<Long> due) {
+    int safeBatchSize = Math.max(1, fireBatchSize);
+    for (int from = 0; from < due.size(); from += safeBatchSize) {
+      List<Long> batch = due.subList(from, Math.min(due.size(), from + safeBatchSize));
+      int cancelled = 0;
+      List<Long> expired = batch;
+      try {
+        expired = recheckDeadlines(batch);
+        if (!expired.isEmpty()) {
+          cancelled = orderTimeoutService.batchCancelTimeoutOrders(expired);
+        }
+      } catch (Exception ex) {
+        log.warn("Cancel timed-out sub order batch failed: size={}", batch.size(), ex);
+      }
+      log.info(
+          "Order timeout wheel fired: due={}, expired={}, cancelled={}",
+          batch.size(),
+          expired.size(),
+          cancelled);
+    }
+  }
+
+  /**
+   * Returns the ids whose deadline under the current timeout config has passed; the rest go back on
+   * the wheel with their recomputed deadline.
+   */
+  private List<Long> recheckDeadlines(List<Long> batch) {
+    long nowMs = System.currentTimeMillis();
+    List<Long> expired = new ArrayList<>(batch.size());
+    for (OrderSub subOrder : orderSubMapper.selectBatchIds(new ArrayList<>(batch))) {
+      long deadlineMs = deadlineOf(subOrder.getCreatedAt());
+      if (subOrder.getCreatedAt() != null && deadlineMs > nowMs) {
+        incoming.add(new Pending(subOrder.getId(), deadlineMs));
+      } else {
+        expired.add(subOrder.getId());
+      }
+    }
+    return expired;
+  }
+
+  private long deadlineOf(LocalDateTime createdAt) {
+    LocalDateTime base = createdAt == null ? LocalDateTime.now() : createdAt;
+    Integer timeoutMinutes = orderTimeoutService.getTimeoutConfig();
+    return base.plusMinutes(timeoutMinutes == null ? 30 : timeoutMinutes)
+        .atZone(ZoneId.systemDefault())
+        .toInstant()
+        .toEpochMilli();
+  }
+
+  private static String memberKey(ServiceInstance instance) {
+    return instance.getHost() + ":" + instance.getPort();
+  }
+
+  private record Pending(long subOrderId, long deadlineMs) {}
+}
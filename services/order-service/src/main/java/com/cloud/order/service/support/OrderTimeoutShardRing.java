@@ -0,0 +1,39 @@
+package com.cloud.order.service.support;
+
+import cn.hutool.core.lang.hash.MurmurHash;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Consistent-hash ring over order-service instances. Every instance builds the same ring from the
+ * registry, so each main order maps to exactly one owner and a membership change only moves the
+ * orders next to the joining or leaving instance.
+ */
+final class OrderTimeoutShardRing {
+
+  private final TreeMap<Long, String> ring = new TreeMap<>();
+  private final String self;
+
+  OrderTimeoutShardRing(Collection<String> members, String self, int virtualNodes) {
+    this.self = self;
+    for (String member : members) {
+      for (int node = 0; node < virtualNodes; node++) {
+        ring.put(MurmurHash.hash64(member + "#" + node), member);
+      }
+    }
+  }
+
+  boolean owns(Long mainOrderId) {
+    if (ring.isEmpty()) {
+      return true;
+    }
+    Map.Entry<Long, String> owner =
+        ring.ceilingEntry(MurmurHash.hash64(String.valueOf(mainOrderId)));
+    if (owner == null) {
+      owner = ring.firstEntry();
+    }
+    return Objects.equals(owner.getValue(), self);
+  }
+}
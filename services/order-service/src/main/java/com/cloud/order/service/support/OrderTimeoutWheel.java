@@ -0,0 +1,92 @@
+package com.cloud.order.service.support;
+
+import java.util.ArrayDeque;
+import java.util.function.LongConsumer;
+
+/**
+ * Hierarchical timing wheel of sub-order deadlines. Level {@code i} has {@code wheelSize} slots of
+ * {@code tickMs * wheelSize^i} each; entries cascade into finer levels as their slot comes up, so
+ * adding and expiring are O(1) regardless of how many timeouts are pending. Not thread-safe: the
+ * scheduler's driver thread is the only caller.
+ */
+final class OrderTimeoutWheel {
+
+  private final long tickMs;
+  private final int wheelSize;
+  private final long[] slotTicks;
+  private final ArrayDeque<Timeout>[][] levels;
+  private final long maxSpanTicks;
+  private long currentTick;
+  private int size;
+
+  @SuppressWarnings("unchecked")
+  OrderTimeoutWheel(long tickMs, int wheelSize, int levelCount, long startMs) {
+    this.tickMs = tickMs;
+    this.wheelSize = wheelSize;
+    this.slotTicks = new long[levelCount];
+    this.levels = new ArrayDeque[levelCount][wheelSize];
+    long span = 1L;
+    for (int level = 0; level < levelCount; level++) {
+      slotTicks[level] = span;
+      for (int slot = 0; slot < wheelSize; slot++) {
+        levels[level][slot] = new ArrayDeque<>();
+      }
+      span = Math.multiplyExact(span, wheelSize);
+    }
+    this.maxSpanTicks = span;
+    this.currentTick = startMs / tickMs;
+  }
+
+  /** Adds a deadline; one that is already due is handed to {@code expired} straight away. */
+  void add(long subOrderId, long deadlineMs, LongConsumer expired) {
+    place(new Timeout(subOrderId, Math.floorDiv(deadlineMs + tickMs - 1, tickMs)), expired);
+  }
+
+  /** Moves the wheel up to {@code nowMs}, handing every due sub-order id to {@code expired}. */
+  void advance(long nowMs, LongConsumer expired) {
+    long targetTick = nowMs / tickMs;
+    while (currentTick < targetTick) {
+      currentTick++;
+      for (int level = levels.length - 1; level > 0; level--) {
+        if (currentTick % slotTicks[level] == 0) {
+          drain(levels[level][slotIndex(currentTick, level)], expired);
+        }
+      }
+      drain(levels[0][slotIndex(currentTick, 0)], expired);
+    }
+  }
+
+  int size() {
+    return size;
+  }
+
+  private void place(Timeout timeout, LongConsumer expired) {
+    long delta = timeout.deadlineTick() - currentTick;
+    if (delta <= 0) {
+      expired.accept(timeout.subOrderId());
+      return;
+    }
+    // Deadlines past the top level wait in its furthest slot and are re-placed when it comes up.
+    long placementTick = currentTick + Math.min(delta, maxSpanTicks - 1);
+    int level = 0;
+    while (level < levels.length - 1 && delta >= slotTicks[level] * wheelSize) {
+      level++;
+    }
+    levels[level][slotIndex(placementTick, level)].add(timeout);
+    size++;
+  }
+
+  private void drain(ArrayDeque<Timeout> slot, LongConsumer expired) {
+    Timeout timeout;
+    while ((timeout = slot.poll()) != null) {
+      size--;
+      place(timeout, expired);
+    }
+  }
+
+  private int slotIndex(long tick, int level) {
+    return (int) ((tick / slotTicks[level]) % wheelSize);
+  }
+
+  private record Timeout(long subOrderId, long deadlineTick) {}
+}
@@ -1,9 +1,11 @@
 package com.cloud.order.service.support;
 
 import com.cloud.api.payment.PaymentDubboApi;
+import com.cloud.common.domain.dto.payment.PaymentOrderLookupDTO;
 import com.cloud.common.domain.dto.payment.PaymentRefundCommandDTO;
 import com.cloud.common.domain.vo.payment.PaymentOrderVO;
 import com.cloud.common.remote.RemoteCallSupport;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.apache.dubbo.config.annotation.DubboReference;
 import org.springframework.stereotype.Component;
@@ -23,6 +25,12 @@ public class PaymentOrderRemoteService {
         () -> paymentDubboApi.getPaymentOrderByOrderNo(mainOrderNo, subOrderNo));
   }
 
+  public List<PaymentOrderVO> listPaymentOrdersByOrderNos(List<PaymentOrderLookupDTO> lookups) {
+    return remoteCallSupport.query(
+        "payment-service.listPaymentOrdersByOrderNos",
+        () -> paymentDubboApi.listPaymentOrdersByOrderNos(lookups));
+  }
+
   public Long createRefund(PaymentRefundCommandDTO command) {
     return remoteCallSupport.command(
         "payment-service.createRefund", () -> paymentDubboApi.createRefund(command));
@@ -0,0 +1,126 @@
+package com.cloud.order.service.support;
+
+import com.cloud.api.product.ProductDubboApi;
+import com.cloud.common.domain.vo.product.SkuDetailVO;
+import com.cloud.common.domain.vo.product.SpuDetailVO;
+import com.cloud.common.remote.RemoteCallSupport;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Product lookups for a single checkout or order-list page. Ids are deduplicated and fetched with
+ * one batch RPC per kind; ids already resolved (or known to be missing) are not requested again.
+ * Not thread-safe, create one instance per request.
+ */
+public class ProductSnapshotLoader {
+
+  private final ProductDubboApi productDubboApi;
+  private final RemoteCallSupport remoteCallSupport;
+  private final boolean strict;
+  private final Map<Long, SpuDetailVO> spuById = new HashMap<>();
+  private final Map<Long, SkuDetailVO> skuById = new HashMap<>();
+  private final Set<Long> requestedSpuIds = new HashSet<>();
+  private final Set<Long> requestedSkuIds = new HashSet<>();
+
+  private ProductSnapshotLoader(
+      ProductDubboApi productDubboApi, RemoteCallSupport remoteCallSupport, boolean strict) {
+    this.productDubboApi = productDubboApi;
+    this.remoteCallSupport = remoteCallSupport;
+    this.strict = strict;
+  }
+
+  /** Remote failures propagate, for flows such as checkout that must not use partial data. */
+  public static ProductSnapshotLoader strict(
+      ProductDubboApi productDubboApi, RemoteCallSupport remoteCallSupport) {
+    return new ProductSnapshotLoader(productDubboApi, remoteCallSupport, true);
+  }
+
+  /** Remote failures degrade to missing entries, for display-only reads. */
+  public static ProductSnapshotLoader lenient(
+      ProductDubboApi productDubboApi, RemoteCallSupport remoteCallSupport) {
+    return new ProductSnapshotLoader(productDubboApi, remoteCallSupport, false);
+  }
+
+  public Map<Long, SpuDetailVO> loadSpus(Collection<Long> spuIds) {
+    List<Long> pending = pendingIds(spuIds, requestedSpuIds);
+    if (!pending.isEmpty()) {
+      List<SpuDetailVO> details =
+          invoke("list spu by ids", () -> productDubboApi.listSpuByIds(pending));
+      if (details != null) {
+        for (SpuDetailVO detail : details) {
+          if (detail != null && detail.getSpuId() != null) {
+            spuById.put(detail.getSpuId(), detail);
+          }
+        }
+      }
+    }
+    return select(spuIds, spuById);
+  }
+
+  public Map<Long, SkuDetailVO> loadSkus(Collection<Long> skuIds) {
+    List<Long> pending = pendingIds(skuIds, requestedSkuIds);
+    if (!pending.isEmpty()) {
+      List<SkuDetailVO> details =
+          invoke("list sku by ids", () -> productDubboApi.listSkuByIds(pending));
+      if (details != null) {
+        for (SkuDetailVO detail : details) {
+          if (detail != null && detail.getSkuId() != null) {
+            skuById.put(detail.getSkuId(), detail);
+          }
+        }
+      }
+    }
+    return select(skuIds, skuById);
+  }
+
+  public SpuDetailVO getSpu(Long spuId) {
+    return spuId == null ? null : loadSpus(List.of(spuId)).get(spuId);
+  }
+
+  public SkuDetailVO getSku(Long skuId) {
+    return skuId == null ? null : loadSkus(List.of(skuId)).get(skuId);
+  }
+
+  private List<Long> pendingIds(Collection<Long> ids, Set<Long> requested) {
+    if (ids == null || ids.isEmpty()) {
+      return List.of();
+    }
+    Set<Long> pending = new LinkedHashSet<>();
+    for (Long id : ids) {
+      if (id != null && !requested.contains(id)) {
+        pending.add(id);
+      }
+    }
+    requested.addAll(pending);
+    return List.copyOf(pending);
+  }
+
+  private <T> Map<Long, T> select(Collection<Long> ids, Map<Long, T> loaded) {
+    if (ids == null || ids.isEmpty() || loaded.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    Map<Long, T> result = new HashMap<>();
+    for (Long id : ids) {
+      T value = id == null ? null : loaded.get(id);
+      if (value != null) {
+        result.put(id, value);
+      }
+    }
+    return result;
+  }
+
+  private <T> List<T> invoke(String action, Supplier<List<T>> supplier) {
+    String name = "product-service." + action;
+    if (strict) {
+      return remoteCallSupport.query(name, supplier);
+    }
+    return remoteCallSupport.queryOrFallback(name, supplier, ex -> List.of());
+  }
+}
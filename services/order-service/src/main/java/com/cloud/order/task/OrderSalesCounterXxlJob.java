@@ -0,0 +1,40 @@
+package com.cloud.order.task;
+
+import com.cloud.common.annotation.DistributedLock;
+import com.cloud.common.task.XxlJobSupport;
+import com.cloud.order.service.support.OrderSalesCounterService;
+import com.xxl.job.core.handler.annotation.XxlJob;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderSalesCounterXxlJob {
+
+  private final OrderSalesCounterService orderSalesCounterService;
+
+  @XxlJob("orderSalesCounterCompactJob")
+  @DistributedLock(
+      key = "'xxl:order:sales-counter-compact'",
+      waitTime = 1,
+      leaseTime = 300,
+      failStrategy = DistributedLock.LockFailStrategy.RETURN_NULL)
+  public void compactSalesCounters() {
+    int folded = orderSalesCounterService.compact();
+    XxlJobSupport.logCount(log, "orderSalesCounterCompactJob", "folded", folded);
+  }
+
+  /** Seeds the counters from the order tables; also the recovery path after Redis loss. */
+  @XxlJob("orderSalesCounterRebuildJob")
+  @DistributedLock(
+      key = "'xxl:order:sales-counter-compact'",
+      waitTime = 1,
+      leaseTime = 1800,
+      failStrategy = DistributedLock.LockFailStrategy.RETURN_NULL)
+  public void rebuildSalesCounters() {
+    int spuCount = orderSalesCounterService.rebuild();
+    XxlJobSupport.logCount(log, "orderSalesCounterRebuildJob", "spuCount", spuCount);
+  }
+}
@@ -0,0 +1,48 @@
+package com.cloud.order.task;
+
+import com.cloud.common.annotation.DistributedLock;
+import com.cloud.common.task.XxlJobSupport;
+import com.cloud.order.mapper.OrderMainMapper;
+import com.cloud.order.service.support.OrderSummaryViewService;
+import com.xxl.job.core.handler.annotation.XxlJob;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderSummaryViewXxlJob {
+
+  private final OrderMainMapper orderMainMapper;
+  private final OrderSummaryViewService orderSummaryViewService;
+
+  @Value("${order.summary-view.rebuild-batch-size:200}")
+  private int batchSize;
+
+  @XxlJob("orderSummaryViewRebuildJob")
+  @DistributedLock(
+      key = "'xxl:order:summary-view-rebuild'",
+      waitTime = 1,
+      leaseTime = 300,
+      failStrategy = DistributedLock.LockFailStrategy.RETURN_NULL)
+  public void rebuildSummaryView() {
+    int limit = Math.max(1, batchSize);
+    long lastMainOrderId = 0L;
+    int rebuilt = 0;
+    while (true) {
+      List<Long> mainOrderIds = orderMainMapper.listActiveIdsAfter(lastMainOrderId, limit);
+      if (mainOrderIds == null || mainOrderIds.isEmpty()) {
+        break;
+      }
+      rebuilt += orderSummaryViewService.rebuild(mainOrderIds);
+      lastMainOrderId = mainOrderIds.get(mainOrderIds.size() - 1);
+      if (mainOrderIds.size() < limit) {
+        break;
+      }
+    }
+    XxlJobSupport.logCount(log, "orderSummaryViewRebuildJob", "rebuilt", rebuilt);
+  }
+}
@@ -0,0 +1,54 @@
+package com.cloud.order.benchmark;
+
+import com.cloud.common.config.ResilientIdentifierGenerator;
+import com.cloud.order.service.support.OrderNoGenerator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/** Order number generation versus the previous random UUID order numbers. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class OrderNoGeneratorBenchmark {
+
+  private OrderNoGenerator orderNoGenerator;
+
+  @Setup
+  public void setUp() {
+    orderNoGenerator = new OrderNoGenerator(new ResilientIdentifierGenerator(1L, 1L, false));
+  }
+
+  @Benchmark
+  public String uuidOrderNo() {
+    return "M" + UUID.randomUUID().toString().replace("-", "");
+  }
+
+  @Benchmark
+  public String timeOrderedOrderNo() {
+    return orderNoGenerator.nextMainOrderNo();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(
+            new OptionsBuilder().include(OrderNoGeneratorBenchmark.class.getSimpleName()).build())
+        .run();
+  }
+}
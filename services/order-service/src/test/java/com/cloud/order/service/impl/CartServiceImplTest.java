@@ -2,19 +2,17 @@ package com.cloud.order.service.impl;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.cloud.common.remote.RemoteCallSupport;
 import com.cloud.order.dto.CartDTO;
 import com.cloud.order.dto.CartSyncRequest;
-import com.cloud.order.entity.Cart;
 import com.cloud.order.entity.CartItem;
-import com.cloud.order.mapper.CartItemMapper;
-import com.cloud.order.mapper.CartMapper;
+import com.cloud.order.service.support.CartHotStore;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.function.Function;
@@ -29,79 +27,52 @@ import org.mockito.junit.jupiter.MockitoExtension;
 @ExtendWith(MockitoExtension.class)
 class CartServiceImplTest {
 
-  @Mock private CartMapper cartMapper;
-  @Mock private CartItemMapper cartItemMapper;
+  @Mock private CartHotStore cartHotStore;
   @Mock private RemoteCallSupport remoteCallSupport;
 
   @InjectMocks private CartServiceImpl cartService;
 
   @Test
-  void syncCartReusesCheckedOutItemWithSameUserAndSku() {
-    Cart cart = new Cart();
-    cart.setId(100L);
-    cart.setUserId(88L);
-    cart.setCartStatus("ACTIVE");
-    when(cartMapper.selectActiveByUserId(88L)).thenReturn(cart);
-    when(cartItemMapper.listActiveByCartIdAndUserId(100L, 88L))
-        .thenReturn(List.of(), List.of(reusedCartItem()));
-    when(cartItemMapper.selectByUserIdAndSkuIds(88L, List.of(51002L)))
-        .thenReturn(List.of(oldCheckedOutItem()));
+  void syncCartWritesNormalizedItemsToHotStore() {
+    when(cartHotStore.sync(eq(88L), anyList()))
+        .thenAnswer(
+            invocation ->
+                new CartHotStore.Snapshot(100L, "CART-88", 88L, 3L, invocation.getArgument(1)));
     when(remoteCallSupport.queryOrFallback(anyString(), any(Supplier.class), any(Function.class)))
         .thenReturn(null);
 
     CartSyncRequest request = new CartSyncRequest();
-    CartSyncRequest.CartSyncItemRequest item = new CartSyncRequest.CartSyncItemRequest();
-    item.setSpuId(50001L);
-    item.setSkuId(51002L);
-    item.setSkuName("Cloud Phone 15 512G Silver");
-    item.setUnitPrice(new BigDecimal("5699.00"));
-    item.setQuantity(1);
-    item.setSelected(1);
-    request.setItems(List.of(item));
+    request.setItems(
+        List.of(
+            syncItem(51002L, "5699.00", 2, 1),
+            syncItem(51003L, "99.00", 1, 0),
+            syncItem(51002L, "5699.00", 1, 1)));
 
     CartDTO result = cartService.syncCart(88L, request);
 
-    ArgumentCaptor<CartItem> updatedCaptor = ArgumentCaptor.forClass(CartItem.class);
-    verify(cartItemMapper).updateById(updatedCaptor.capture());
-    CartItem updated = updatedCaptor.getValue();
-    assertEquals(900L, updated.getId());
-    assertEquals(100L, updated.getCartId());
-    assertEquals(0, updated.getCheckedOut());
-    assertEquals(1, updated.getSelected());
-    assertEquals(new BigDecimal("5699.00"), updated.getUnitPrice());
-    verify(cartItemMapper, never()).insert(any(CartItem.class));
-    verify(cartMapper).updateById(eq(cart));
-    assertEquals(1, result.getItems().size());
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<CartItem>> itemsCaptor = ArgumentCaptor.forClass(List.class);
+    verify(cartHotStore).sync(eq(88L), itemsCaptor.capture());
+    List<CartItem> synced = itemsCaptor.getValue();
+    assertEquals(2, synced.size());
+    assertEquals(51002L, synced.get(0).getSkuId());
+    assertEquals(1, synced.get(0).getQuantity());
+    assertEquals("Cloud Phone 15 512G Silver", synced.get(0).getSkuName());
     assertEquals(100L, result.getId());
+    assertEquals(1, result.getSelectedCount());
+    assertEquals(new BigDecimal("5699.00"), result.getTotalAmount());
+    assertEquals(2, result.getItems().size());
   }
 
-  private CartItem oldCheckedOutItem() {
-    CartItem item = new CartItem();
-    item.setId(900L);
-    item.setCartId(50L);
-    item.setUserId(88L);
-    item.setSpuId(50001L);
-    item.setSkuId(51002L);
-    item.setSkuName("Old Item");
-    item.setUnitPrice(new BigDecimal("4999.00"));
-    item.setQuantity(1);
-    item.setSelected(0);
-    item.setCheckedOut(1);
-    return item;
-  }
-
-  private CartItem reusedCartItem() {
-    CartItem item = new CartItem();
-    item.setId(900L);
-    item.setCartId(100L);
-    item.setUserId(88L);
+  private CartSyncRequest.CartSyncItemRequest syncItem(
+      Long skuId, String unitPrice, int quantity, int selected) {
+    CartSyncRequest.CartSyncItemRequest item = new CartSyncRequest.CartSyncItemRequest();
     item.setSpuId(50001L);
-    item.setSkuId(51002L);
-    item.setSkuName("Cloud Phone 15 512G Silver");
-    item.setUnitPrice(new BigDecimal("5699.00"));
-    item.setQuantity(1);
-    item.setSelected(1);
-    item.setCheckedOut(0);
+    item.setSkuId(skuId);
+    item.setSkuName(" Cloud Phone 15 512G Silver ");
+    item.setUnitPrice(new BigDecimal(unitPrice));
+    item.setQuantity(quantity);
+    item.setSelected(selected);
     return item;
   }
 }
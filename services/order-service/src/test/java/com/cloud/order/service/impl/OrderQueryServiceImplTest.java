@@ -1,17 +1,21 @@
 package com.cloud.order.service.impl;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
-import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.cloud.api.product.ProductDubboApi;
 import com.cloud.api.user.UserDubboApi;
 import com.cloud.common.result.PageResult;
+import com.cloud.order.dto.OrderAggregateResponse;
 import com.cloud.order.dto.OrderSummaryDTO;
 import com.cloud.order.entity.AfterSale;
 import com.cloud.order.entity.OrderMain;
@@ -20,8 +24,12 @@ import com.cloud.order.mapper.AfterSaleMapper;
 import com.cloud.order.mapper.OrderItemMapper;
 import com.cloud.order.mapper.OrderMainMapper;
 import com.cloud.order.mapper.OrderSubMapper;
+import com.cloud.order.mapper.OrderSummaryViewMapper;
 import com.cloud.order.service.OrderService;
+import com.cloud.order.service.support.OrderAggregateCacheService;
+import com.cloud.order.service.support.OrderSummaryAssembler;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.LocalDateTime;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -42,63 +50,76 @@ class OrderQueryServiceImplTest {
   @Mock private OrderSubMapper orderSubMapper;
   @Mock private OrderItemMapper orderItemMapper;
   @Mock private AfterSaleMapper afterSaleMapper;
+  @Mock private OrderSummaryViewMapper orderSummaryViewMapper;
+  @Mock private OrderAggregateCacheService orderAggregateCacheService;
   @Mock private com.cloud.common.remote.RemoteCallSupport remoteCallSupport;
   @Mock private ProductDubboApi productDubboApi;
   @Mock private UserDubboApi userDubboApi;
 
   @InjectMocks private OrderQueryServiceImpl orderQueryService;
 
+  private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
   @BeforeEach
   void setUp() {
     ReflectionTestUtils.setField(orderQueryService, "productDubboApi", productDubboApi);
     ReflectionTestUtils.setField(orderQueryService, "userDubboApi", userDubboApi);
-    ReflectionTestUtils.setField(orderQueryService, "objectMapper", new ObjectMapper());
+    ReflectionTestUtils.setField(orderQueryService, "objectMapper", objectMapper);
+    ReflectionTestUtils.setField(orderQueryService, "countCap", 1000);
+    ReflectionTestUtils.setField(
+        orderQueryService, "orderSummaryAssembler", new OrderSummaryAssembler(objectMapper));
   }
 
   @Test
-  void listOrdersLoadsSubOrdersViaIndexedMapperMethod() {
-    OrderMain mainOrder = new OrderMain();
-    mainOrder.setId(10001L);
-    mainOrder.setMainOrderNo("M2026000001");
-    mainOrder.setUserId(20001L);
-    mainOrder.setOrderStatus("CREATED");
-
-    Page<OrderMain> page = new Page<>(1, 20);
-    page.setTotal(1L);
-    page.setRecords(List.of(mainOrder));
+  void listOrdersReadsSummaryViewWithKeysetCursor() throws Exception {
+    OrderSummaryDTO first = summary(10002L);
+    OrderSummaryDTO second = summary(10001L);
+    when(orderSummaryViewMapper.listSummaries(
+            OrderSummaryViewMapper.WHOLE_ORDER, 20001L, null, 10003L, 0L, 3))
+        .thenReturn(
+            List.of(
+                objectMapper.writeValueAsString(first), objectMapper.writeValueAsString(second)));
 
-    OrderSub subOrder = new OrderSub();
-    subOrder.setId(11001L);
-    subOrder.setMainOrderId(10001L);
-    subOrder.setSubOrderNo("S2026000001");
-    subOrder.setOrderStatus("CREATED");
-    subOrder.setMerchantId(30001L);
+    PageResult<OrderSummaryDTO> result =
+        orderQueryService.listOrders(userAuthentication(20001L), 2, 2, null, null, null, 10003L);
+
+    assertEquals(2, result.getRecords().size());
+    assertEquals(10002L, result.getRecords().get(0).getId());
+    assertEquals(11001L, result.getRecords().get(1).getSubOrderId());
+    assertFalse(result.getHasNext());
+    assertEquals(4L, result.getTotal());
+    verify(orderSummaryViewMapper, never()).countSummaries(anyLong(), any(), any(), anyInt());
+    verifyNoInteractions(orderMainMapper, orderSubMapper, orderItemMapper, productDubboApi);
+  }
 
-    when(orderMainMapper.selectPageActive(any(Page.class), eq(20001L))).thenReturn(page);
-    when(orderSubMapper.listActiveByMainOrderIds(List.of(10001L))).thenReturn(List.of(subOrder));
-    when(orderItemMapper.listActiveBySubOrderIds(List.of(11001L))).thenReturn(List.of());
+  @Test
+  void listOrdersScopesMerchantToOwnSliceAndReportsNextPage() throws Exception {
+    JwtAuthenticationToken authentication =
+        authentication(30001L, AuthorityUtils.createAuthorityList("ROLE_MERCHANT"));
+    when(userDubboApi.findMerchantIdByOwnerUserId(30001L)).thenReturn(40001L);
+    when(orderSummaryViewMapper.listSummaries(40001L, null, 1, null, 0L, 2))
+        .thenReturn(
+            List.of(
+                objectMapper.writeValueAsString(summary(10002L)),
+                objectMapper.writeValueAsString(summary(10001L))));
+    when(orderSummaryViewMapper.countSummaries(40001L, null, 1, 1000)).thenReturn(7L);
 
     PageResult<OrderSummaryDTO> result =
-        orderQueryService.listOrders(userAuthentication(20001L), 1, 20, null, null, null);
+        orderQueryService.listOrders(authentication, 1, 1, 99999L, 50000L, 1, null);
 
-    assertEquals(1L, result.getTotal());
     assertEquals(1, result.getRecords().size());
-    assertEquals(11001L, result.getRecords().get(0).getSubOrderId());
-    verify(orderSubMapper).listActiveByMainOrderIds(List.of(10001L));
-    verify(orderSubMapper, never()).selectList(any());
+    assertTrue(result.getHasNext());
+    assertEquals(7L, result.getTotal());
   }
 
   @Test
-  void listOrdersLoadsLatestAfterSaleViaIndexedMapperMethod() {
+  void getOrderSummaryReadsCachedAggregateAndLatestAfterSalesInOneQuery() {
     OrderMain mainOrder = new OrderMain();
     mainOrder.setId(10001L);
     mainOrder.setMainOrderNo("M2026000001");
     mainOrder.setUserId(20001L);
     mainOrder.setOrderStatus("DONE");
-
-    Page<OrderMain> page = new Page<>(1, 20);
-    page.setTotal(1L);
-    page.setRecords(List.of(mainOrder));
+    mainOrder.setDeleted(0);
 
     OrderSub subOrder = new OrderSub();
     subOrder.setId(11001L);
@@ -110,21 +131,30 @@ class OrderQueryServiceImplTest {
 
     AfterSale afterSale = new AfterSale();
     afterSale.setId(14001L);
+    afterSale.setSubOrderId(11001L);
     afterSale.setAfterSaleNo("AS2026000001");
     afterSale.setAfterSaleType("REFUND");
 
-    when(orderMainMapper.selectPageActive(any(Page.class), eq(20001L))).thenReturn(page);
-    when(orderSubMapper.listActiveByMainOrderIds(List.of(10001L))).thenReturn(List.of(subOrder));
-    when(orderItemMapper.listActiveBySubOrderIds(List.of(11001L))).thenReturn(List.of());
-    when(afterSaleMapper.selectLatestActiveBySubOrderId(11001L)).thenReturn(afterSale);
+    OrderAggregateResponse.SubOrderWithItems wrapped =
+        new OrderAggregateResponse.SubOrderWithItems();
+    wrapped.setSubOrder(subOrder);
+    wrapped.setItems(List.of());
+    OrderAggregateResponse aggregate = new OrderAggregateResponse();
+    aggregate.setMainOrder(mainOrder);
+    aggregate.setSubOrders(List.of(wrapped));
 
-    PageResult<OrderSummaryDTO> result =
-        orderQueryService.listOrders(userAuthentication(20001L), 1, 20, null, null, null);
+    when(orderService.getOrderAggregate(10001L)).thenReturn(aggregate);
+    when(afterSaleMapper.listLatestActiveBySubOrderIds(List.of(11001L)))
+        .thenReturn(List.of(afterSale));
+
+    OrderSummaryDTO result = orderQueryService.getOrderSummary(10001L, userAuthentication(20001L));
 
-    assertEquals(14001L, result.getRecords().get(0).getAfterSaleId());
-    assertEquals("AS2026000001", result.getRecords().get(0).getAfterSaleNo());
-    verify(afterSaleMapper).selectLatestActiveBySubOrderId(11001L);
+    assertEquals(14001L, result.getAfterSaleId());
+    assertEquals("AS2026000001", result.getAfterSaleNo());
+    assertEquals(3, result.getStatus());
+    verify(afterSaleMapper).listLatestActiveBySubOrderIds(List.of(11001L));
     verify(afterSaleMapper, never()).selectOne(any());
+    verifyNoInteractions(orderMainMapper, orderSubMapper, orderItemMapper);
   }
 
   @Test
@@ -148,6 +178,15 @@ class OrderQueryServiceImplTest {
     verify(orderSubMapper, never()).selectCount(any());
   }
 
+  private OrderSummaryDTO summary(Long mainOrderId) {
+    OrderSummaryDTO summary = new OrderSummaryDTO();
+    summary.setId(mainOrderId);
+    summary.setUserId(20001L);
+    summary.setSubOrderId(mainOrderId + 1000L);
+    summary.setCreatedAt(LocalDateTime.of(2026, 1, 1, 10, 0));
+    return summary;
+  }
+
   private JwtAuthenticationToken userAuthentication(Long userId) {
     return authentication(userId, AuthorityUtils.createAuthorityList("ROLE_USER"));
   }
@@ -0,0 +1,131 @@
+package com.cloud.order.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
+import com.cloud.common.metrics.TradeMetrics;
+import com.cloud.order.dto.CreateMainOrderRequest;
+import com.cloud.order.dto.OrderAggregateResponse;
+import com.cloud.order.entity.OrderItem;
+import com.cloud.order.entity.OrderMain;
+import com.cloud.order.entity.OrderSub;
+import com.cloud.order.mapper.OrderItemMapper;
+import com.cloud.order.mapper.OrderMainMapper;
+import com.cloud.order.mapper.OrderSubMapper;
+import com.cloud.order.service.support.OrderAggregateCacheService;
+import com.cloud.order.service.support.OrderNoGenerator;
+import com.cloud.order.service.support.OrderSummaryViewService;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class OrderServiceImplTest {
+
+  @Mock private OrderMainMapper orderMainMapper;
+  @Mock private OrderSubMapper orderSubMapper;
+  @Mock private OrderItemMapper orderItemMapper;
+  @Mock private TradeMetrics tradeMetrics;
+  @Mock private IdentifierGenerator identifierGenerator;
+  @Mock private OrderNoGenerator orderNoGenerator;
+  @Mock private OrderSummaryViewService orderSummaryViewService;
+  @Mock private OrderAggregateCacheService orderAggregateCacheService;
+
+  @InjectMocks private OrderServiceImpl orderService;
+
+  @Test
+  void createMainOrderWritesSubOrdersAndItemsInOneBatchEach() {
+    AtomicLong ids = new AtomicLong(1000L);
+    when(identifierGenerator.nextId(any())).thenAnswer(invocation -> ids.incrementAndGet());
+    when(orderNoGenerator.nextMainOrderNo()).thenReturn("M0000000000000000001");
+    when(orderNoGenerator.nextSubOrderNo())
+        .thenReturn("S0000000000000000002", "S0000000000000000003");
+    doAnswer(
+            invocation -> {
+              OrderMain main = invocation.getArgument(0);
+              main.setId(1L);
+              return 1;
+            })
+        .when(orderMainMapper)
+        .insert(any(OrderMain.class));
+
+    OrderAggregateResponse aggregate = orderService.createMainOrder(request());
+
+    ArgumentCaptor<List<OrderSub>> subsCaptor = ArgumentCaptor.captor();
+    ArgumentCaptor<List<OrderItem>> itemsCaptor = ArgumentCaptor.captor();
+    verify(orderSubMapper).insertBatch(subsCaptor.capture());
+    verify(orderItemMapper).insertBatch(itemsCaptor.capture());
+    verify(orderSubMapper, never()).insert(any(OrderSub.class));
+    verify(orderItemMapper, never()).insert(any(OrderItem.class));
+    verify(orderMainMapper, never()).selectById(anyLong());
+    verify(orderSummaryViewService).project(aggregate);
+    verify(orderAggregateCacheService).putAfterCommit(aggregate);
+
+    List<OrderSub> subs = subsCaptor.getValue();
+    List<OrderItem> items = itemsCaptor.getValue();
+    assertEquals(2, subs.size());
+    assertEquals(3, items.size());
+    assertEquals(2, aggregate.getSubOrders().size());
+    OrderAggregateResponse.SubOrderWithItems first = aggregate.getSubOrders().get(0);
+    assertSame(subs.get(0), first.getSubOrder());
+    assertEquals(2, first.getItems().size());
+    assertNotNull(first.getSubOrder().getId());
+    assertEquals(first.getSubOrder().getId(), first.getItems().get(0).getSubOrderId());
+    assertEquals(1L, first.getItems().get(0).getMainOrderId());
+    assertEquals(1, first.getSubOrder().getVersion());
+  }
+
+  private CreateMainOrderRequest request() {
+    CreateMainOrderRequest request = new CreateMainOrderRequest();
+    request.setUserId(20001L);
+    request.setClientOrderId("client-1");
+    request.setIdempotencyKey("idem-1");
+    request.setTotalAmount(new BigDecimal("30.00"));
+    request.setPayableAmount(new BigDecimal("30.00"));
+    request.setSubOrders(List.of(subOrder(30001L, 2), subOrder(30002L, 1)));
+    when(orderMainMapper.selectActiveByClientOrderId(20001L, "client-1")).thenReturn(null);
+    when(orderMainMapper.selectActiveByIdempotencyKey(anyString())).thenReturn(null);
+    return request;
+  }
+
+  private CreateMainOrderRequest.CreateSubOrderRequest subOrder(Long merchantId, int itemCount) {
+    CreateMainOrderRequest.CreateSubOrderRequest sub =
+        new CreateMainOrderRequest.CreateSubOrderRequest();
+    sub.setMerchantId(merchantId);
+    sub.setItemAmount(new BigDecimal("10.00").multiply(BigDecimal.valueOf(itemCount)));
+    sub.setPayableAmount(sub.getItemAmount());
+    List<CreateMainOrderRequest.CreateOrderItemRequest> items =
+        java.util.stream.IntStream.range(0, itemCount)
+            .mapToObj(
+                index -> {
+                  CreateMainOrderRequest.CreateOrderItemRequest item =
+                      new CreateMainOrderRequest.CreateOrderItemRequest();
+                  item.setSpuId(50000L + index);
+                  item.setSkuId(51000L + index);
+                  item.setSkuCode("SKU-" + index);
+                  item.setSkuName("Item " + index);
+                  item.setQuantity(1);
+                  item.setUnitPrice(new BigDecimal("10.00"));
+                  item.setTotalPrice(new BigDecimal("10.00"));
+                  return item;
+                })
+            .toList();
+    sub.setItems(items);
+    return sub;
+  }
+}
@@ -1,5 +1,6 @@
 package com.cloud.order.service.impl;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -9,6 +10,7 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.cloud.common.domain.dto.payment.PaymentOrderLookupDTO;
 import com.cloud.common.domain.vo.payment.PaymentOrderVO;
 import com.cloud.common.exception.RemoteException;
 import com.cloud.common.exception.SystemException;
@@ -128,6 +130,34 @@ class OrderTimeoutServiceImplTest {
     org.junit.jupiter.api.Assertions.assertSame(systemException, thrown);
   }
 
+  @Test
+  void batchCancelTimeoutOrdersResolvesPaymentStatusWithOneLookup() {
+    OrderSub paidSub = buildSubOrder(10L, 100L, "STOCK_RESERVED");
+    OrderSub unpaidSub = buildSubOrder(11L, 100L, "CREATED");
+    OrderSub closedSub = buildSubOrder(12L, 100L, "PAID");
+    PaymentOrderVO paymentOrder = new PaymentOrderVO();
+    paymentOrder.setMainOrderNo("M100");
+    paymentOrder.setSubOrderNo("S10");
+    paymentOrder.setStatus("PAID");
+
+    when(orderSubMapper.selectBatchIds(any())).thenReturn(List.of(paidSub, unpaidSub, closedSub));
+    when(orderMainMapper.selectBatchIds(any())).thenReturn(List.of(buildMainOrder(100L)));
+    when(paymentOrderRemoteService.listPaymentOrdersByOrderNos(
+            List.of(
+                new PaymentOrderLookupDTO("M100", "S10"),
+                new PaymentOrderLookupDTO("M100", "S11"))))
+        .thenReturn(List.of(paymentOrder));
+    when(orderService.advanceSubOrderStatus(11L, OrderAction.CANCEL))
+        .thenReturn(buildSubOrder(11L, 100L, "CANCELLED"));
+    when(orderSubMapper.countActiveByMainOrderIdAndStatuses(eq(100L), any())).thenReturn(1L);
+
+    assertEquals(1, orderTimeoutService.batchCancelTimeoutOrders(List.of(10L, 11L, 12L)));
+
+    verify(orderService, never()).advanceSubOrderStatus(10L, OrderAction.CANCEL);
+    verify(orderService, never()).advanceSubOrderStatus(12L, OrderAction.CANCEL);
+    verify(paymentOrderRemoteService, never()).getPaymentOrderByOrderNo(any(), any());
+  }
+
   private OrderMain buildMainOrder(Long id) {
     OrderMain mainOrder = new OrderMain();
     mainOrder.setId(id);
@@ -0,0 +1,29 @@
+package com.cloud.order.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveChunkSizerTest {
+
+  @Test
+  void shrinksOnSlowChunksAndGrowsOnFastOnesWithinBounds() {
+    AdaptiveChunkSizer sizer = new AdaptiveChunkSizer(200, 20, 300, 200L);
+
+    sizer.record(500L);
+    assertEquals(100, sizer.size());
+    sizer.record(150L);
+    assertEquals(100, sizer.size());
+    sizer.record(50L);
+    assertEquals(125, sizer.size());
+
+    for (int i = 0; i < 10; i++) {
+      sizer.record(10L);
+    }
+    assertEquals(300, sizer.size());
+    for (int i = 0; i < 10; i++) {
+      sizer.record(1_000L);
+    }
+    assertEquals(20, sizer.size());
+  }
+}
@@ -0,0 +1,117 @@
+package com.cloud.order.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.cloud.order.entity.Cart;
+import com.cloud.order.entity.CartItem;
+import com.cloud.order.mapper.CartItemMapper;
+import com.cloud.order.mapper.CartMapper;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CartSnapshotWriterTest {
+
+  @Mock private CartMapper cartMapper;
+  @Mock private CartItemMapper cartItemMapper;
+
+  @InjectMocks private CartSnapshotWriter cartSnapshotWriter;
+
+  @Test
+  void persistReusesCheckedOutItemWithSameUserAndSku() {
+    when(cartMapper.selectByIdForUpdate(100L)).thenReturn(activeCart());
+    when(cartItemMapper.listActiveByCartIdAndUserId(100L, 88L)).thenReturn(List.of());
+    when(cartItemMapper.selectByUserIdAndSkuIds(88L, List.of(51002L)))
+        .thenReturn(List.of(oldCheckedOutItem()));
+
+    assertTrue(cartSnapshotWriter.persist(snapshot(hotItem())));
+
+    ArgumentCaptor<CartItem> updatedCaptor = ArgumentCaptor.forClass(CartItem.class);
+    verify(cartItemMapper).updateById(updatedCaptor.capture());
+    CartItem updated = updatedCaptor.getValue();
+    assertEquals(900L, updated.getId());
+    assertEquals(100L, updated.getCartId());
+    assertEquals(0, updated.getCheckedOut());
+    assertEquals(1, updated.getSelected());
+    assertEquals(new BigDecimal("5699.00"), updated.getUnitPrice());
+    verify(cartItemMapper, never()).insert(any(CartItem.class));
+    verify(cartMapper).updateById(any(Cart.class));
+  }
+
+  @Test
+  void persistSkipsUnchangedItemsAndCheckedOutCarts() {
+    Cart cart = activeCart();
+    cart.setSelectedCount(1);
+    cart.setTotalAmount(new BigDecimal("5699.00"));
+    CartItem stored = hotItem();
+    stored.setId(901L);
+    when(cartMapper.selectByIdForUpdate(100L)).thenReturn(cart);
+    when(cartItemMapper.listActiveByCartIdAndUserId(100L, 88L)).thenReturn(List.of(stored));
+
+    assertTrue(cartSnapshotWriter.persist(snapshot(hotItem())));
+
+    verify(cartItemMapper, never()).updateById(any(CartItem.class));
+    verify(cartMapper, never()).updateById(any(Cart.class));
+
+    Cart checkedOut = activeCart();
+    checkedOut.setCartStatus("CHECKED_OUT");
+    when(cartMapper.selectByIdForUpdate(100L)).thenReturn(checkedOut);
+
+    assertFalse(cartSnapshotWriter.persist(snapshot(hotItem())));
+    verify(cartItemMapper, never()).insert(any(CartItem.class));
+  }
+
+  private CartHotStore.Snapshot snapshot(CartItem item) {
+    return new CartHotStore.Snapshot(100L, "CART-88", 88L, 2L, List.of(item));
+  }
+
+  private Cart activeCart() {
+    Cart cart = new Cart();
+    cart.setId(100L);
+    cart.setUserId(88L);
+    cart.setCartStatus("ACTIVE");
+    cart.setDeleted(0);
+    return cart;
+  }
+
+  private CartItem oldCheckedOutItem() {
+    CartItem item = new CartItem();
+    item.setId(900L);
+    item.setCartId(50L);
+    item.setUserId(88L);
+    item.setSpuId(50001L);
+    item.setSkuId(51002L);
+    item.setSkuName("Old Item");
+    item.setUnitPrice(new BigDecimal("4999.00"));
+    item.setQuantity(1);
+    item.setSelected(0);
+    item.setCheckedOut(1);
+    return item;
+  }
+
+  private CartItem hotItem() {
+    CartItem item = new CartItem();
+    item.setCartId(100L);
+    item.setUserId(88L);
+    item.setSpuId(50001L);
+    item.setSkuId(51002L);
+    item.setSkuName("Cloud Phone 15 512G Silver");
+    item.setUnitPrice(new BigDecimal("5699.00"));
+    item.setQuantity(1);
+    item.setSelected(1);
+    item.setCheckedOut(0);
+    return item;
+  }
+}
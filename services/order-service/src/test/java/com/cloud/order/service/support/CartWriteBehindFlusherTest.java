@@ -0,0 +1,75 @@
+package com.cloud.order.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class CartWriteBehindFlusherTest {
+
+  @Mock private CartHotStore cartHotStore;
+  @Mock private CartSnapshotWriter cartSnapshotWriter;
+
+  private CartWriteBehindFlusher flusher;
+
+  @BeforeEach
+  void setUp() {
+    flusher = new CartWriteBehindFlusher(cartHotStore, cartSnapshotWriter);
+    ReflectionTestUtils.setField(flusher, "batchSize", 10);
+    ReflectionTestUtils.setField(flusher, "retryDelayMs", 5000L);
+    ReflectionTestUtils.setField(flusher, "leaseMs", 30000L);
+  }
+
+  @Test
+  void leaseEndsOnlyAfterTheSnapshotIsPersisted() {
+    CartHotStore.Snapshot snapshot = new CartHotStore.Snapshot(100L, "CART-1", 88L, 7L, List.of());
+    when(cartHotStore.claimDue(anyLong(), eq(10), anyLong())).thenReturn(List.of(88L));
+    when(cartHotStore.peek(88L)).thenReturn(snapshot);
+    when(cartSnapshotWriter.persist(snapshot)).thenReturn(true);
+
+    assertEquals(1, flusher.flushDue(System.currentTimeMillis()));
+
+    ArgumentCaptor<Long> lease = ArgumentCaptor.forClass(Long.class);
+    verify(cartHotStore).claimDue(anyLong(), eq(10), lease.capture());
+    verify(cartHotStore).completeFlush(88L, lease.getValue(), 7L);
+    verify(cartHotStore, never()).markDirty(eq(88L), anyLong());
+  }
+
+  @Test
+  void failedPersistKeepsTheEntryAndSchedulesARetry() {
+    CartHotStore.Snapshot snapshot = new CartHotStore.Snapshot(100L, "CART-1", 88L, 7L, List.of());
+    when(cartHotStore.claimDue(anyLong(), eq(10), anyLong())).thenReturn(List.of(88L));
+    when(cartHotStore.peek(88L)).thenReturn(snapshot);
+    when(cartSnapshotWriter.persist(snapshot)).thenThrow(new IllegalStateException("db down"));
+
+    assertEquals(0, flusher.flushDue(System.currentTimeMillis()));
+
+    verify(cartHotStore, never()).completeFlush(eq(88L), anyLong(), anyLong());
+    verify(cartHotStore).markDirty(eq(88L), anyLong());
+  }
+
+  @Test
+  void finalFlushDoesNotReclaimEntriesLeasedInTheSamePass() {
+    when(cartHotStore.claimDue(anyLong(), eq(10), anyLong())).thenReturn(List.of());
+
+    flusher.flushDue(Long.MAX_VALUE);
+
+    ArgumentCaptor<Long> dueBy = ArgumentCaptor.forClass(Long.class);
+    ArgumentCaptor<Long> lease = ArgumentCaptor.forClass(Long.class);
+    verify(cartHotStore).claimDue(dueBy.capture(), eq(10), lease.capture());
+    assertTrue(dueBy.getValue() < lease.getValue());
+  }
+}
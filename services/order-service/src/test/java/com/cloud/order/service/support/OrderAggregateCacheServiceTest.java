@@ -0,0 +1,112 @@
+package com.cloud.order.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.cloud.order.dto.OrderAggregateResponse;
+import com.cloud.order.entity.OrderMain;
+import com.cloud.order.entity.OrderSub;
+import com.cloud.order.service.OrderService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class OrderAggregateCacheServiceTest {
+
+  @Mock private RedisTemplate<String, Object> redisTemplate;
+  @Mock private StringRedisTemplate stringRedisTemplate;
+  @Mock private ObjectProvider<OrderService> orderServiceProvider;
+  @Mock private HashOperations<String, Object, Object> hashOperations;
+
+  private OrderAggregateCacheService cacheService;
+
+  @BeforeEach
+  void setUp() {
+    cacheService =
+        new OrderAggregateCacheService(redisTemplate, stringRedisTemplate, orderServiceProvider);
+    ReflectionTestUtils.setField(cacheService, "aggregateTtlSeconds", 3600L);
+    ReflectionTestUtils.setField(cacheService, "aggregateL1MaxSize", 2000L);
+    ReflectionTestUtils.setField(cacheService, "aggregateL1TtlSeconds", 300L);
+    cacheService.init();
+  }
+
+  @Test
+  void putWritesVersionedEntryAndPublishesVersion() {
+    OrderAggregateResponse aggregate = aggregate(2, 3, 1);
+    when(redisTemplate.execute(
+            ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any(), any(), any()))
+        .thenReturn(1L);
+
+    cacheService.put(aggregate);
+
+    assertEquals(6L, OrderAggregateCacheService.versionOf(aggregate));
+    verify(stringRedisTemplate)
+        .convertAndSend(OrderAggregateCacheService.INVALIDATION_CHANNEL, "10:6");
+    assertSame(aggregate, cacheService.get(10L));
+    verify(redisTemplate, never()).opsForHash();
+  }
+
+  @Test
+  void rejectedPutAndNewerPeerVersionBothFallBackToRedis() {
+    OrderAggregateResponse stale = aggregate(1, 1);
+    OrderAggregateResponse newer = aggregate(2, 2);
+    when(redisTemplate.execute(
+            ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any(), any(), any()))
+        .thenReturn(0L);
+    when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+    when(hashOperations.multiGet(eq("order:aggregate:10"), anyList()))
+        .thenReturn(List.of(4, newer));
+
+    cacheService.put(stale);
+    verify(stringRedisTemplate, never()).convertAndSend(anyString(), anyString());
+    assertSame(newer, cacheService.get(10L));
+
+    cacheService.onInvalidation("10:3");
+    assertSame(newer, cacheService.get(10L));
+    cacheService.onInvalidation("10:5");
+    when(hashOperations.multiGet(eq("order:aggregate:10"), anyList()))
+        .thenReturn(Arrays.asList(null, null));
+    assertNull(cacheService.get(10L));
+  }
+
+  private OrderAggregateResponse aggregate(int mainVersion, int... subVersions) {
+    OrderMain main = new OrderMain();
+    main.setId(10L);
+    main.setVersion(mainVersion);
+    OrderAggregateResponse aggregate = new OrderAggregateResponse();
+    aggregate.setMainOrder(main);
+    List<OrderAggregateResponse.SubOrderWithItems> subs = new ArrayList<>();
+    for (int subVersion : subVersions) {
+      OrderSub sub = new OrderSub();
+      sub.setVersion(subVersion);
+      OrderAggregateResponse.SubOrderWithItems wrapped =
+          new OrderAggregateResponse.SubOrderWithItems();
+      wrapped.setSubOrder(sub);
+      wrapped.setItems(List.of());
+      subs.add(wrapped);
+    }
+    aggregate.setSubOrders(subs);
+    return aggregate;
+  }
+}
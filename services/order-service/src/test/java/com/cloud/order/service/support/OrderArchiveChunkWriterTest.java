@@ -0,0 +1,74 @@
+package com.cloud.order.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+@ExtendWith(MockitoExtension.class)
+class OrderArchiveChunkWriterTest {
+
+  @Mock private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+  @Mock private PlatformTransactionManager transactionManager;
+
+  private final SimpleTransactionStatus status = new SimpleTransactionStatus();
+  private OrderArchiveChunkWriter writer;
+
+  @BeforeEach
+  void setUp() {
+    // Same transactional proxy the context would build, so the chunk boundary is what is tested.
+    ProxyFactory proxyFactory =
+        new ProxyFactory(new OrderArchiveChunkWriter(namedParameterJdbcTemplate));
+    proxyFactory.setProxyTargetClass(true);
+    proxyFactory.addAdvice(
+        new TransactionInterceptor(transactionManager, new AnnotationTransactionAttributeSource()));
+    writer = (OrderArchiveChunkWriter) proxyFactory.getProxy();
+    when(transactionManager.getTransaction(any())).thenReturn(status);
+  }
+
+  @Test
+  void chunkCommitsOnceAfterCopyAndDelete() {
+    when(namedParameterJdbcTemplate.update(anyString(), anyMap())).thenReturn(2);
+
+    assertEquals(2, writer.archive(List.of(1L, 2L)));
+
+    verify(namedParameterJdbcTemplate)
+        .update(eq("DELETE FROM order_main WHERE id IN (:ids)"), anyMap());
+    verify(transactionManager).commit(status);
+    verify(transactionManager, never()).rollback(any());
+  }
+
+  @Test
+  void failedDeleteRollsTheWholeChunkBack() {
+    when(namedParameterJdbcTemplate.update(anyString(), anyMap())).thenReturn(2);
+    when(namedParameterJdbcTemplate.update(
+            eq("DELETE FROM order_main WHERE id IN (:ids)"), anyMap()))
+        .thenThrow(new DataAccessResourceFailureException("lock wait timeout"));
+
+    assertThrows(DataAccessResourceFailureException.class, () -> writer.archive(List.of(1L, 2L)));
+
+    verify(transactionManager).rollback(status);
+    verify(transactionManager, never()).commit(any());
+    verify(namedParameterJdbcTemplate, never())
+        .update(eq("DELETE FROM order_summary_view WHERE main_order_id IN (:ids)"), anyMap());
+  }
+}
@@ -0,0 +1,128 @@
+package com.cloud.order.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.minio.BucketExistsArgs;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class OrderArchiveExporterTest {
+
+  @Mock private JdbcTemplate jdbcTemplate;
+  @Mock private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+  @Mock private OrderArchiveChunkWriter orderArchiveChunkWriter;
+  @Mock private MinioClient minioClient;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private SimpleMeterRegistry meterRegistry;
+  private OrderArchiveExporter exporter;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    exporter =
+        new OrderArchiveExporter(
+            jdbcTemplate,
+            namedParameterJdbcTemplate,
+            orderArchiveChunkWriter,
+            minioClient,
+            objectMapper,
+            meterRegistry);
+    ReflectionTestUtils.setField(exporter, "bucket", "order-archive");
+    ReflectionTestUtils.setField(exporter, "prefix", "orders/");
+    ReflectionTestUtils.setField(exporter, "retentionDays", 30);
+    ReflectionTestUtils.setField(exporter, "chunkSize", 500);
+    exporter.afterPropertiesSet();
+  }
+
+  @Test
+  void chunkIsUploadedAsGzippedNdjsonThenPurged() throws Exception {
+    Timestamp archivedAt = Timestamp.valueOf(LocalDateTime.of(2025, 1, 1, 0, 0));
+    when(jdbcTemplate.query(anyString(), Mockito.<RowMapper<Object>>any(), any(Object[].class)))
+        .thenAnswer(
+            invocation -> {
+              RowMapper<?> mapper = invocation.getArgument(1);
+              List<Object> keys = new ArrayList<>();
+              for (long id : new long[] {1L, 2L}) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong("id")).thenReturn(id);
+                when(rs.getTimestamp("archived_at")).thenReturn(archivedAt);
+                keys.add(mapper.mapRow(rs, keys.size()));
+              }
+              return keys;
+            });
+    when(namedParameterJdbcTemplate.queryForList(
+            eq("SELECT * FROM order_main_archive WHERE id IN (:ids) ORDER BY id"), anyMap()))
+        .thenReturn(
+            List.<Map<String, Object>>of(
+                Map.of("id", 1L, "main_order_no", "M1"), Map.of("id", 2L, "main_order_no", "M2")));
+    when(namedParameterJdbcTemplate.queryForList(
+            eq("SELECT * FROM order_sub_archive WHERE main_order_id IN (:ids)"), anyMap()))
+        .thenReturn(List.<Map<String, Object>>of(Map.of("id", 11L, "main_order_id", 1L)));
+    when(namedParameterJdbcTemplate.queryForList(
+            eq("SELECT * FROM order_item_archive WHERE main_order_id IN (:ids)"), anyMap()))
+        .thenReturn(
+            List.<Map<String, Object>>of(
+                Map.of("id", 21L, "main_order_id", 1L), Map.of("id", 22L, "main_order_id", 1L)));
+    when(minioClient.bucketExists(any(BucketExistsArgs.class))).thenReturn(true);
+    when(orderArchiveChunkWriter.purgeArchived(List.of(1L, 2L))).thenReturn(2);
+
+    assertEquals(2, exporter.export(System.currentTimeMillis() + 60_000L));
+
+    ArgumentCaptor<PutObjectArgs> upload = ArgumentCaptor.forClass(PutObjectArgs.class);
+    verify(minioClient).putObject(upload.capture());
+    assertTrue(upload.getValue().object().startsWith("orders/"));
+    assertTrue(upload.getValue().object().endsWith("/orders-1-2.ndjson.gz"));
+    List<JsonNode> lines = readNdjson(upload.getValue().stream());
+    assertEquals(2, lines.size());
+    assertEquals("M1", lines.get(0).path("main").path("main_order_no").asText());
+    assertEquals(1, lines.get(0).path("subs").size());
+    assertEquals(2, lines.get(0).path("items").size());
+    assertEquals("M2", lines.get(1).path("main").path("main_order_no").asText());
+    assertEquals(0, lines.get(1).path("items").size());
+    verify(orderArchiveChunkWriter).purgeArchived(List.of(1L, 2L));
+    assertEquals(2.0, meterRegistry.counter("order.archive.exported.rows").count());
+  }
+
+  private List<JsonNode> readNdjson(InputStream payload) throws Exception {
+    List<JsonNode> lines = new ArrayList<>();
+    try (InputStream in = new GZIPInputStream(payload)) {
+      for (String line : new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n")) {
+        lines.add(objectMapper.readTree(line));
+      }
+    }
+    return lines;
+  }
+}
@@ -0,0 +1,126 @@
+package com.cloud.order.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class OrderArchiveStreamerTest {
+
+  private static final Timestamp T0 = Timestamp.valueOf(LocalDateTime.of(2025, 1, 1, 0, 0));
+  private static final Timestamp T1 = Timestamp.valueOf(LocalDateTime.of(2025, 1, 2, 0, 0));
+
+  @Mock private JdbcTemplate jdbcTemplate;
+  @Mock private OrderArchiveChunkWriter orderArchiveChunkWriter;
+
+  private final List<Row> table = new ArrayList<>();
+  private OrderArchiveStreamer streamer;
+
+  @BeforeEach
+  void setUp() {
+    streamer =
+        new OrderArchiveStreamer(jdbcTemplate, orderArchiveChunkWriter, new SimpleMeterRegistry());
+    ReflectionTestUtils.setField(streamer, "archiveAfterDays", 180);
+    ReflectionTestUtils.setField(streamer, "batchSize", 2);
+    ReflectionTestUtils.setField(streamer, "minChunkSize", 2);
+    ReflectionTestUtils.setField(streamer, "maxChunkSize", 2);
+    ReflectionTestUtils.setField(streamer, "targetChunkMillis", 200L);
+    ReflectionTestUtils.setField(streamer, "maxRowsPerSecond", 0);
+    streamer.afterPropertiesSet();
+  }
+
+  @Test
+  void keysetResumesInsideRunsOfEqualUpdatedAt() {
+    table.add(new Row(1L, "DONE", T0));
+    table.add(new Row(2L, "DONE", T0));
+    table.add(new Row(3L, "DONE", T0));
+    table.add(new Row(4L, "DONE", T1));
+    table.add(new Row(5L, "DONE", T1));
+    when(jdbcTemplate.query(anyString(), Mockito.<RowMapper<Object>>any(), any(Object[].class)))
+        .thenAnswer(this::selectKeys);
+    when(orderArchiveChunkWriter.archive(anyList()))
+        .thenAnswer(invocation -> invocation.<List<Long>>getArgument(0).size());
+
+    OrderArchiveStreamer.Result result = streamer.archive(System.currentTimeMillis() + 60_000L);
+
+    InOrder inOrder = Mockito.inOrder(orderArchiveChunkWriter);
+    inOrder.verify(orderArchiveChunkWriter).archive(List.of(1L, 2L));
+    inOrder.verify(orderArchiveChunkWriter).archive(List.of(3L, 4L));
+    inOrder.verify(orderArchiveChunkWriter).archive(List.of(5L));
+    assertEquals(5, result.archived());
+    assertEquals(3, result.chunks());
+  }
+
+  @Test
+  void failedChunkStopsTheRunWithoutAdvancingPastIt() {
+    table.add(new Row(1L, "DONE", T0));
+    table.add(new Row(2L, "DONE", T0));
+    when(jdbcTemplate.query(anyString(), Mockito.<RowMapper<Object>>any(), any(Object[].class)))
+        .thenAnswer(this::selectKeys);
+    when(orderArchiveChunkWriter.archive(anyList()))
+        .thenThrow(new IllegalStateException("deadlock"));
+
+    assertThrows(
+        IllegalStateException.class, () -> streamer.archive(System.currentTimeMillis() + 60_000L));
+
+    verify(orderArchiveChunkWriter).archive(List.of(1L, 2L));
+    verify(jdbcTemplate, never())
+        .queryForObject(anyString(), any(Class.class), any(Object[].class));
+  }
+
+  /** Evaluates the first/next keyset queries against {@link #table}. */
+  private List<Object> selectKeys(InvocationOnMock invocation) throws SQLException {
+    Object[] args = invocation.getArguments();
+    RowMapper<?> mapper = invocation.getArgument(1);
+    String status = (String) args[2];
+    Timestamp cutoff = (Timestamp) args[3];
+    Timestamp afterUpdatedAt = args.length > 5 ? (Timestamp) args[4] : null;
+    long afterId = args.length > 5 ? (Long) args[6] : 0L;
+    int limit = (Integer) args[args.length - 1];
+    List<Object> keys = new ArrayList<>();
+    for (Row row : table) {
+      boolean afterKey =
+          afterUpdatedAt == null
+              || row.updatedAt().after(afterUpdatedAt)
+              || (row.updatedAt().equals(afterUpdatedAt) && row.id() > afterId);
+      if (row.status().equals(status) && row.updatedAt().before(cutoff) && afterKey) {
+        if (keys.size() == limit) {
+          break;
+        }
+        ResultSet rs = mock(ResultSet.class);
+        lenient().when(rs.getLong("id")).thenReturn(row.id());
+        lenient().when(rs.getTimestamp("updated_at")).thenReturn(row.updatedAt());
+        keys.add(mapper.mapRow(rs, keys.size()));
+      }
+    }
+    return keys;
+  }
+
+  private record Row(long id, String status, Timestamp updatedAt) {}
+}
@@ -11,6 +11,7 @@ import com.cloud.common.domain.vo.payment.PaymentOrderVO;
 import com.cloud.common.messaging.event.PaymentSuccessEvent;
 import com.cloud.order.dto.OrderAggregateResponse;
 import com.cloud.order.entity.AfterSale;
+import com.cloud.order.entity.OrderItem;
 import com.cloud.order.entity.OrderMain;
 import com.cloud.order.entity.OrderSub;
 import com.cloud.order.mapper.AfterSaleMapper;
@@ -37,6 +38,8 @@ class OrderInventoryEventServiceTest {
   @Mock private com.cloud.order.messaging.OrderMessageProducer orderMessageProducer;
   @Mock private PaymentOrderRemoteService paymentOrderRemoteService;
   @Mock private OrderAggregateCacheService orderAggregateCacheService;
+  @Mock private OrderSummaryViewService orderSummaryViewService;
+  @Mock private OrderSalesCounterService orderSalesCounterService;
 
   @InjectMocks private OrderInventoryEventService orderInventoryEventService;
 
@@ -63,7 +66,7 @@ class OrderInventoryEventServiceTest {
     OrderAggregateResponse aggregate = new OrderAggregateResponse();
     aggregate.setMainOrder(mainOrder);
     aggregate.setSubOrders(List.of(wrapped));
-    when(orderService.getOrderAggregate(10L)).thenReturn(aggregate);
+    when(orderService.loadOrderAggregate(10L)).thenReturn(aggregate);
 
     PaymentOrderVO paymentOrder = new PaymentOrderVO();
     paymentOrder.setId(345L);
@@ -106,8 +109,40 @@ class OrderInventoryEventServiceTest {
     Assertions.assertEquals("auto-refund:ASAUTO345", refundCommand.getIdempotencyKey());
 
     verify(orderSubMapper).updateById(eq(subOrder));
-    verify(orderAggregateCacheService).evict(10L);
+    verify(orderAggregateCacheService).refreshAfterCommit(10L);
     verify(orderService, never()).advanceSubOrderStatus(any(), any());
+    verify(orderSalesCounterService, never()).recordPaidAfterCommit(any());
+  }
+
+  @Test
+  void handlePaymentSuccessCountsSalesOfPaidSubOrder() {
+    OrderMain mainOrder = new OrderMain();
+    mainOrder.setId(10L);
+    mainOrder.setMainOrderNo("M100");
+    when(orderMainMapper.selectActiveByOrderNo("M100")).thenReturn(mainOrder);
+
+    OrderSub subOrder = new OrderSub();
+    subOrder.setId(20L);
+    subOrder.setSubOrderNo("S200");
+    subOrder.setOrderStatus("CREATED");
+    OrderItem item = new OrderItem();
+    item.setSpuId(50001L);
+    item.setSkuId(51002L);
+    item.setQuantity(2);
+    OrderAggregateResponse.SubOrderWithItems wrapped =
+        new OrderAggregateResponse.SubOrderWithItems();
+    wrapped.setSubOrder(subOrder);
+    wrapped.setItems(List.of(item));
+    OrderAggregateResponse aggregate = new OrderAggregateResponse();
+    aggregate.setMainOrder(mainOrder);
+    aggregate.setSubOrders(List.of(wrapped));
+    when(orderService.loadOrderAggregate(10L)).thenReturn(aggregate);
+
+    orderInventoryEventService.handlePaymentSuccess(
+        PaymentSuccessEvent.builder().orderNo("M100").subOrderNo("S200").build());
+
+    verify(orderService).advanceSubOrderStatus(20L, com.cloud.order.enums.OrderAction.PAY);
+    verify(orderSalesCounterService).recordPaidAfterCommit(List.of(item));
   }
 
   @Test
@@ -0,0 +1,121 @@
+package com.cloud.order.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class OrderNoGeneratorTest {
+
+  private static final long BASE_TIME = 1760000000000L;
+
+  @Test
+  void numbersAreFixedWidthAndStrictlyIncreasing() {
+    AtomicLong clock = new AtomicLong(BASE_TIME);
+    OrderNoGenerator generator = new OrderNoGenerator(7L, clock::get, 32);
+
+    String previous = null;
+    for (int i = 0; i < 20_000; i++) {
+      if (i % 1000 == 0) {
+        clock.addAndGet(1L);
+      }
+      String orderNo = generator.nextMainOrderNo();
+      assertEquals(20, orderNo.length());
+      assertTrue(orderNo.startsWith("M"));
+      if (previous != null) {
+        assertTrue(orderNo.compareTo(previous) > 0, orderNo + " <= " + previous);
+      }
+      previous = orderNo;
+    }
+  }
+
+  @Test
+  void clockRollbackDoesNotReissueNumbers() {
+    AtomicLong clock = new AtomicLong(BASE_TIME);
+    OrderNoGenerator generator = new OrderNoGenerator(1L, clock::get, 1);
+
+    long before = generator.nextValue();
+    clock.addAndGet(-1_000L);
+    long after = generator.nextValue();
+
+    assertTrue(after > before);
+  }
+
+  @Test
+  void differentNodesNeverCollideOnSameClock() {
+    OrderNoGenerator left = new OrderNoGenerator(1L, () -> BASE_TIME, 32);
+    OrderNoGenerator right = new OrderNoGenerator(2L, () -> BASE_TIME, 32);
+    Set<Long> values = new HashSet<>();
+    for (int i = 0; i < 5_000; i++) {
+      assertTrue(values.add(left.nextValue()));
+      assertTrue(values.add(right.nextValue()));
+    }
+  }
+
+  @Test
+  void concurrentThreadsIssueUniqueNumbers() throws Exception {
+    OrderNoGenerator generator = new OrderNoGenerator(3L, System::currentTimeMillis, 32);
+    int threads = 8;
+    int perThread = 20_000;
+    Set<String> issued = ConcurrentHashMap.newKeySet();
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      for (int t = 0; t < threads; t++) {
+        executor.submit(
+            () -> {
+              start.await();
+              for (int i = 0; i < perThread; i++) {
+                issued.add(generator.nextSubOrderNo());
+              }
+              return null;
+            });
+      }
+      start.countDown();
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(threads * perThread, issued.size());
+  }
+
+  @Test
+  void sequentialInsertsAppendAtIndexRightEdgeUnlikeUuid() {
+    OrderNoGenerator generator = new OrderNoGenerator(5L, System::currentTimeMillis, 32);
+    List<String> generated = new ArrayList<>();
+    List<String> uuids = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      generated.add(generator.nextMainOrderNo());
+      uuids.add("M" + UUID.randomUUID().toString().replace("-", ""));
+    }
+
+    assertEquals(0, countNonAppendingInserts(generated));
+    assertTrue(countNonAppendingInserts(uuids) > uuids.size() / 2);
+  }
+
+  /** Inserts whose key sorts below an existing key, i.e. land inside the B-tree, not at its end. */
+  private int countNonAppendingInserts(List<String> keys) {
+    TreeSet<String> index = new TreeSet<>();
+    int nonAppending = 0;
+    for (String key : keys) {
+      if (!index.isEmpty() && key.compareTo(index.last()) < 0) {
+        nonAppending++;
+      }
+      index.add(key);
+    }
+    return nonAppending;
+  }
+}
@@ -1,5 +1,6 @@
 package com.cloud.order.service.support;
 
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 
 import com.cloud.order.mapper.CartItemMapper;
@@ -18,6 +19,7 @@ class OrderPlacementSupportTest {
 
   @Mock private CartMapper cartMapper;
   @Mock private CartItemMapper cartItemMapper;
+  @Mock private CartHotStore cartHotStore;
   @Mock private com.cloud.common.remote.RemoteCallSupport remoteCallSupport;
   @Mock private ObjectMapper objectMapper;
 
@@ -31,12 +33,14 @@ class OrderPlacementSupportTest {
     inOrder.verify(cartItemMapper).deletePhysicalByCartIdAndUserId(11L, 22L);
     inOrder.verify(cartMapper).deleteCheckedOutByUserId(22L);
     inOrder.verify(cartMapper).markCheckedOutByIdAndUserId(11L, 22L);
+    inOrder.verify(cartMapper).insertCheckedOutIfAbsent(11L, "CART-22-11", 22L);
+    verify(cartHotStore).evictAfterCommit(22L);
   }
 
   @Test
   void markCartCheckedOutSkipsNullCartId() {
     orderPlacementSupport.markCartCheckedOut(null, 22L);
 
-    verifyNoInteractions(cartItemMapper, cartMapper);
+    verifyNoInteractions(cartItemMapper, cartMapper, cartHotStore);
   }
 }
@@ -0,0 +1,193 @@
+package com.cloud.order.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.cloud.common.domain.dto.order.ProductSellStatDTO;
+import com.cloud.order.entity.OrderItem;
+import com.cloud.order.mapper.OrderItemMapper;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class OrderSalesCounterServiceTest {
+
+  private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+
+  @Mock private StringRedisTemplate stringRedisTemplate;
+  @Mock private OrderItemMapper orderItemMapper;
+  @Mock private HashOperations<String, Object, Object> hashOperations;
+  @Mock private ZSetOperations<String, String> zSetOperations;
+
+  private OrderSalesCounterService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new OrderSalesCounterService(stringRedisTemplate, orderItemMapper);
+    ReflectionTestUtils.setField(service, "retentionDays", 35);
+    ReflectionTestUtils.setField(service, "compactAfterDays", 2);
+    ReflectionTestUtils.setField(service, "rankKeep", 1000);
+    ReflectionTestUtils.setField(service, "rollupTtlSeconds", 60L);
+  }
+
+  @Test
+  void recordWritesDayHashAndRankSetInOneScript() {
+    Map<Long, Long> quantities = new LinkedHashMap<>();
+    quantities.put(11L, 2L);
+    quantities.put(12L, 5L);
+
+    service.record(LocalDate.of(2026, 10, 17), quantities);
+
+    verify(stringRedisTemplate)
+        .execute(
+            any(RedisScript.class),
+            eq(List.of("{order:sales}:day:20261017", "{order:sales}:rank:20261017")),
+            eq(String.valueOf(TimeUnit.DAYS.toSeconds(35))),
+            eq("11"),
+            eq("2"),
+            eq("12"),
+            eq("5"));
+  }
+
+  @Test
+  void recordPaidMergesQuantitiesPerSpuAndSkipsInvalidItems() {
+    String today = LocalDate.now().format(DAY_FORMAT);
+
+    service.recordPaidAfterCommit(
+        List.of(item(11L, 2), item(11L, 3), item(12L, 0), item(null, 4), item(13L, 1)));
+
+    verify(stringRedisTemplate)
+        .execute(
+            any(RedisScript.class),
+            eq(List.of("{order:sales}:day:" + today, "{order:sales}:rank:" + today)),
+            eq(String.valueOf(TimeUnit.DAYS.toSeconds(35))),
+            eq("11"),
+            eq("5"),
+            eq("13"),
+            eq("1"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void compactFoldsEveryClosedDayOldestFirst() {
+    when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+        .thenReturn(3L);
+
+    int folded = service.compact();
+
+    ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+    verify(stringRedisTemplate, times(33))
+        .execute(any(RedisScript.class), keys.capture(), eq("1000"));
+    assertEquals(99, folded);
+    LocalDate today = LocalDate.now();
+    assertEquals(
+        List.of(
+            "{order:sales}:day:" + today.minusDays(34).format(DAY_FORMAT),
+            "{order:sales}:total",
+            "{order:sales}:rank:" + today.minusDays(34).format(DAY_FORMAT)),
+        keys.getAllValues().get(0));
+    assertEquals(
+        "{order:sales}:day:" + today.minusDays(2).format(DAY_FORMAT),
+        keys.getAllValues().get(32).get(0));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void lifetimeSalesSumsTotalAndUnfoldedDaysAndDropsZeroCounts() {
+    when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+        .thenReturn(List.of(7L, 0L));
+
+    List<ProductSellStatDTO> stats = service.lifetimeSales(List.of(11L, 12L));
+
+    assertEquals(1, stats.size());
+    assertEquals(11L, stats.get(0).getProductId());
+    assertEquals(7L, stats.get(0).getSellCount());
+    ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+    verify(stringRedisTemplate).execute(any(RedisScript.class), keys.capture(), eq("11"), eq("12"));
+    assertEquals(36, keys.getValue().size());
+    assertEquals("{order:sales}:total", keys.getValue().get(0));
+    assertEquals("{order:sales}:day:" + LocalDate.now().format(DAY_FORMAT), keys.getValue().get(1));
+  }
+
+  @Test
+  void lifetimeSalesSkipsRedisForEmptyInput() {
+    assertEquals(List.of(), service.lifetimeSales(List.of()));
+
+    verify(stringRedisTemplate, never())
+        .execute(any(RedisScript.class), anyList(), any(Object[].class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void rebuildSwapsTotalWithClosedDaysAndReloadsDayRanks() {
+    LocalDate today = LocalDate.now();
+    LocalDate yesterday = today.minusDays(1);
+    when(orderItemMapper.listPaidSellStats(any(), any()))
+        .thenAnswer(
+            invocation ->
+                invocation.getArgument(0) == null
+                    ? List.of(stat(11L, 40L), stat(12L, 9L))
+                    : yesterday.atStartOfDay().equals(invocation.getArgument(0))
+                        ? List.of(stat(11L, 4L))
+                        : List.of());
+    when(stringRedisTemplate.opsForHash()).thenReturn(hashOperations);
+    when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
+
+    int spuCount = service.rebuild();
+
+    assertEquals(2, spuCount);
+    verify(hashOperations).putAll("{order:sales}:total:rebuild", Map.of("11", "40", "12", "9"));
+    ArgumentCaptor<List<String>> keys = ArgumentCaptor.forClass(List.class);
+    verify(stringRedisTemplate).execute(any(RedisScript.class), keys.capture());
+    assertEquals(36, keys.getValue().size());
+    assertEquals("{order:sales}:total:rebuild", keys.getValue().get(0));
+    assertEquals("{order:sales}:total", keys.getValue().get(1));
+    assertEquals("{order:sales}:day:" + yesterday.format(DAY_FORMAT), keys.getValue().get(2));
+
+    String yesterdayRank = "{order:sales}:rank:" + yesterday.format(DAY_FORMAT);
+    verify(zSetOperations).add(eq(yesterdayRank + ":rebuild"), anySet());
+    verify(stringRedisTemplate).rename(yesterdayRank + ":rebuild", yesterdayRank);
+    verify(stringRedisTemplate)
+        .expire(yesterdayRank, TimeUnit.DAYS.toSeconds(34), TimeUnit.SECONDS);
+    verify(stringRedisTemplate)
+        .delete("{order:sales}:rank:" + today.minusDays(2).format(DAY_FORMAT));
+    verify(hashOperations, times(1)).putAll(any(), anyMap());
+  }
+
+  private static OrderItem item(Long spuId, int quantity) {
+    OrderItem item = new OrderItem();
+    item.setSpuId(spuId);
+    item.setQuantity(quantity);
+    return item;
+  }
+
+  private static ProductSellStatDTO stat(Long productId, Long sellCount) {
+    ProductSellStatDTO stat = new ProductSellStatDTO();
+    stat.setProductId(productId);
+    stat.setSellCount(sellCount);
+    return stat;
+  }
+}
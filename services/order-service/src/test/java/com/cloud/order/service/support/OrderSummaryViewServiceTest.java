@@ -0,0 +1,127 @@
+package com.cloud.order.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.cloud.order.dto.OrderSummaryDTO;
+import com.cloud.order.entity.AfterSale;
+import com.cloud.order.entity.OrderItem;
+import com.cloud.order.entity.OrderMain;
+import com.cloud.order.entity.OrderSub;
+import com.cloud.order.mapper.AfterSaleMapper;
+import com.cloud.order.mapper.OrderItemMapper;
+import com.cloud.order.mapper.OrderMainMapper;
+import com.cloud.order.mapper.OrderSubMapper;
+import com.cloud.order.mapper.OrderSummaryViewMapper;
+import com.cloud.order.mapper.OrderSummaryViewMapper.SummaryRow;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class OrderSummaryViewServiceTest {
+
+  @Mock private OrderSummaryViewMapper orderSummaryViewMapper;
+  @Mock private OrderMainMapper orderMainMapper;
+  @Mock private OrderSubMapper orderSubMapper;
+  @Mock private OrderItemMapper orderItemMapper;
+  @Mock private AfterSaleMapper afterSaleMapper;
+
+  private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+  private OrderSummaryViewService orderSummaryViewService;
+
+  @BeforeEach
+  void setUp() {
+    orderSummaryViewService =
+        new OrderSummaryViewService(
+            orderSummaryViewMapper,
+            orderMainMapper,
+            orderSubMapper,
+            orderItemMapper,
+            afterSaleMapper,
+            new OrderSummaryAssembler(objectMapper),
+            objectMapper);
+  }
+
+  @Test
+  void refreshProjectsWholeOrderAndOneSlicePerMerchant() throws Exception {
+    OrderMain main = new OrderMain();
+    main.setId(10L);
+    main.setMainOrderNo("M10");
+    main.setUserId(88L);
+    main.setOrderStatus("PAID");
+    main.setDeleted(0);
+    OrderSub shipped = sub(20L, 501L, "SHIPPED", "NONE");
+    OrderSub refunding = sub(21L, 502L, "PAID", "REFUNDING");
+    AfterSale afterSale = new AfterSale();
+    afterSale.setId(30L);
+    afterSale.setSubOrderId(21L);
+    afterSale.setAfterSaleNo("AS30");
+
+    when(orderMainMapper.selectById(10L)).thenReturn(main);
+    when(orderSubMapper.listActiveByMainOrderId(10L)).thenReturn(List.of(shipped, refunding));
+    when(orderItemMapper.listActiveBySubOrderIds(List.of(20L, 21L)))
+        .thenReturn(List.of(item(40L, 20L), item(41L, 21L)));
+    when(afterSaleMapper.listLatestActiveBySubOrderIds(List.of(21L)))
+        .thenReturn(List.of(afterSale));
+
+    orderSummaryViewService.refresh(10L);
+
+    ArgumentCaptor<List<SummaryRow>> rowsCaptor = ArgumentCaptor.captor();
+    verify(orderSummaryViewMapper).upsertBatch(rowsCaptor.capture());
+    List<SummaryRow> rows = rowsCaptor.getValue();
+    assertEquals(3, rows.size());
+    assertEquals(OrderSummaryViewMapper.WHOLE_ORDER, rows.get(0).merchantId());
+    assertEquals(2, rows.get(0).statusCode());
+    assertEquals(501L, rows.get(1).merchantId());
+    assertEquals(2, rows.get(1).statusCode());
+    assertEquals(502L, rows.get(2).merchantId());
+    assertEquals(1, rows.get(2).statusCode());
+
+    OrderSummaryDTO slice =
+        objectMapper.readValue(rows.get(2).summaryJson(), OrderSummaryDTO.class);
+    assertEquals(21L, slice.getSubOrderId());
+    assertEquals("AS30", slice.getAfterSaleNo());
+    assertEquals(1, slice.getItems().size());
+    verify(orderSummaryViewMapper)
+        .deleteSlicesOtherThan(10L, List.of(OrderSummaryViewMapper.WHOLE_ORDER, 501L, 502L));
+  }
+
+  @Test
+  void refreshRemovesRowsOfDeletedOrder() {
+    OrderMain main = new OrderMain();
+    main.setId(10L);
+    main.setDeleted(1);
+    when(orderMainMapper.selectById(10L)).thenReturn(main);
+
+    orderSummaryViewService.refresh(10L);
+
+    verify(orderSummaryViewMapper).deleteByMainOrderIds(List.of(10L));
+  }
+
+  private OrderSub sub(Long id, Long merchantId, String status, String afterSaleStatus) {
+    OrderSub sub = new OrderSub();
+    sub.setId(id);
+    sub.setMainOrderId(10L);
+    sub.setMerchantId(merchantId);
+    sub.setSubOrderNo("S" + id);
+    sub.setOrderStatus(status);
+    sub.setAfterSaleStatus(afterSaleStatus);
+    return sub;
+  }
+
+  private OrderItem item(Long id, Long subOrderId) {
+    OrderItem item = new OrderItem();
+    item.setId(id);
+    item.setSubOrderId(subOrderId);
+    item.setSkuId(id + 100L);
+    item.setSkuSnapshot("{\"skuName\":\"Item " + id + "\"}");
+    return item;
+  }
+}
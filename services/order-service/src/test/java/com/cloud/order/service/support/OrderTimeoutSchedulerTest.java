@@ -0,0 +1,80 @@
+package com.cloud.order.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.cloud.order.entity.OrderSub;
+import com.cloud.order.mapper.OrderSubMapper;
+import com.cloud.order.service.OrderTimeoutService;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Queue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class OrderTimeoutSchedulerTest {
+
+  @Mock private OrderSubMapper orderSubMapper;
+  @Mock private OrderTimeoutService orderTimeoutService;
+  @Mock private DiscoveryClient discoveryClient;
+  @Mock private ObjectProvider<Registration> registrationProvider;
+
+  private OrderTimeoutScheduler scheduler;
+
+  @BeforeEach
+  void setUp() {
+    scheduler =
+        new OrderTimeoutScheduler(
+            orderSubMapper, orderTimeoutService, discoveryClient, registrationProvider);
+    ReflectionTestUtils.setField(scheduler, "fireBatchSize", 200);
+  }
+
+  @Test
+  void fireCancelsOnlyEntriesExpiredUnderCurrentTimeout() {
+    when(orderTimeoutService.getTimeoutConfig()).thenReturn(60);
+    when(orderSubMapper.selectBatchIds(List.of(1L, 2L)))
+        .thenReturn(
+            List.of(
+                subOrder(1L, LocalDateTime.now().minusMinutes(90)),
+                subOrder(2L, LocalDateTime.now().minusMinutes(40))));
+    when(orderTimeoutService.batchCancelTimeoutOrders(List.of(1L))).thenReturn(1);
+
+    ReflectionTestUtils.invokeMethod(scheduler, "fire", List.of(1L, 2L));
+
+    verify(orderTimeoutService).batchCancelTimeoutOrders(List.of(1L));
+    Queue<?> incoming = (Queue<?>) ReflectionTestUtils.getField(scheduler, "incoming");
+    assertEquals(1, incoming.size());
+    assertEquals(2L, (Long) ReflectionTestUtils.invokeMethod(incoming.peek(), "subOrderId"));
+  }
+
+  @Test
+  void fireReschedulesWholeBatchWhenTimeoutWasExtended() {
+    when(orderTimeoutService.getTimeoutConfig()).thenReturn(120);
+    when(orderSubMapper.selectBatchIds(List.of(3L)))
+        .thenReturn(List.of(subOrder(3L, LocalDateTime.now().minusMinutes(31))));
+
+    ReflectionTestUtils.invokeMethod(scheduler, "fire", List.of(3L));
+
+    verify(orderTimeoutService, never()).batchCancelTimeoutOrders(anyList());
+    Queue<?> incoming = (Queue<?>) ReflectionTestUtils.getField(scheduler, "incoming");
+    assertEquals(1, incoming.size());
+  }
+
+  private static OrderSub subOrder(Long id, LocalDateTime createdAt) {
+    OrderSub subOrder = new OrderSub();
+    subOrder.setId(id);
+    subOrder.setCreatedAt(createdAt);
+    return subOrder;
+  }
+}
@@ -0,0 +1,54 @@
+package com.cloud.order.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class OrderTimeoutWheelTest {
+
+  @Test
+  void firesEachDeadlineOnItsTickAcrossLevels() {
+    OrderTimeoutWheel wheel = new OrderTimeoutWheel(1000L, 8, 3, 0L);
+    List<Long> fired = new ArrayList<>();
+    wheel.add(1L, 3_000L, fired::add);
+    wheel.add(2L, 20_000L, fired::add);
+    wheel.add(3L, 130_000L, fired::add);
+    wheel.add(4L, 2_000_000L, fired::add);
+    assertEquals(4, wheel.size());
+
+    wheel.advance(2_999L, fired::add);
+    assertTrue(fired.isEmpty());
+    wheel.advance(3_000L, fired::add);
+    assertEquals(List.of(1L), fired);
+
+    wheel.advance(19_999L, fired::add);
+    assertEquals(List.of(1L), fired);
+    wheel.advance(20_000L, fired::add);
+    assertEquals(List.of(1L, 2L), fired);
+
+    wheel.advance(129_999L, fired::add);
+    assertEquals(List.of(1L, 2L), fired);
+    wheel.advance(130_000L, fired::add);
+    assertEquals(List.of(1L, 2L, 3L), fired);
+
+    wheel.advance(1_999_999L, fired::add);
+    assertEquals(1, wheel.size());
+    wheel.advance(2_000_000L, fired::add);
+    assertEquals(List.of(1L, 2L, 3L, 4L), fired);
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  void overdueDeadlineFiresOnAdd() {
+    OrderTimeoutWheel wheel = new OrderTimeoutWheel(1000L, 8, 3, 10_000L);
+    List<Long> fired = new ArrayList<>();
+
+    wheel.add(7L, 5_000L, fired::add);
+
+    assertEquals(List.of(7L), fired);
+    assertEquals(0, wheel.size());
+  }
+}
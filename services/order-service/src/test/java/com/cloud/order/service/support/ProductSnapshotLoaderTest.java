@@ -0,0 +1,66 @@
+package com.cloud.order.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.cloud.api.product.ProductDubboApi;
+import com.cloud.common.domain.vo.product.SpuDetailVO;
+import com.cloud.common.remote.RemoteCallSupport;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSnapshotLoaderTest {
+
+  @Mock private ProductDubboApi productDubboApi;
+  @Mock private RemoteCallSupport remoteCallSupport;
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void loadSpusDeduplicatesIdsAndSkipsAlreadyRequested() {
+    when(remoteCallSupport.query(anyString(), any(Supplier.class)))
+        .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(1)).get());
+    when(productDubboApi.listSpuByIds(List.of(1L, 2L))).thenReturn(List.of(spu(1L), spu(2L)));
+
+    ProductSnapshotLoader loader = ProductSnapshotLoader.strict(productDubboApi, remoteCallSupport);
+    Map<Long, SpuDetailVO> first = loader.loadSpus(Arrays.asList(1L, 2L, 1L, null, 2L));
+    Map<Long, SpuDetailVO> second = loader.loadSpus(List.of(2L, 1L));
+
+    assertEquals(2, first.size());
+    assertEquals(first, second);
+    verify(productDubboApi, times(1)).listSpuByIds(any());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void lenientLoaderDegradesToMissingEntries() {
+    when(remoteCallSupport.queryOrFallback(anyString(), any(Supplier.class), any(Function.class)))
+        .thenReturn(List.of());
+
+    ProductSnapshotLoader loader =
+        ProductSnapshotLoader.lenient(productDubboApi, remoteCallSupport);
+
+    assertTrue(loader.loadSkus(List.of(10L, 11L)).isEmpty());
+    assertTrue(loader.loadSkus(List.of(10L)).isEmpty());
+    verify(remoteCallSupport, times(1))
+        .queryOrFallback(anyString(), any(Supplier.class), any(Function.class));
+  }
+
+  private SpuDetailVO spu(Long spuId) {
+    SpuDetailVO detail = new SpuDetailVO();
+    detail.setSpuId(spuId);
+    return detail;
+  }
+}
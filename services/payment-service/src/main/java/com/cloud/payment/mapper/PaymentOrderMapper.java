@@ -2,7 +2,9 @@ package com.cloud.payment.mapper;
 
 import com.baomidou.mybatisplus.annotation.InterceptorIgnore;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.cloud.common.domain.dto.payment.PaymentOrderLookupDTO;
 import com.cloud.payment.module.entity.PaymentOrderEntity;
+import java.util.List;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
@@ -46,4 +48,17 @@ public interface PaymentOrderMapper extends BaseMapper<PaymentOrderEntity> {
   @InterceptorIgnore(illegalSql = "1")
   PaymentOrderEntity selectLatestByMainOrderNoAndSubOrderNo(
       @Param("mainOrderNo") String mainOrderNo, @Param("subOrderNo") String subOrderNo);
+
+  @Select(
+      "<script>SELECT "
+          + BASE_COLUMNS
+          + " "
+          + "FROM payment_order FORCE INDEX (idx_payment_order_main_sub_deleted) "
+          + "WHERE (main_order_no, sub_order_no) IN "
+          + "<foreach collection='lookups' item='lookup' open='(' separator=',' close=')'>"
+          + "(#{lookup.mainOrderNo}, #{lookup.subOrderNo})"
+          + "</foreach> "
+          + "AND deleted = 0</script>")
+  @InterceptorIgnore(illegalSql = "1")
+  List<PaymentOrderEntity> selectByOrderNos(@Param("lookups") List<PaymentOrderLookupDTO> lookups);
 }
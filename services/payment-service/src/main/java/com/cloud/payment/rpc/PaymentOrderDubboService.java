@@ -3,10 +3,12 @@ package com.cloud.payment.rpc;
 import com.cloud.api.payment.PaymentDubboApi;
 import com.cloud.common.domain.dto.payment.PaymentCallbackCommandDTO;
 import com.cloud.common.domain.dto.payment.PaymentOrderCommandDTO;
+import com.cloud.common.domain.dto.payment.PaymentOrderLookupDTO;
 import com.cloud.common.domain.dto.payment.PaymentRefundCommandDTO;
 import com.cloud.common.domain.vo.payment.PaymentOrderVO;
 import com.cloud.common.domain.vo.payment.PaymentRefundVO;
 import com.cloud.payment.service.PaymentOrderService;
+import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.apache.dubbo.config.annotation.DubboService;
 
@@ -31,6 +33,11 @@ public class PaymentOrderDubboService implements PaymentDubboApi {
     return paymentOrderService.getPaymentOrderByOrderNo(mainOrderNo, subOrderNo);
   }
 
+  @Override
+  public List<PaymentOrderVO> listPaymentOrdersByOrderNos(List<PaymentOrderLookupDTO> lookups) {
+    return paymentOrderService.listPaymentOrdersByOrderNos(lookups);
+  }
+
   @Override
   public Boolean handlePaymentCallback(PaymentCallbackCommandDTO command) {
     return paymentOrderService.handleInternalPaymentCallback(command);
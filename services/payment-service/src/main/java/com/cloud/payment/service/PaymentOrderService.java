@@ -2,11 +2,13 @@ package com.cloud.payment.service;
 
 import com.cloud.common.domain.dto.payment.PaymentCallbackCommandDTO;
 import com.cloud.common.domain.dto.payment.PaymentOrderCommandDTO;
+import com.cloud.common.domain.dto.payment.PaymentOrderLookupDTO;
 import com.cloud.common.domain.dto.payment.PaymentRefundCommandDTO;
 import com.cloud.common.domain.vo.payment.PaymentCheckoutSessionVO;
 import com.cloud.common.domain.vo.payment.PaymentOrderVO;
 import com.cloud.common.domain.vo.payment.PaymentRefundVO;
 import com.cloud.payment.service.support.PaymentCallbackContext;
+import java.util.List;
 
 public interface PaymentOrderService {
 
@@ -16,6 +18,8 @@ public interface PaymentOrderService {
 
   PaymentOrderVO getPaymentOrderByOrderNo(String mainOrderNo, String subOrderNo);
 
+  List<PaymentOrderVO> listPaymentOrdersByOrderNos(List<PaymentOrderLookupDTO> lookups);
+
   PaymentCheckoutSessionVO createCheckoutSession(String paymentNo);
 
   String renderCheckoutPage(String ticket);
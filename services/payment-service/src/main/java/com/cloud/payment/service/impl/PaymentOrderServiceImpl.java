@@ -3,6 +3,7 @@ package com.cloud.payment.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.cloud.common.domain.dto.payment.PaymentCallbackCommandDTO;
 import com.cloud.common.domain.dto.payment.PaymentOrderCommandDTO;
+import com.cloud.common.domain.dto.payment.PaymentOrderLookupDTO;
 import com.cloud.common.domain.dto.payment.PaymentRefundCommandDTO;
 import com.cloud.common.domain.vo.payment.PaymentCheckoutSessionVO;
 import com.cloud.common.domain.vo.payment.PaymentOrderVO;
@@ -34,7 +35,11 @@ import com.cloud.payment.service.support.PaymentSecurityCacheService;
 import com.cloud.payment.service.support.PaymentStateMachine;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import lombok.RequiredArgsConstructor;
@@ -50,6 +55,7 @@ public class PaymentOrderServiceImpl implements PaymentOrderService {
   private static final Set<String> PAYABLE_ORDER_STATUSES =
       Set.of("CREATED", "STOCK_RESERVED", "PAID");
   private static final String CHECKOUT_PATH_PREFIX = "/api/payment-checkouts/";
+  private static final int MAX_ORDER_LOOKUPS = 500;
 
   private final PaymentOrderMapper paymentOrderMapper;
   private final PaymentRefundMapper paymentRefundMapper;
@@ -161,6 +167,63 @@ public class PaymentOrderServiceImpl implements PaymentOrderService {
     return entity == null ? null : toOrderVO(entity);
   }
 
+  @Override
+  public List<PaymentOrderVO> listPaymentOrdersByOrderNos(List<PaymentOrderLookupDTO> lookups) {
+    if (lookups == null || lookups.isEmpty()) {
+      return List.of();
+    }
+    Map<String, PaymentOrderLookupDTO> lookupByKey = new LinkedHashMap<>();
+    for (PaymentOrderLookupDTO lookup : lookups) {
+      if (lookup != null
+          && StringUtils.hasText(lookup.getMainOrderNo())
+          && StringUtils.hasText(lookup.getSubOrderNo())) {
+        lookupByKey.putIfAbsent(
+            PaymentSecurityCacheService.orderStatusKey(
+                lookup.getMainOrderNo(), lookup.getSubOrderNo()),
+            lookup);
+      }
+    }
+    if (lookupByKey.size() > MAX_ORDER_LOOKUPS) {
+      throw new BizException("too many payment order lookups: " + lookupByKey.size());
+    }
+    List<PaymentOrderVO> result = new ArrayList<>(lookupByKey.size());
+    Map<String, PaymentSecurityCacheService.CachedOrderStatus> cached =
+        paymentSecurityCacheService.getCachedOrderStatuses(new ArrayList<>(lookupByKey.keySet()));
+    List<PaymentOrderLookupDTO> misses = new ArrayList<>();
+    for (Map.Entry<String, PaymentOrderLookupDTO> entry : lookupByKey.entrySet()) {
+      PaymentSecurityCacheService.CachedOrderStatus status = cached.get(entry.getKey());
+      if (status == null) {
+        misses.add(entry.getValue());
+        continue;
+      }
+      PaymentOrderVO vo = new PaymentOrderVO();
+      vo.setPaymentNo(status.paymentNo());
+      vo.setMainOrderNo(entry.getValue().getMainOrderNo());
+      vo.setSubOrderNo(entry.getValue().getSubOrderNo());
+      vo.setUserId(status.userId());
+      vo.setStatus(status.status());
+      result.add(vo);
+    }
+    if (misses.isEmpty()) {
+      return result;
+    }
+    Map<String, PaymentOrderEntity> latestByKey = new HashMap<>();
+    for (PaymentOrderEntity entity : paymentOrderMapper.selectByOrderNos(misses)) {
+      latestByKey.merge(
+          PaymentSecurityCacheService.orderStatusKey(
+              entity.getMainOrderNo(), entity.getSubOrderNo()),
+          entity,
+          (current, next) -> next.getId() > current.getId() ? next : current);
+    }
+    for (Map.Entry<String, PaymentOrderEntity> entry : latestByKey.entrySet()) {
+      PaymentOrderEntity entity = entry.getValue();
+      paymentSecurityCacheService.cacheOrderStatus(
+          entry.getKey(), entity.getPaymentNo(), entity.getUserId(), entity.getStatus());
+      result.add(toOrderVO(entity));
+    }
+    return result;
+  }
+
   @Override
   public PaymentCheckoutSessionVO createCheckoutSession(String paymentNo) {
     PaymentOrderEntity order = findPaymentOrderEntityByNo(paymentNo);
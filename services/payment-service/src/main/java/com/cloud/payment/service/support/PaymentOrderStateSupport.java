@@ -19,6 +19,9 @@ public class PaymentOrderStateSupport {
   public void handlePersistedState(PaymentOrderEntity order, String previousStatus) {
     if (isTerminalStatus(order.getStatus())) {
       paymentSecurityCacheService.evictStatus(order.getPaymentNo());
+      paymentSecurityCacheService.evictOrderStatus(
+          PaymentSecurityCacheService.orderStatusKey(
+              order.getMainOrderNo(), order.getSubOrderNo()));
     }
     if (!ORDER_STATUS_PAID.equals(previousStatus) && ORDER_STATUS_PAID.equals(order.getStatus())) {
       tradeMetrics.incrementPayment("success");
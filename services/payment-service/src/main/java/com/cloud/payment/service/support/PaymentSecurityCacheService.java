@@ -1,11 +1,18 @@
 package com.cloud.payment.service.support;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Slf4j
 @Service
@@ -16,6 +23,8 @@ public class PaymentSecurityCacheService {
   private static final String STATUS_PREFIX = "pay:status:";
   private static final String STATUS_HASH_USER_ID = "userId";
   private static final String STATUS_HASH_STATUS = "status";
+  private static final String STATUS_HASH_PAYMENT_NO = "paymentNo";
+  private static final String ORDER_STATUS_PREFIX = STATUS_PREFIX + "order:";
   private static final String RATE_PREFIX = "pay:rate:";
   private static final String CHECKOUT_PREFIX = "pay:checkout:";
   private static final String CHECKOUT_SEPARATOR = "|";
@@ -170,9 +179,7 @@ public class PaymentSecurityCacheService {
       stringRedisTemplate
           .opsForHash()
           .putAll(
-              key,
-              java.util.Map.of(
-                  STATUS_HASH_USER_ID, String.valueOf(userId), STATUS_HASH_STATUS, status));
+              key, Map.of(STATUS_HASH_USER_ID, String.valueOf(userId), STATUS_HASH_STATUS, status));
       stringRedisTemplate.expire(key, Duration.ofSeconds(safeSeconds(statusTtlSeconds, 1)));
     } catch (Exception ex) {
       log.warn("Write payment status cache failed: key={}", key, ex);
@@ -190,6 +197,108 @@ public class PaymentSecurityCacheService {
     }
   }
 
+  /** Reads the order-keyed status entries of many sub-orders in one pipelined round trip. */
+  public Map<String, CachedOrderStatus> getCachedOrderStatuses(List<String> orderKeys) {
+    if (orderKeys == null || orderKeys.isEmpty()) {
+      return Map.of();
+    }
+    try {
+      List<Object> entries =
+          stringRedisTemplate.executePipelined(
+              (RedisCallback<Object>)
+                  connection -> {
+                    for (String orderKey : orderKeys) {
+                      connection
+                          .hashCommands()
+                          .hGetAll(
+                              (ORDER_STATUS_PREFIX + orderKey).getBytes(StandardCharsets.UTF_8));
+                    }
+                    return null;
+                  });
+      Map<String, CachedOrderStatus> cached = new HashMap<>();
+      for (int index = 0; index < orderKeys.size() && index < entries.size(); index++) {
+        if (entries.get(index) instanceof Map<?, ?> entry) {
+          Object paymentNo = entry.get(STATUS_HASH_PAYMENT_NO);
+          Object userId = entry.get(STATUS_HASH_USER_ID);
+          Object status = entry.get(STATUS_HASH_STATUS);
+          if (paymentNo != null && userId != null && status != null) {
+            cached.put(
+                orderKeys.get(index),
+                new CachedOrderStatus(
+                    String.valueOf(paymentNo),
+                    Long.parseLong(String.valueOf(userId)),
+                    String.valueOf(status)));
+          }
+        }
+      }
+      return cached;
+    } catch (Exception ex) {
+      log.warn("Read payment order status cache failed: size={}", orderKeys.size(), ex);
+      return Map.of();
+    }
+  }
+
+  /**
+   * Caches a PAID status under the sub-order key. Only PAID is immutable for a sub-order: CREATED
+   * moves on and a FAILED row is superseded by the retry, so a racing batch read could otherwise
+   * write a stale status back after the eviction.
+   */
+  public void cacheOrderStatus(String orderKey, String paymentNo, Long userId, String status) {
+    if (orderKey == null
+        || orderKey.isBlank()
+        || paymentNo == null
+        || userId == null
+        || !Objects.equals("PAID", status)) {
+      return;
+    }
+    String key = ORDER_STATUS_PREFIX + orderKey;
+    try {
+      stringRedisTemplate
+          .opsForHash()
+          .putAll(
+              key,
+              Map.of(
+                  STATUS_HASH_PAYMENT_NO,
+                  paymentNo,
+                  STATUS_HASH_USER_ID,
+                  String.valueOf(userId),
+                  STATUS_HASH_STATUS,
+                  status));
+      stringRedisTemplate.expire(key, Duration.ofSeconds(safeSeconds(resultTtlSeconds, 60)));
+    } catch (Exception ex) {
+      log.warn("Write payment order status cache failed: key={}", key, ex);
+    }
+  }
+
+  /** Drops the order-keyed status now and again after the transaction completes. */
+  public void evictOrderStatus(String orderKey) {
+    if (orderKey == null || orderKey.isBlank()) {
+      return;
+    }
+    deleteOrderStatus(orderKey);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              deleteOrderStatus(orderKey);
+            }
+          });
+    }
+  }
+
+  private void deleteOrderStatus(String orderKey) {
+    try {
+      stringRedisTemplate.delete(ORDER_STATUS_PREFIX + orderKey);
+    } catch (Exception ex) {
+      log.warn("Evict payment order status cache failed: key={}", orderKey, ex);
+    }
+  }
+
+  public static String orderStatusKey(String mainOrderNo, String subOrderNo) {
+    return mainOrderNo + ":" + subOrderNo;
+  }
+
   public boolean allowRateLimit(Long userId) {
     if (!rateLimitEnabled || userId == null) {
       return true;
@@ -274,5 +383,7 @@ public class PaymentSecurityCacheService {
 
   public record CachedStatus(Long userId, String status) {}
 
+  public record CachedOrderStatus(String paymentNo, Long userId, String status) {}
+
   public record CheckoutTicket(Long userId, String paymentNo) {}
 }
@@ -8,6 +8,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.cloud.common.domain.dto.payment.PaymentOrderCommandDTO;
+import com.cloud.common.domain.dto.payment.PaymentOrderLookupDTO;
 import com.cloud.common.domain.vo.order.OrderSubStatusVO;
 import com.cloud.common.domain.vo.payment.PaymentOrderVO;
 import com.cloud.common.metrics.TradeMetrics;
@@ -27,6 +28,7 @@ import com.cloud.payment.service.support.PaymentSecurityCacheService;
 import com.cloud.payment.service.support.PaymentStateMachine;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -93,6 +95,46 @@ class PaymentOrderServiceImplTest {
     verify(paymentOrderConverter).toVO(entity);
   }
 
+  @Test
+  void listPaymentOrdersByOrderNosQueriesOnlyCacheMissesAndKeepsLatestRow() {
+    when(paymentSecurityCacheService.getCachedOrderStatuses(
+            List.of("MAIN-1:SUB-1", "MAIN-1:SUB-2")))
+        .thenReturn(
+            Map.of(
+                "MAIN-1:SUB-1",
+                new PaymentSecurityCacheService.CachedOrderStatus("PAY-1", 7L, "PAID")));
+    PaymentOrderEntity older = new PaymentOrderEntity();
+    older.setId(20L);
+    older.setMainOrderNo("MAIN-1");
+    older.setSubOrderNo("SUB-2");
+    PaymentOrderEntity latest = new PaymentOrderEntity();
+    latest.setId(21L);
+    latest.setPaymentNo("PAY-21");
+    latest.setMainOrderNo("MAIN-1");
+    latest.setSubOrderNo("SUB-2");
+    latest.setUserId(7L);
+    latest.setStatus("PAID");
+    PaymentOrderVO latestVO = new PaymentOrderVO();
+    latestVO.setPaymentNo("PAY-21");
+    latestVO.setStatus("PAID");
+    when(paymentOrderMapper.selectByOrderNos(List.of(new PaymentOrderLookupDTO("MAIN-1", "SUB-2"))))
+        .thenReturn(List.of(latest, older));
+    when(paymentOrderConverter.toVO(latest)).thenReturn(latestVO);
+
+    List<PaymentOrderVO> result =
+        service.listPaymentOrdersByOrderNos(
+            List.of(
+                new PaymentOrderLookupDTO("MAIN-1", "SUB-1"),
+                new PaymentOrderLookupDTO("MAIN-1", "SUB-2"),
+                new PaymentOrderLookupDTO("MAIN-1", "SUB-1")));
+
+    assertEquals(2, result.size());
+    assertEquals("PAID", result.get(0).getStatus());
+    assertEquals("SUB-1", result.get(0).getSubOrderNo());
+    assertSame(latestVO, result.get(1));
+    verify(paymentSecurityCacheService).cacheOrderStatus("MAIN-1:SUB-2", "PAY-21", 7L, "PAID");
+  }
+
   @Test
   void getPaymentOrderByNoUsesIndexedMapperQuery() {
     PaymentOrderEntity entity = new PaymentOrderEntity();
@@ -0,0 +1,57 @@
+package com.cloud.payment.service.support;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentSecurityCacheServiceTest {
+
+  @Mock private StringRedisTemplate stringRedisTemplate;
+  @Mock private HashOperations<String, Object, Object> hashOperations;
+
+  private PaymentSecurityCacheService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new PaymentSecurityCacheService(stringRedisTemplate);
+    ReflectionTestUtils.setField(service, "resultTtlSeconds", 600L);
+  }
+
+  @Test
+  void cacheOrderStatusWritesPaidStatus() {
+    when(stringRedisTemplate.opsForHash()).thenReturn(hashOperations);
+
+    service.cacheOrderStatus("MAIN-1:SUB-1", "PAY-1", 7L, "PAID");
+
+    verify(hashOperations)
+        .putAll(
+            "pay:status:order:MAIN-1:SUB-1",
+            Map.of("paymentNo", "PAY-1", "userId", "7", "status", "PAID"));
+    verify(stringRedisTemplate).expire("pay:status:order:MAIN-1:SUB-1", Duration.ofSeconds(600L));
+  }
+
+  @Test
+  void cacheOrderStatusSkipsStatusesThatCanStillChange() {
+    service.cacheOrderStatus("MAIN-1:SUB-1", "PAY-1", 7L, "CREATED");
+    service.cacheOrderStatus("MAIN-1:SUB-1", "PAY-1", 7L, "FAILED");
+
+    verify(stringRedisTemplate, never()).opsForHash();
+    verify(stringRedisTemplate, never()).expire(anyString(), any(Duration.class));
+    verify(hashOperations, never()).putAll(anyString(), anyMap());
+  }
+}
@@ -34,6 +34,11 @@ public class ProductCatalogDubboService implements ProductDubboApi {
     return productCatalogService.getSpuById(spuId);
   }
 
+  @Override
+  public List<SpuDetailVO> listSpuByIds(List<Long> spuIds) {
+    return productCatalogService.listSpuByIds(spuIds);
+  }
+
   @Override
   public List<SpuDetailVO> listSpuByCategory(Long categoryId, Integer status) {
     return productCatalogService.listSpuByCategory(categoryId, status);
@@ -44,6 +49,16 @@ public class ProductCatalogDubboService implements ProductDubboApi {
     return productCatalogService.listSpuByPage(page, size, status);
   }
 
+  @Override
+  public List<SpuDetailVO> listSpuAfterId(Long afterSpuId, Integer size, Integer status) {
+    return productCatalogService.listSpuAfterId(afterSpuId, size, status);
+  }
+
+  @Override
+  public Long countSpu(Integer status) {
+    return productCatalogService.countSpu(status);
+  }
+
   @Override
   public List<SkuDetailVO> listSkuByIds(List<Long> skuIds) {
     return productCatalogService.listSkuByIds(skuIds);
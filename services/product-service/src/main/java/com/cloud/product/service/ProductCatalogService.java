@@ -14,10 +14,16 @@ public interface ProductCatalogService {
 
   SpuDetailVO getSpuById(Long spuId);
 
+  List<SpuDetailVO> listSpuByIds(List<Long> spuIds);
+
   List<SpuDetailVO> listSpuByCategory(Long categoryId, Integer status);
 
   List<SpuDetailVO> listSpuByPage(Integer page, Integer size, Integer status);
 
+  List<SpuDetailVO> listSpuAfterId(Long afterSpuId, Integer size, Integer status);
+
+  Long countSpu(Integer status);
+
   List<SkuDetailVO> listSkuByIds(List<Long> skuIds);
 
   Map<Long, Long> mapSpuIdsBySkuIds(List<Long> skuIds);
@@ -161,6 +161,15 @@ public class ProductCatalogServiceImpl implements ProductCatalogService {
     return productDetailCacheService.getOrLoad(spuId, () -> loadSpuDetail(spuId));
   }
 
+  @Override
+  public List<SpuDetailVO> listSpuByIds(List<Long> spuIds) {
+    if (spuIds == null || spuIds.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return new ArrayList<>(
+        productDetailCacheService.getOrLoadAll(spuIds, this::loadSpuDetails).values());
+  }
+
   @Override
   public List<SpuDetailVO> listSpuByCategory(Long categoryId, Integer status) {
     int effectiveMax = (maxListSize == null || maxListSize <= 0) ? 100 : maxListSize;
@@ -192,6 +201,32 @@ public class ProductCatalogServiceImpl implements ProductCatalogService {
     return buildSpuDetails(result == null ? Collections.emptyList() : result.getRecords());
   }
 
+  @Override
+  public List<SpuDetailVO> listSpuAfterId(Long afterSpuId, Integer size, Integer status) {
+    int safeSize = size == null || size <= 0 ? 100 : size;
+    int effectiveMax = (maxListSize == null || maxListSize <= 0) ? 100 : maxListSize;
+    safeSize = Math.min(safeSize, effectiveMax);
+
+    LambdaQueryWrapper<Spu> wrapper =
+        new LambdaQueryWrapper<Spu>()
+            .gt(Spu::getId, afterSpuId == null ? 0L : afterSpuId)
+            .eq(Spu::getDeleted, 0);
+    if (status != null) {
+      wrapper.eq(Spu::getStatus, status);
+    }
+    wrapper.orderByAsc(Spu::getId).last("LIMIT " + safeSize);
+    return buildSpuDetails(spuMapper.selectList(wrapper));
+  }
+
+  @Override
+  public Long countSpu(Integer status) {
+    LambdaQueryWrapper<Spu> wrapper = new LambdaQueryWrapper<Spu>().eq(Spu::getDeleted, 0);
+    if (status != null) {
+      wrapper.eq(Spu::getStatus, status);
+    }
+    return spuMapper.selectCount(wrapper);
+  }
+
   @Override
   public List<SkuDetailVO> listSkuByIds(List<Long> skuIds) {
     if (skuIds == null || skuIds.isEmpty()) {
@@ -300,6 +335,15 @@ public class ProductCatalogServiceImpl implements ProductCatalogService {
         spu, skus, categoryById, brandById, shopByMerchantId, reviewAggregateBySpuId);
   }
 
+  private List<SpuDetailVO> loadSpuDetails(List<Long> spuIds) {
+    List<Spu> spus = spuMapper.selectBatchIds(spuIds);
+    if (spus == null || spus.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return buildSpuDetails(
+        spus.stream().filter(spu -> spu != null && spu.getDeleted() != 1).toList());
+  }
+
   private List<SpuDetailVO> buildSpuDetails(List<Spu> spus) {
     if (spus == null || spus.isEmpty()) {
       return Collections.emptyList();
@@ -8,16 +8,22 @@ import com.github.benmanes.caffeine.cache.Caffeine;
 import jakarta.annotation.PostConstruct;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.support.TransactionSynchronization;
@@ -99,6 +105,49 @@ public class ProductDetailCacheService {
     return loaded;
   }
 
+  /**
+   * Multi-get over L1 and L2; the misses are handed to {@code loader} in a single call. The result
+   * keeps the order of {@code spuIds} and skips ids the loader could not resolve.
+   */
+  public Map<Long, SpuDetailVO> getOrLoadAll(
+      List<Long> spuIds, Function<List<Long>, List<SpuDetailVO>> loader) {
+    if (spuIds == null || spuIds.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    List<Long> safeIds = spuIds.stream().filter(Objects::nonNull).distinct().toList();
+    Map<Long, SpuDetailVO> found = new HashMap<>(l1Cache.getAllPresent(safeIds));
+    List<Long> l2Misses = safeIds.stream().filter(id -> !found.containsKey(id)).toList();
+    if (!l2Misses.isEmpty()) {
+      Map<Long, SpuDetailVO> fromHash = readAllFromHash(l2Misses);
+      l1Cache.putAll(fromHash);
+      found.putAll(fromHash);
+    }
+    List<Long> misses = safeIds.stream().filter(id -> !found.containsKey(id)).toList();
+    if (!misses.isEmpty()) {
+      List<SpuDetailVO> loaded = loader.apply(misses);
+      if (loaded != null) {
+        List<SpuDetailVO> resolved = new ArrayList<>(loaded.size());
+        for (SpuDetailVO detail : loaded) {
+          if (detail == null || detail.getSpuId() == null) {
+            continue;
+          }
+          l1Cache.put(detail.getSpuId(), detail);
+          found.put(detail.getSpuId(), detail);
+          resolved.add(detail);
+        }
+        cacheAllToHash(resolved);
+      }
+    }
+    Map<Long, SpuDetailVO> result = new LinkedHashMap<>(safeIds.size());
+    for (Long spuId : safeIds) {
+      SpuDetailVO detail = found.get(spuId);
+      if (detail != null) {
+        result.put(spuId, detail);
+      }
+    }
+    return result;
+  }
+
   public void evict(Long spuId) {
     if (spuId == null) {
       return;
@@ -152,26 +201,96 @@ public class ProductDetailCacheService {
     }
   }
 
+  private Map<Long, SpuDetailVO> readAllFromHash(List<Long> spuIds) {
+    List<Object> replies;
+    try {
+      replies =
+          redisTemplate.executePipelined(
+              new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                  RedisOperations<String, Object> ops =
+                      (RedisOperations<String, Object>) operations;
+                  for (Long spuId : spuIds) {
+                    ops.opsForHash()
+                        .multiGet(buildKey(spuId), List.of(HASH_FIELD_SPU, HASH_FIELD_SKUS));
+                  }
+                  return null;
+                }
+              });
+    } catch (Exception ex) {
+      log.warn("Read product detail hash cache in batch failed: size={}", spuIds.size(), ex);
+      return Collections.emptyMap();
+    }
+    Map<Long, SpuDetailVO> result = new HashMap<>();
+    for (int i = 0; i < spuIds.size() && i < replies.size(); i++) {
+      if (!(replies.get(i) instanceof List<?> fields)
+          || fields.size() < 2
+          || !(fields.get(0) instanceof SpuDetailVO base)) {
+        continue;
+      }
+      List<SkuDetailVO> skus = null;
+      if (fields.get(1) instanceof List<?> list) {
+        @SuppressWarnings("unchecked")
+        List<SkuDetailVO> casted = (List<SkuDetailVO>) list;
+        skus = casted;
+      }
+      SpuDetailVO merged = copyBase(base);
+      merged.setSkus(skus);
+      result.put(spuIds.get(i), merged);
+    }
+    return result;
+  }
+
   private void cacheToHash(String key, SpuDetailVO loaded) {
     if (loaded == null) {
       return;
     }
     try {
       long ttlSeconds = addJitter(detailTtlSeconds, detailJitterSeconds);
-      SpuDetailVO base = copyBase(loaded);
-      List<SkuDetailVO> skus =
-          loaded.getSkus() == null ? Collections.emptyList() : loaded.getSkus();
-      Map<String, Object> payload = new HashMap<>(4);
-      payload.put(HASH_FIELD_SPU, base);
-      payload.put(HASH_FIELD_SKUS, skus);
       redisTemplate.delete(key);
-      redisTemplate.opsForHash().putAll(key, payload);
+      redisTemplate.opsForHash().putAll(key, buildPayload(loaded));
       redisTemplate.expire(key, ttlSeconds, TimeUnit.SECONDS);
     } catch (Exception ex) {
       log.warn("Write product detail hash cache failed: key={}", key, ex);
     }
   }
 
+  /** Writes loaded details back to L2 in one pipeline instead of three round trips per SPU. */
+  private void cacheAllToHash(List<SpuDetailVO> details) {
+    if (details.isEmpty()) {
+      return;
+    }
+    try {
+      redisTemplate.executePipelined(
+          new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+              RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+              for (SpuDetailVO detail : details) {
+                String key = buildKey(detail.getSpuId());
+                ops.delete(key);
+                ops.opsForHash().putAll(key, buildPayload(detail));
+                ops.expire(key, addJitter(detailTtlSeconds, detailJitterSeconds), TimeUnit.SECONDS);
+              }
+              return null;
+            }
+          });
+    } catch (Exception ex) {
+      log.warn("Write product detail hash cache in batch failed: size={}", details.size(), ex);
+    }
+  }
+
+  private Map<String, Object> buildPayload(SpuDetailVO loaded) {
+    List<SkuDetailVO> skus = loaded.getSkus() == null ? Collections.emptyList() : loaded.getSkus();
+    Map<String, Object> payload = new HashMap<>(4);
+    payload.put(HASH_FIELD_SPU, copyBase(loaded));
+    payload.put(HASH_FIELD_SKUS, skus);
+    return payload;
+  }
+
   private SpuDetailVO copyBase(SpuDetailVO source) {
     return productDetailConverter.copyBase(source);
   }
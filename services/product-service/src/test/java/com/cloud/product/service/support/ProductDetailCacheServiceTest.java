@@ -0,0 +1,80 @@
+package com.cloud.product.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.cloud.common.domain.vo.product.SpuDetailVO;
+import com.cloud.product.converter.ProductDetailConverter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class ProductDetailCacheServiceTest {
+
+  @Mock private RedisTemplate<String, Object> redisTemplate;
+  @Mock private TaskScheduler taskScheduler;
+  @Mock private ProductDetailConverter productDetailConverter;
+  @Mock private RedisOperations<String, Object> pipeline;
+  @Mock private HashOperations<String, Object, Object> pipelineHash;
+
+  private ProductDetailCacheService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new ProductDetailCacheService(redisTemplate, taskScheduler, productDetailConverter);
+    ReflectionTestUtils.setField(service, "detailTtlSeconds", 1800L);
+    ReflectionTestUtils.setField(service, "detailJitterSeconds", 0L);
+    ReflectionTestUtils.setField(service, "l1MaxSize", 100L);
+    service.init();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void loadedMissesAreWrittenBackInOnePipeline() {
+    when(pipeline.opsForHash()).thenReturn(pipelineHash);
+    when(productDetailConverter.copyBase(any()))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+    when(redisTemplate.executePipelined(any(SessionCallback.class)))
+        .thenAnswer(
+            invocation -> {
+              invocation.<SessionCallback<Object>>getArgument(0).execute(pipeline);
+              return Arrays.asList(null, null);
+            });
+
+    Map<Long, SpuDetailVO> result =
+        service.getOrLoadAll(List.of(1L, 2L), misses -> misses.stream().map(this::spu).toList());
+
+    assertEquals(List.of(1L, 2L), List.copyOf(result.keySet()));
+    verify(redisTemplate, times(2)).executePipelined(any(SessionCallback.class));
+    verify(pipelineHash).putAll(eq("product:detail:1"), anyMap());
+    verify(pipelineHash).putAll(eq("product:detail:2"), anyMap());
+    verify(pipeline).expire(eq("product:detail:2"), anyLong(), eq(TimeUnit.SECONDS));
+    verify(redisTemplate, never()).opsForHash();
+  }
+
+  private SpuDetailVO spu(Long spuId) {
+    SpuDetailVO detail = new SpuDetailVO();
+    detail.setSpuId(spuId);
+    return detail;
+  }
+}
@@ -3,6 +3,7 @@ package com.cloud.search.controller;
 import com.cloud.common.enums.ResultCode;
 import com.cloud.common.exception.BizException;
 import com.cloud.common.result.Result;
+import com.cloud.common.security.SecurityPermissionUtils;
 import com.cloud.search.document.ProductDocument;
 import com.cloud.search.dto.ProductSearchRequest;
 import com.cloud.search.dto.SearchResultDTO;
@@ -12,10 +13,12 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -68,6 +71,37 @@ public class ProductSearchController {
         "Get filters success", searchFacadeService.getProductFilters(request, searchAfter));
   }
 
+  @Operation(
+      summary = "Open search session",
+      description =
+          "Open a point-in-time search session and return its first page with a cursor for the"
+              + " next one")
+  @PostMapping("/products/sessions")
+  public Result<SearchResultDTO<ProductDocument>> openSearchSession(
+      @Valid @RequestBody ProductSearchRequest request, HttpServletRequest httpRequest) {
+    normalizePublicStatus(request);
+    return Result.success(
+        "Open search session success",
+        searchFacadeService.openSearchSession(request, resolveClientKey(httpRequest)));
+  }
+
+  @Operation(
+      summary = "Next session page",
+      description = "Read the page a session cursor points to")
+  @GetMapping("/products/sessions")
+  public Result<SearchResultDTO<ProductDocument>> nextSearchSessionPage(
+      @Parameter(description = "Session cursor") @RequestParam String cursor) {
+    return Result.success("Search success", searchFacadeService.nextSearchSessionPage(cursor));
+  }
+
+  @Operation(summary = "Close search session", description = "Close a session before it expires")
+  @DeleteMapping("/products/sessions")
+  public Result<Void> closeSearchSession(
+      @Parameter(description = "Session cursor") @RequestParam String cursor) {
+    searchFacadeService.closeSearchSession(cursor);
+    return Result.success();
+  }
+
   @Operation(summary = "Search suggestions", description = "Get search suggestions by keyword")
   @GetMapping("/products/suggestions")
   public Result<List<String>> getSearchSuggestions(
@@ -198,6 +232,25 @@ public class ProductSearchController {
         searchFacadeService.getTodayHotSellingProducts(page, size));
   }
 
+  /**
+   * The caller a search session is counted against: the signed-in user, else the address the
+   * gateway appended last to X-Forwarded-For, which the client cannot choose.
+   */
+  private String resolveClientKey(HttpServletRequest httpRequest) {
+    String userId = SecurityPermissionUtils.getCurrentUserId();
+    if (userId != null && !userId.isBlank()) {
+      return "user:" + userId;
+    }
+    String forwardedFor = httpRequest.getHeader("X-Forwarded-For");
+    if (forwardedFor != null) {
+      String lastHop = forwardedFor.substring(forwardedFor.lastIndexOf(',') + 1).trim();
+      if (!lastHop.isEmpty()) {
+        return "ip:" + lastHop;
+      }
+    }
+    return "ip:" + httpRequest.getRemoteAddr();
+  }
+
   private void normalizePublicStatus(ProductSearchRequest request) {
     if (request == null) {
       return;
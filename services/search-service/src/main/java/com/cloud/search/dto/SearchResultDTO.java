@@ -48,6 +48,9 @@ public class SearchResultDTO<T> {
   @Schema(description = "Search after values")
   private List<Object> searchAfter;
 
+  @Schema(description = "Search session cursor for the next page")
+  private String cursor;
+
   public static <T> SearchResultDTO<T> of(
       List<T> list, Long total, Integer page, Integer size, Long took) {
     int safeSize = size == null || size <= 0 ? 20 : size;
@@ -0,0 +1,54 @@
+package com.cloud.search.messaging;
+
+import com.cloud.common.messaging.consumer.AbstractJsonMqConsumer;
+import com.cloud.common.messaging.event.StockChangedEvent;
+import com.cloud.search.service.support.ProductStockUpdateService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.rocketmq.common.message.MessageExt;
+import org.apache.rocketmq.spring.annotation.RocketMQMessageListener;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@RocketMQMessageListener(
+    topic = "product-sync",
+    consumerGroup = "search-product-stock-sync-group",
+    selectorExpression = "STOCK_CHANGED")
+public class ProductStockSyncConsumer extends AbstractJsonMqConsumer<StockChangedEvent> {
+
+  private static final String NS_PRODUCT_STOCK_SYNC = "search:product:stock-sync";
+
+  private final ProductStockUpdateService productStockUpdateService;
+
+  @Override
+  protected void doConsume(StockChangedEvent event, MessageExt msgExt) {
+    if (event == null || event.getItems() == null || event.getItems().isEmpty()) {
+      return;
+    }
+    productStockUpdateService.applyStockChanges(event.getItems());
+  }
+
+  @Override
+  protected Class<StockChangedEvent> payloadClass() {
+    return StockChangedEvent.class;
+  }
+
+  @Override
+  protected String payloadDescription() {
+    return "StockChangedEvent";
+  }
+
+  @Override
+  protected String resolveIdempotentNamespace(
+      String topic, MessageExt msgExt, StockChangedEvent payload) {
+    return NS_PRODUCT_STOCK_SYNC;
+  }
+
+  @Override
+  protected String buildIdempotentKey(
+      String topic, String msgId, StockChangedEvent payload, MessageExt msgExt) {
+    return resolveEventId("STOCK_CHANGED", payload.getEventId(), msgId);
+  }
+}
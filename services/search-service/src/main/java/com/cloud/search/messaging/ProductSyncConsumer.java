@@ -4,11 +4,19 @@ import com.cloud.api.product.ProductDubboApi;
 import com.cloud.common.domain.vo.product.SpuDetailVO;
 import com.cloud.common.enums.ResultCode;
 import com.cloud.common.exception.RemoteException;
-import com.cloud.common.messaging.consumer.AbstractJsonMqConsumer;
+import com.cloud.common.messaging.consumer.AbstractJsonBatchMqConsumer;
 import com.cloud.common.messaging.event.ProductSyncEvent;
 import com.cloud.search.document.ProductDocument;
 import com.cloud.search.repository.ProductDocumentRepository;
 import com.cloud.search.service.ProductDocumentBuildService;
+import com.cloud.search.service.support.LocalSuggestionService;
+import com.cloud.search.service.support.ProductIndexManager;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -25,35 +33,69 @@ import org.springframework.stereotype.Component;
     topic = "product-sync",
     consumerGroup = "search-product-sync-group",
     selectorExpression = "PRODUCT_UPSERT||PRODUCT_DELETE")
-public class ProductSyncConsumer extends AbstractJsonMqConsumer<ProductSyncEvent> {
+public class ProductSyncConsumer extends AbstractJsonBatchMqConsumer<ProductSyncEvent> {
 
   private static final String NS_PRODUCT_SYNC = "search:product:sync";
 
   private final ProductDocumentBuildService productDocumentBuildService;
   private final ProductDocumentRepository productDocumentRepository;
+  private final ProductIndexManager productIndexManager;
+  private final LocalSuggestionService localSuggestionService;
 
   @DubboReference(check = false, timeout = 5000, retries = 0)
   private ProductDubboApi productDubboApi;
 
   @Override
-  protected void doConsume(ProductSyncEvent event, MessageExt msgExt) {
-    if (event == null || event.getSpuId() == null) {
-      return;
+  protected void doConsumeBatch(List<ProductSyncEvent> events) {
+    Map<Long, String> latestEventTypeBySpuId = new LinkedHashMap<>();
+    for (ProductSyncEvent event : events) {
+      if (event == null || event.getSpuId() == null) {
+        continue;
+      }
+      latestEventTypeBySpuId.remove(event.getSpuId());
+      latestEventTypeBySpuId.put(event.getSpuId(), event.getEventType());
     }
-    Long spuId = event.getSpuId();
-    if ("PRODUCT_DELETE".equalsIgnoreCase(event.getEventType())) {
-      productDocumentRepository.deleteById(String.valueOf(spuId));
+    if (latestEventTypeBySpuId.isEmpty()) {
       return;
     }
-    SpuDetailVO spu =
-        invokeProductService("get spu by id", () -> productDubboApi.getSpuById(spuId));
-    if (spu == null) {
-      productDocumentRepository.deleteById(String.valueOf(spuId));
-      return;
+
+    List<String> deletedIds = new ArrayList<>();
+    List<Long> upsertIds = new ArrayList<>();
+    latestEventTypeBySpuId.forEach(
+        (spuId, eventType) -> {
+          if ("PRODUCT_DELETE".equalsIgnoreCase(eventType)) {
+            deletedIds.add(String.valueOf(spuId));
+          } else {
+            upsertIds.add(spuId);
+          }
+        });
+    List<SpuDetailVO> spus = new ArrayList<>();
+    if (!upsertIds.isEmpty()) {
+      List<SpuDetailVO> loaded =
+          invokeProductService("list spu by ids", () -> productDubboApi.listSpuByIds(upsertIds));
+      Set<Long> foundIds = new HashSet<>();
+      if (loaded != null) {
+        for (SpuDetailVO spu : loaded) {
+          if (spu != null && spu.getSpuId() != null && foundIds.add(spu.getSpuId())) {
+            spus.add(spu);
+          }
+        }
+      }
+      for (Long spuId : upsertIds) {
+        if (!foundIds.contains(spuId)) {
+          deletedIds.add(String.valueOf(spuId));
+        }
+      }
+    }
+    if (!deletedIds.isEmpty()) {
+      productDocumentRepository.deleteAllById(deletedIds);
+      productIndexManager.mirrorDelete(deletedIds);
     }
-    ProductDocument document = productDocumentBuildService.build(spu);
-    if (document != null) {
-      productDocumentRepository.save(document);
+    List<ProductDocument> documents = productDocumentBuildService.buildAll(spus);
+    if (!documents.isEmpty()) {
+      productDocumentRepository.saveAll(documents);
+      productIndexManager.mirrorSave(documents);
+      localSuggestionService.addDocuments(documents);
     }
   }
 
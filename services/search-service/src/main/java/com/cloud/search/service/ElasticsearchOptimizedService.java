@@ -19,15 +19,31 @@ import co.elastic.clients.elasticsearch.core.SearchResponse;
 import co.elastic.clients.elasticsearch.core.search.Highlight;
 import co.elastic.clients.elasticsearch.core.search.HighlightField;
 import co.elastic.clients.elasticsearch.core.search.Hit;
+import com.cloud.common.enums.ResultCode;
+import com.cloud.common.exception.BizException;
+import com.cloud.common.exception.SystemException;
 import com.cloud.search.dto.ProductSearchRequest;
+import com.cloud.search.service.support.HotKeywordAggregator;
 import com.cloud.search.service.support.HotKeywordKeys;
+import com.cloud.search.service.support.LocalSuggestionService;
+import com.cloud.search.service.support.SearchSessionStore;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -37,11 +53,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -62,10 +79,31 @@ public class ElasticsearchOptimizedService {
   private static final String EMPTY_LIST_CACHE_MARKER = "__EMPTY__";
   private static final String METRIC_SEARCH_LATENCY = "search.request.latency";
   private static final String METRIC_ES_ERROR = "search.es.error.count";
+  private static final String METRIC_SMART_SEARCH_CACHE = "search.smart.cache.count";
+  private static final String FIELD_COMPUTE_MS = "computeMs";
+  private static final String FIELD_EXPIRES_AT_MS = "expiresAtMs";
 
   @Value("${search.optimized.cache.smart-search.l2-ttl-seconds:120}")
   private long smartSearchL2TtlSeconds;
 
+  @Value("${search.optimized.cache.smart-search.l1-max-size:10000}")
+  private long smartSearchL1MaxSize;
+
+  @Value("${search.optimized.cache.smart-search.l1-ttl-seconds:10}")
+  private long smartSearchL1TtlSeconds;
+
+  @Value("${search.optimized.cache.smart-search.l1-refresh-after-seconds:7}")
+  private long smartSearchL1RefreshAfterSeconds;
+
+  @Value("${search.optimized.cache.smart-search.l1-refresh-threads:4}")
+  private int smartSearchL1RefreshThreads;
+
+  @Value("${search.optimized.cache.smart-search.l1-refresh-queue-size:256}")
+  private int smartSearchL1RefreshQueueSize;
+
+  @Value("${search.optimized.cache.smart-search.l2-early-expire-beta:1.0}")
+  private double smartSearchL2EarlyExpireBeta;
+
   @Value("${search.optimized.cache.suggestions.l2-ttl-seconds:120}")
   private long suggestionL2TtlSeconds;
 
@@ -90,34 +128,94 @@ public class ElasticsearchOptimizedService {
   @Value("${search.optimized.elasticsearch.request-timeout-ms:700}")
   private int esRequestTimeoutMs;
 
-  @Value("${search.optimized.hot-keyword.expire-refresh-seconds:60}")
-  private long hotKeywordExpireRefreshSeconds;
-
-  @Value("${search.optimized.hot-keyword.cache-invalidate-interval-ms:3000}")
-  private long hotKeywordCacheInvalidateIntervalMs;
-
-  @Value("${search.hot-keyword.daily-ttl-days:7}")
-  private long hotKeywordDailyTtlDays;
-
   private final ElasticsearchClient elasticsearchClient;
   private final StringRedisTemplate redisTemplate;
   private final ObjectMapper objectMapper;
   private final MeterRegistry meterRegistry;
+  private final HotKeywordAggregator hotKeywordAggregator;
+  private final LocalSuggestionService localSuggestionService;
+  private final SearchSessionStore searchSessionStore;
   private final Map<String, Timer> searchLatencyTimers = new ConcurrentHashMap<>();
   private final Map<String, Counter> esErrorCounters = new ConcurrentHashMap<>();
-  private final AtomicLong hotKeywordExpireRefreshedAt = new AtomicLong(0L);
-  private final AtomicReference<String> hotKeywordExpireKey = new AtomicReference<>("");
-  private final AtomicLong hotKeywordCacheInvalidatedAt = new AtomicLong(0L);
+  private final Map<String, Counter> smartSearchCacheCounters = new ConcurrentHashMap<>();
+  private LoadingCache<SmartSearchCacheKey, SmartSearchLoad> smartSearchL1;
+  private ThreadPoolExecutor smartSearchRefresher;
+  // Wall clock for the Redis entry expiry and Caffeine's ticker for L1; both are replaced in tests.
+  private Clock clock = Clock.systemUTC();
+  private Ticker smartSearchL1Ticker = Ticker.systemTicker();
 
   public ElasticsearchOptimizedService(
       ElasticsearchClient elasticsearchClient,
       StringRedisTemplate redisTemplate,
       ObjectMapper objectMapper,
-      MeterRegistry meterRegistry) {
+      MeterRegistry meterRegistry,
+      HotKeywordAggregator hotKeywordAggregator,
+      LocalSuggestionService localSuggestionService,
+      SearchSessionStore searchSessionStore) {
     this.elasticsearchClient = elasticsearchClient;
     this.redisTemplate = redisTemplate;
     this.objectMapper = objectMapper;
     this.meterRegistry = meterRegistry;
+    this.hotKeywordAggregator = hotKeywordAggregator;
+    this.localSuggestionService = localSuggestionService;
+    this.searchSessionStore = searchSessionStore;
+  }
+
+  /**
+   * Per-node L1 in front of the Redis smart-search cache. A miss is loaded on the request thread
+   * and concurrent misses on one key wait for that single load. A key still being read after {@code
+   * l1-refresh-after-seconds} is reloaded on a small bounded pool while the current value keeps
+   * being served; when the pool is saturated the reader runs the refresh itself.
+   */
+  @PostConstruct
+  public void initSmartSearchL1() {
+    int threads = Math.max(1, smartSearchL1RefreshThreads);
+    AtomicInteger threadNo = new AtomicInteger();
+    smartSearchRefresher =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, smartSearchL1RefreshQueueSize)),
+            task -> {
+              Thread thread =
+                  new Thread(task, "smart-search-refresh-" + threadNo.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    long ttlSeconds = Math.max(1L, smartSearchL1TtlSeconds);
+    Caffeine<Object, Object> builder =
+        Caffeine.newBuilder()
+            .maximumSize(Math.max(100L, smartSearchL1MaxSize))
+            .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+            .ticker(smartSearchL1Ticker)
+            .executor(smartSearchRefresher);
+    if (smartSearchL1RefreshAfterSeconds > 0 && smartSearchL1RefreshAfterSeconds < ttlSeconds) {
+      builder.refreshAfterWrite(Duration.ofSeconds(smartSearchL1RefreshAfterSeconds));
+    }
+    smartSearchL1 =
+        builder.build(
+            new CacheLoader<SmartSearchCacheKey, SmartSearchLoad>() {
+              @Override
+              public SmartSearchLoad load(SmartSearchCacheKey key) {
+                return loadSmartSearch(key);
+              }
+
+              @Override
+              public SmartSearchLoad reload(SmartSearchCacheKey key, SmartSearchLoad oldValue) {
+                incrementSmartSearchCache("refresh-ahead");
+                return loadSmartSearch(key);
+              }
+            });
+  }
+
+  @PreDestroy
+  public void shutdownSmartSearchL1() {
+    if (smartSearchRefresher != null) {
+      smartSearchRefresher.shutdownNow();
+    }
   }
 
   @Transactional(readOnly = true)
@@ -147,21 +245,26 @@ public class ElasticsearchOptimizedService {
         new SmartSearchCacheKey(
             safeKeyword, categoryId, minPrice, maxPrice, sortField, sortOrder, safeFrom, safeSize);
 
-    String redisKey = buildSmartSearchCacheKey(cacheKey);
-    SearchResultDTO l2Cached = getSmartSearchFromRedis(redisKey);
-    if (l2Cached != null) {
-      recordTimer(sample, "smart-search", "l2-hit");
-      return l2Cached;
-    }
-
     try {
-      SearchResultDTO result = querySmartSearchFromElasticsearch(cacheKey);
-      putSmartSearchToRedis(redisKey, result);
-      recordHotSearch(safeKeyword);
-      recordTimer(sample, "smart-search", "es-hit");
-      return result;
+      SmartSearchLoad loaded = smartSearchL1.getIfPresent(cacheKey);
+      String l1Result = "l1-hit";
+      if (loaded == null) {
+        boolean[] loadedHere = new boolean[1];
+        loaded =
+            smartSearchL1.get(
+                cacheKey,
+                key -> {
+                  loadedHere[0] = true;
+                  return loadSmartSearch(key);
+                });
+        l1Result = loadedHere[0] ? "l1-miss" : "coalesced";
+      }
+      incrementSmartSearchCache(l1Result);
+      recordTimer(sample, "smart-search", "l1-miss".equals(l1Result) ? loaded.source() : l1Result);
+      return loaded.result();
 
-    } catch (Exception e) {
+    } catch (RuntimeException e) {
+      incrementSmartSearchCache("l1-miss");
       incrementEsError("smart-search");
       log.error(
           "Smart product search failed, keyword={}, categoryId={}, from={}, size={}",
@@ -175,6 +278,21 @@ public class ElasticsearchOptimizedService {
     }
   }
 
+  /** L1 loader: Redis first, Elasticsearch when Redis misses or chose to expire the entry early. */
+  private SmartSearchLoad loadSmartSearch(SmartSearchCacheKey key) {
+    String redisKey = buildSmartSearchCacheKey(key);
+    SearchResultDTO l2Cached = getSmartSearchFromRedis(redisKey);
+    if (l2Cached != null) {
+      return new SmartSearchLoad(l2Cached, "l2-hit");
+    }
+    long startedNanos = System.nanoTime();
+    SearchResultDTO result = querySmartSearchFromElasticsearch(key);
+    putSmartSearchToRedis(
+        redisKey, result, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos));
+    hotKeywordAggregator.record(key.keyword());
+    return new SmartSearchLoad(result, "es-hit");
+  }
+
   @Transactional(readOnly = true)
   public SearchResultDTO smartProductSearchAfter(
       String keyword,
@@ -195,7 +313,7 @@ public class ElasticsearchOptimizedService {
     try {
       List<FieldValue> searchAfter = toSearchAfterValues(searchAfterValues);
       SearchResultDTO result = querySmartSearchFromElasticsearch(cacheKey, searchAfter);
-      recordHotSearch(safeKeyword);
+      hotKeywordAggregator.record(safeKeyword);
       recordTimer(sample, "smart-search", "search-after");
       return result;
 
@@ -272,19 +390,8 @@ public class ElasticsearchOptimizedService {
       SearchResponse<Map> response = elasticsearchClient.search(searchRequest, Map.class);
       List<Hit<Map>> rawHits = response.hits().hits();
       List<Hit<Map>> pageHits = trimHitsToPageSize(rawHits, safeSize);
-      List<Map<String, Object>> products = new ArrayList<>();
       Map<String, List<String>> highlights = new LinkedHashMap<>();
-      for (Hit<Map> hit : pageHits) {
-        Map<String, Object> product =
-            hit.source() != null ? new HashMap<>(hit.source()) : new HashMap<>();
-        product.put("id", hit.id());
-        if (hit.highlight() != null && !hit.highlight().isEmpty()) {
-          product.put("highlight", hit.highlight());
-          highlights.put(hit.id(), flattenHighlights(hit.highlight()));
-        }
-        product.put("score", hit.score());
-        products.add(product);
-      }
+      List<Map<String, Object>> products = toProductSources(pageHits, highlights);
 
       long total = response.hits().total() != null ? response.hits().total().value() : 0L;
       Map<String, Object> aggregations =
@@ -294,7 +401,7 @@ public class ElasticsearchOptimizedService {
       List<Object> nextSearchAfter = resolveNextSearchAfter(rawHits, safeSize);
 
       if (StrUtil.isNotBlank(safeRequest.getKeyword())) {
-        recordHotSearch(safeRequest.getKeyword());
+        hotKeywordAggregator.record(safeRequest.getKeyword());
       }
       recordTimer(sample, "product-search", useSearchAfter ? "search-after" : "from");
       return SearchResultDTO.builder()
@@ -314,6 +421,182 @@ public class ElasticsearchOptimizedService {
     }
   }
 
+  /**
+   * Opens a point-in-time search session for {@code request} and returns its first page, with
+   * aggregations when requested. Later pages are read through {@link #nextProductSearchSession}
+   * with the returned cursor and are not limited by {@code max-from}.
+   */
+  public SearchSessionPage openProductSearchSession(
+      ProductSearchRequest request, String clientKey) {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    ProductSearchRequest safeRequest = request == null ? new ProductSearchRequest() : request;
+    int safeSize = sessionPageSize(safeRequest);
+    searchSessionStore.reserve(clientKey);
+    String pitId;
+    try {
+      pitId =
+          elasticsearchClient
+              .openPointInTime(
+                  open ->
+                      open.index(PRODUCT_INDEX)
+                          .keepAlive(time -> time.time(searchSessionStore.keepAlive())))
+              .id();
+    } catch (Exception e) {
+      searchSessionStore.release(clientKey);
+      throw sessionFailure(sample, "open search session failed", e);
+    }
+
+    SearchSessionStore.Session session;
+    SessionPage page;
+    try {
+      page = querySessionPage(pitId, safeRequest, safeSize, List.of(), null);
+      session =
+          searchSessionStore.save(page.pitId(), safeRequest, page.result().getTotal(), clientKey);
+    } catch (Exception e) {
+      searchSessionStore.abandon(pitId, clientKey);
+      throw sessionFailure(sample, "open search session failed", e);
+    }
+    if (StrUtil.isNotBlank(safeRequest.getKeyword())) {
+      hotKeywordAggregator.record(safeRequest.getKeyword());
+    }
+    recordTimer(sample, "search-session", "open");
+    return finishSessionPage(session, page);
+  }
+
+  public SearchSessionPage nextProductSearchSession(String cursor) {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    SearchSessionStore.Cursor decoded = searchSessionStore.decodeCursor(cursor);
+    SearchSessionStore.Session session = searchSessionStore.load(decoded.sessionId());
+    SessionPage page;
+    try {
+      page =
+          querySessionPage(
+              session.pitId(),
+              session.request(),
+              sessionPageSize(session.request()),
+              decoded.searchAfter(),
+              session.total());
+    } catch (Exception e) {
+      throw sessionFailure(sample, "read search session failed", e);
+    }
+    recordTimer(sample, "search-session", "next");
+    return finishSessionPage(session, page);
+  }
+
+  /** Ends the session early and closes its point in time; unknown cursors are ignored. */
+  public void closeProductSearchSession(String cursor) {
+    SearchSessionStore.Cursor decoded = searchSessionStore.decodeCursor(cursor);
+    try {
+      searchSessionStore.close(searchSessionStore.load(decoded.sessionId()));
+    } catch (BizException ignored) {
+      // Already expired or closed.
+    }
+  }
+
+  private SearchSessionPage finishSessionPage(
+      SearchSessionStore.Session session, SessionPage page) {
+    List<Object> next = page.result().getSearchAfter();
+    if (next == null || next.isEmpty()) {
+      searchSessionStore.close(
+          new SearchSessionStore.Session(
+              session.id(), page.pitId(), session.request(), session.total()));
+      return new SearchSessionPage(page.result(), null);
+    }
+    searchSessionStore.touch(session, page.pitId());
+    return new SearchSessionPage(
+        page.result(), searchSessionStore.encodeCursor(session.id(), next));
+  }
+
+  private SessionPage querySessionPage(
+      String pitId,
+      ProductSearchRequest request,
+      int size,
+      List<Object> searchAfterValues,
+      Long sessionTotal)
+      throws IOException {
+    // Total hits and aggregations are computed once, on the page that opens the session.
+    boolean firstPage = sessionTotal == null;
+    Query query = buildProductSearchQuery(request);
+    List<FieldValue> searchAfter = toSearchAfterValues(searchAfterValues);
+    boolean withAggregations = firstPage && Boolean.TRUE.equals(request.getIncludeAggregations());
+    SearchRequest searchRequest =
+        SearchRequest.of(
+            s -> {
+              // No index and no explicit tie-breaker: both come from the point in time.
+              SearchRequest.Builder builder =
+                  s.pit(
+                          pit ->
+                              pit.id(pitId)
+                                  .keepAlive(time -> time.time(searchSessionStore.keepAlive())))
+                      .query(query)
+                      .size(size + 1)
+                      .trackTotalHits(track -> track.enabled(firstPage))
+                      .timeout(esRequestTimeoutMs + "ms")
+                      .sort(buildSortOptions(request.getSortBy(), request.getSortOrder()))
+                      .source(src -> src.fetch(true));
+              if (Boolean.TRUE.equals(request.getHighlight())) {
+                builder.highlight(buildHighlight());
+              }
+              if (withAggregations) {
+                builder.aggregations(buildAggregations());
+              }
+              if (!searchAfter.isEmpty()) {
+                builder.searchAfter(searchAfter);
+              }
+              return builder;
+            });
+
+    SearchResponse<Map> response = elasticsearchClient.search(searchRequest, Map.class);
+    List<Hit<Map>> rawHits = response.hits().hits();
+    Map<String, List<String>> highlights = new LinkedHashMap<>();
+    List<Map<String, Object>> products =
+        toProductSources(trimHitsToPageSize(rawHits, size), highlights);
+    long total =
+        !firstPage
+            ? sessionTotal
+            : response.hits().total() != null ? response.hits().total().value() : 0L;
+    SearchResultDTO result =
+        SearchResultDTO.builder()
+            .documents(products)
+            .total(total)
+            .from(0)
+            .size(size)
+            .aggregations(
+                withAggregations ? processAggregations(response.aggregations()) : Map.of())
+            .highlights(highlights)
+            .searchAfter(resolveNextSearchAfter(rawHits, size))
+            .build();
+    return new SessionPage(result, response.pitId() != null ? response.pitId() : pitId);
+  }
+
+  private int sessionPageSize(ProductSearchRequest request) {
+    Integer size = request.getSize();
+    return size == null || size <= 0 ? defaultSearchSize() : Math.min(size, maxSearchSize());
+  }
+
+  private SystemException sessionFailure(Timer.Sample sample, String message, Exception e) {
+    incrementEsError("search-session");
+    recordTimer(sample, "search-session", "error");
+    return new SystemException(ResultCode.SYSTEM_BUSY, message, e);
+  }
+
+  private List<Map<String, Object>> toProductSources(
+      List<Hit<Map>> hits, Map<String, List<String>> highlights) {
+    List<Map<String, Object>> products = new ArrayList<>();
+    for (Hit<Map> hit : hits) {
+      Map<String, Object> product =
+          hit.source() != null ? new HashMap<>(hit.source()) : new HashMap<>();
+      product.put("id", hit.id());
+      if (hit.highlight() != null && !hit.highlight().isEmpty()) {
+        product.put("highlight", hit.highlight());
+        highlights.put(hit.id(), flattenHighlights(hit.highlight()));
+      }
+      product.put("score", hit.score());
+      products.add(product);
+    }
+    return products;
+  }
+
   @Transactional(readOnly = true)
   public List<String> getSearchSuggestions(String keyword, int limit) {
     Timer.Sample sample = Timer.start(meterRegistry);
@@ -326,25 +609,40 @@ public class ElasticsearchOptimizedService {
     int safeLimit = normalizeKeywordLimit(limit);
     KeywordLimitCacheKey cacheKey = new KeywordLimitCacheKey(safeKeyword.toLowerCase(), safeLimit);
 
+    List<String> local = localSuggestionService.suggest(cacheKey.keyword(), safeLimit);
+    if (local.size() >= safeLimit) {
+      recordTimer(sample, "suggestions", "local-hit");
+      return local;
+    }
+
     String redisKey = buildSuggestionCacheKey(cacheKey);
     StringListCacheResult l2Cached = getStringListFromRedis(redisKey);
     if (l2Cached.hit()) {
       recordTimer(sample, "suggestions", "l2-hit");
-      return l2Cached.value();
+      return mergeSuggestions(local, l2Cached.value(), safeLimit);
     }
 
     try {
       List<String> result = querySuggestionsFromElasticsearch(cacheKey.keyword(), cacheKey.limit());
       putStringListToRedis(redisKey, result, suggestionL2TtlSeconds);
       recordTimer(sample, "suggestions", "es-hit");
-      return result;
+      return mergeSuggestions(local, result, safeLimit);
 
     } catch (Exception e) {
       incrementEsError("suggestions");
       log.error("Get search suggestions failed, keyword={}, limit={}", safeKeyword, safeLimit, e);
       recordTimer(sample, "suggestions", "error");
-      return List.of();
+      return local;
+    }
+  }
+
+  private List<String> mergeSuggestions(List<String> local, List<String> remote, int limit) {
+    if (local.isEmpty()) {
+      return remote;
     }
+    Set<String> merged = new LinkedHashSet<>(local);
+    merged.addAll(remote);
+    return merged.stream().limit(limit).toList();
   }
 
   @Transactional(readOnly = true)
@@ -467,7 +765,7 @@ public class ElasticsearchOptimizedService {
   }
 
   private List<String> querySuggestionsFromElasticsearch(String keyword, int limit) {
-    Query query =
+    Query keywordQuery =
         Query.of(
             q ->
                 q.multiMatch(
@@ -480,6 +778,8 @@ public class ElasticsearchOptimizedService {
                                 "brandName")
                             .type(TextQueryType.BoolPrefix)
                             .fuzziness("AUTO")));
+    Query statusQuery = Query.of(q -> q.term(t -> t.field("status").value(FieldValue.of(1))));
+    Query query = Query.of(q -> q.bool(b -> b.must(keywordQuery).filter(statusQuery)));
 
     SearchRequest searchRequest =
         SearchRequest.of(
@@ -917,57 +1217,6 @@ public class ElasticsearchOptimizedService {
     return from + "-" + to;
   }
 
-  private void recordHotSearch(String keyword) {
-    if (StrUtil.isBlank(keyword)) {
-      return;
-    }
-    try {
-      String normalized = keyword.toLowerCase();
-      String dailyKey = HotKeywordKeys.todayKey();
-      redisTemplate.opsForZSet().incrementScore(dailyKey, normalized, 1.0D);
-      refreshHotKeywordExpiryIfNeeded(dailyKey);
-      redisTemplate.opsForZSet().incrementScore(HotKeywordKeys.TOTAL_KEY, normalized, 1.0D);
-      invalidateHotKeywordCachesIfNeeded();
-    } catch (Exception e) {
-      log.warn("Record hot search failed, keyword={}", keyword, e);
-    }
-  }
-
-  private void refreshHotKeywordExpiryIfNeeded(String dailyKey) {
-    if (StrUtil.isBlank(dailyKey)) {
-      return;
-    }
-    long now = System.currentTimeMillis();
-    long refreshIntervalMillis = Math.max(1, hotKeywordExpireRefreshSeconds) * 1000L;
-    long lastRefreshed = hotKeywordExpireRefreshedAt.get();
-    String lastKey = hotKeywordExpireKey.get();
-    boolean keyChanged = !dailyKey.equals(lastKey);
-    if (!keyChanged && now - lastRefreshed < refreshIntervalMillis) {
-      return;
-    }
-    if (keyChanged) {
-      hotKeywordExpireKey.set(dailyKey);
-      hotKeywordExpireRefreshedAt.set(now);
-      redisTemplate.expire(dailyKey, Math.max(1, hotKeywordDailyTtlDays), TimeUnit.DAYS);
-      return;
-    }
-    if (hotKeywordExpireRefreshedAt.compareAndSet(lastRefreshed, now)) {
-      redisTemplate.expire(dailyKey, Math.max(1, hotKeywordDailyTtlDays), TimeUnit.DAYS);
-    }
-  }
-
-  private void invalidateHotKeywordCachesIfNeeded() {
-    long now = System.currentTimeMillis();
-    long intervalMillis = Math.max(500L, hotKeywordCacheInvalidateIntervalMs);
-    long lastInvalidated = hotKeywordCacheInvalidatedAt.get();
-    if (now - lastInvalidated < intervalMillis) {
-      return;
-    }
-    if (hotKeywordCacheInvalidatedAt.compareAndSet(lastInvalidated, now)) {
-      clearL1HotCache();
-    }
-  }
-
   private Double toDouble(BigDecimal value) {
     return value == null ? null : value.doubleValue();
   }
@@ -1034,6 +1283,10 @@ public class ElasticsearchOptimizedService {
         return null;
       }
       JsonNode root = objectMapper.readTree(json);
+      if (shouldExpireEarly(root)) {
+        incrementSmartSearchCache("l2-early-expire");
+        return null;
+      }
       List<Map<String, Object>> documents =
           objectMapper.convertValue(
               root.path("documents"), new TypeReference<List<Map<String, Object>>>() {});
@@ -1060,20 +1313,47 @@ public class ElasticsearchOptimizedService {
     }
   }
 
-  private void putSmartSearchToRedis(String key, SearchResultDTO result) {
+  private void putSmartSearchToRedis(String key, SearchResultDTO result, long computeMs) {
     if (result == null) {
       return;
     }
     try {
-      String json = objectMapper.writeValueAsString(result);
+      long ttlSeconds = addJitterTtlSeconds(smartSearchL2TtlSeconds);
+      ObjectNode root = objectMapper.valueToTree(result);
+      root.put(FIELD_COMPUTE_MS, Math.max(1L, computeMs));
+      root.put(FIELD_EXPIRES_AT_MS, clock.millis() + TimeUnit.SECONDS.toMillis(ttlSeconds));
       redisTemplate
           .opsForValue()
-          .set(key, json, addJitterTtlSeconds(smartSearchL2TtlSeconds), TimeUnit.SECONDS);
+          .set(key, objectMapper.writeValueAsString(root), ttlSeconds, TimeUnit.SECONDS);
     } catch (Exception e) {
       log.warn("Write smart search cache failed, key={}", key, e);
     }
   }
 
+  /**
+   * Probabilistic early expiration: the closer an entry is to its expiry, and the slower it was to
+   * compute, the likelier a reader is to treat it as a miss, so one node usually recomputes it
+   * before every node misses at once.
+   */
+  private boolean shouldExpireEarly(JsonNode root) {
+    return expiresEarly(
+        clock.millis(),
+        root.path(FIELD_COMPUTE_MS).asLong(0),
+        root.path(FIELD_EXPIRES_AT_MS).asLong(0),
+        smartSearchL2EarlyExpireBeta,
+        ThreadLocalRandom.current().nextDouble());
+  }
+
+  /** XFetch decision for one read; {@code uniform} is a draw from [0, 1). */
+  static boolean expiresEarly(
+      long nowMs, long computeMs, long expiresAtMs, double beta, double uniform) {
+    if (computeMs <= 0 || expiresAtMs <= 0 || beta <= 0) {
+      return false;
+    }
+    double gap = -computeMs * beta * Math.log(1.0 - uniform);
+    return nowMs + gap >= expiresAtMs;
+  }
+
   private StringListCacheResult getStringListFromRedis(String key) {
     try {
       String json = redisTemplate.opsForValue().get(key);
@@ -1115,10 +1395,6 @@ public class ElasticsearchOptimizedService {
     return safeBase + ThreadLocalRandom.current().nextLong(jitterUpper);
   }
 
-  private void clearL1HotCache() {
-    // Hot keyword and recommendation paths now rely on Redis single-level cache only.
-  }
-
   private void recordTimer(Timer.Sample sample, String operation, String result) {
     String timerKey = operation + ':' + result;
     Timer timer =
@@ -1145,6 +1421,19 @@ public class ElasticsearchOptimizedService {
     counter.increment();
   }
 
+  private void incrementSmartSearchCache(String result) {
+    Counter counter =
+        smartSearchCacheCounters.computeIfAbsent(
+            result,
+            key ->
+                Counter.builder(METRIC_SMART_SEARCH_CACHE)
+                    .description("Smart search cache lookups")
+                    .tag("operation", "smart-search")
+                    .tag("result", result)
+                    .register(meterRegistry));
+    counter.increment();
+  }
+
   private int defaultSearchSize() {
     return defaultSearchSize <= 0 ? 20 : defaultSearchSize;
   }
@@ -1249,6 +1538,13 @@ public class ElasticsearchOptimizedService {
       int from,
       int size) {}
 
+  private record SmartSearchLoad(SearchResultDTO result, String source) {}
+
+  private record SessionPage(SearchResultDTO result, String pitId) {}
+
+  /** One page of a search session; {@code cursor} is null once the session is exhausted. */
+  public record SearchSessionPage(SearchResultDTO result, String cursor) {}
+
   private record KeywordLimitCacheKey(String keyword, int limit) {}
 
   private record LimitCacheKey(int limit) {}
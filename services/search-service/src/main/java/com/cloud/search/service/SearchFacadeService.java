@@ -88,6 +88,41 @@ public class SearchFacadeService {
     return result;
   }
 
+  public SearchResultDTO<ProductDocument> openSearchSession(
+      ProductSearchRequest request, String clientKey) {
+    long start = System.currentTimeMillis();
+    ElasticsearchOptimizedService.SearchSessionPage page =
+        elasticsearchOptimizedService.openProductSearchSession(request, clientKey);
+    return toSessionResultDTO(
+        page, resolveSize(request == null ? null : request.getSize()), start, false);
+  }
+
+  public SearchResultDTO<ProductDocument> nextSearchSessionPage(String cursor) {
+    long start = System.currentTimeMillis();
+    ElasticsearchOptimizedService.SearchSessionPage page =
+        elasticsearchOptimizedService.nextProductSearchSession(cursor);
+    return toSessionResultDTO(page, page.result().getSize(), start, true);
+  }
+
+  public void closeSearchSession(String cursor) {
+    elasticsearchOptimizedService.closeProductSearchSession(cursor);
+  }
+
+  private SearchResultDTO<ProductDocument> toSessionResultDTO(
+      ElasticsearchOptimizedService.SearchSessionPage page,
+      int size,
+      long start,
+      boolean continued) {
+    SearchResultDTO<ProductDocument> result =
+        toSearchResultDTO(page.result(), 0, size, System.currentTimeMillis() - start, continued);
+    result.setHasNext(page.cursor() != null);
+    result.setCursor(page.cursor());
+    if (!continued) {
+      result.setAggregations(normalizeProductAggregations(result.getAggregations()));
+    }
+    return result;
+  }
+
   public List<String> getSearchSuggestions(String keyword, Integer size) {
     int safeSize = size == null ? 10 : size;
     return elasticsearchOptimizedService.getSearchSuggestions(keyword, safeSize);
@@ -7,6 +7,7 @@ import com.cloud.search.dto.SearchResultDTO;
 import com.cloud.search.repository.ProductDocumentRepository;
 import com.cloud.search.service.ElasticsearchOptimizedService;
 import com.cloud.search.service.ProductSearchService;
+import com.cloud.search.service.support.HotKeywordAggregator;
 import com.cloud.search.service.support.HotKeywordKeys;
 import com.cloud.search.service.support.SearchHotDataCacheService;
 import com.cloud.search.service.support.SellRankKeys;
@@ -20,11 +21,9 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -50,9 +49,7 @@ public class ProductSearchServiceImpl implements ProductSearchService {
   private final ElasticsearchOptimizedService elasticsearchOptimizedService;
   private final SearchHotDataCacheService searchHotDataCacheService;
   private final ObjectMapper objectMapper;
-
-  @Value("${search.hot-keyword.daily-ttl-days:7}")
-  private long hotKeywordDailyTtlDays;
+  private final HotKeywordAggregator hotKeywordAggregator;
 
   @Override
   @Transactional(readOnly = true)
@@ -80,7 +77,7 @@ public class ProductSearchServiceImpl implements ProductSearchService {
             pageable);
 
     if (StrUtil.isNotBlank(safeRequest.getKeyword())) {
-      recordHotSearch(safeRequest.getKeyword());
+      hotKeywordAggregator.record(safeRequest.getKeyword());
     }
 
     long took = System.currentTimeMillis() - start;
@@ -159,7 +156,7 @@ public class ProductSearchServiceImpl implements ProductSearchService {
     Pageable pageable = PageRequest.of(pageNum, pageSize, Sort.by(Sort.Direction.DESC, "hotScore"));
     if (StrUtil.isNotBlank(keyword)) {
       resultPage = productDocumentRepository.searchByKeyword(keyword, pageable);
-      recordHotSearch(keyword);
+      hotKeywordAggregator.record(keyword);
     } else {
       resultPage = productDocumentRepository.findByStatus(ACTIVE_STATUS, pageable);
     }
@@ -406,7 +403,7 @@ public class ProductSearchServiceImpl implements ProductSearchService {
         productDocumentRepository.combinedSearch(
             keyword, categoryId, brandId, shopId, minPrice, maxPrice, ACTIVE_STATUS, pageable);
     if (StrUtil.isNotBlank(keyword)) {
-      recordHotSearch(keyword);
+      hotKeywordAggregator.record(keyword);
     }
     long took = System.currentTimeMillis() - start;
     return SearchResultDTO.of(
@@ -417,21 +414,6 @@ public class ProductSearchServiceImpl implements ProductSearchService {
         took);
   }
 
-  private void recordHotSearch(String keyword) {
-    if (StrUtil.isBlank(keyword)) {
-      return;
-    }
-    try {
-      String normalized = keyword.trim().toLowerCase();
-      String dailyKey = HotKeywordKeys.todayKey();
-      redisTemplate.opsForZSet().incrementScore(dailyKey, normalized, 1.0D);
-      redisTemplate.expire(dailyKey, Math.max(1, hotKeywordDailyTtlDays), TimeUnit.DAYS);
-      redisTemplate.opsForZSet().incrementScore(HotKeywordKeys.TOTAL_KEY, normalized, 1.0D);
-    } catch (Exception e) {
-      log.warn("Record hot search failed: keyword={}", keyword, e);
-    }
-  }
-
   private int normalizePage(Integer page) {
     return page == null || page < 0 ? 0 : page;
   }
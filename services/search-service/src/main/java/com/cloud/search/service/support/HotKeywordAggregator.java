@@ -0,0 +1,175 @@
+package com.cloud.search.service.support;
+
+import cn.hutool.core.util.StrUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Counts searched keywords in memory and flushes the sums to the hot-keyword sorted sets in one
+ * pipeline per interval, so searches no longer write to Redis themselves. A window holds at most
+ * {@code max-keys} distinct keywords and flushes only its {@code flush-top-k} heaviest; anything
+ * beyond either bound is dropped and counted. {@link HotKeywordSyncService} persists the head of
+ * the total set these flushes feed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HotKeywordAggregator {
+
+  private static final String METRIC_DROPPED = "search.hot-keyword.dropped";
+  private static final String METRIC_FLUSH = "search.hot-keyword.flush";
+  private static final String METRIC_PENDING = "search.hot-keyword.pending";
+
+  private final StringRedisTemplate redisTemplate;
+  private final MeterRegistry meterRegistry;
+
+  private final AtomicReference<ConcurrentHashMap<String, LongAdder>> window =
+      new AtomicReference<>(new ConcurrentHashMap<>());
+
+  @Value("${search.hot-keyword.buffer.max-keys:20000}")
+  private int maxKeys;
+
+  @Value("${search.hot-keyword.buffer.flush-top-k:2000}")
+  private int flushTopK;
+
+  @Value("${search.hot-keyword.buffer.max-keyword-length:64}")
+  private int maxKeywordLength;
+
+  @Value("${search.hot-keyword.daily-ttl-days:7}")
+  private long dailyTtlDays;
+
+  private Counter overflowDropped;
+  private Counter tailDropped;
+  private Counter flushFailedDropped;
+  private Timer flushTimer;
+
+  @PostConstruct
+  public void initMetrics() {
+    overflowDropped =
+        Counter.builder(METRIC_DROPPED)
+            .description("Hot keyword increments dropped before reaching Redis")
+            .tag("reason", "overflow")
+            .register(meterRegistry);
+    tailDropped =
+        Counter.builder(METRIC_DROPPED)
+            .description("Hot keyword increments dropped before reaching Redis")
+            .tag("reason", "tail")
+            .register(meterRegistry);
+    flushFailedDropped =
+        Counter.builder(METRIC_DROPPED)
+            .description("Hot keyword increments dropped before reaching Redis")
+            .tag("reason", "flush-failed")
+            .register(meterRegistry);
+    flushTimer =
+        Timer.builder(METRIC_FLUSH)
+            .description("Hot keyword flush latency")
+            .register(meterRegistry);
+    Gauge.builder(METRIC_PENDING, window, current -> current.get().size())
+        .description("Distinct hot keywords waiting for the next flush")
+        .register(meterRegistry);
+  }
+
+  public void record(String keyword) {
+    if (StrUtil.isBlank(keyword)) {
+      return;
+    }
+    String normalized = keyword.trim().toLowerCase();
+    if (normalized.length() > Math.max(1, maxKeywordLength)) {
+      overflowDropped.increment();
+      return;
+    }
+    ConcurrentHashMap<String, LongAdder> current = window.get();
+    LongAdder counter = current.get(normalized);
+    if (counter == null) {
+      if (current.size() >= Math.max(1, maxKeys)) {
+        overflowDropped.increment();
+        return;
+      }
+      counter = current.computeIfAbsent(normalized, key -> new LongAdder());
+    }
+    counter.increment();
+  }
+
+  @Scheduled(fixedDelayString = "${search.hot-keyword.buffer.flush-interval-ms:2000}")
+  public void flush() {
+    ConcurrentHashMap<String, LongAdder> drained = window.getAndSet(new ConcurrentHashMap<>());
+    if (drained.isEmpty()) {
+      return;
+    }
+    List<Map.Entry<String, Long>> heaviest = topK(drained);
+    if (heaviest.isEmpty()) {
+      return;
+    }
+    String dailyKey = HotKeywordKeys.todayKey();
+    long dailyTtlSeconds = TimeUnit.DAYS.toSeconds(Math.max(1L, dailyTtlDays));
+    long started = System.nanoTime();
+    try {
+      redisTemplate.executePipelined(
+          (RedisCallback<Object>)
+              connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (Map.Entry<String, Long> entry : heaviest) {
+                  stringConnection.zIncrBy(dailyKey, entry.getValue(), entry.getKey());
+                  stringConnection.zIncrBy(
+                      HotKeywordKeys.TOTAL_KEY, entry.getValue(), entry.getKey());
+                }
+                stringConnection.expire(dailyKey, dailyTtlSeconds);
+                return null;
+              });
+    } catch (Exception ex) {
+      // A failed window is not retried: the counts are approximate popularity, not a ledger.
+      long lost = heaviest.stream().mapToLong(Map.Entry::getValue).sum();
+      flushFailedDropped.increment(lost);
+      log.warn("Flush hot keywords failed: keywords={}, increments={}", heaviest.size(), lost, ex);
+    } finally {
+      flushTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  @PreDestroy
+  public void flushOnShutdown() {
+    flush();
+  }
+
+  /** The {@code flush-top-k} heaviest keywords of a window, via a bounded min-heap. */
+  private List<Map.Entry<String, Long>> topK(Map<String, LongAdder> drained) {
+    int limit = Math.max(1, flushTopK);
+    PriorityQueue<Map.Entry<String, Long>> heap =
+        new PriorityQueue<>(Math.min(limit, drained.size()) + 1, Map.Entry.comparingByValue());
+    long dropped = 0L;
+    for (Map.Entry<String, LongAdder> entry : drained.entrySet()) {
+      long count = entry.getValue().sum();
+      if (count <= 0) {
+        continue;
+      }
+      heap.offer(Map.entry(entry.getKey(), count));
+      if (heap.size() > limit) {
+        dropped += heap.poll().getValue();
+      }
+    }
+    if (dropped > 0) {
+      tailDropped.increment(dropped);
+    }
+    return new ArrayList<>(heap);
+  }
+}
@@ -104,6 +104,7 @@ public class HotKeywordSyncService {
       return;
     }
     try {
+      // The top N bounds each run no matter how long the tail the aggregators flushed is.
       int limit = Math.max(1, maxSyncSize);
       Set<ZSetOperations.TypedTuple<String>> tuples =
           redisTemplate
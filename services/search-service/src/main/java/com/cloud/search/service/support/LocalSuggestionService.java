@@ -0,0 +1,198 @@
+package com.cloud.search.service.support;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import com.cloud.search.document.ProductDocument;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHitsIterator;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-process search suggestions. A {@link SuggestionIndex} over on-shelf product, brand and
+ * category names (weighted by sales) and hot keywords (weighted by search count) is rebuilt
+ * periodically; products synced in between land in a small overlay that is merged into answers
+ * until the next rebuild.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LocalSuggestionService {
+
+  private static final int SCAN_PAGE_SIZE = 1000;
+  private static final int STATUS_ON_SHELF = 1;
+
+  private final ElasticsearchOperations elasticsearchOperations;
+  private final StringRedisTemplate redisTemplate;
+
+  private final Map<String, SuggestionIndex.Term> overlay = new ConcurrentHashMap<>();
+  private volatile SuggestionIndex index = SuggestionIndex.empty();
+
+  @Value("${search.suggestion.local.enabled:true}")
+  private boolean enabled;
+
+  @Value("${search.suggestion.local.max-terms:500000}")
+  private int maxTerms;
+
+  @Value("${search.suggestion.local.hot-keyword-size:5000}")
+  private int hotKeywordSize;
+
+  @Value("${search.suggestion.local.hot-keyword-weight:10}")
+  private long hotKeywordWeight;
+
+  @Value("${search.suggestion.local.overlay-max-size:5000}")
+  private int overlayMaxSize;
+
+  /** Up to {@code limit} suggestion texts for {@code prefix}, heaviest first. */
+  public List<String> suggest(String prefix, int limit) {
+    if (!enabled || limit <= 0) {
+      return List.of();
+    }
+    List<SuggestionIndex.Term> terms = index.top(prefix, limit);
+    if (!overlay.isEmpty()) {
+      terms = mergeOverlay(terms, SuggestionIndex.normalize(prefix), limit);
+    }
+    List<String> texts = new ArrayList<>(terms.size());
+    for (SuggestionIndex.Term term : terms) {
+      texts.add(term.text());
+    }
+    return texts;
+  }
+
+  /** Makes freshly synced products suggestible on this node before the next rebuild. */
+  public void addDocuments(List<ProductDocument> documents) {
+    if (!enabled || documents == null) {
+      return;
+    }
+    for (ProductDocument document : documents) {
+      if (document == null || !Objects.equals(document.getStatus(), STATUS_ON_SHELF)) {
+        continue;
+      }
+      long weight = productWeight(document);
+      addOverlay(document.getProductName(), weight);
+      addOverlay(document.getBrandName(), weight);
+      addOverlay(document.getCategoryName(), weight);
+    }
+  }
+
+  @Scheduled(
+      initialDelayString = "${search.suggestion.local.initial-delay-ms:10000}",
+      fixedDelayString = "${search.suggestion.local.rebuild-interval-ms:300000}")
+  public void rebuild() {
+    if (!enabled) {
+      return;
+    }
+    long started = System.nanoTime();
+    Map<String, SuggestionIndex.Term> overlaid = Map.copyOf(overlay);
+    try {
+      SuggestionIndex.Builder builder = new SuggestionIndex.Builder();
+      addProducts(builder);
+      addHotKeywords(builder);
+      SuggestionIndex rebuilt = builder.build(Math.max(0, maxTerms));
+      index = rebuilt;
+      // Entries synced while the scan ran may be missing from it, so only older ones are dropped.
+      overlay.entrySet().removeIf(entry -> overlaid.get(entry.getKey()) == entry.getValue());
+      log.info(
+          "Local suggestion index rebuilt: terms={}, elapsedMs={}",
+          rebuilt.size(),
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    } catch (Exception ex) {
+      log.warn("Rebuild local suggestion index failed, keeping the current one", ex);
+    }
+  }
+
+  private void addProducts(SuggestionIndex.Builder builder) {
+    NativeQuery query =
+        NativeQuery.builder()
+            .withQuery(
+                q -> q.term(term -> term.field("status").value(FieldValue.of(STATUS_ON_SHELF))))
+            .withSourceFilter(
+                new FetchSourceFilter(
+                    true,
+                    new String[] {"productName", "brandName", "categoryName", "salesCount"},
+                    null))
+            .withPageable(PageRequest.of(0, SCAN_PAGE_SIZE))
+            .build();
+    try (SearchHitsIterator<ProductDocument> hits =
+        elasticsearchOperations.searchForStream(
+            query, ProductDocument.class, IndexCoordinates.of(ProductIndexManager.ALIAS))) {
+      while (hits.hasNext()) {
+        ProductDocument document = hits.next().getContent();
+        long weight = productWeight(document);
+        builder.add(document.getProductName(), weight);
+        builder.add(document.getBrandName(), weight);
+        builder.add(document.getCategoryName(), weight);
+      }
+    }
+  }
+
+  private void addHotKeywords(SuggestionIndex.Builder builder) {
+    Set<ZSetOperations.TypedTuple<String>> tuples =
+        redisTemplate
+            .opsForZSet()
+            .reverseRangeWithScores(HotKeywordKeys.TOTAL_KEY, 0, Math.max(1, hotKeywordSize) - 1L);
+    if (tuples == null) {
+      return;
+    }
+    for (ZSetOperations.TypedTuple<String> tuple : tuples) {
+      if (tuple.getValue() != null && tuple.getScore() != null) {
+        builder.add(
+            tuple.getValue(), Math.round(tuple.getScore()) * Math.max(1L, hotKeywordWeight));
+      }
+    }
+  }
+
+  private void addOverlay(String text, long weight) {
+    String key = SuggestionIndex.normalize(text);
+    if (key.isEmpty() || (overlay.size() >= overlayMaxSize && !overlay.containsKey(key))) {
+      return;
+    }
+    overlay.merge(
+        key,
+        new SuggestionIndex.Term(key, text.trim(), weight),
+        (current, added) ->
+            new SuggestionIndex.Term(key, current.text(), Math.max(current.weight(), weight)));
+  }
+
+  private List<SuggestionIndex.Term> mergeOverlay(
+      List<SuggestionIndex.Term> fromIndex, String prefix, int limit) {
+    Map<String, SuggestionIndex.Term> merged = new LinkedHashMap<>();
+    for (SuggestionIndex.Term term : fromIndex) {
+      merged.put(term.key(), term);
+    }
+    for (SuggestionIndex.Term term : overlay.values()) {
+      if (term.key().startsWith(prefix)) {
+        merged.merge(
+            term.key(),
+            term,
+            (current, added) ->
+                new SuggestionIndex.Term(
+                    current.key(), current.text(), Math.max(current.weight(), added.weight())));
+      }
+    }
+    List<SuggestionIndex.Term> terms = new ArrayList<>(merged.values());
+    terms.sort((left, right) -> Long.compare(right.weight(), left.weight()));
+    return terms.size() > limit ? terms.subList(0, limit) : terms;
+  }
+
+  private static long productWeight(ProductDocument document) {
+    Integer salesCount = document.getSalesCount();
+    return 1L + (salesCount == null ? 0L : Math.max(0, salesCount));
+  }
+}
@@ -0,0 +1,249 @@
+package com.cloud.search.service.support;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.HealthStatus;
+import co.elastic.clients.elasticsearch.cluster.HealthResponse;
+import co.elastic.clients.elasticsearch.indices.update_aliases.Action;
+import com.cloud.common.enums.ResultCode;
+import com.cloud.common.exception.SystemException;
+import com.cloud.search.document.ProductDocument;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Owns the {@code product_index} alias. Rebuilds go into a versioned index that the alias is
+ * swapped to atomically; while one is running, incremental writes are mirrored into it so the swap
+ * does not lose changes made during the build.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductIndexManager {
+
+  public static final String ALIAS = "product_index";
+
+  private static final DateTimeFormatter VERSION_FORMAT =
+      DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+  private static final String REBUILD_TARGET_KEY = "search:index:product:rebuild-target";
+  private static final String REBUILD_DELETED_KEY = "search:index:product:rebuild-deleted";
+  private static final String REBUILD_TOUCHED_KEY = "search:index:product:rebuild-touched";
+
+  private final ElasticsearchClient elasticsearchClient;
+  private final ElasticsearchOperations elasticsearchOperations;
+  private final StringRedisTemplate stringRedisTemplate;
+
+  @Value("${search.index.rebuild.replicas:1}")
+  private int replicas;
+
+  @Value("${search.index.rebuild.refresh-interval:1s}")
+  private String refreshInterval;
+
+  @Value("${search.index.rebuild.marker-ttl-seconds:7200}")
+  private long markerTtlSeconds;
+
+  @Value("${search.index.rebuild.delete-previous:true}")
+  private boolean deletePrevious;
+
+  /** Creates an empty versioned index tuned for bulk loading: no replicas, no refresh. */
+  public String createBuildIndex() {
+    String index = ALIAS + "_v" + LocalDateTime.now().format(VERSION_FORMAT);
+    IndexOperations indexOps = elasticsearchOperations.indexOps(IndexCoordinates.of(index));
+    indexOps.create(
+        indexOps.createSettings(ProductDocument.class),
+        indexOps.createMapping(ProductDocument.class));
+    try {
+      elasticsearchClient
+          .indices()
+          .putSettings(
+              request ->
+                  request
+                      .index(index)
+                      .settings(
+                          settings ->
+                              settings
+                                  .numberOfReplicas("0")
+                                  .refreshInterval(interval -> interval.time("-1"))));
+    } catch (IOException ex) {
+      dropIndex(index);
+      throw unavailable("tune build index " + index, ex);
+    }
+    return index;
+  }
+
+  /** Starts mirroring incremental writes into {@code index}. */
+  public void beginRebuild(String index) {
+    stringRedisTemplate.delete(REBUILD_DELETED_KEY);
+    stringRedisTemplate.delete(REBUILD_TOUCHED_KEY);
+    renewRebuild(index);
+  }
+
+  /** Pushes the marker TTL out again; the build calls this while it runs so it never lapses. */
+  public void renewRebuild(String index) {
+    long ttlSeconds = Math.max(60L, markerTtlSeconds);
+    stringRedisTemplate.opsForValue().set(REBUILD_TARGET_KEY, index, ttlSeconds, TimeUnit.SECONDS);
+    stringRedisTemplate.expire(REBUILD_DELETED_KEY, ttlSeconds, TimeUnit.SECONDS);
+    stringRedisTemplate.expire(REBUILD_TOUCHED_KEY, ttlSeconds, TimeUnit.SECONDS);
+  }
+
+  public void endRebuild() {
+    stringRedisTemplate.delete(REBUILD_TARGET_KEY);
+    stringRedisTemplate.delete(REBUILD_DELETED_KEY);
+    stringRedisTemplate.delete(REBUILD_TOUCHED_KEY);
+  }
+
+  /** The index being rebuilt, or null when no rebuild is running. */
+  public String rebuildTarget() {
+    return stringRedisTemplate.opsForValue().get(REBUILD_TARGET_KEY);
+  }
+
+  public void mirrorSave(List<ProductDocument> documents) {
+    String target = rebuildTarget();
+    if (target == null || documents == null || documents.isEmpty()) {
+      return;
+    }
+    try {
+      elasticsearchOperations.save(documents, IndexCoordinates.of(target));
+    } catch (Exception ex) {
+      log.warn("Mirror product documents into rebuild index failed: index={}", target, ex);
+    }
+  }
+
+  /**
+   * Remembers SPUs whose stock changed during the build. A delta mirrored before the bulk load
+   * created the document is lost, so these are re-read and re-indexed before the swap.
+   */
+  public void markTouched(Collection<Long> spuIds) {
+    if (spuIds == null || spuIds.isEmpty()) {
+      return;
+    }
+    stringRedisTemplate
+        .opsForSet()
+        .add(REBUILD_TOUCHED_KEY, spuIds.stream().map(String::valueOf).toArray(String[]::new));
+  }
+
+  /** SPU ids marked by {@link #markTouched} since the build began. */
+  public List<Long> touchedSpuIds() {
+    Set<String> members = stringRedisTemplate.opsForSet().members(REBUILD_TOUCHED_KEY);
+    if (members == null || members.isEmpty()) {
+      return List.of();
+    }
+    return members.stream().map(Long::valueOf).sorted().toList();
+  }
+
+  public void mirrorDelete(List<String> ids) {
+    String target = rebuildTarget();
+    if (target == null || ids == null || ids.isEmpty()) {
+      return;
+    }
+    // Remembered so a document the bulk load read before the delete can be dropped before the swap.
+    stringRedisTemplate.opsForSet().add(REBUILD_DELETED_KEY, ids.toArray(String[]::new));
+    IndexCoordinates coordinates = IndexCoordinates.of(target);
+    for (String id : ids) {
+      try {
+        elasticsearchOperations.delete(id, coordinates);
+      } catch (Exception ex) {
+        log.warn(
+            "Mirror product delete into rebuild index failed: index={}, id={}", target, id, ex);
+      }
+    }
+  }
+
+  /**
+   * Re-applies deletes seen during the build, restores replicas and refresh, waits for the
+   * primaries and points the alias at {@code index} in one atomic alias update.
+   */
+  public void publish(String index) {
+    IndexCoordinates coordinates = IndexCoordinates.of(index);
+    Set<String> deletedIds = stringRedisTemplate.opsForSet().members(REBUILD_DELETED_KEY);
+    if (deletedIds != null) {
+      for (String id : deletedIds) {
+        elasticsearchOperations.delete(id, coordinates);
+      }
+    }
+    try {
+      elasticsearchClient
+          .indices()
+          .putSettings(
+              request ->
+                  request
+                      .index(index)
+                      .settings(
+                          settings ->
+                              settings
+                                  .numberOfReplicas(String.valueOf(Math.max(0, replicas)))
+                                  .refreshInterval(interval -> interval.time(refreshInterval))));
+      elasticsearchClient.indices().refresh(request -> request.index(index));
+      HealthResponse health =
+          elasticsearchClient
+              .cluster()
+              .health(
+                  request ->
+                      request
+                          .index(index)
+                          .waitForStatus(HealthStatus.Yellow)
+                          .timeout(timeout -> timeout.time("60s")));
+      if (health.timedOut()) {
+        throw new SystemException(
+            ResultCode.SYSTEM_BUSY,
+            "product index " + index + " did not reach yellow, status=" + health.status());
+      }
+      swapAlias(index);
+    } catch (IOException ex) {
+      throw unavailable("publish product index " + index, ex);
+    }
+  }
+
+  public void dropIndex(String index) {
+    try {
+      elasticsearchOperations.indexOps(IndexCoordinates.of(index)).delete();
+    } catch (Exception ex) {
+      log.warn("Drop product index failed: index={}", index, ex);
+    }
+  }
+
+  private void swapAlias(String index) throws IOException {
+    List<String> previous = new ArrayList<>();
+    List<Action> actions = new ArrayList<>();
+    if (elasticsearchClient.indices().existsAlias(request -> request.name(ALIAS)).value()) {
+      previous.addAll(
+          elasticsearchClient.indices().getAlias(request -> request.name(ALIAS)).result().keySet());
+      for (String oldIndex : previous) {
+        actions.add(
+            Action.of(action -> action.remove(remove -> remove.index(oldIndex).alias(ALIAS))));
+      }
+    } else if (elasticsearchClient.indices().exists(request -> request.index(ALIAS)).value()) {
+      // First rebuild after upgrading: a concrete index still owns the alias name.
+      actions.add(Action.of(action -> action.removeIndex(remove -> remove.index(ALIAS))));
+    }
+    actions.add(Action.of(action -> action.add(add -> add.index(index).alias(ALIAS))));
+    elasticsearchClient.indices().updateAliases(request -> request.actions(actions));
+    log.info("Product alias swapped: alias={}, index={}, previous={}", ALIAS, index, previous);
+
+    if (deletePrevious) {
+      for (String oldIndex : previous) {
+        if (!oldIndex.equals(index)) {
+          dropIndex(oldIndex);
+        }
+      }
+    }
+  }
+
+  private SystemException unavailable(String action, Exception ex) {
+    return new SystemException(
+        ResultCode.SYSTEM_BUSY, "elasticsearch unavailable when " + action, ex);
+  }
+}
@@ -0,0 +1,308 @@
+package com.cloud.search.service.support;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._helpers.bulk.BulkIngester;
+import co.elastic.clients.elasticsearch._helpers.bulk.BulkListener;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import com.cloud.api.product.ProductDubboApi;
+import com.cloud.common.domain.vo.product.SpuDetailVO;
+import com.cloud.common.enums.ResultCode;
+import com.cloud.common.exception.RemoteException;
+import com.cloud.common.exception.SystemException;
+import com.cloud.search.document.ProductDocument;
+import com.cloud.search.service.ProductDocumentBuildService;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.config.annotation.DubboReference;
+import org.apache.dubbo.rpc.RpcException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.stereotype.Service;
+
+/**
+ * Blue/green rebuild of the product index: SPUs are streamed by id, enriched by parallel workers
+ * and bulk-loaded into a fresh index that {@link ProductIndexManager} then publishes under the
+ * alias. Documents are created rather than indexed, so anything mirrored in by incremental sync
+ * during the build is newer and wins.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductIndexRebuilder {
+
+  private static final int STATUS_ON_SHELF = 1;
+
+  private final ProductIndexManager productIndexManager;
+  private final ProductDocumentBuildService productDocumentBuildService;
+  private final ElasticsearchClient elasticsearchClient;
+  private final ElasticsearchOperations elasticsearchOperations;
+
+  @DubboReference(check = false, timeout = 5000, retries = 0)
+  private ProductDubboApi productDubboApi;
+
+  @Value("${search.index.rebuild.page-size:100}")
+  private int pageSize;
+
+  @Value("${search.index.rebuild.workers:4}")
+  private int workers;
+
+  @Value("${search.index.rebuild.bulk-actions:1000}")
+  private int bulkActions;
+
+  @Value("${search.index.rebuild.bulk-max-bytes:5242880}")
+  private long bulkMaxBytes;
+
+  @Value("${search.index.rebuild.bulk-concurrency:2}")
+  private int bulkConcurrency;
+
+  @Value("${search.index.rebuild.progress-interval-seconds:10}")
+  private long progressIntervalSeconds;
+
+  public Result rebuild(Consumer<String> progressLog) {
+    long started = System.nanoTime();
+    long expected = expectedTotal();
+    String index = productIndexManager.createBuildIndex();
+    productIndexManager.beginRebuild(index);
+
+    IngestListener listener = new IngestListener();
+    BulkIngester<Void> ingester =
+        BulkIngester.of(
+            builder ->
+                builder
+                    .client(elasticsearchClient)
+                    .maxOperations(Math.max(1, bulkActions))
+                    .maxSize(Math.max(1L, bulkMaxBytes))
+                    .maxConcurrentRequests(Math.max(1, bulkConcurrency))
+                    .flushInterval(1, TimeUnit.SECONDS)
+                    .listener(listener));
+    int safeWorkers = Math.max(1, workers);
+    AtomicInteger threadNo = new AtomicInteger();
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            safeWorkers,
+            safeWorkers,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(safeWorkers * 2),
+            task -> {
+              Thread thread =
+                  new Thread(task, "product-index-rebuild-" + threadNo.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+
+    boolean published = false;
+    boolean ingesterClosed = false;
+    try {
+      int safePageSize = Math.max(1, pageSize);
+      long progressIntervalNanos = TimeUnit.SECONDS.toNanos(Math.max(1L, progressIntervalSeconds));
+      long nextProgressAt = started + progressIntervalNanos;
+      List<Future<?>> pending = new ArrayList<>();
+      long afterSpuId = 0L;
+      while (true) {
+        long currentAfter = afterSpuId;
+        List<SpuDetailVO> spus =
+            invokeProductService(
+                "list spu after id",
+                () -> productDubboApi.listSpuAfterId(currentAfter, safePageSize, STATUS_ON_SHELF));
+        if (spus == null || spus.isEmpty()) {
+          break;
+        }
+        pending.add(executor.submit(() -> enrich(index, spus, ingester)));
+        awaitDone(pending, false);
+        afterSpuId = spus.get(spus.size() - 1).getSpuId();
+        if (System.nanoTime() >= nextProgressAt) {
+          productIndexManager.renewRebuild(index);
+          progressLog.accept(progress(listener, expected, started));
+          nextProgressAt = System.nanoTime() + progressIntervalNanos;
+        }
+        if (spus.size() < safePageSize) {
+          break;
+        }
+      }
+      awaitDone(pending, true);
+      ingester.close();
+      ingesterClosed = true;
+      if (listener.failed.get() > 0) {
+        throw new SystemException(
+            "product index rebuild had " + listener.failed.get() + " failed documents: " + index);
+      }
+      reindexTouched(index);
+      productIndexManager.publish(index);
+      published = true;
+      progressLog.accept(progress(listener, expected, started));
+      return new Result(
+          index,
+          listener.indexed.get(),
+          listener.skipped.get(),
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    } finally {
+      executor.shutdownNow();
+      if (!ingesterClosed) {
+        closeQuietly(ingester);
+      }
+      productIndexManager.endRebuild();
+      if (!published) {
+        productIndexManager.dropIndex(index);
+      }
+    }
+  }
+
+  private void enrich(String index, List<SpuDetailVO> spus, BulkIngester<Void> ingester) {
+    for (ProductDocument document : productDocumentBuildService.buildAll(spus)) {
+      if (document == null || document.getId() == null) {
+        continue;
+      }
+      Map<String, Object> source =
+          new LinkedHashMap<>(
+              elasticsearchOperations.getElasticsearchConverter().mapObject(document));
+      ingester.add(
+          operation ->
+              operation.create(
+                  create -> create.index(index).id(document.getId()).document(source)));
+    }
+  }
+
+  /**
+   * Re-reads the SPUs whose stock changed during the build and overwrites their documents, so a
+   * stock delta mirrored before the bulk load created the document is not lost.
+   */
+  private void reindexTouched(String index) {
+    List<Long> spuIds = productIndexManager.touchedSpuIds();
+    if (spuIds.isEmpty()) {
+      return;
+    }
+    IndexCoordinates coordinates = IndexCoordinates.of(index);
+    int safePageSize = Math.max(1, pageSize);
+    for (int from = 0; from < spuIds.size(); from += safePageSize) {
+      List<Long> batch = spuIds.subList(from, Math.min(spuIds.size(), from + safePageSize));
+      List<SpuDetailVO> spus =
+          invokeProductService("list spu by ids", () -> productDubboApi.listSpuByIds(batch));
+      List<ProductDocument> documents = productDocumentBuildService.buildAll(spus);
+      if (!documents.isEmpty()) {
+        elasticsearchOperations.save(documents, coordinates);
+      }
+    }
+    log.info(
+        "Product index rebuild re-indexed touched spus: index={}, count={}", index, spuIds.size());
+  }
+
+  private void awaitDone(List<Future<?>> pending, boolean all) {
+    Iterator<Future<?>> iterator = pending.iterator();
+    while (iterator.hasNext()) {
+      Future<?> future = iterator.next();
+      if (!all && !future.isDone()) {
+        continue;
+      }
+      try {
+        future.get();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new SystemException("product index rebuild interrupted", ex);
+      } catch (ExecutionException ex) {
+        Throwable cause = ex.getCause();
+        if (cause instanceof RuntimeException runtimeException) {
+          throw runtimeException;
+        }
+        throw new SystemException("product index enrichment failed", cause);
+      }
+      iterator.remove();
+    }
+  }
+
+  private long expectedTotal() {
+    try {
+      Long count = productDubboApi.countSpu(STATUS_ON_SHELF);
+      return count == null ? 0L : count;
+    } catch (RpcException ex) {
+      log.warn("Count spu for product index rebuild failed, progress has no estimate", ex);
+      return 0L;
+    }
+  }
+
+  private String progress(IngestListener listener, long expected, long started) {
+    long done = listener.indexed.get() + listener.skipped.get();
+    double elapsedSeconds = Math.max(1e-3, (System.nanoTime() - started) / 1e9);
+    double docsPerSecond = done / elapsedSeconds;
+    String eta =
+        expected <= 0 || docsPerSecond <= 0
+            ? "unknown"
+            : String.valueOf(Math.round(Math.max(0L, expected - done) / docsPerSecond));
+    return String.format(
+        "productIndexRebuild progress: done=%d/%d, failed=%d, docsPerSecond=%.1f, etaSeconds=%s",
+        done, expected, listener.failed.get(), docsPerSecond, eta);
+  }
+
+  private void closeQuietly(BulkIngester<Void> ingester) {
+    try {
+      ingester.close();
+    } catch (Exception ex) {
+      log.warn("Close product index bulk ingester failed", ex);
+    }
+  }
+
+  private <T> T invokeProductService(String action, Supplier<T> supplier) {
+    try {
+      return supplier.get();
+    } catch (RpcException ex) {
+      throw new RemoteException(
+          ResultCode.REMOTE_SERVICE_UNAVAILABLE, "product-service unavailable when " + action, ex);
+    }
+  }
+
+  public record Result(String index, long indexed, long skipped, long elapsedMillis) {}
+
+  private static final class IngestListener implements BulkListener<Void> {
+
+    private final AtomicLong indexed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    @Override
+    public void beforeBulk(long executionId, BulkRequest request, List<Void> contexts) {}
+
+    @Override
+    public void afterBulk(
+        long executionId, BulkRequest request, List<Void> contexts, BulkResponse response) {
+      for (BulkResponseItem item : response.items()) {
+        if (item.error() == null) {
+          indexed.incrementAndGet();
+        } else if (item.status() == 409) {
+          // Already written by incremental sync during the build, which is newer.
+          skipped.incrementAndGet();
+        } else {
+          failed.incrementAndGet();
+          log.warn(
+              "Product index rebuild document failed: id={}, reason={}",
+              item.id(),
+              item.error().reason());
+        }
+      }
+    }
+
+    @Override
+    public void afterBulk(
+        long executionId, BulkRequest request, List<Void> contexts, Throwable failure) {
+      failed.addAndGet(request.operations().size());
+      log.warn("Product index rebuild bulk request failed: executionId={}", executionId, failure);
+    }
+  }
+}
@@ -0,0 +1,215 @@
+package com.cloud.search.service.support;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.json.JsonData;
+import com.cloud.api.product.ProductDubboApi;
+import com.cloud.common.enums.ResultCode;
+import com.cloud.common.exception.SystemException;
+import com.cloud.common.messaging.event.StockChangedEvent;
+import com.cloud.search.document.ProductDocument;
+import com.cloud.search.service.ProductDocumentBuildService;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.dubbo.config.annotation.DubboReference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductStockUpdateService {
+
+  private static final String STOCK_UPDATE_SCRIPT =
+      """
+      int stock = ctx._source.stockQuantity == null ? 0 : ctx._source.stockQuantity;
+      int sales = ctx._source.salesCount == null ? 0 : ctx._source.salesCount;
+      ctx._source.stockQuantity = Math.max(0, stock + params.stockDelta);
+      ctx._source.salesCount = Math.max(0, sales + params.salesDelta);
+      """;
+
+  private final ElasticsearchClient elasticsearchClient;
+  private final MeterRegistry meterRegistry;
+  private final ProductIndexManager productIndexManager;
+  private final ProductDocumentBuildService productDocumentBuildService;
+
+  @DubboReference(check = false, timeout = 5000, retries = 0)
+  private ProductDubboApi productDubboApi;
+
+  @Value("${search.stock-sync.max-attempts:3}")
+  private int maxAttempts;
+
+  /**
+   * Applies the deltas as scripted partial updates. Items that fail for any reason other than a
+   * missing document were not applied, so they alone are retried; whatever still fails is re-read
+   * from the stock ledger and written as absolute values. Only when that also fails is the message
+   * redelivered, since replaying it re-applies the deltas that already succeeded.
+   */
+  public int applyStockChanges(List<StockChangedEvent.Item> items) {
+    List<StockChangedEvent.Item> safeItems =
+        items == null
+            ? List.of()
+            : items.stream().filter(item -> item != null && item.getSpuId() != null).toList();
+    if (safeItems.isEmpty()) {
+      return 0;
+    }
+
+    int updated = 0;
+    List<StockChangedEvent.Item> pending = safeItems;
+    int attempts = Math.max(1, maxAttempts);
+    for (int attempt = 1; attempt <= attempts && !pending.isEmpty(); attempt++) {
+      BulkResponse response;
+      try {
+        response = elasticsearchClient.bulk(buildRequest(ProductIndexManager.ALIAS, pending));
+      } catch (IOException ex) {
+        if (attempt == 1) {
+          throw new SystemException(
+              ResultCode.SYSTEM_BUSY, "elasticsearch unavailable when applying stock changes", ex);
+        }
+        log.warn("Retry partial stock update failed: spus={}", pending.size(), ex);
+        continue;
+      }
+      Map<String, StockChangedEvent.Item> itemsById = new LinkedHashMap<>();
+      pending.forEach(item -> itemsById.put(String.valueOf(item.getSpuId()), item));
+      List<StockChangedEvent.Item> failed = new ArrayList<>();
+      int missing = 0;
+      for (BulkResponseItem item : response.items()) {
+        if (item.error() == null) {
+          updated++;
+        } else if (item.status() == 404) {
+          missing++;
+        } else if (itemsById.containsKey(item.id())) {
+          log.warn(
+              "Partial stock update failed: spuId={}, attempt={}/{}, reason={}",
+              item.id(),
+              attempt,
+              attempts,
+              item.error().reason());
+          failed.add(itemsById.get(item.id()));
+        }
+      }
+      if (missing > 0) {
+        meterRegistry
+            .counter("search.product.stock.update", "result", "missing")
+            .increment(missing);
+      }
+      pending = failed;
+    }
+    mirrorStockChanges(safeItems);
+    if (updated > 0) {
+      meterRegistry.counter("search.product.stock.update", "result", "success").increment(updated);
+    }
+    if (!pending.isEmpty()) {
+      updated += resyncFromLedger(pending);
+    }
+    return updated;
+  }
+
+  /**
+   * Overwrites stock and sales of the given SPUs with values rebuilt from the ledger and order
+   * stats. Throws when the documents cannot be written so the message is redelivered.
+   */
+  private int resyncFromLedger(List<StockChangedEvent.Item> items) {
+    List<Long> spuIds = items.stream().map(StockChangedEvent.Item::getSpuId).toList();
+    List<ProductDocument> documents;
+    BulkResponse response;
+    try {
+      documents = productDocumentBuildService.buildAll(productDubboApi.listSpuByIds(spuIds));
+      if (documents.isEmpty()) {
+        meterRegistry
+            .counter("search.product.stock.update", "result", "missing")
+            .increment(spuIds.size());
+        return 0;
+      }
+      BulkRequest.Builder request = new BulkRequest.Builder().index(ProductIndexManager.ALIAS);
+      for (ProductDocument document : documents) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("stockQuantity", document.getStockQuantity());
+        fields.put("salesCount", document.getSalesCount());
+        request.operations(
+            op ->
+                op.update(
+                    update ->
+                        update
+                            .id(document.getId())
+                            .retryOnConflict(3)
+                            .action(action -> action.doc(fields))));
+      }
+      response = elasticsearchClient.bulk(request.build());
+    } catch (Exception ex) {
+      meterRegistry
+          .counter("search.product.stock.update", "result", "failed")
+          .increment(spuIds.size());
+      throw new SystemException(
+          ResultCode.SYSTEM_BUSY, "resync stock from ledger failed: spuIds=" + spuIds, ex);
+    }
+    long failed =
+        response.items().stream()
+            .filter(item -> item.error() != null && item.status() != 404)
+            .count();
+    if (failed > 0) {
+      meterRegistry.counter("search.product.stock.update", "result", "failed").increment(failed);
+      throw new SystemException(
+          ResultCode.SYSTEM_BUSY,
+          "resync stock from ledger had " + failed + " failed documents: spuIds=" + spuIds);
+    }
+    int resynced = (int) response.items().stream().filter(item -> item.error() == null).count();
+    meterRegistry.counter("search.product.stock.update", "result", "resynced").increment(resynced);
+    log.warn("Stock changes re-synced from ledger after failed updates: spuIds={}", spuIds);
+    return resynced;
+  }
+
+  private void mirrorStockChanges(List<StockChangedEvent.Item> items) {
+    String target = productIndexManager.rebuildTarget();
+    if (target == null) {
+      return;
+    }
+    // A document the bulk load has not created yet answers 404; the SPU is re-indexed before the
+    // swap instead, since the load may have read its stock before this change.
+    try {
+      productIndexManager.markTouched(
+          items.stream().map(StockChangedEvent.Item::getSpuId).toList());
+      elasticsearchClient.bulk(buildRequest(target, items));
+    } catch (Exception ex) {
+      log.warn("Mirror stock changes into rebuild index failed: index={}", target, ex);
+    }
+  }
+
+  private BulkRequest buildRequest(String index, List<StockChangedEvent.Item> items) {
+    BulkRequest.Builder request = new BulkRequest.Builder().index(index);
+    for (StockChangedEvent.Item item : items) {
+      Map<String, JsonData> params =
+          Map.of(
+              "stockDelta", JsonData.of(defaultZero(item.getStockDelta())),
+              "salesDelta", JsonData.of(defaultZero(item.getSalesDelta())));
+      request.operations(
+          op ->
+              op.update(
+                  update ->
+                      update
+                          .id(String.valueOf(item.getSpuId()))
+                          .retryOnConflict(3)
+                          .action(
+                              action ->
+                                  action.script(
+                                      script ->
+                                          script
+                                              .source(STOCK_UPDATE_SCRIPT)
+                                              .lang("painless")
+                                              .params(params)))));
+    }
+    return request.build();
+  }
+
+  private int defaultZero(Integer value) {
+    return value == null ? 0 : value;
+  }
+}
@@ -0,0 +1,227 @@
+package com.cloud.search.service.support;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import com.cloud.common.enums.ResultCode;
+import com.cloud.common.exception.BizException;
+import com.cloud.common.exception.SystemException;
+import com.cloud.search.dto.ProductSearchRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Search sessions backed by Elasticsearch points in time. A session (its PIT id, the original
+ * request and the first page's total) lives in Redis so any node can serve its pages; the cursor
+ * handed to clients carries only the session id and the {@code search_after} position. Each node
+ * caps the PITs it has opened, and each client's share of them, and closes them once their session
+ * is finished or has expired.
+ */
+@Slf4j
+@Service
+public class SearchSessionStore {
+
+  private static final String KEY_PREFIX = "search:session:";
+
+  private final StringRedisTemplate redisTemplate;
+  private final ObjectMapper objectMapper;
+  private final ElasticsearchClient elasticsearchClient;
+  private final Semaphore permits;
+  private final int maxOpenPerClient;
+  private final Map<String, Integer> openByClient = new ConcurrentHashMap<>();
+  private final Map<String, Opened> openedHere = new ConcurrentHashMap<>();
+
+  @Value("${search.session.ttl-seconds:300}")
+  private long ttlSeconds;
+
+  public SearchSessionStore(
+      StringRedisTemplate redisTemplate,
+      ObjectMapper objectMapper,
+      ElasticsearchClient elasticsearchClient,
+      @Value("${search.session.max-open-per-node:200}") int maxOpenPerNode,
+      @Value("${search.session.max-open-per-client:5}") int maxOpenPerClient) {
+    this.redisTemplate = redisTemplate;
+    this.objectMapper = objectMapper;
+    this.elasticsearchClient = elasticsearchClient;
+    this.permits = new Semaphore(Math.max(1, maxOpenPerNode));
+    this.maxOpenPerClient = Math.max(1, maxOpenPerClient);
+  }
+
+  /** Keep-alive to request for the PIT on every search, matching the session TTL. */
+  public String keepAlive() {
+    return safeTtlSeconds() + "s";
+  }
+
+  /**
+   * Reserves a PIT slot on this node for {@code clientKey}, within both the node cap and the
+   * client's share of it; pair with {@link #save} or {@link #release}.
+   */
+  public void reserve(String clientKey) {
+    boolean[] admitted = {false};
+    openByClient.compute(
+        clientKey,
+        (key, open) -> {
+          int current = open == null ? 0 : open;
+          if (current >= maxOpenPerClient) {
+            return open;
+          }
+          admitted[0] = true;
+          return current + 1;
+        });
+    if (!admitted[0]) {
+      throw new BizException(ResultCode.RATE_LIMITED, "too many open search sessions for client");
+    }
+    if (!permits.tryAcquire()) {
+      releaseClient(clientKey);
+      throw new BizException(ResultCode.RATE_LIMITED, "too many open search sessions");
+    }
+  }
+
+  public void release(String clientKey) {
+    permits.release();
+    releaseClient(clientKey);
+  }
+
+  /** Gives up a PIT that never became a session, freeing its reserved slot. */
+  public void abandon(String pitId, String clientKey) {
+    closePit(pitId);
+    release(clientKey);
+  }
+
+  /** Stores a session opened on this node, taking over the slot reserved for it. */
+  public Session save(String pitId, ProductSearchRequest request, long total, String clientKey) {
+    Session session = new Session(UUID.randomUUID().toString(), pitId, request, total);
+    write(session);
+    openedHere.put(session.id(), new Opened(pitId, clientKey));
+    return session;
+  }
+
+  /** Refreshes the session's PIT id (Elasticsearch may hand out a new one) and its TTL. */
+  public void touch(Session session, String pitId) {
+    Session updated =
+        pitId == null || pitId.equals(session.pitId())
+            ? session
+            : new Session(session.id(), pitId, session.request(), session.total());
+    write(updated);
+    openedHere.computeIfPresent(
+        session.id(), (id, opened) -> new Opened(updated.pitId(), opened.clientKey()));
+  }
+
+  /** The live session, or a {@link BizException} when it has expired or been closed. */
+  public Session load(String sessionId) {
+    String json = redisTemplate.opsForValue().get(KEY_PREFIX + sessionId);
+    if (json == null) {
+      throw new BizException(ResultCode.RESOURCE_NOT_FOUND, "search session expired");
+    }
+    try {
+      return objectMapper.readValue(json, Session.class);
+    } catch (Exception ex) {
+      throw new BizException(ResultCode.INVALID_PARAMETER, "invalid search session", ex);
+    }
+  }
+
+  /** Ends a session: the PIT is closed right away, wherever it was opened. */
+  public void close(Session session) {
+    redisTemplate.delete(KEY_PREFIX + session.id());
+    closePit(session.pitId());
+    Opened opened = openedHere.remove(session.id());
+    if (opened != null) {
+      release(opened.clientKey());
+    }
+  }
+
+  public String encodeCursor(String sessionId, List<Object> searchAfter) {
+    try {
+      byte[] json = objectMapper.writeValueAsBytes(new Cursor(sessionId, searchAfter));
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+    } catch (Exception ex) {
+      throw new SystemException("encode search cursor failed", ex);
+    }
+  }
+
+  public Cursor decodeCursor(String cursor) {
+    try {
+      byte[] json = Base64.getUrlDecoder().decode(cursor.trim());
+      Cursor decoded = objectMapper.readValue(json, Cursor.class);
+      if (decoded.sessionId() == null || decoded.searchAfter() == null) {
+        throw new IllegalArgumentException("incomplete cursor");
+      }
+      return decoded;
+    } catch (Exception ex) {
+      throw new BizException(ResultCode.INVALID_PARAMETER, "invalid search cursor", ex);
+    }
+  }
+
+  /**
+   * Releases slots of sessions opened here whose Redis entry is gone: expired, or closed by another
+   * node.
+   */
+  @Scheduled(fixedDelayString = "${search.session.sweep-interval-ms:30000}")
+  public void sweepExpired() {
+    for (Map.Entry<String, Opened> entry : openedHere.entrySet()) {
+      if (Boolean.TRUE.equals(redisTemplate.hasKey(KEY_PREFIX + entry.getKey()))) {
+        continue;
+      }
+      if (openedHere.remove(entry.getKey(), entry.getValue())) {
+        closePit(entry.getValue().pitId());
+        release(entry.getValue().clientKey());
+      }
+    }
+  }
+
+  @PreDestroy
+  public void closeOpenedHere() {
+    for (Map.Entry<String, Opened> entry : openedHere.entrySet()) {
+      redisTemplate.delete(KEY_PREFIX + entry.getKey());
+      closePit(entry.getValue().pitId());
+    }
+    openedHere.clear();
+  }
+
+  private void releaseClient(String clientKey) {
+    openByClient.computeIfPresent(clientKey, (key, open) -> open <= 1 ? null : open - 1);
+  }
+
+  private void write(Session session) {
+    try {
+      redisTemplate
+          .opsForValue()
+          .set(
+              KEY_PREFIX + session.id(),
+              objectMapper.writeValueAsString(session),
+              safeTtlSeconds(),
+              TimeUnit.SECONDS);
+    } catch (Exception ex) {
+      throw new SystemException(ResultCode.SYSTEM_BUSY, "store search session failed", ex);
+    }
+  }
+
+  private void closePit(String pitId) {
+    try {
+      elasticsearchClient.closePointInTime(request -> request.id(pitId));
+    } catch (Exception ex) {
+      // An expired PIT is already gone; anything else is reclaimed by its keep-alive.
+      log.debug("Close point in time failed: pitId={}", pitId, ex);
+    }
+  }
+
+  private long safeTtlSeconds() {
+    return Math.max(30L, ttlSeconds);
+  }
+
+  public record Session(String id, String pitId, ProductSearchRequest request, long total) {}
+
+  public record Cursor(String sessionId, List<Object> searchAfter) {}
+
+  private record Opened(String pitId, String clientKey) {}
+}
@@ -0,0 +1,176 @@
+package com.cloud.search.service.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Immutable prefix index over suggestion terms. Terms live in parallel arrays sorted by their
+ * lower-cased key, so a prefix is one contiguous range found by binary search; a max segment tree
+ * over the weights then yields the heaviest {@code limit} terms of that range best-first, without
+ * scanning it.
+ */
+public final class SuggestionIndex {
+
+  private static final SuggestionIndex EMPTY = new Builder().build(0);
+
+  private final String[] keys;
+  private final String[] texts;
+  private final long[] weights;
+  private final int leafOffset;
+  private final int[] tree;
+
+  private SuggestionIndex(String[] keys, String[] texts, long[] weights) {
+    this.keys = keys;
+    this.texts = texts;
+    this.weights = weights;
+    int leaves = 1;
+    while (leaves < keys.length) {
+      leaves <<= 1;
+    }
+    this.leafOffset = leaves;
+    this.tree = new int[leaves * 2];
+    Arrays.fill(tree, -1);
+    for (int i = 0; i < keys.length; i++) {
+      tree[leaves + i] = i;
+    }
+    for (int node = leaves - 1; node >= 1; node--) {
+      tree[node] = heavier(tree[node * 2], tree[node * 2 + 1]);
+    }
+  }
+
+  public static SuggestionIndex empty() {
+    return EMPTY;
+  }
+
+  public static String normalize(String text) {
+    return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+  }
+
+  public int size() {
+    return keys.length;
+  }
+
+  /** The heaviest terms starting with {@code prefix}, heaviest first and equal weights by key. */
+  public List<Term> top(String prefix, int limit) {
+    String key = normalize(prefix);
+    if (key.isEmpty() || limit <= 0 || keys.length == 0) {
+      return List.of();
+    }
+    int from = lowerBound(key);
+    int to = lowerBound(key + Character.MAX_VALUE);
+    if (from >= to) {
+      return List.of();
+    }
+    // A node's term is the first heaviest of its subtree, so breaking ties on the term index keeps
+    // equal weights in key order.
+    PriorityQueue<Integer> frontier =
+        new PriorityQueue<>(
+            (left, right) -> {
+              int byWeight = Long.compare(nodeWeight(right), nodeWeight(left));
+              return byWeight != 0 ? byWeight : Integer.compare(tree[left], tree[right]);
+            });
+    for (int left = from + leafOffset, right = to + leafOffset; left < right; ) {
+      if ((left & 1) == 1) {
+        frontier.add(left++);
+      }
+      if ((right & 1) == 1) {
+        frontier.add(--right);
+      }
+      left >>= 1;
+      right >>= 1;
+    }
+    List<Term> result = new ArrayList<>(Math.min(limit, to - from));
+    while (!frontier.isEmpty() && result.size() < limit) {
+      int node = frontier.poll();
+      if (node >= leafOffset) {
+        int index = tree[node];
+        result.add(new Term(keys[index], texts[index], weights[index]));
+        continue;
+      }
+      if (tree[node * 2] >= 0) {
+        frontier.add(node * 2);
+      }
+      if (tree[node * 2 + 1] >= 0) {
+        frontier.add(node * 2 + 1);
+      }
+    }
+    return result;
+  }
+
+  private long nodeWeight(int node) {
+    return weights[tree[node]];
+  }
+
+  private int heavier(int left, int right) {
+    if (left < 0) {
+      return right;
+    }
+    if (right < 0) {
+      return left;
+    }
+    return weights[right] > weights[left] ? right : left;
+  }
+
+  private int lowerBound(String key) {
+    int low = 0;
+    int high = keys.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (keys[mid].compareTo(key) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  public record Term(String key, String text, long weight) {}
+
+  /** Collects terms; the same key added twice keeps its first text and sums the weights. */
+  public static final class Builder {
+
+    private final Map<String, Term> terms = new HashMap<>();
+
+    public Builder add(String text, long weight) {
+      String key = normalize(text);
+      if (key.isEmpty() || weight <= 0) {
+        return this;
+      }
+      terms.merge(
+          key,
+          new Term(key, text.trim(), weight),
+          (current, added) -> new Term(key, current.text(), current.weight() + added.weight()));
+      return this;
+    }
+
+    public int size() {
+      return terms.size();
+    }
+
+    /** Builds the index from at most {@code maxTerms} of the heaviest terms; 0 means no cap. */
+    public SuggestionIndex build(int maxTerms) {
+      List<Term> selected = new ArrayList<>(terms.values());
+      if (maxTerms > 0 && selected.size() > maxTerms) {
+        selected.sort((left, right) -> Long.compare(right.weight(), left.weight()));
+        selected = selected.subList(0, maxTerms);
+      }
+      selected.sort((left, right) -> left.key().compareTo(right.key()));
+      String[] keys = new String[selected.size()];
+      String[] texts = new String[selected.size()];
+      long[] weights = new long[selected.size()];
+      for (int i = 0; i < selected.size(); i++) {
+        Term term = selected.get(i);
+        keys[i] = term.key();
+        texts[i] = term.text();
+        weights[i] = term.weight();
+      }
+      return new SuggestionIndex(keys, texts, weights);
+    }
+  }
+}
@@ -9,7 +9,9 @@ import com.cloud.search.service.support.SearchHotDataCacheService;
 import com.cloud.search.service.support.SellRankKeys;
 import com.xxl.job.core.context.XxlJobHelper;
 import com.xxl.job.core.handler.annotation.XxlJob;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
@@ -18,6 +20,7 @@ import org.apache.dubbo.config.annotation.DubboReference;
 import org.apache.dubbo.rpc.RpcException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.stereotype.Component;
 
 @Slf4j
@@ -25,6 +28,8 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class SellRankRefreshXxlJob {
 
+  private static final String STAGING_KEY = SellRankKeys.TODAY_KEY + ":staging";
+
   private final StringRedisTemplate redisTemplate;
   private final SearchHotDataCacheService searchHotDataCacheService;
 
@@ -34,6 +39,9 @@ public class SellRankRefreshXxlJob {
   @Value("${search.sell-rank.ttl-days:2}")
   private int ttlDays;
 
+  @Value("${search.sell-rank.window-days:1}")
+  private int windowDays;
+
   @DubboReference(check = false, timeout = 5000, retries = 0)
   private OrderDubboApi orderDubboApi;
 
@@ -46,9 +54,11 @@ public class SellRankRefreshXxlJob {
   public void refreshSellRank() {
     int safeLimit = limit <= 0 ? 200 : limit;
     int safeTtlDays = ttlDays <= 0 ? 2 : ttlDays;
+    int safeWindowDays = windowDays <= 0 ? 1 : windowDays;
     List<ProductSellStatDTO> stats =
         invokeOrderService(
-            "stat sell count today", () -> orderDubboApi.statSellCountToday(safeLimit));
+            "stat sell count",
+            () -> orderDubboApi.statSellCountInWindow(safeWindowDays, safeLimit));
     if (stats == null || stats.isEmpty()) {
       redisTemplate.delete(SellRankKeys.TODAY_KEY);
       searchHotDataCacheService.evictTodayHotProductIds();
@@ -56,19 +66,24 @@ public class SellRankRefreshXxlJob {
       return;
     }
 
-    redisTemplate.delete(SellRankKeys.TODAY_KEY);
+    Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>();
     for (ProductSellStatDTO stat : stats) {
       if (stat == null || stat.getProductId() == null || stat.getSellCount() == null) {
         continue;
       }
-      redisTemplate
-          .opsForZSet()
-          .add(
-              SellRankKeys.TODAY_KEY,
-              String.valueOf(stat.getProductId()),
-              stat.getSellCount().doubleValue());
+      tuples.add(
+          ZSetOperations.TypedTuple.of(
+              String.valueOf(stat.getProductId()), stat.getSellCount().doubleValue()));
+    }
+    if (tuples.isEmpty()) {
+      redisTemplate.delete(SellRankKeys.TODAY_KEY);
+    } else {
+      // Built aside and renamed in, so readers never see a half-filled rank.
+      redisTemplate.delete(STAGING_KEY);
+      redisTemplate.opsForZSet().add(STAGING_KEY, tuples);
+      redisTemplate.rename(STAGING_KEY, SellRankKeys.TODAY_KEY);
+      redisTemplate.expire(SellRankKeys.TODAY_KEY, safeTtlDays, TimeUnit.DAYS);
     }
-    redisTemplate.expire(SellRankKeys.TODAY_KEY, safeTtlDays, TimeUnit.DAYS);
     searchHotDataCacheService.evictTodayHotProductIds();
     String message = "sellRankRefreshJob finished, size=" + stats.size();
     XxlJobHelper.log(message);
@@ -0,0 +1,160 @@
+package com.cloud.search.benchmark;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import com.cloud.search.service.support.SuggestionIndex;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Suggestion lookups: the local prefix index versus a linear scan over the same terms and the
+ * Elasticsearch bool_prefix query it replaces. The Elasticsearch case needs a populated {@code
+ * product_index} at {@code -Des.url} and only runs when that property is set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SuggestionIndexBenchmark {
+
+  private static final String[] BRANDS = {
+    "Apple", "Huawei", "Xiaomi", "Lenovo", "Sony", "Nike", "Adidas", "Haier", "Midea", "Dell"
+  };
+  private static final String[] NOUNS = {
+    "phone", "laptop", "tablet", "headphones", "watch", "shoes", "jacket", "monitor", "fridge"
+  };
+  private static final int LIMIT = 10;
+
+  @Param({"100000"})
+  private int terms;
+
+  private SuggestionIndex index;
+  private List<SuggestionIndex.Term> scanTerms;
+  private String[] prefixes;
+  private RestClient restClient;
+  private ElasticsearchClient elasticsearchClient;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Random random = new Random(42);
+    SuggestionIndex.Builder builder = new SuggestionIndex.Builder();
+    scanTerms = new ArrayList<>(terms);
+    for (int i = 0; i < terms; i++) {
+      String name =
+          BRANDS[random.nextInt(BRANDS.length)]
+              + " "
+              + NOUNS[random.nextInt(NOUNS.length)]
+              + " "
+              + Integer.toString(i, 36);
+      long weight = 1L + random.nextInt(10_000);
+      builder.add(name, weight);
+      scanTerms.add(new SuggestionIndex.Term(SuggestionIndex.normalize(name), name, weight));
+    }
+    index = builder.build(0);
+    prefixes = new String[] {"a", "ap", "hua", "xiaomi p", "sony hea", "dell monitor 1"};
+
+    String esUrl = System.getProperty("es.url");
+    if (esUrl != null) {
+      restClient = RestClient.builder(HttpHost.create(esUrl)).build();
+      elasticsearchClient =
+          new ElasticsearchClient(new RestClientTransport(restClient, new JacksonJsonpMapper()));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    if (restClient != null) {
+      restClient.close();
+    }
+  }
+
+  @Benchmark
+  public List<SuggestionIndex.Term> localIndex() {
+    return index.top(nextPrefix(), LIMIT);
+  }
+
+  @Benchmark
+  public List<SuggestionIndex.Term> linearScan() {
+    String prefix = nextPrefix();
+    return scanTerms.stream()
+        .filter(term -> term.key().startsWith(prefix))
+        .sorted(Comparator.comparingLong(SuggestionIndex.Term::weight).reversed())
+        .limit(LIMIT)
+        .toList();
+  }
+
+  @Benchmark
+  @SuppressWarnings("rawtypes")
+  public SearchResponse<Map> elasticsearch() throws IOException {
+    String prefix = nextPrefix();
+    return elasticsearchClient.search(
+        request ->
+            request
+                .index("product_index")
+                .size(LIMIT * 2)
+                .query(
+                    query ->
+                        query.multiMatch(
+                            match ->
+                                match
+                                    .query(prefix)
+                                    .fields(
+                                        "productName^3",
+                                        "productName.pinyin^2",
+                                        "categoryName",
+                                        "brandName")
+                                    .type(TextQueryType.BoolPrefix)
+                                    .fuzziness("AUTO")))
+                .source(
+                    source ->
+                        source.filter(
+                            filter -> filter.includes("productName", "categoryName", "brandName"))),
+        Map.class);
+  }
+
+  private String nextPrefix() {
+    return prefixes[ThreadLocalRandom.current().nextInt(prefixes.length)];
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    String esUrl = System.getProperty("es.url");
+    OptionsBuilder options = new OptionsBuilder();
+    if (esUrl == null) {
+      options.include(SuggestionIndexBenchmark.class.getSimpleName() + ".(localIndex|linearScan)");
+    } else {
+      options
+          .include(SuggestionIndexBenchmark.class.getSimpleName())
+          .jvmArgsAppend("-Des.url=" + esUrl);
+    }
+    new Runner(options.build()).run();
+  }
+}
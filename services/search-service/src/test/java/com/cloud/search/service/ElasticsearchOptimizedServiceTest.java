@@ -0,0 +1,183 @@
+package com.cloud.search.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import com.cloud.search.service.support.HotKeywordAggregator;
+import com.cloud.search.service.support.LocalSuggestionService;
+import com.cloud.search.service.support.SearchSessionStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class ElasticsearchOptimizedServiceTest {
+
+  private static final long NOW_MS = 1_800_000_000_000L;
+
+  @Mock private ElasticsearchClient elasticsearchClient;
+  @Mock private StringRedisTemplate redisTemplate;
+  @Mock private ValueOperations<String, String> valueOperations;
+  @Mock private HotKeywordAggregator hotKeywordAggregator;
+  @Mock private LocalSuggestionService localSuggestionService;
+  @Mock private SearchSessionStore searchSessionStore;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final AtomicLong tickerNanos = new AtomicLong();
+  private SimpleMeterRegistry meterRegistry;
+  private ElasticsearchOptimizedService service;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    service =
+        new ElasticsearchOptimizedService(
+            elasticsearchClient,
+            redisTemplate,
+            objectMapper,
+            meterRegistry,
+            hotKeywordAggregator,
+            localSuggestionService,
+            searchSessionStore);
+    ReflectionTestUtils.setField(service, "smartSearchL1MaxSize", 100L);
+    ReflectionTestUtils.setField(service, "smartSearchL1TtlSeconds", 10L);
+    ReflectionTestUtils.setField(service, "smartSearchL1RefreshAfterSeconds", 7L);
+    ReflectionTestUtils.setField(service, "smartSearchL1RefreshThreads", 1);
+    ReflectionTestUtils.setField(service, "smartSearchL1RefreshQueueSize", 8);
+    ReflectionTestUtils.setField(service, "smartSearchL2TtlSeconds", 120L);
+    ReflectionTestUtils.setField(service, "smartSearchL2EarlyExpireBeta", 1.0);
+    ReflectionTestUtils.setField(service, "defaultSearchSize", 20);
+    ReflectionTestUtils.setField(service, "maxSearchSize", 100);
+    ReflectionTestUtils.setField(service, "maxSearchFrom", 10000);
+    ReflectionTestUtils.setField(
+        service, "clock", Clock.fixed(Instant.ofEpochMilli(NOW_MS), ZoneOffset.UTC));
+    ReflectionTestUtils.setField(service, "smartSearchL1Ticker", (Ticker) tickerNanos::get);
+    service.initSmartSearchL1();
+  }
+
+  @AfterEach
+  void tearDown() {
+    service.shutdownSmartSearchL1();
+  }
+
+  @Test
+  void missIsLoadedOnceAndThenServedFromL1() throws Exception {
+    stubL2(l2Entry(NOW_MS + 60_000L));
+
+    assertEquals(1L, search().getTotal());
+    assertEquals(1L, search().getTotal());
+
+    verify(valueOperations, times(1)).get(anyString());
+    assertEquals(1.0, cacheCount("l1-miss"));
+    assertEquals(1.0, cacheCount("l1-hit"));
+    assertEquals(0.0, cacheCount("refresh-ahead"));
+  }
+
+  @Test
+  void entryPastRefreshAfterIsServedAndReloadedAhead() throws Exception {
+    stubL2(l2Entry(NOW_MS + 60_000L));
+    search();
+
+    tickerNanos.addAndGet(TimeUnit.SECONDS.toNanos(8));
+    assertEquals(1L, search().getTotal());
+
+    verify(valueOperations, timeout(2000).times(2)).get(anyString());
+    assertEquals(1.0, cacheCount("l1-miss"));
+    assertEquals(1.0, cacheCount("l1-hit"));
+    assertEquals(1.0, cacheCount("refresh-ahead"));
+  }
+
+  @Test
+  void entryPastTtlIsAMissAgain() throws Exception {
+    stubL2(l2Entry(NOW_MS + 60_000L));
+    search();
+
+    tickerNanos.addAndGet(TimeUnit.SECONDS.toNanos(11));
+    search();
+
+    assertEquals(2.0, cacheCount("l1-miss"));
+    assertEquals(0.0, cacheCount("l1-hit"));
+  }
+
+  @Test
+  void l2EntryAtItsExpiryIsRecomputed() throws Exception {
+    stubL2(l2Entry(NOW_MS));
+    doThrow(new IOException("down"))
+        .when(elasticsearchClient)
+        .search(any(SearchRequest.class), eq(Map.class));
+
+    assertEquals(0L, search().getTotal());
+
+    assertEquals(1.0, cacheCount("l2-early-expire"));
+    assertEquals(
+        1.0, meterRegistry.counter("search.es.error.count", "operation", "smart-search").count());
+  }
+
+  @Test
+  void earlyExpiryGrowsWithComputeCostAndNearnessToExpiry() {
+    long expiresAt = NOW_MS + 1_000L;
+    // A median draw gives a gap of computeMs * ln 2.
+    assertFalse(ElasticsearchOptimizedService.expiresEarly(NOW_MS, 100L, expiresAt, 1.0, 0.5));
+    assertTrue(ElasticsearchOptimizedService.expiresEarly(NOW_MS, 2_000L, expiresAt, 1.0, 0.5));
+    assertTrue(
+        ElasticsearchOptimizedService.expiresEarly(expiresAt - 50L, 100L, expiresAt, 1.0, 0.5));
+    assertTrue(ElasticsearchOptimizedService.expiresEarly(NOW_MS, 100L, expiresAt, 1.0, 0.99999));
+    assertTrue(ElasticsearchOptimizedService.expiresEarly(NOW_MS, 100L, expiresAt, 20.0, 0.5));
+    assertFalse(ElasticsearchOptimizedService.expiresEarly(NOW_MS, 100L, expiresAt, 0.0, 0.99999));
+    assertFalse(ElasticsearchOptimizedService.expiresEarly(NOW_MS, 0L, expiresAt, 1.0, 0.99999));
+  }
+
+  private ElasticsearchOptimizedService.SearchResultDTO search() {
+    return service.smartProductSearch("phone", null, null, null, null, null, 0, 20);
+  }
+
+  private void stubL2(String entry) {
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    when(valueOperations.get(anyString())).thenReturn(entry);
+  }
+
+  private String l2Entry(long expiresAtMs) throws Exception {
+    return objectMapper.writeValueAsString(
+        Map.of(
+            "documents", List.of(Map.of("id", "1")),
+            "total", 1,
+            "from", 0,
+            "size", 20,
+            "computeMs", 50,
+            "expiresAtMs", expiresAtMs));
+  }
+
+  private double cacheCount(String result) {
+    return meterRegistry
+        .counter("search.smart.cache.count", "operation", "smart-search", "result", result)
+        .count();
+  }
+}
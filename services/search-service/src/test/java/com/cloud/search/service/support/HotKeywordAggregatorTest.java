@@ -0,0 +1,115 @@
+package com.cloud.search.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class HotKeywordAggregatorTest {
+
+  @Mock private StringRedisTemplate redisTemplate;
+  @Mock private StringRedisConnection connection;
+
+  private SimpleMeterRegistry meterRegistry;
+  private HotKeywordAggregator aggregator;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    aggregator = new HotKeywordAggregator(redisTemplate, meterRegistry);
+    ReflectionTestUtils.setField(aggregator, "maxKeys", 3);
+    ReflectionTestUtils.setField(aggregator, "flushTopK", 2);
+    ReflectionTestUtils.setField(aggregator, "maxKeywordLength", 8);
+    ReflectionTestUtils.setField(aggregator, "dailyTtlDays", 7L);
+    aggregator.initMetrics();
+  }
+
+  @Test
+  void recordNormalizesAndDropsOverlongAndOverflowingKeywords() {
+    aggregator.record(" Phone ");
+    aggregator.record("phone");
+    aggregator.record("   ");
+    aggregator.record(null);
+    aggregator.record("much-too-long");
+    aggregator.record("case");
+    aggregator.record("laptop");
+    aggregator.record("watch");
+    aggregator.record("case");
+
+    assertEquals(3.0, meterRegistry.get("search.hot-keyword.pending").gauge().value());
+    assertEquals(2.0, dropped("overflow"));
+  }
+
+  @Test
+  void flushPipelinesOnlyTheHeaviestKeywordsAndCountsTheTail() {
+    aggregator.record("phone");
+    aggregator.record("phone");
+    aggregator.record("phone");
+    aggregator.record("case");
+    aggregator.record("laptop");
+    aggregator.record("laptop");
+    when(redisTemplate.executePipelined(any(RedisCallback.class)))
+        .thenAnswer(
+            invocation -> {
+              RedisCallback<?> callback = invocation.getArgument(0);
+              callback.doInRedis(connection);
+              return List.of();
+            });
+
+    aggregator.flush();
+
+    String dailyKey = HotKeywordKeys.todayKey();
+    verify(connection).zIncrBy(dailyKey, 3.0, "phone");
+    verify(connection).zIncrBy(HotKeywordKeys.TOTAL_KEY, 3.0, "phone");
+    verify(connection).zIncrBy(dailyKey, 2.0, "laptop");
+    verify(connection).zIncrBy(HotKeywordKeys.TOTAL_KEY, 2.0, "laptop");
+    verify(connection, never()).zIncrBy(anyString(), anyDouble(), eq("case"));
+    verify(connection).expire(dailyKey, TimeUnit.DAYS.toSeconds(7));
+    assertEquals(1.0, dropped("tail"));
+    assertEquals(0.0, meterRegistry.get("search.hot-keyword.pending").gauge().value());
+    assertEquals(1L, meterRegistry.get("search.hot-keyword.flush").timer().count());
+  }
+
+  @Test
+  void flushDropsTheWindowWhenRedisFails() {
+    aggregator.record("phone");
+    aggregator.record("phone");
+    when(redisTemplate.executePipelined(any(RedisCallback.class)))
+        .thenThrow(new RedisConnectionFailureException("down"));
+
+    aggregator.flush();
+
+    assertEquals(2.0, dropped("flush-failed"));
+    assertEquals(0.0, meterRegistry.get("search.hot-keyword.pending").gauge().value());
+  }
+
+  @Test
+  void flushSkipsRedisForAnEmptyWindow() {
+    aggregator.flush();
+
+    verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+  }
+
+  private double dropped(String reason) {
+    return meterRegistry.get("search.hot-keyword.dropped").tag("reason", reason).counter().count();
+  }
+}
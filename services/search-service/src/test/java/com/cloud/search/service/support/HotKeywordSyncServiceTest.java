@@ -0,0 +1,80 @@
+package com.cloud.search.service.support;
+
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class HotKeywordSyncServiceTest {
+
+  @Mock private StringRedisTemplate redisTemplate;
+  @Mock private ObjectProvider<HotKeywordJdbcRepository> repositoryProvider;
+  @Mock private HotKeywordJdbcRepository repository;
+  @Mock private ZSetOperations<String, String> zSetOperations;
+
+  private HotKeywordSyncService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new HotKeywordSyncService(redisTemplate, repositoryProvider);
+    ReflectionTestUtils.setField(service, "dbSyncEnabled", true);
+    ReflectionTestUtils.setField(service, "maxSyncSize", 2);
+    ReflectionTestUtils.setField(service, "restoreSize", 2);
+    ReflectionTestUtils.setField(service, "triggerMode", "scheduled");
+    when(repositoryProvider.getIfAvailable()).thenReturn(repository);
+  }
+
+  @Test
+  void syncToDbPersistsTheTopOfTheTotalSet() {
+    when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+    Set<ZSetOperations.TypedTuple<String>> head = new LinkedHashSet<>();
+    head.add(new DefaultTypedTuple<>("phone", 12.4));
+    head.add(new DefaultTypedTuple<>(" ", 9.0));
+    head.add(new DefaultTypedTuple<>("laptop", 7.0));
+    when(zSetOperations.reverseRangeWithScores(HotKeywordKeys.TOTAL_KEY, 0, 1)).thenReturn(head);
+
+    service.syncToDb();
+
+    verify(repository).upsertBatch(Map.of("phone", 12L, "laptop", 7L));
+  }
+
+  @Test
+  void syncToDbSkipsTheWriteWhenTheTotalSetIsEmpty() {
+    when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+    when(zSetOperations.reverseRangeWithScores(HotKeywordKeys.TOTAL_KEY, 0, 1))
+        .thenReturn(Set.of());
+
+    service.syncToDb();
+
+    verify(repository, never()).upsertBatch(anyMap());
+  }
+
+  @Test
+  void restoreFromDbLoadsTheTopOnlyIntoAnEmptyTotalSet() {
+    when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+    when(zSetOperations.size(HotKeywordKeys.TOTAL_KEY)).thenReturn(0L);
+    when(repository.loadTop(2))
+        .thenReturn(List.of(new HotKeywordJdbcRepository.HotKeywordRecord("phone", 12L)));
+
+    service.restoreFromDb();
+
+    verify(zSetOperations)
+        .add(HotKeywordKeys.TOTAL_KEY, Set.of(new DefaultTypedTuple<>("phone", 12.0)));
+  }
+}
@@ -0,0 +1,52 @@
+package com.cloud.search.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.cloud.search.document.ProductDocument;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class LocalSuggestionServiceTest {
+
+  @Mock private ElasticsearchOperations elasticsearchOperations;
+  @Mock private StringRedisTemplate redisTemplate;
+
+  private LocalSuggestionService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new LocalSuggestionService(elasticsearchOperations, redisTemplate);
+    ReflectionTestUtils.setField(service, "enabled", true);
+    ReflectionTestUtils.setField(service, "overlayMaxSize", 100);
+  }
+
+  @Test
+  void addDocumentsSkipsProductsThatAreNotOnShelf() {
+    service.addDocuments(
+        List.of(
+            document("Trail Shoe", "Acme", 1, 9),
+            document("Trail Tent", "Acme", 0, 50),
+            document("Trail Map", "Atlas", null, 50)));
+
+    assertEquals(List.of("Trail Shoe"), service.suggest("trail", 5));
+    assertEquals(List.of("Acme"), service.suggest("a", 5));
+  }
+
+  private static ProductDocument document(
+      String productName, String brandName, Integer status, int salesCount) {
+    return ProductDocument.builder()
+        .productName(productName)
+        .brandName(brandName)
+        .status(status)
+        .salesCount(salesCount)
+        .build();
+  }
+}
@@ -0,0 +1,208 @@
+package com.cloud.search.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.HealthStatus;
+import co.elastic.clients.elasticsearch.cluster.ElasticsearchClusterClient;
+import co.elastic.clients.elasticsearch.cluster.HealthRequest;
+import co.elastic.clients.elasticsearch.cluster.HealthResponse;
+import co.elastic.clients.elasticsearch.indices.ElasticsearchIndicesClient;
+import co.elastic.clients.elasticsearch.indices.ExistsAliasRequest;
+import co.elastic.clients.elasticsearch.indices.ExistsRequest;
+import co.elastic.clients.elasticsearch.indices.GetAliasRequest;
+import co.elastic.clients.elasticsearch.indices.GetAliasResponse;
+import co.elastic.clients.elasticsearch.indices.PutIndicesSettingsRequest;
+import co.elastic.clients.elasticsearch.indices.PutIndicesSettingsResponse;
+import co.elastic.clients.elasticsearch.indices.RefreshRequest;
+import co.elastic.clients.elasticsearch.indices.RefreshResponse;
+import co.elastic.clients.elasticsearch.indices.UpdateAliasesRequest;
+import co.elastic.clients.elasticsearch.indices.UpdateAliasesResponse;
+import co.elastic.clients.elasticsearch.indices.get_alias.IndexAliases;
+import co.elastic.clients.elasticsearch.indices.update_aliases.Action;
+import co.elastic.clients.transport.endpoints.BooleanResponse;
+import com.cloud.common.exception.SystemException;
+import com.cloud.search.document.ProductDocument;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class ProductIndexManagerTest {
+
+  private static final String BUILD_INDEX = "product_index_v20261017000000";
+  private static final String OLD_INDEX = "product_index_v20261016000000";
+
+  @Mock private ElasticsearchClient elasticsearchClient;
+
+  // Real lambda overloads delegate to the request overloads stubbed below; lenient because strict
+  // stubbing would flag the lambda call as an argument mismatch before it delegates.
+  @Mock(answer = Answers.CALLS_REAL_METHODS, strictness = Mock.Strictness.LENIENT)
+  private ElasticsearchIndicesClient indicesClient;
+
+  @Mock(answer = Answers.CALLS_REAL_METHODS, strictness = Mock.Strictness.LENIENT)
+  private ElasticsearchClusterClient clusterClient;
+
+  @Mock private ElasticsearchOperations elasticsearchOperations;
+  @Mock private IndexOperations indexOperations;
+  @Mock private StringRedisTemplate stringRedisTemplate;
+  @Mock private ValueOperations<String, String> valueOperations;
+  @Mock private SetOperations<String, String> setOperations;
+
+  private ProductIndexManager manager;
+
+  @BeforeEach
+  void setUp() {
+    manager =
+        new ProductIndexManager(elasticsearchClient, elasticsearchOperations, stringRedisTemplate);
+    ReflectionTestUtils.setField(manager, "replicas", 1);
+    ReflectionTestUtils.setField(manager, "refreshInterval", "1s");
+    ReflectionTestUtils.setField(manager, "deletePrevious", true);
+  }
+
+  @Test
+  void publishSwapsTheAliasAndDropsThePreviousIndex() throws Exception {
+    stubPublishUpToHealth(false);
+    doReturn(new BooleanResponse(true))
+        .when(indicesClient)
+        .existsAlias(any(ExistsAliasRequest.class));
+    doReturn(
+            GetAliasResponse.of(
+                response ->
+                    response.result(
+                        OLD_INDEX, IndexAliases.of(aliases -> aliases.aliases(Map.of())))))
+        .when(indicesClient)
+        .getAlias(any(GetAliasRequest.class));
+    doReturn(UpdateAliasesResponse.of(response -> response.acknowledged(true)))
+        .when(indicesClient)
+        .updateAliases(any(UpdateAliasesRequest.class));
+    when(elasticsearchOperations.indexOps(any(IndexCoordinates.class))).thenReturn(indexOperations);
+
+    manager.publish(BUILD_INDEX);
+
+    List<Action> actions = capturedAliasActions();
+    assertEquals(2, actions.size());
+    assertTrue(actions.get(0).isRemove());
+    assertEquals(OLD_INDEX, actions.get(0).remove().index());
+    assertTrue(actions.get(1).isAdd());
+    assertEquals(BUILD_INDEX, actions.get(1).add().index());
+    assertEquals(ProductIndexManager.ALIAS, actions.get(1).add().alias());
+    ArgumentCaptor<IndexCoordinates> dropped = ArgumentCaptor.forClass(IndexCoordinates.class);
+    verify(elasticsearchOperations).indexOps(dropped.capture());
+    assertEquals(OLD_INDEX, dropped.getValue().getIndexName());
+    verify(indexOperations).delete();
+  }
+
+  @Test
+  void publishRemovesALegacyConcreteIndexAndReappliesDeletes() throws Exception {
+    stubPublishUpToHealth(false);
+    when(setOperations.members("search:index:product:rebuild-deleted")).thenReturn(Set.of("42"));
+    doReturn(new BooleanResponse(false))
+        .when(indicesClient)
+        .existsAlias(any(ExistsAliasRequest.class));
+    doReturn(new BooleanResponse(true)).when(indicesClient).exists(any(ExistsRequest.class));
+    doReturn(UpdateAliasesResponse.of(response -> response.acknowledged(true)))
+        .when(indicesClient)
+        .updateAliases(any(UpdateAliasesRequest.class));
+
+    manager.publish(BUILD_INDEX);
+
+    List<Action> actions = capturedAliasActions();
+    assertEquals(2, actions.size());
+    assertTrue(actions.get(0).isRemoveIndex());
+    assertEquals(ProductIndexManager.ALIAS, actions.get(0).removeIndex().index());
+    assertEquals(BUILD_INDEX, actions.get(1).add().index());
+    verify(elasticsearchOperations, never()).indexOps(any(IndexCoordinates.class));
+    ArgumentCaptor<IndexCoordinates> deletedFrom = ArgumentCaptor.forClass(IndexCoordinates.class);
+    verify(elasticsearchOperations).delete(eq("42"), deletedFrom.capture());
+    assertEquals(BUILD_INDEX, deletedFrom.getValue().getIndexName());
+  }
+
+  @Test
+  void publishAbortsWithoutTouchingTheAliasWhenHealthTimesOut() throws Exception {
+    stubPublishUpToHealth(true);
+
+    assertThrows(SystemException.class, () -> manager.publish(BUILD_INDEX));
+
+    verify(indicesClient, never()).updateAliases(any(UpdateAliasesRequest.class));
+  }
+
+  @Test
+  void mirrorWritesGoToTheRebuildTarget() {
+    when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+    when(stringRedisTemplate.opsForSet()).thenReturn(setOperations);
+    when(valueOperations.get("search:index:product:rebuild-target")).thenReturn(BUILD_INDEX);
+    List<ProductDocument> documents = List.of(ProductDocument.builder().id("7").build());
+
+    manager.mirrorSave(documents);
+    manager.mirrorDelete(List.of("8"));
+
+    ArgumentCaptor<IndexCoordinates> saved = ArgumentCaptor.forClass(IndexCoordinates.class);
+    verify(elasticsearchOperations).save(eq(documents), saved.capture());
+    assertEquals(BUILD_INDEX, saved.getValue().getIndexName());
+    verify(setOperations).add("search:index:product:rebuild-deleted", "8");
+    verify(elasticsearchOperations).delete(eq("8"), any(IndexCoordinates.class));
+  }
+
+  @Test
+  void mirrorWritesAreSkippedWhenNoRebuildRuns() {
+    when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+
+    manager.mirrorSave(List.of(ProductDocument.builder().id("7").build()));
+    manager.mirrorDelete(List.of("8"));
+
+    verify(elasticsearchOperations, never()).save(anyList(), any(IndexCoordinates.class));
+    verify(stringRedisTemplate, never()).opsForSet();
+  }
+
+  private void stubPublishUpToHealth(boolean timedOut) throws Exception {
+    when(stringRedisTemplate.opsForSet()).thenReturn(setOperations);
+    when(elasticsearchClient.indices()).thenReturn(indicesClient);
+    when(elasticsearchClient.cluster()).thenReturn(clusterClient);
+    doReturn(PutIndicesSettingsResponse.of(response -> response.acknowledged(true)))
+        .when(indicesClient)
+        .putSettings(any(PutIndicesSettingsRequest.class));
+    doReturn(
+            RefreshResponse.of(
+                response -> response.shards(shards -> shards.total(1).successful(1).failed(0))))
+        .when(indicesClient)
+        .refresh(any(RefreshRequest.class));
+    HealthResponse health = mock(HealthResponse.class);
+    when(health.timedOut()).thenReturn(timedOut);
+    if (timedOut) {
+      when(health.status()).thenReturn(HealthStatus.Red);
+    }
+    doReturn(health).when(clusterClient).health(any(HealthRequest.class));
+  }
+
+  private List<Action> capturedAliasActions() throws Exception {
+    ArgumentCaptor<UpdateAliasesRequest> request =
+        ArgumentCaptor.forClass(UpdateAliasesRequest.class);
+    verify(indicesClient).updateAliases(request.capture());
+    return request.getValue().actions();
+  }
+}
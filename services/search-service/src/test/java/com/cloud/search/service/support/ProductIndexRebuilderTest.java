@@ -0,0 +1,167 @@
+package com.cloud.search.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.bulk.OperationType;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.transport.ElasticsearchTransport;
+import com.cloud.api.product.ProductDubboApi;
+import com.cloud.common.domain.vo.product.SpuDetailVO;
+import com.cloud.common.exception.SystemException;
+import com.cloud.search.document.ProductDocument;
+import com.cloud.search.service.ProductDocumentBuildService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.convert.ElasticsearchConverter;
+import org.springframework.data.elasticsearch.core.document.Document;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class ProductIndexRebuilderTest {
+
+  private static final String BUILD_INDEX = "product_index_v20261017000000";
+
+  @Mock private ProductIndexManager productIndexManager;
+  @Mock private ProductDocumentBuildService productDocumentBuildService;
+  @Mock private ElasticsearchClient elasticsearchClient;
+  @Mock private ElasticsearchTransport transport;
+  @Mock private ElasticsearchOperations elasticsearchOperations;
+  @Mock private ElasticsearchConverter elasticsearchConverter;
+  @Mock private ProductDubboApi productDubboApi;
+
+  private final List<BulkRequest> bulkRequests = new ArrayList<>();
+  private ProductIndexRebuilder rebuilder;
+
+  @BeforeEach
+  void setUp() {
+    rebuilder =
+        new ProductIndexRebuilder(
+            productIndexManager,
+            productDocumentBuildService,
+            elasticsearchClient,
+            elasticsearchOperations);
+    ReflectionTestUtils.setField(rebuilder, "productDubboApi", productDubboApi);
+    ReflectionTestUtils.setField(rebuilder, "pageSize", 10);
+    ReflectionTestUtils.setField(rebuilder, "workers", 1);
+    ReflectionTestUtils.setField(rebuilder, "bulkActions", 100);
+    ReflectionTestUtils.setField(rebuilder, "bulkMaxBytes", 5_242_880L);
+    ReflectionTestUtils.setField(rebuilder, "bulkConcurrency", 1);
+    ReflectionTestUtils.setField(rebuilder, "progressIntervalSeconds", 60L);
+    // The bulk ingester sends through the client's transport.
+    when(elasticsearchClient._transport()).thenReturn(transport);
+    when(transport.jsonpMapper()).thenReturn(new JacksonJsonpMapper());
+    when(productIndexManager.createBuildIndex()).thenReturn(BUILD_INDEX);
+    when(productDubboApi.listSpuAfterId(0L, 10, 1)).thenReturn(List.of(spu(1L), spu(2L)));
+    when(productDocumentBuildService.buildAll(List.of(spu(1L), spu(2L))))
+        .thenReturn(List.of(document("1"), document("2")));
+    when(elasticsearchOperations.getElasticsearchConverter()).thenReturn(elasticsearchConverter);
+    when(elasticsearchConverter.mapObject(any())).thenReturn(Document.from(Map.of("name", "x")));
+  }
+
+  @Test
+  void builtIndexIsPublishedAfterTouchedSpusAreReindexed() throws Exception {
+    stubBulk(item("1", 201, null), item("2", 409, "version_conflict_engine_exception"));
+    when(productIndexManager.touchedSpuIds()).thenReturn(List.of(2L));
+    when(productDubboApi.listSpuByIds(List.of(2L))).thenReturn(List.of(spu(2L)));
+    when(productDocumentBuildService.buildAll(List.of(spu(2L)))).thenReturn(List.of(document("2")));
+
+    ProductIndexRebuilder.Result result = rebuilder.rebuild(message -> {});
+
+    assertEquals(BUILD_INDEX, result.index());
+    assertEquals(1L, result.indexed());
+    assertEquals(1L, result.skipped());
+    assertEquals(2, bulkRequests.get(0).operations().size());
+    assertEquals(BUILD_INDEX, bulkRequests.get(0).operations().get(0).create().index());
+    ArgumentCaptor<IndexCoordinates> reindexed = ArgumentCaptor.forClass(IndexCoordinates.class);
+    InOrder order = inOrder(productIndexManager, elasticsearchOperations);
+    order.verify(productIndexManager).beginRebuild(BUILD_INDEX);
+    order.verify(elasticsearchOperations).save(eq(List.of(document("2"))), reindexed.capture());
+    order.verify(productIndexManager).publish(BUILD_INDEX);
+    order.verify(productIndexManager).endRebuild();
+    assertEquals(BUILD_INDEX, reindexed.getValue().getIndexName());
+    verify(productIndexManager, never()).dropIndex(any());
+  }
+
+  @Test
+  void failedPublishDropsTheBuildIndex() throws Exception {
+    stubBulk(item("1", 201, null), item("2", 201, null));
+    when(productIndexManager.touchedSpuIds()).thenReturn(List.of());
+    doThrow(new SystemException("product index did not reach yellow"))
+        .when(productIndexManager)
+        .publish(BUILD_INDEX);
+
+    assertThrows(SystemException.class, () -> rebuilder.rebuild(message -> {}));
+
+    verify(productIndexManager).endRebuild();
+    verify(productIndexManager).dropIndex(BUILD_INDEX);
+  }
+
+  @Test
+  void failedDocumentsAbortBeforePublishing() throws Exception {
+    stubBulk(item("1", 201, null), item("2", 400, "mapper_parsing_exception"));
+
+    assertThrows(SystemException.class, () -> rebuilder.rebuild(message -> {}));
+
+    verify(productIndexManager, never()).publish(any());
+    verify(productIndexManager).dropIndex(BUILD_INDEX);
+  }
+
+  private void stubBulk(BulkResponseItem... items) throws Exception {
+    when(transport.performRequestAsync(any(BulkRequest.class), any(), any()))
+        .thenAnswer(
+            invocation -> {
+              bulkRequests.add(invocation.getArgument(0));
+              return CompletableFuture.completedFuture(
+                  BulkResponse.of(
+                      response ->
+                          response
+                              .took(1)
+                              .errors(List.of(items).stream().anyMatch(i -> i.error() != null))
+                              .items(List.of(items))));
+            });
+  }
+
+  private BulkResponseItem item(String id, int status, String error) {
+    return BulkResponseItem.of(
+        item -> {
+          item.id(id).index(BUILD_INDEX).status(status).operationType(OperationType.Create);
+          if (error != null) {
+            item.error(cause -> cause.type(error).reason(error));
+          }
+          return item;
+        });
+  }
+
+  private SpuDetailVO spu(Long spuId) {
+    SpuDetailVO spu = new SpuDetailVO();
+    spu.setSpuId(spuId);
+    return spu;
+  }
+
+  private ProductDocument document(String id) {
+    return ProductDocument.builder().id(id).build();
+  }
+}
@@ -0,0 +1,124 @@
+package com.cloud.search.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.bulk.OperationType;
+import com.cloud.api.product.ProductDubboApi;
+import com.cloud.common.domain.vo.product.SpuDetailVO;
+import com.cloud.common.exception.SystemException;
+import com.cloud.common.messaging.event.StockChangedEvent;
+import com.cloud.search.document.ProductDocument;
+import com.cloud.search.service.ProductDocumentBuildService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class ProductStockUpdateServiceTest {
+
+  @Mock private ElasticsearchClient elasticsearchClient;
+  @Mock private ProductIndexManager productIndexManager;
+  @Mock private ProductDocumentBuildService productDocumentBuildService;
+  @Mock private ProductDubboApi productDubboApi;
+
+  private SimpleMeterRegistry meterRegistry;
+  private ProductStockUpdateService service;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    service =
+        new ProductStockUpdateService(
+            elasticsearchClient, meterRegistry, productIndexManager, productDocumentBuildService);
+    ReflectionTestUtils.setField(service, "productDubboApi", productDubboApi);
+    ReflectionTestUtils.setField(service, "maxAttempts", 2);
+  }
+
+  @Test
+  void onlyFailedItemsAreRetried() throws Exception {
+    when(elasticsearchClient.bulk(any(BulkRequest.class)))
+        .thenReturn(
+            response(item("10", 200, null), item("11", 429, "rejected")),
+            response(item("11", 200, null)));
+
+    assertEquals(2, service.applyStockChanges(List.of(change(10L, -1), change(11L, -2))));
+
+    ArgumentCaptor<BulkRequest> requests = ArgumentCaptor.forClass(BulkRequest.class);
+    verify(elasticsearchClient, times(2)).bulk(requests.capture());
+    assertEquals(1, requests.getAllValues().get(1).operations().size());
+    assertEquals("11", requests.getAllValues().get(1).operations().get(0).update().id());
+    verify(productDocumentBuildService, never()).buildAll(any());
+  }
+
+  @Test
+  void itemsStillFailingAreResyncedFromTheLedger() throws Exception {
+    SpuDetailVO spu = new SpuDetailVO();
+    when(productDubboApi.listSpuByIds(List.of(11L))).thenReturn(List.of(spu));
+    when(productDocumentBuildService.buildAll(List.of(spu)))
+        .thenReturn(
+            List.of(ProductDocument.builder().id("11").stockQuantity(5).salesCount(3).build()));
+    when(elasticsearchClient.bulk(any(BulkRequest.class)))
+        .thenReturn(
+            response(item("11", 429, "rejected")),
+            response(item("11", 429, "rejected")),
+            response(item("11", 200, null)));
+
+    assertEquals(1, service.applyStockChanges(List.of(change(11L, -2))));
+
+    ArgumentCaptor<BulkRequest> requests = ArgumentCaptor.forClass(BulkRequest.class);
+    verify(elasticsearchClient, times(3)).bulk(requests.capture());
+    assertNotNull(requests.getAllValues().get(2).operations().get(0).update().action().doc());
+    assertEquals(
+        1.0, meterRegistry.counter("search.product.stock.update", "result", "resynced").count());
+  }
+
+  @Test
+  void failedResyncIsThrownForRedelivery() throws Exception {
+    when(productDubboApi.listSpuByIds(List.of(11L))).thenThrow(new RuntimeException("down"));
+    when(elasticsearchClient.bulk(any(BulkRequest.class)))
+        .thenReturn(response(item("11", 500, "boom")));
+
+    assertThrows(SystemException.class, () -> service.applyStockChanges(List.of(change(11L, -2))));
+  }
+
+  private StockChangedEvent.Item change(Long spuId, int stockDelta) {
+    return new StockChangedEvent.Item(spuId, List.of(spuId * 10), stockDelta, 0);
+  }
+
+  private BulkResponse response(BulkResponseItem... items) {
+    return BulkResponse.of(
+        response ->
+            response
+                .took(1)
+                .errors(List.of(items).stream().anyMatch(item -> item.error() != null))
+                .items(List.of(items)));
+  }
+
+  private BulkResponseItem item(String id, int status, String error) {
+    return BulkResponseItem.of(
+        item -> {
+          item.id(id).index("product_index").status(status).operationType(OperationType.Update);
+          if (error != null) {
+            item.error(cause -> cause.type("error").reason(error));
+          }
+          return item;
+        });
+  }
+}
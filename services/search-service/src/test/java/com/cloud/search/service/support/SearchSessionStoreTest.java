@@ -0,0 +1,159 @@
+package com.cloud.search.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import com.cloud.common.exception.BizException;
+import com.cloud.search.dto.ProductSearchRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class SearchSessionStoreTest {
+
+  @Mock private StringRedisTemplate redisTemplate;
+  @Mock private ValueOperations<String, String> valueOperations;
+  @Mock private ElasticsearchClient elasticsearchClient;
+
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+  private SearchSessionStore store;
+
+  @BeforeEach
+  void setUp() {
+    store = newStore(3, 2);
+  }
+
+  @Test
+  void reserveEnforcesTheClientShareAndTheNodeCap() {
+    store.reserve("user:1");
+    store.reserve("user:1");
+    assertThrows(BizException.class, () -> store.reserve("user:1"));
+
+    store.reserve("ip:10.0.0.9");
+    assertThrows(BizException.class, () -> store.reserve("ip:10.0.0.7"));
+
+    store.release("ip:10.0.0.9");
+    store.reserve("ip:10.0.0.7");
+  }
+
+  @Test
+  void openSavesTheSessionAndNextPagesReadAndRefreshIt() throws Exception {
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    ProductSearchRequest request = new ProductSearchRequest();
+    request.setKeyword("phone");
+
+    store.reserve("user:1");
+    SearchSessionStore.Session session = store.save("pit-1", request, 42L, "user:1");
+
+    ArgumentCaptor<String> json = ArgumentCaptor.forClass(String.class);
+    verify(valueOperations)
+        .set(eq("search:session:" + session.id()), json.capture(), eq(300L), eq(TimeUnit.SECONDS));
+    when(valueOperations.get("search:session:" + session.id())).thenReturn(json.getValue());
+    SearchSessionStore.Session loaded = store.load(session.id());
+    assertEquals("pit-1", loaded.pitId());
+    assertEquals(42L, loaded.total());
+    assertEquals("phone", loaded.request().getKeyword());
+
+    store.touch(loaded, "pit-2");
+    verify(valueOperations, times(2))
+        .set(eq("search:session:" + session.id()), json.capture(), eq(300L), eq(TimeUnit.SECONDS));
+    assertEquals(
+        "pit-2", objectMapper.readValue(json.getValue(), SearchSessionStore.Session.class).pitId());
+  }
+
+  @Test
+  void loadRejectsAnExpiredSession() {
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+    assertThrows(BizException.class, () -> store.load("missing"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void exhaustingTheSessionClosesThePitAndFreesTheSlot() throws Exception {
+    store = newStore(3, 1);
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    store.reserve("user:1");
+    SearchSessionStore.Session session =
+        store.save("pit-1", new ProductSearchRequest(), 1L, "user:1");
+
+    store.close(session);
+
+    verify(redisTemplate).delete("search:session:" + session.id());
+    verify(elasticsearchClient).closePointInTime(any(Function.class));
+    store.reserve("user:1");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void sweepReleasesSessionsClosedOnAnotherNodeAndKeepsLiveOnes() throws Exception {
+    store = newStore(3, 1);
+    when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    store.reserve("user:1");
+    SearchSessionStore.Session closedElsewhere =
+        store.save("pit-1", new ProductSearchRequest(), 1L, "user:1");
+    store.reserve("user:2");
+    SearchSessionStore.Session live = store.save("pit-2", new ProductSearchRequest(), 1L, "user:2");
+    when(redisTemplate.hasKey("search:session:" + closedElsewhere.id())).thenReturn(false);
+    when(redisTemplate.hasKey("search:session:" + live.id())).thenReturn(true);
+
+    store.sweepExpired();
+
+    verify(elasticsearchClient, times(1)).closePointInTime(any(Function.class));
+    store.reserve("user:1");
+    assertThrows(BizException.class, () -> store.reserve("user:2"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void abandonClosesThePitAndFreesTheSlot() throws Exception {
+    store = newStore(1, 1);
+    store.reserve("user:1");
+
+    store.abandon("pit-1", "user:1");
+
+    verify(elasticsearchClient).closePointInTime(any(Function.class));
+    verify(redisTemplate, never()).delete(anyString());
+    store.reserve("user:1");
+  }
+
+  @Test
+  void cursorRoundTripsAndRejectsGarbage() {
+    String cursor = store.encodeCursor("session-1", List.of(12.5, "spu-9"));
+
+    SearchSessionStore.Cursor decoded = store.decodeCursor(cursor);
+
+    assertEquals("session-1", decoded.sessionId());
+    assertEquals(List.of(12.5, "spu-9"), decoded.searchAfter());
+    assertThrows(BizException.class, () -> store.decodeCursor("not-a-cursor"));
+  }
+
+  private SearchSessionStore newStore(int maxOpenPerNode, int maxOpenPerClient) {
+    SearchSessionStore created =
+        new SearchSessionStore(
+            redisTemplate, objectMapper, elasticsearchClient, maxOpenPerNode, maxOpenPerClient);
+    ReflectionTestUtils.setField(created, "ttlSeconds", 300L);
+    return created;
+  }
+}
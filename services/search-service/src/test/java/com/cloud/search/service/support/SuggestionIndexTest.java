@@ -0,0 +1,98 @@
+package com.cloud.search.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SuggestionIndexTest {
+
+  @Test
+  void emptyOrBlankPrefixReturnsNothing() {
+    SuggestionIndex index = new SuggestionIndex.Builder().add("phone", 3).build(0);
+
+    assertTrue(index.top("", 5).isEmpty());
+    assertTrue(index.top("   ", 5).isEmpty());
+    assertTrue(index.top(null, 5).isEmpty());
+    assertTrue(index.top("phone", 0).isEmpty());
+    assertTrue(SuggestionIndex.empty().top("p", 5).isEmpty());
+  }
+
+  @Test
+  void prefixMatchingEveryTermReturnsTheHeaviestFirst() {
+    SuggestionIndex index =
+        new SuggestionIndex.Builder()
+            .add("apple", 4)
+            .add("apricot", 9)
+            .add("avocado", 1)
+            .add("almond", 6)
+            .add("acai", 2)
+            .build(0);
+
+    assertEquals(List.of("apricot", "almond", "apple"), texts(index.top("a", 3)));
+    assertTrue(index.top("b", 3).isEmpty());
+    assertEquals(List.of("apricot", "apple"), texts(index.top("AP", 5)));
+  }
+
+  @Test
+  void duplicateKeysKeepTheFirstTextAndSumTheirWeights() {
+    SuggestionIndex index =
+        new SuggestionIndex.Builder()
+            .add("iPhone", 3)
+            .add(" iphone ", 4)
+            .add("IPHONE", 1)
+            .add("ipad", 7)
+            .build(0);
+
+    List<SuggestionIndex.Term> terms = index.top("i", 5);
+
+    assertEquals(2, index.size());
+    assertEquals(new SuggestionIndex.Term("iphone", "iPhone", 8), terms.get(0));
+    assertEquals(new SuggestionIndex.Term("ipad", "ipad", 7), terms.get(1));
+  }
+
+  @Test
+  void equalWeightsComeBackInKeyOrder() {
+    SuggestionIndex.Builder builder = new SuggestionIndex.Builder();
+    for (String text : List.of("tea-g", "tea-c", "tea-a", "tea-f", "tea-b", "tea-e", "tea-d")) {
+      builder.add(text, 5);
+    }
+    builder.add("tea-z", 6);
+    SuggestionIndex index = builder.build(0);
+
+    assertEquals(List.of("tea-z", "tea-a", "tea-b", "tea-c", "tea-d"), texts(index.top("tea", 5)));
+  }
+
+  @Test
+  void limitLargerThanTheRangeReturnsTheWholeRange() {
+    SuggestionIndex index =
+        new SuggestionIndex.Builder()
+            .add("bag", 1)
+            .add("ball", 3)
+            .add("bat", 2)
+            .add("cap", 10)
+            .build(0);
+
+    assertEquals(List.of("ball", "bat", "bag"), texts(index.top("ba", 50)));
+  }
+
+  @Test
+  void buildKeepsOnlyTheHeaviestTermsUnderTheCap() {
+    SuggestionIndex index =
+        new SuggestionIndex.Builder()
+            .add("one", 1)
+            .add("two", 2)
+            .add("three", 3)
+            .add("zero", 0)
+            .build(2);
+
+    assertEquals(2, index.size());
+    assertEquals(List.of("three", "two"), texts(index.top("t", 5)));
+    assertTrue(index.top("one", 5).isEmpty());
+  }
+
+  private static List<String> texts(List<SuggestionIndex.Term> terms) {
+    return terms.stream().map(SuggestionIndex.Term::text).toList();
+  }
+}
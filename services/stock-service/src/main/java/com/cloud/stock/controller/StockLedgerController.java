@@ -1,15 +1,19 @@
 package com.cloud.stock.controller;
 
 import com.cloud.common.domain.vo.stock.StockLedgerVO;
+import com.cloud.common.domain.vo.stock.StockSegmentStatsVO;
 import com.cloud.common.result.Result;
 import com.cloud.stock.service.StockLedgerService;
+import com.cloud.stock.service.support.StockSegmentManager;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -19,6 +23,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class StockLedgerController {
 
   private final StockLedgerService stockLedgerService;
+  private final StockSegmentManager stockSegmentManager;
 
   @GetMapping("/ledger/{skuId}")
   @PreAuthorize("hasRole('ADMIN')")
@@ -26,4 +31,19 @@ public class StockLedgerController {
   public Result<StockLedgerVO> getLedger(@PathVariable Long skuId) {
     return Result.success(stockLedgerService.getLedgerBySkuId(skuId));
   }
+
+  @GetMapping("/segments/{skuId}")
+  @PreAuthorize("hasRole('ADMIN')")
+  @Operation(summary = "Get stock segment layout and contention by sku")
+  public Result<StockSegmentStatsVO> getSegmentStats(@PathVariable Long skuId) {
+    return Result.success(stockSegmentManager.getStats(skuId));
+  }
+
+  @PostMapping("/segments/{skuId}/rebalance")
+  @PreAuthorize("hasRole('ADMIN')")
+  @Operation(summary = "Rebalance available stock across a target number of segments")
+  public Result<StockSegmentStatsVO> rebalanceSegments(
+      @PathVariable Long skuId, @RequestParam Integer targetSegments) {
+    return Result.success(stockSegmentManager.rebalance(skuId, targetSegments));
+  }
 }
@@ -0,0 +1,227 @@
+package com.cloud.stock.mapper;
+
+import com.baomidou.mybatisplus.annotation.InterceptorIgnore;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.cloud.common.domain.vo.stock.StockLedgerVO;
+import java.util.List;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+@Mapper
+public interface StockLedgerSummaryMapper {
+
+  @InterceptorIgnore(illegalSql = "1")
+  @Select(
+      """
+            SELECT sku_id AS skuId,
+                   available_qty AS availableQty,
+                   locked_qty AS lockedQty,
+                   sold_qty AS soldQty,
+                   segment_count AS segmentCount,
+                   alert_threshold AS alertThreshold,
+                   status,
+                   created_at AS createdAt,
+                   updated_at AS updatedAt
+            FROM stock_ledger_summary
+            WHERE sku_id = #{skuId}
+              AND status = 1
+            """)
+  StockLedgerVO selectLedgerBySkuId(@Param("skuId") Long skuId);
+
+  @InterceptorIgnore(illegalSql = "1")
+  @Select(
+      """
+            <script>
+            SELECT sku_id AS skuId,
+                   available_qty AS availableQty,
+                   locked_qty AS lockedQty,
+                   sold_qty AS soldQty,
+                   segment_count AS segmentCount,
+                   alert_threshold AS alertThreshold,
+                   status,
+                   created_at AS createdAt,
+                   updated_at AS updatedAt
+            FROM stock_ledger_summary
+            WHERE status = 1
+              AND sku_id IN
+              <foreach collection="skuIds" item="skuId" open="(" separator="," close=")">
+                #{skuId}
+              </foreach>
+            ORDER BY sku_id ASC
+            </script>
+            """)
+  List<StockLedgerVO> listLedgersBySkuIds(@Param("skuIds") List<Long> skuIds);
+
+  @InterceptorIgnore(illegalSql = "1")
+  @Select(
+      """
+            SELECT sku_id AS skuId,
+                   available_qty AS availableQty,
+                   locked_qty AS lockedQty,
+                   sold_qty AS soldQty,
+                   segment_count AS segmentCount,
+                   alert_threshold AS alertThreshold,
+                   status,
+                   created_at AS createdAt,
+                   updated_at AS updatedAt
+            FROM stock_ledger_summary
+            WHERE status = 1
+              AND stock_gap <= 0
+            ORDER BY stock_gap ASC, sku_id ASC
+            """)
+  IPage<StockLedgerVO> pageLowStockLedgers(IPage<StockLedgerVO> page);
+
+  @InterceptorIgnore(illegalSql = "1")
+  @Select(
+      """
+            SELECT sku_id AS skuId,
+                   available_qty AS availableQty,
+                   locked_qty AS lockedQty,
+                   sold_qty AS soldQty,
+                   segment_count AS segmentCount,
+                   alert_threshold AS alertThreshold,
+                   status,
+                   created_at AS createdAt,
+                   updated_at AS updatedAt
+            FROM stock_ledger_summary
+            WHERE status = 1
+            ORDER BY sku_id ASC
+            """)
+  IPage<StockLedgerVO> pageActiveLedgers(IPage<StockLedgerVO> page);
+
+  @InterceptorIgnore(illegalSql = "1")
+  @Update(
+      """
+            <script>
+            UPDATE stock_ledger_summary
+            SET available_qty = available_qty + CASE
+                <foreach collection="deltas" item="delta">
+                  WHEN sku_id = #{delta.skuId} THEN #{delta.availableDelta}
+                </foreach>
+                ELSE 0 END,
+                locked_qty = locked_qty + CASE
+                <foreach collection="deltas" item="delta">
+                  WHEN sku_id = #{delta.skuId} THEN #{delta.lockedDelta}
+                </foreach>
+                ELSE 0 END,
+                sold_qty = sold_qty + CASE
+                <foreach collection="deltas" item="delta">
+                  WHEN sku_id = #{delta.skuId} THEN #{delta.soldDelta}
+                </foreach>
+                ELSE 0 END,
+                segment_count = segment_count + CASE
+                <foreach collection="deltas" item="delta">
+                  WHEN sku_id = #{delta.skuId} THEN #{delta.segmentDelta}
+                </foreach>
+                ELSE 0 END,
+                updated_at = NOW()
+            WHERE sku_id IN
+              <foreach collection="deltas" item="delta" open="(" separator="," close=")">
+                #{delta.skuId}
+              </foreach>
+            </script>
+            """)
+  int applyDeltas(@Param("deltas") List<LedgerDelta> deltas);
+
+  @InterceptorIgnore(illegalSql = "1")
+  @Select(
+      """
+            <script>
+            SELECT sku_id
+            FROM stock_ledger_summary
+            WHERE sku_id IN
+              <foreach collection="skuIds" item="skuId" open="(" separator="," close=")">
+                #{skuId}
+              </foreach>
+            </script>
+            """)
+  List<Long> listExistingSkuIds(@Param("skuIds") List<Long> skuIds);
+
+  @InterceptorIgnore(illegalSql = "1")
+  @Delete(
+      """
+            <script>
+            DELETE FROM stock_ledger_summary
+            WHERE sku_id IN
+              <foreach collection="skuIds" item="skuId" open="(" separator="," close=")">
+                #{skuId}
+              </foreach>
+            </script>
+            """)
+  int deleteBySkuIds(@Param("skuIds") List<Long> skuIds);
+
+  @InterceptorIgnore(illegalSql = "1")
+  @Insert(
+      """
+            <script>
+            INSERT IGNORE INTO stock_ledger_summary
+              (sku_id, available_qty, locked_qty, sold_qty, segment_count, alert_threshold,
+               status, created_at, updated_at)
+            SELECT sku_id,
+                   SUM(available_qty),
+                   SUM(locked_qty),
+                   SUM(sold_qty),
+                   COUNT(*),
+                   MAX(alert_threshold),
+                   MAX(status),
+                   MIN(created_at),
+                   MAX(updated_at)
+            FROM stock_segment
+            WHERE deleted = 0
+              AND status = 1
+              AND sku_id IN
+              <foreach collection="skuIds" item="skuId" open="(" separator="," close=")">
+                #{skuId}
+              </foreach>
+            GROUP BY sku_id
+            </script>
+            """)
+  int insertIgnoreFromSegments(@Param("skuIds") List<Long> skuIds);
+
+  @InterceptorIgnore(illegalSql = "1")
+  @Insert(
+      """
+            <script>
+            INSERT INTO stock_ledger_summary
+              (sku_id, available_qty, locked_qty, sold_qty, segment_count, alert_threshold,
+               status, created_at, updated_at)
+            SELECT sku_id,
+                   SUM(available_qty),
+                   SUM(locked_qty),
+                   SUM(sold_qty),
+                   COUNT(*),
+                   MAX(alert_threshold),
+                   MAX(status),
+                   MIN(created_at),
+                   MAX(updated_at)
+            FROM stock_segment
+            WHERE deleted = 0
+              AND status = 1
+              AND sku_id IN
+              <foreach collection="skuIds" item="skuId" open="(" separator="," close=")">
+                #{skuId}
+              </foreach>
+            GROUP BY sku_id
+            ON DUPLICATE KEY UPDATE
+              available_qty = VALUES(available_qty),
+              locked_qty = VALUES(locked_qty),
+              sold_qty = VALUES(sold_qty),
+              segment_count = VALUES(segment_count),
+              alert_threshold = VALUES(alert_threshold),
+              status = VALUES(status),
+              updated_at = VALUES(updated_at)
+            </script>
+            """)
+  int upsertFromSegments(@Param("skuIds") List<Long> skuIds);
+
+  record LedgerDelta(
+      Long skuId,
+      Integer availableDelta,
+      Integer lockedDelta,
+      Integer soldDelta,
+      Integer segmentDelta) {}
+}
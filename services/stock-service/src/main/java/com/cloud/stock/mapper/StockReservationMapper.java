@@ -7,6 +7,7 @@ import java.util.List;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
 @Mapper
 public interface StockReservationMapper extends BaseMapper<StockReservation> {
@@ -34,4 +35,60 @@ public interface StockReservationMapper extends BaseMapper<StockReservation> {
             ORDER BY sku_id ASC, segment_id ASC, id ASC
             """)
   List<StockReservation> listActiveBySubOrderNo(@Param("subOrderNo") String subOrderNo);
+
+  @InterceptorIgnore(illegalSql = "1")
+  @Select(
+      """
+            <script>
+            SELECT *
+            FROM stock_reservation
+            WHERE deleted = 0
+              AND idempotency_key IN
+              <foreach collection="idempotencyKeys" item="idempotencyKey" open="(" separator="," close=")">
+                #{idempotencyKey}
+              </foreach>
+            </script>
+            """)
+  List<StockReservation> listByIdempotencyKeys(
+      @Param("idempotencyKeys") List<String> idempotencyKeys);
+
+  @InterceptorIgnore(illegalSql = "1")
+  @Select(
+      """
+            <script>
+            SELECT *
+            FROM stock_reservation
+            WHERE deleted = 0
+              AND sub_order_no IN
+              <foreach collection="subOrderNos" item="subOrderNo" open="(" separator="," close=")">
+                #{subOrderNo}
+              </foreach>
+              <if test="statuses != null and statuses.size() > 0">
+                AND status IN
+                <foreach collection="statuses" item="status" open="(" separator="," close=")">
+                  #{status}
+                </foreach>
+              </if>
+            ORDER BY sub_order_no ASC, sku_id ASC, segment_id ASC, id ASC
+            </script>
+            """)
+  List<StockReservation> listActiveBySubOrderNos(
+      @Param("subOrderNos") List<String> subOrderNos, @Param("statuses") List<String> statuses);
+
+  @InterceptorIgnore(illegalSql = "1")
+  @Update(
+      """
+            <script>
+            UPDATE stock_reservation
+            SET status = #{status},
+                version = version + 1,
+                updated_at = NOW()
+            WHERE deleted = 0
+              AND id IN
+              <foreach collection="ids" item="id" open="(" separator="," close=")">
+                #{id}
+              </foreach>
+            </script>
+            """)
+  int updateStatusByIds(@Param("ids") List<Long> ids, @Param("status") String status);
 }
@@ -2,8 +2,6 @@ package com.cloud.stock.mapper;
 
 import com.baomidou.mybatisplus.annotation.InterceptorIgnore;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
-import com.baomidou.mybatisplus.core.metadata.IPage;
-import com.cloud.common.domain.vo.stock.StockLedgerVO;
 import com.cloud.stock.module.entity.StockSegment;
 import java.util.List;
 import org.apache.ibatis.annotations.Mapper;
@@ -17,49 +15,13 @@ public interface StockSegmentMapper extends BaseMapper<StockSegment> {
   @InterceptorIgnore(illegalSql = "1")
   @Select(
       """
-            SELECT sku_id AS skuId,
-                   SUM(available_qty) AS availableQty,
-                   SUM(locked_qty) AS lockedQty,
-                   SUM(sold_qty) AS soldQty,
-                   COUNT(*) AS segmentCount,
-                   MAX(alert_threshold) AS alertThreshold,
-                   MAX(status) AS status,
-                   MIN(created_at) AS createdAt,
-                   MAX(updated_at) AS updatedAt
+            SELECT DISTINCT sku_id
             FROM stock_segment
-            WHERE sku_id = #{skuId}
-              AND deleted = 0
-              AND status = 1
-            GROUP BY sku_id
-            LIMIT 1
-            """)
-  StockLedgerVO selectLedgerBySkuId(@Param("skuId") Long skuId);
-
-  @InterceptorIgnore(illegalSql = "1")
-  @Select(
-      """
-            <script>
-            SELECT sku_id AS skuId,
-                   SUM(available_qty) AS availableQty,
-                   SUM(locked_qty) AS lockedQty,
-                   SUM(sold_qty) AS soldQty,
-                   COUNT(*) AS segmentCount,
-                   MAX(alert_threshold) AS alertThreshold,
-                   MAX(status) AS status,
-                   MIN(created_at) AS createdAt,
-                   MAX(updated_at) AS updatedAt
-            FROM stock_segment
-            WHERE deleted = 0
-              AND status = 1
-              AND sku_id IN
-              <foreach collection="skuIds" item="skuId" open="(" separator="," close=")">
-                #{skuId}
-              </foreach>
-            GROUP BY sku_id
+            WHERE sku_id > #{afterSkuId}
             ORDER BY sku_id ASC
-            </script>
+            LIMIT #{limit}
             """)
-  List<StockLedgerVO> listLedgersBySkuIds(@Param("skuIds") List<Long> skuIds);
+  List<Long> listSkuIdsAfter(@Param("afterSkuId") Long afterSkuId, @Param("limit") int limit);
 
   @InterceptorIgnore(illegalSql = "1")
   @Select(
@@ -76,43 +38,27 @@ public interface StockSegmentMapper extends BaseMapper<StockSegment> {
   @InterceptorIgnore(illegalSql = "1")
   @Select(
       """
-            SELECT sku_id AS skuId,
-                   SUM(available_qty) AS availableQty,
-                   SUM(locked_qty) AS lockedQty,
-                   SUM(sold_qty) AS soldQty,
-                   COUNT(*) AS segmentCount,
-                   MAX(alert_threshold) AS alertThreshold,
-                   MAX(status) AS status,
-                   MIN(created_at) AS createdAt,
-                   MAX(updated_at) AS updatedAt
+            <script>
+            SELECT DISTINCT sku_id
             FROM stock_segment
             WHERE deleted = 0
               AND status = 1
-            GROUP BY sku_id
-            HAVING SUM(available_qty) <= MAX(alert_threshold)
-            ORDER BY sku_id ASC
+              AND sku_id IN
+              <foreach collection="skuIds" item="skuId" open="(" separator="," close=")">
+                #{skuId}
+              </foreach>
+            </script>
             """)
-  IPage<StockLedgerVO> pageLowStockLedgers(IPage<StockLedgerVO> page);
+  List<Long> listActiveSkuIds(@Param("skuIds") List<Long> skuIds);
 
   @InterceptorIgnore(illegalSql = "1")
   @Select(
       """
-            SELECT sku_id AS skuId,
-                   SUM(available_qty) AS availableQty,
-                   SUM(locked_qty) AS lockedQty,
-                   SUM(sold_qty) AS soldQty,
-                   COUNT(*) AS segmentCount,
-                   MAX(alert_threshold) AS alertThreshold,
-                   MAX(status) AS status,
-                   MIN(created_at) AS createdAt,
-                   MAX(updated_at) AS updatedAt
+            SELECT MAX(segment_id)
             FROM stock_segment
-            WHERE deleted = 0
-              AND status = 1
-            GROUP BY sku_id
-            ORDER BY sku_id ASC
+            WHERE sku_id = #{skuId}
             """)
-  IPage<StockLedgerVO> pageActiveLedgers(IPage<StockLedgerVO> page);
+  Integer selectMaxSegmentId(@Param("skuId") Long skuId);
 
   @InterceptorIgnore(illegalSql = "1")
   @Update(
@@ -193,4 +139,143 @@ public interface StockSegmentMapper extends BaseMapper<StockSegment> {
             """)
   int sellDirectlyOnSegment(
       @Param("skuId") Long skuId, @Param("segmentId") Integer segmentId, @Param("qty") Integer qty);
+
+  @InterceptorIgnore(illegalSql = "1")
+  @Select(
+      """
+            <script>
+            SELECT *
+            FROM stock_segment
+            WHERE deleted = 0
+              AND status = 1
+              AND sku_id IN
+              <foreach collection="skuIds" item="skuId" open="(" separator="," close=")">
+                #{skuId}
+              </foreach>
+            ORDER BY sku_id ASC, segment_id ASC
+            FOR UPDATE
+            </script>
+            """)
+  List<StockSegment> lockActiveSegmentsBySkuIds(@Param("skuIds") List<Long> skuIds);
+
+  @InterceptorIgnore(illegalSql = "1")
+  @Update(
+      """
+            <script>
+            UPDATE stock_segment
+            SET available_qty = available_qty - CASE
+                <foreach collection="deltas" item="delta">
+                  WHEN sku_id = #{delta.skuId} AND segment_id = #{delta.segmentId} THEN #{delta.quantity}
+                </foreach>
+                ELSE 0 END,
+                locked_qty = locked_qty + CASE
+                <foreach collection="deltas" item="delta">
+                  WHEN sku_id = #{delta.skuId} AND segment_id = #{delta.segmentId} THEN #{delta.quantity}
+                </foreach>
+                ELSE 0 END,
+                updated_at = NOW()
+            WHERE deleted = 0
+              AND status = 1
+              AND (sku_id, segment_id) IN
+              <foreach collection="deltas" item="delta" open="(" separator="," close=")">
+                (#{delta.skuId}, #{delta.segmentId})
+              </foreach>
+              AND available_qty >= CASE
+                <foreach collection="deltas" item="delta">
+                  WHEN sku_id = #{delta.skuId} AND segment_id = #{delta.segmentId} THEN #{delta.quantity}
+                </foreach>
+                ELSE 0 END
+            </script>
+            """)
+  int reserveOnSegments(@Param("deltas") List<SegmentDelta> deltas);
+
+  @InterceptorIgnore(illegalSql = "1")
+  @Update(
+      """
+            <script>
+            UPDATE stock_segment
+            SET locked_qty = locked_qty - CASE
+                <foreach collection="deltas" item="delta">
+                  WHEN sku_id = #{delta.skuId} AND segment_id = #{delta.segmentId} THEN #{delta.quantity}
+                </foreach>
+                ELSE 0 END,
+                sold_qty = sold_qty + CASE
+                <foreach collection="deltas" item="delta">
+                  WHEN sku_id = #{delta.skuId} AND segment_id = #{delta.segmentId} THEN #{delta.quantity}
+                </foreach>
+                ELSE 0 END,
+                updated_at = NOW()
+            WHERE deleted = 0
+              AND status = 1
+              AND (sku_id, segment_id) IN
+              <foreach collection="deltas" item="delta" open="(" separator="," close=")">
+                (#{delta.skuId}, #{delta.segmentId})
+              </foreach>
+              AND locked_qty >= CASE
+                <foreach collection="deltas" item="delta">
+                  WHEN sku_id = #{delta.skuId} AND segment_id = #{delta.segmentId} THEN #{delta.quantity}
+                </foreach>
+                ELSE 0 END
+            </script>
+            """)
+  int confirmLockedOnSegments(@Param("deltas") List<SegmentDelta> deltas);
+
+  @InterceptorIgnore(illegalSql = "1")
+  @Update(
+      """
+            <script>
+            UPDATE stock_segment
+            SET locked_qty = locked_qty - CASE
+                <foreach collection="deltas" item="delta">
+                  WHEN sku_id = #{delta.skuId} AND segment_id = #{delta.segmentId} THEN #{delta.quantity}
+                </foreach>
+                ELSE 0 END,
+                available_qty = available_qty + CASE
+                <foreach collection="deltas" item="delta">
+                  WHEN sku_id = #{delta.skuId} AND segment_id = #{delta.segmentId} THEN #{delta.quantity}
+                </foreach>
+                ELSE 0 END,
+                updated_at = NOW()
+            WHERE deleted = 0
+              AND status = 1
+              AND (sku_id, segment_id) IN
+              <foreach collection="deltas" item="delta" open="(" separator="," close=")">
+                (#{delta.skuId}, #{delta.segmentId})
+              </foreach>
+              AND locked_qty >= CASE
+                <foreach collection="deltas" item="delta">
+                  WHEN sku_id = #{delta.skuId} AND segment_id = #{delta.segmentId} THEN #{delta.quantity}
+                </foreach>
+                ELSE 0 END
+            </script>
+            """)
+  int releaseOnSegments(@Param("deltas") List<SegmentDelta> deltas);
+
+  @InterceptorIgnore(illegalSql = "1")
+  @Update(
+      """
+            <script>
+            UPDATE stock_segment
+            SET available_qty = available_qty + CASE
+                <foreach collection="deltas" item="delta">
+                  WHEN sku_id = #{delta.skuId} AND segment_id = #{delta.segmentId} THEN #{delta.quantity}
+                </foreach>
+                ELSE 0 END,
+                updated_at = NOW()
+            WHERE deleted = 0
+              AND status = 1
+              AND (sku_id, segment_id) IN
+              <foreach collection="deltas" item="delta" open="(" separator="," close=")">
+                (#{delta.skuId}, #{delta.segmentId})
+              </foreach>
+              AND available_qty + CASE
+                <foreach collection="deltas" item="delta">
+                  WHEN sku_id = #{delta.skuId} AND segment_id = #{delta.segmentId} THEN #{delta.quantity}
+                </foreach>
+                ELSE 0 END >= 0
+            </script>
+            """)
+  int adjustAvailableOnSegments(@Param("deltas") List<SegmentDelta> deltas);
+
+  record SegmentDelta(Long skuId, Integer segmentId, Integer quantity) {}
 }
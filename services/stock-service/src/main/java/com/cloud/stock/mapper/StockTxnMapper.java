@@ -1,8 +1,32 @@
 package com.cloud.stock.mapper;
 
+import com.baomidou.mybatisplus.annotation.InterceptorIgnore;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.cloud.stock.module.entity.StockTxn;
+import java.util.List;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 
 @Mapper
-public interface StockTxnMapper extends BaseMapper<StockTxn> {}
+public interface StockTxnMapper extends BaseMapper<StockTxn> {
+
+  @InterceptorIgnore(illegalSql = "1")
+  @Insert(
+      """
+            <script>
+            INSERT IGNORE INTO stock_txn
+              (id, sku_id, segment_id, sub_order_no, txn_type, quantity,
+               before_available, after_available, before_locked, after_locked,
+               before_sold, after_sold, remark, created_at, updated_at, deleted, version)
+            VALUES
+            <foreach collection="txns" item="txn" separator=",">
+              (#{txn.id}, #{txn.skuId}, #{txn.segmentId}, #{txn.subOrderNo}, #{txn.txnType},
+               #{txn.quantity}, #{txn.beforeAvailable}, #{txn.afterAvailable},
+               #{txn.beforeLocked}, #{txn.afterLocked}, #{txn.beforeSold}, #{txn.afterSold},
+               #{txn.remark}, #{txn.createdAt}, #{txn.createdAt}, 0, 0)
+            </foreach>
+            </script>
+            """)
+  int insertIgnoreBatch(@Param("txns") List<StockTxn> txns);
+}
@@ -1,7 +1,7 @@
 package com.cloud.stock.messaging;
 
-import com.cloud.common.messaging.event.ProductSyncEvent;
 import com.cloud.common.messaging.event.StockAlertEvent;
+import com.cloud.common.messaging.event.StockChangedEvent;
 import com.cloud.common.messaging.event.StockFreezeFailedEvent;
 import com.cloud.common.messaging.event.StockReservedEvent;
 import com.cloud.common.messaging.outbox.OutboxEventService;
@@ -107,14 +107,14 @@ public class StockMessageProducer {
   }
 
   @Transactional(rollbackFor = Exception.class)
-  public boolean sendProductSyncEvent(ProductSyncEvent event) {
-    if (event == null || event.getSpuId() == null) {
-      log.warn("Skip product-sync event: spuId missing");
+  public boolean sendStockChangedEvent(StockChangedEvent event) {
+    if (event == null || event.getItems() == null || event.getItems().isEmpty()) {
+      log.warn("Skip stock-changed event: items missing");
       return false;
     }
     try {
       if (!StringUtils.hasText(event.getEventType())) {
-        event.setEventType("PRODUCT_UPSERT");
+        event.setEventType("STOCK_CHANGED");
       }
       if (!StringUtils.hasText(event.getEventId())) {
         event.setEventId(UUID.randomUUID().toString());
@@ -124,15 +124,11 @@ public class StockMessageProducer {
       }
       String payload = objectMapper.writeValueAsString(event);
       outboxEventService.enqueue(
-          "STOCK",
-          String.valueOf(event.getSpuId()),
-          event.getEventType(),
-          payload,
-          event.getEventId());
+          "STOCK", event.getEventId(), event.getEventType(), payload, event.getEventId());
       stockOutboxDispatcher.dispatchAfterCommit();
       return true;
     } catch (Exception ex) {
-      log.warn("Send product-sync event failed: spuId={}", event.getSpuId(), ex);
+      log.warn("Send stock-changed event failed: items={}", event.getItems().size(), ex);
       return false;
     }
   }
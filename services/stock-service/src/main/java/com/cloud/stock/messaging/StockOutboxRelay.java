@@ -2,6 +2,7 @@ package com.cloud.stock.messaging;
 
 import com.cloud.common.messaging.event.ProductSyncEvent;
 import com.cloud.common.messaging.event.StockAlertEvent;
+import com.cloud.common.messaging.event.StockChangedEvent;
 import com.cloud.common.messaging.event.StockFreezeFailedEvent;
 import com.cloud.common.messaging.event.StockReservedEvent;
 import com.cloud.common.messaging.outbox.AbstractOutboxRelay;
@@ -45,6 +46,7 @@ public class StockOutboxRelay extends AbstractOutboxRelay {
       case "STOCK_FREEZE_FAILED" -> sendStockFreezeFailed(event);
       case "STOCK_ALERT" -> sendStockAlert(event);
       case "PRODUCT_UPSERT" -> sendProductSync(event);
+      case "STOCK_CHANGED" -> sendStockChanged(event);
       default -> {
         log.warn(
             "Unknown outbox event type: eventId={}, eventType={}", event.getEventId(), eventType);
@@ -96,4 +98,15 @@ public class StockOutboxRelay extends AbstractOutboxRelay {
         payload.getEventId(),
         payload.getEventType());
   }
+
+  private boolean sendStockChanged(OutboxEvent event) throws Exception {
+    StockChangedEvent payload = readPayload(event, StockChangedEvent.class);
+    return sendMessage(
+        "productSyncProducer-out-0",
+        payload,
+        payload.getEventId(),
+        "STOCK_CHANGED",
+        payload.getEventId(),
+        payload.getEventType());
+  }
 }
@@ -44,6 +44,21 @@ public class StockLedgerDubboService implements StockDubboApi {
     return stockLedgerService.release(command);
   }
 
+  @Override
+  public Boolean reserveBatch(List<StockOperateCommandDTO> commands) {
+    return stockLedgerService.reserveBatch(commands);
+  }
+
+  @Override
+  public Boolean confirmBatch(List<StockOperateCommandDTO> commands) {
+    return stockLedgerService.confirmBatch(commands);
+  }
+
+  @Override
+  public Boolean releaseBatch(List<StockOperateCommandDTO> commands) {
+    return stockLedgerService.releaseBatch(commands);
+  }
+
   @Override
   public Boolean rollback(StockOperateCommandDTO command) {
     return stockLedgerService.rollback(command);
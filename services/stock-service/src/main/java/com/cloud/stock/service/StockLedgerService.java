@@ -18,6 +18,12 @@ public interface StockLedgerService {
 
   Boolean release(StockOperateCommandDTO command);
 
+  Boolean reserveBatch(List<StockOperateCommandDTO> commands);
+
+  Boolean confirmBatch(List<StockOperateCommandDTO> commands);
+
+  Boolean releaseBatch(List<StockOperateCommandDTO> commands);
+
   Boolean rollback(StockOperateCommandDTO command);
 
   Boolean rollbackBatch(List<StockOperateCommandDTO> commands);
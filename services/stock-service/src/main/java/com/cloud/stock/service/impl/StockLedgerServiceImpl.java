@@ -2,21 +2,34 @@ package com.cloud.stock.service.impl;
 
 import com.cloud.common.domain.dto.stock.StockOperateCommandDTO;
 import com.cloud.common.domain.vo.stock.StockLedgerVO;
+import com.cloud.common.enums.ResultCode;
 import com.cloud.common.exception.BizException;
+import com.cloud.common.exception.SystemException;
 import com.cloud.common.metrics.TradeMetrics;
+import com.cloud.stock.mapper.StockLedgerSummaryMapper;
 import com.cloud.stock.mapper.StockReservationMapper;
 import com.cloud.stock.mapper.StockSegmentMapper;
+import com.cloud.stock.mapper.StockSegmentMapper.SegmentDelta;
 import com.cloud.stock.messaging.StockMessageProducer;
 import com.cloud.stock.module.entity.StockReservation;
 import com.cloud.stock.module.entity.StockSegment;
 import com.cloud.stock.module.entity.StockTxn;
 import com.cloud.stock.service.StockLedgerService;
+import com.cloud.stock.service.support.StockLedgerSummaryService;
 import com.cloud.stock.service.support.StockRedisCacheService;
+import com.cloud.stock.service.support.StockRedisReservationService;
 import com.cloud.stock.service.support.StockSearchSyncService;
+import com.cloud.stock.service.support.StockSegmentManager;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -28,14 +41,20 @@ public class StockLedgerServiceImpl implements StockLedgerService {
   private static final String STATUS_LOCKED = "LOCKED";
   private static final String STATUS_SOLD = "SOLD";
   private static final String STATUS_RELEASED = "RELEASED";
+  private static final Comparator<SegmentKey> SEGMENT_ORDER =
+      Comparator.comparing(SegmentKey::skuId).thenComparing(SegmentKey::segmentId);
 
   private final StockSegmentMapper stockSegmentMapper;
+  private final StockLedgerSummaryMapper stockLedgerSummaryMapper;
   private final StockReservationMapper stockReservationMapper;
   private final StockTxnAsyncWriter stockTxnAsyncWriter;
   private final StockMessageProducer stockMessageProducer;
   private final TradeMetrics tradeMetrics;
   private final StockRedisCacheService stockRedisCacheService;
   private final StockSearchSyncService stockSearchSyncService;
+  private final StockRedisReservationService stockRedisReservationService;
+  private final StockSegmentManager stockSegmentManager;
+  private final StockLedgerSummaryService stockLedgerSummaryService;
 
   @Override
   public StockLedgerVO getLedgerBySkuId(Long skuId) {
@@ -56,7 +75,7 @@ public class StockLedgerServiceImpl implements StockLedgerService {
     if (safeSkuIds.isEmpty()) {
       return List.of();
     }
-    return stockSegmentMapper.listLedgersBySkuIds(safeSkuIds);
+    return stockLedgerSummaryMapper.listLedgersBySkuIds(safeSkuIds);
   }
 
   @Override
@@ -68,6 +87,9 @@ public class StockLedgerServiceImpl implements StockLedgerService {
   @Transactional(rollbackFor = Exception.class)
   public Boolean reserve(StockOperateCommandDTO command) {
     validateCommand(command);
+    if (stockRedisReservationService.isEnabled()) {
+      return reserveInRedis(command);
+    }
     try {
       if (!Boolean.TRUE.equals(preCheck(List.of(command)))) {
         throw new BizException("insufficient available stock");
@@ -84,19 +106,25 @@ public class StockLedgerServiceImpl implements StockLedgerService {
 
       List<SegmentAllocation> allocations = allocate(command);
       for (SegmentAllocation allocation : allocations) {
-        StockReservation reservation = new StockReservation();
-        reservation.setMainOrderNo(command.getOrderNo());
-        reservation.setSubOrderNo(command.getSubOrderNo());
-        reservation.setSkuId(command.getSkuId());
-        reservation.setSegmentId(allocation.segmentId());
-        reservation.setQuantity(allocation.quantity());
-        reservation.setStatus(STATUS_LOCKED);
-        reservation.setIdempotencyKey(buildIdempotencyKey(command, allocation.segmentId()));
-        stockReservationMapper.insert(reservation);
+        stockReservationMapper.insert(buildReservation(command, allocation));
         writeTxn(command, allocation, "RESERVE", command.getReason());
       }
       stockRedisCacheService.evictLedgerAfterCommit(command.getSkuId());
-      stockSearchSyncService.syncProductsBySkuIds(List.of(command.getSkuId()));
+      stockSearchSyncService.recordStockChange(command.getSkuId(), -command.getQuantity(), 0);
+      stockLedgerSummaryService.recordDelta(
+          command.getSkuId(), -command.getQuantity(), command.getQuantity(), 0);
+      tradeMetrics.incrementStockFreeze("success");
+      return true;
+    } catch (Exception ex) {
+      tradeMetrics.incrementStockFreeze("failed");
+      handleReserveFailure(command, ex);
+      throw ex;
+    }
+  }
+
+  private Boolean reserveInRedis(StockOperateCommandDTO command) {
+    try {
+      stockRedisReservationService.reserve(command);
       tradeMetrics.incrementStockFreeze("success");
       return true;
     } catch (Exception ex) {
@@ -114,6 +142,7 @@ public class StockLedgerServiceImpl implements StockLedgerService {
     if (allMatchStatus(reservations, STATUS_SOLD)) {
       return true;
     }
+    int confirmedQty = 0;
     for (StockReservation reservation : reservations) {
       if (STATUS_SOLD.equals(reservation.getStatus())) {
         continue;
@@ -130,6 +159,7 @@ public class StockLedgerServiceImpl implements StockLedgerService {
       }
       reservation.setStatus(STATUS_SOLD);
       stockReservationMapper.updateById(reservation);
+      confirmedQty += reservation.getQuantity();
       writeTxn(
           command,
           reservation.getSegmentId(),
@@ -138,7 +168,8 @@ public class StockLedgerServiceImpl implements StockLedgerService {
           command.getReason());
     }
     stockRedisCacheService.evictLedgerAfterCommit(command.getSkuId());
-    stockSearchSyncService.syncProductsBySkuIds(List.of(command.getSkuId()));
+    stockSearchSyncService.recordStockChange(command.getSkuId(), 0, confirmedQty);
+    stockLedgerSummaryService.recordDelta(command.getSkuId(), 0, -confirmedQty, confirmedQty);
     return true;
   }
 
@@ -169,6 +200,8 @@ public class StockLedgerServiceImpl implements StockLedgerService {
         }
         reservation.setStatus(STATUS_RELEASED);
         stockReservationMapper.updateById(reservation);
+        stockRedisReservationService.restoreAfterCommit(
+            reservation.getSkuId(), reservation.getSegmentId(), reservation.getQuantity());
         releasedQty += reservation.getQuantity();
         writeTxn(
             command,
@@ -179,7 +212,8 @@ public class StockLedgerServiceImpl implements StockLedgerService {
       }
       if (releasedQty > 0) {
         stockRedisCacheService.evictLedgerAfterCommit(command.getSkuId());
-        stockSearchSyncService.syncProductsBySkuIds(List.of(command.getSkuId()));
+        stockSearchSyncService.recordStockChange(command.getSkuId(), releasedQty, 0);
+        stockLedgerSummaryService.recordDelta(command.getSkuId(), releasedQty, -releasedQty, 0);
       }
       tradeMetrics.incrementStockRelease("success");
       return true;
@@ -189,6 +223,161 @@ public class StockLedgerServiceImpl implements StockLedgerService {
     }
   }
 
+  @Override
+  @Transactional(rollbackFor = Exception.class)
+  public Boolean reserveBatch(List<StockOperateCommandDTO> commands) {
+    List<StockOperateCommandDTO> safeCommands = validateBatch(commands);
+    if (safeCommands.isEmpty()) {
+      return true;
+    }
+    if (stockRedisReservationService.isEnabled()) {
+      for (StockOperateCommandDTO command : safeCommands) {
+        reserveInRedis(command);
+      }
+      return true;
+    }
+    try {
+      if (!Boolean.TRUE.equals(preCheck(safeCommands))) {
+        throw new BizException("insufficient available stock");
+      }
+      Map<String, List<StockReservation>> existingByKey = groupReservations(safeCommands, null);
+      List<StockOperateCommandDTO> pending = new ArrayList<>();
+      for (StockOperateCommandDTO command : safeCommands) {
+        List<StockReservation> existing =
+            existingByKey.getOrDefault(reservationKey(command), List.of());
+        if (isReserveCompleted(existing, command)) {
+          continue;
+        }
+        if (!existing.isEmpty()) {
+          throw new BizException(
+              "reservation already exists for subOrderNo=" + command.getSubOrderNo());
+        }
+        pending.add(command);
+      }
+      if (!pending.isEmpty()) {
+        applyReserveBatch(pending);
+      }
+      safeCommands.forEach(command -> tradeMetrics.incrementStockFreeze("success"));
+      return true;
+    } catch (Exception ex) {
+      Set<String> notifiedOrderNos = new HashSet<>();
+      for (StockOperateCommandDTO command : safeCommands) {
+        tradeMetrics.incrementStockFreeze("failed");
+        if (notifiedOrderNos.add(command.getOrderNo())) {
+          handleReserveFailure(command, ex);
+        }
+      }
+      throw ex;
+    }
+  }
+
+  @Override
+  @Transactional(rollbackFor = Exception.class)
+  public Boolean confirmBatch(List<StockOperateCommandDTO> commands) {
+    List<StockOperateCommandDTO> safeCommands = validateBatch(commands);
+    if (safeCommands.isEmpty()) {
+      return true;
+    }
+    Map<String, List<StockReservation>> reservationsByKey =
+        groupReservations(safeCommands, List.of(STATUS_LOCKED, STATUS_SOLD));
+    List<StockReservation> confirming = new ArrayList<>();
+    Map<Long, Integer> confirmedBySku = new LinkedHashMap<>();
+    for (StockOperateCommandDTO command : safeCommands) {
+      for (StockReservation reservation :
+          checkReservations(
+              command, reservationsByKey.getOrDefault(reservationKey(command), List.of()))) {
+        if (STATUS_SOLD.equals(reservation.getStatus())) {
+          continue;
+        }
+        if (!STATUS_LOCKED.equals(reservation.getStatus())) {
+          throw new BizException(
+              "reservation status invalid for confirm: " + reservation.getStatus());
+        }
+        confirming.add(reservation);
+        confirmedBySku.merge(reservation.getSkuId(), reservation.getQuantity(), Integer::sum);
+        writeTxn(
+            command,
+            reservation.getSegmentId(),
+            reservation.getQuantity(),
+            "CONFIRM",
+            command.getReason());
+      }
+    }
+    if (confirming.isEmpty()) {
+      return true;
+    }
+    List<SegmentDelta> deltas = aggregateSegmentDeltas(confirming);
+    if (stockSegmentMapper.confirmLockedOnSegments(deltas) != deltas.size()) {
+      throw new BizException("confirm stock failed");
+    }
+    stockReservationMapper.updateStatusByIds(sortedIds(confirming), STATUS_SOLD);
+    stockRedisCacheService.evictLedgersAfterCommit(confirmedBySku.keySet());
+    confirmedBySku.forEach(
+        (skuId, qty) -> {
+          stockSearchSyncService.recordStockChange(skuId, 0, qty);
+          stockLedgerSummaryService.recordDelta(skuId, 0, -qty, qty);
+        });
+    return true;
+  }
+
+  @Override
+  @Transactional(rollbackFor = Exception.class)
+  public Boolean releaseBatch(List<StockOperateCommandDTO> commands) {
+    List<StockOperateCommandDTO> safeCommands = validateBatch(commands);
+    if (safeCommands.isEmpty()) {
+      return true;
+    }
+    try {
+      Map<String, List<StockReservation>> reservationsByKey =
+          groupReservations(safeCommands, List.of(STATUS_LOCKED, STATUS_RELEASED));
+      List<StockReservation> releasing = new ArrayList<>();
+      Map<Long, Integer> releasedBySku = new LinkedHashMap<>();
+      for (StockOperateCommandDTO command : safeCommands) {
+        for (StockReservation reservation :
+            checkReservations(
+                command, reservationsByKey.getOrDefault(reservationKey(command), List.of()))) {
+          if (STATUS_RELEASED.equals(reservation.getStatus())) {
+            continue;
+          }
+          if (!STATUS_LOCKED.equals(reservation.getStatus())) {
+            throw new BizException(
+                "reservation status invalid for release: " + reservation.getStatus());
+          }
+          releasing.add(reservation);
+          releasedBySku.merge(reservation.getSkuId(), reservation.getQuantity(), Integer::sum);
+          writeTxn(
+              command,
+              reservation.getSegmentId(),
+              reservation.getQuantity(),
+              "RELEASE",
+              command.getReason());
+        }
+      }
+      if (!releasing.isEmpty()) {
+        List<SegmentDelta> deltas = aggregateSegmentDeltas(releasing);
+        if (stockSegmentMapper.releaseOnSegments(deltas) != deltas.size()) {
+          throw new BizException("release stock failed");
+        }
+        stockReservationMapper.updateStatusByIds(sortedIds(releasing), STATUS_RELEASED);
+        for (StockReservation reservation : releasing) {
+          stockRedisReservationService.restoreAfterCommit(
+              reservation.getSkuId(), reservation.getSegmentId(), reservation.getQuantity());
+        }
+        stockRedisCacheService.evictLedgersAfterCommit(releasedBySku.keySet());
+        releasedBySku.forEach(
+            (skuId, qty) -> {
+              stockSearchSyncService.recordStockChange(skuId, qty, 0);
+              stockLedgerSummaryService.recordDelta(skuId, qty, -qty, 0);
+            });
+      }
+      safeCommands.forEach(command -> tradeMetrics.incrementStockRelease("success"));
+      return true;
+    } catch (Exception ex) {
+      tradeMetrics.incrementStockRelease("failed");
+      throw ex;
+    }
+  }
+
   @Override
   @Transactional(rollbackFor = Exception.class)
   public Boolean rollback(StockOperateCommandDTO command) {
@@ -250,6 +439,8 @@ public class StockLedgerServiceImpl implements StockLedgerService {
         throw new BizException(
             "reservation status invalid for rollback: " + reservation.getStatus());
       }
+      stockRedisReservationService.restoreAfterCommit(
+          reservation.getSkuId(), reservation.getSegmentId(), movable);
       remaining -= movable;
       reservation.setQuantity(reservation.getQuantity() - movable);
       if (defaultZero(reservation.getQuantity()) == 0) {
@@ -264,9 +455,13 @@ public class StockLedgerServiceImpl implements StockLedgerService {
     }
     if (restoredFromLocked > 0 || restoredFromSold > 0) {
       stockRedisCacheService.evictLedgerAfterCommit(command.getSkuId());
-    }
-    if (restoredFromLocked > 0 || restoredFromSold > 0) {
-      stockSearchSyncService.syncProductsBySkuIds(List.of(command.getSkuId()));
+      stockSearchSyncService.recordStockChange(
+          command.getSkuId(), restoredFromLocked + restoredFromSold, -restoredFromSold);
+      stockLedgerSummaryService.recordDelta(
+          command.getSkuId(),
+          restoredFromLocked + restoredFromSold,
+          -restoredFromLocked,
+          -restoredFromSold);
     }
   }
 
@@ -275,29 +470,55 @@ public class StockLedgerServiceImpl implements StockLedgerService {
     if (segments == null || segments.isEmpty()) {
       throw new BizException("stock segment not found for skuId=" + command.getSkuId());
     }
-    List<StockSegment> orderedSegments = reorderSegments(segments, command.getSubOrderNo());
+    Map<Integer, Integer> planned = new LinkedHashMap<>();
     int remaining = command.getQuantity();
-    List<SegmentAllocation> allocations = new ArrayList<>();
-    for (StockSegment segment : orderedSegments) {
-      int available = defaultZero(segment.getAvailableQty());
-      if (available <= 0) {
-        continue;
-      }
-      int take = Math.min(remaining, available);
+    for (StockSegment segment : reorderSegments(segments, command.getSubOrderNo())) {
+      int take = Math.min(remaining, defaultZero(segment.getAvailableQty()));
       if (take <= 0) {
         continue;
       }
-      int updated =
-          stockSegmentMapper.reserveOnSegment(command.getSkuId(), segment.getSegmentId(), take);
-      if (updated != 1) {
-        continue;
-      }
-      allocations.add(new SegmentAllocation(segment.getSegmentId(), take));
+      planned.put(segment.getSegmentId(), take);
       remaining -= take;
       if (remaining == 0) {
         break;
       }
     }
+    // The rotated plan spreads load across segments, but rows are updated in segment_id order so
+    // concurrent reserves on one SKU always lock in the same order. A conflict can only spill its
+    // shortfall onto segments that come later in that order.
+    List<StockSegment> lockOrder = new ArrayList<>(segments);
+    lockOrder.sort(Comparator.comparing(StockSegment::getSegmentId));
+    List<SegmentAllocation> allocations = new ArrayList<>();
+    int attempts = 0;
+    int conflicts = 0;
+    long startNanos = System.nanoTime();
+    try {
+      for (StockSegment segment : lockOrder) {
+        int take = planned.getOrDefault(segment.getSegmentId(), 0);
+        if (remaining > 0) {
+          int spill = Math.min(remaining, defaultZero(segment.getAvailableQty()) - take);
+          if (spill > 0) {
+            take += spill;
+            remaining -= spill;
+          }
+        }
+        if (take <= 0) {
+          continue;
+        }
+        attempts++;
+        int updated =
+            stockSegmentMapper.reserveOnSegment(command.getSkuId(), segment.getSegmentId(), take);
+        if (updated != 1) {
+          conflicts++;
+          remaining += take;
+          continue;
+        }
+        allocations.add(new SegmentAllocation(segment.getSegmentId(), take));
+      }
+    } finally {
+      stockSegmentManager.recordReserve(
+          command.getSkuId(), attempts, conflicts, System.nanoTime() - startNanos);
+    }
     if (remaining > 0) {
       throw new BizException("insufficient available stock");
     }
@@ -325,6 +546,130 @@ public class StockLedgerServiceImpl implements StockLedgerService {
     return ordered;
   }
 
+  private void applyReserveBatch(List<StockOperateCommandDTO> commands) {
+    List<Long> skuIds =
+        commands.stream().map(StockOperateCommandDTO::getSkuId).distinct().sorted().toList();
+    long startNanos = System.nanoTime();
+    Map<Long, List<StockSegment>> segmentsBySku =
+        stockSegmentMapper.lockActiveSegmentsBySkuIds(skuIds).stream()
+            .collect(Collectors.groupingBy(StockSegment::getSkuId));
+    long lockWaitNanos = System.nanoTime() - startNanos;
+    skuIds.forEach(skuId -> stockSegmentManager.recordReserve(skuId, 1, 0, lockWaitNanos));
+    List<StockReservation> reservations = new ArrayList<>();
+    Map<Long, Integer> reservedBySku = new LinkedHashMap<>();
+    for (StockOperateCommandDTO command : commands) {
+      List<StockSegment> segments = segmentsBySku.get(command.getSkuId());
+      if (segments == null || segments.isEmpty()) {
+        throw new BizException("stock segment not found for skuId=" + command.getSkuId());
+      }
+      for (SegmentAllocation allocation : allocateOnLockedSegments(command, segments)) {
+        reservations.add(buildReservation(command, allocation));
+        writeTxn(command, allocation, "RESERVE", command.getReason());
+      }
+      reservedBySku.merge(command.getSkuId(), command.getQuantity(), Integer::sum);
+    }
+    List<SegmentDelta> deltas = aggregateSegmentDeltas(reservations);
+    if (stockSegmentMapper.reserveOnSegments(deltas) != deltas.size()) {
+      throw new BizException("insufficient available stock");
+    }
+    stockReservationMapper.insert(reservations);
+    stockRedisCacheService.evictLedgersAfterCommit(reservedBySku.keySet());
+    reservedBySku.forEach(
+        (skuId, qty) -> {
+          stockSearchSyncService.recordStockChange(skuId, -qty, 0);
+          stockLedgerSummaryService.recordDelta(skuId, -qty, qty, 0);
+        });
+  }
+
+  private List<SegmentAllocation> allocateOnLockedSegments(
+      StockOperateCommandDTO command, List<StockSegment> segments) {
+    int remaining = command.getQuantity();
+    List<SegmentAllocation> allocations = new ArrayList<>();
+    for (StockSegment segment : reorderSegments(segments, command.getSubOrderNo())) {
+      int available = defaultZero(segment.getAvailableQty());
+      int take = Math.min(remaining, available);
+      if (take <= 0) {
+        continue;
+      }
+      segment.setAvailableQty(available - take);
+      allocations.add(new SegmentAllocation(segment.getSegmentId(), take));
+      remaining -= take;
+      if (remaining == 0) {
+        break;
+      }
+    }
+    if (remaining > 0) {
+      throw new BizException("insufficient available stock");
+    }
+    return allocations;
+  }
+
+  private List<SegmentDelta> aggregateSegmentDeltas(List<StockReservation> reservations) {
+    Map<SegmentKey, Integer> deltas = new TreeMap<>(SEGMENT_ORDER);
+    for (StockReservation reservation : reservations) {
+      deltas.merge(
+          new SegmentKey(reservation.getSkuId(), reservation.getSegmentId()),
+          reservation.getQuantity(),
+          Integer::sum);
+    }
+    return deltas.entrySet().stream()
+        .map(
+            entry ->
+                new SegmentDelta(
+                    entry.getKey().skuId(), entry.getKey().segmentId(), entry.getValue()))
+        .toList();
+  }
+
+  private StockReservation buildReservation(
+      StockOperateCommandDTO command, SegmentAllocation allocation) {
+    StockReservation reservation = new StockReservation();
+    reservation.setMainOrderNo(command.getOrderNo());
+    reservation.setSubOrderNo(command.getSubOrderNo());
+    reservation.setSkuId(command.getSkuId());
+    reservation.setSegmentId(allocation.segmentId());
+    reservation.setQuantity(allocation.quantity());
+    reservation.setStatus(STATUS_LOCKED);
+    reservation.setIdempotencyKey(buildIdempotencyKey(command, allocation.segmentId()));
+    return reservation;
+  }
+
+  private List<Long> sortedIds(List<StockReservation> reservations) {
+    return reservations.stream().map(StockReservation::getId).sorted().toList();
+  }
+
+  private Map<String, List<StockReservation>> groupReservations(
+      List<StockOperateCommandDTO> commands, List<String> statuses) {
+    List<String> subOrderNos =
+        commands.stream().map(StockOperateCommandDTO::getSubOrderNo).distinct().toList();
+    List<StockReservation> reservations =
+        stockReservationMapper.listActiveBySubOrderNos(subOrderNos, statuses);
+    if (reservations == null) {
+      return Map.of();
+    }
+    return reservations.stream()
+        .collect(
+            Collectors.groupingBy(
+                reservation -> reservation.getSubOrderNo() + ":" + reservation.getSkuId()));
+  }
+
+  private String reservationKey(StockOperateCommandDTO command) {
+    return command.getSubOrderNo() + ":" + command.getSkuId();
+  }
+
+  private List<StockOperateCommandDTO> validateBatch(List<StockOperateCommandDTO> commands) {
+    if (commands == null || commands.isEmpty()) {
+      return List.of();
+    }
+    // A redelivered command repeats its subOrderNo:skuId key; the first one wins and the
+    // repeats are no-ops, matching what the single-command path does on a second delivery.
+    Map<String, StockOperateCommandDTO> unique = new LinkedHashMap<>();
+    for (StockOperateCommandDTO command : commands) {
+      validateCommand(command);
+      unique.putIfAbsent(reservationKey(command), command);
+    }
+    return new ArrayList<>(unique.values());
+  }
+
   private List<StockReservation> listReservations(StockOperateCommandDTO command) {
     List<StockReservation> reservations =
         stockReservationMapper.listActiveBySubOrderNoAndSkuId(
@@ -333,8 +678,17 @@ public class StockLedgerServiceImpl implements StockLedgerService {
   }
 
   private List<StockReservation> requireReservations(StockOperateCommandDTO command) {
-    List<StockReservation> reservations = listReservations(command);
+    return checkReservations(command, listReservations(command));
+  }
+
+  private List<StockReservation> checkReservations(
+      StockOperateCommandDTO command, List<StockReservation> reservations) {
     if (reservations.isEmpty()) {
+      if (stockRedisReservationService.isUnflushed(command.getSubOrderNo(), command.getSkuId())) {
+        throw new SystemException(
+            ResultCode.SYSTEM_BUSY,
+            "stock reservation not yet persisted for subOrderNo=" + command.getSubOrderNo());
+      }
       throw new BizException("stock reservation not found");
     }
     int totalQuantity =
@@ -423,4 +777,6 @@ public class StockLedgerServiceImpl implements StockLedgerService {
   }
 
   private record SegmentAllocation(Integer segmentId, Integer quantity) {}
+
+  private record SegmentKey(Long skuId, Integer segmentId) {}
 }
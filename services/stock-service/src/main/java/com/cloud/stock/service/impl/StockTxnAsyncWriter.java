@@ -1,17 +1,537 @@
 package com.cloud.stock.service.impl;
 
+import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
 import com.cloud.stock.mapper.StockTxnMapper;
 import com.cloud.stock.module.entity.StockTxn;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
-public class StockTxnAsyncWriter {
+public class StockTxnAsyncWriter implements InitializingBean, DisposableBean {
+
+  private static final String SEGMENT_PREFIX = "stock-txn-";
+  private static final String SEGMENT_SUFFIX = ".wal";
+  private static final int WAL_APPEND_ATTEMPTS = 3;
+  private static final String ABORT_PREFIX = "ABORT ";
 
   private final StockTxnMapper stockTxnMapper;
+  private final IdentifierGenerator identifierGenerator;
+  private final ObjectMapper objectMapper;
+  private final MeterRegistry meterRegistry;
+
+  private final Queue<Entry> buffer = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger buffered = new AtomicInteger();
+  private final AtomicReference<Segment> activeSegment = new AtomicReference<>();
+  private final Queue<Segment> retiredSegments = new ConcurrentLinkedQueue<>();
+  private final AtomicLong segmentSequence = new AtomicLong();
+
+  @Value("${stock.txn.journal.async-enabled:false}")
+  private boolean asyncEnabled;
+
+  @Value("${stock.txn.journal.buffer-capacity:8192}")
+  private int bufferCapacity;
+
+  @Value("${stock.txn.journal.batch-size:500}")
+  private int batchSize;
+
+  @Value("${stock.txn.journal.flush-interval-ms:200}")
+  private long flushIntervalMs;
+
+  @Value("${stock.txn.journal.wal-dir:}")
+  private String walDir;
+
+  @Value("${stock.txn.journal.segment-max-bytes:8388608}")
+  private long segmentMaxBytes;
+
+  @Value("${stock.txn.journal.segment-max-age-ms:60000}")
+  private long segmentMaxAgeMs;
+
+  private volatile boolean running;
+  private Path walPath;
+  private Thread flusher;
+  private Counter flushedCounter;
+  private Counter flushFailedCounter;
+  private Counter overflowCounter;
+  private Counter walFailedCounter;
+  private Counter replayedCounter;
+  private Timer flushTimer;
 
   public void write(StockTxn txn) {
-    stockTxnMapper.insert(txn);
+    if (txn == null) {
+      return;
+    }
+    if (!asyncEnabled) {
+      stockTxnMapper.insert(txn);
+      return;
+    }
+    if (txn.getId() == null) {
+      txn.setId(identifierGenerator.nextId(txn).longValue());
+    }
+    if (txn.getCreatedAt() == null) {
+      txn.setCreatedAt(LocalDateTime.now());
+    }
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      currentJournal().txns.add(txn);
+      return;
+    }
+    Segment segment = appendToWal(List.of(txn));
+    if (segment == null) {
+      stockTxnMapper.insert(txn);
+      return;
+    }
+    enqueue(txn, segment);
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    if (!asyncEnabled) {
+      return;
+    }
+    flushedCounter = meterRegistry.counter("stock.txn.journal.flushed");
+    flushFailedCounter = meterRegistry.counter("stock.txn.journal.flush.failed");
+    overflowCounter = meterRegistry.counter("stock.txn.journal.overflow");
+    walFailedCounter = meterRegistry.counter("stock.txn.journal.wal.failed");
+    replayedCounter = meterRegistry.counter("stock.txn.journal.replayed");
+    flushTimer = meterRegistry.timer("stock.txn.journal.flush.latency");
+    Gauge.builder("stock.txn.journal.buffer.size", buffered, AtomicInteger::get)
+        .register(meterRegistry);
+    Gauge.builder("stock.txn.journal.wal.retired", retiredSegments, Queue::size)
+        .register(meterRegistry);
+
+    if (walDir == null || walDir.isBlank()) {
+      throw new IllegalStateException(
+          "stock.txn.journal.wal-dir must point at a durable directory when the async journal is"
+              + " enabled");
+    }
+    try {
+      walPath = Path.of(walDir);
+      Files.createDirectories(walPath);
+      recoverSegments();
+      activeSegment.set(openSegment());
+    } catch (IOException ex) {
+      throw new IllegalStateException("Stock txn WAL directory unavailable: " + walDir, ex);
+    }
+    running = true;
+    flusher = new Thread(this::runFlusher, "stock-txn-journal");
+    flusher.setDaemon(true);
+    flusher.start();
+    log.info(
+        "Stock txn journal started: bufferCapacity={}, batchSize={}, flushIntervalMs={}, walDir={}",
+        bufferCapacity,
+        batchSize,
+        flushIntervalMs,
+        walDir);
+  }
+
+  @Override
+  public void destroy() throws Exception {
+    if (flusher == null) {
+      return;
+    }
+    running = false;
+    LockSupport.unpark(flusher);
+    flusher.join(TimeUnit.SECONDS.toMillis(10));
+    Segment active = activeSegment.getAndSet(null);
+    if (active != null) {
+      retiredSegments.add(active);
+    }
+    for (Segment segment : retiredSegments) {
+      segment.close();
+      if (segment.pending.get() == 0 && !segment.replayRequired) {
+        Files.deleteIfExists(segment.path);
+      }
+    }
+  }
+
+  private void enqueue(StockTxn txn, Segment segment) {
+    if (!tryReserveSlot()) {
+      overflowCounter.increment();
+      segment.replayRequired = true;
+      segment.pending.decrementAndGet();
+      return;
+    }
+    buffer.offer(new Entry(txn, segment));
+    if (buffered.get() >= batchSize && flusher != null) {
+      LockSupport.unpark(flusher);
+    }
+  }
+
+  /**
+   * The journal of the current transaction. Looked up among the registered synchronizations rather
+   * than bound as a resource, so a REQUIRES_NEW transaction, which suspends them, gets its own.
+   */
+  private JournalSynchronization currentJournal() {
+    for (TransactionSynchronization synchronization :
+        TransactionSynchronizationManager.getSynchronizations()) {
+      if (synchronization instanceof JournalSynchronization journal && journal.owner() == this) {
+        return journal;
+      }
+    }
+    JournalSynchronization journal = new JournalSynchronization();
+    TransactionSynchronizationManager.registerSynchronization(journal);
+    return journal;
+  }
+
+  private boolean tryReserveSlot() {
+    int current;
+    do {
+      current = buffered.get();
+      if (current >= bufferCapacity) {
+        return false;
+      }
+    } while (!buffered.compareAndSet(current, current + 1));
+    return true;
+  }
+
+  /** Appends the rows in one write and one group-committed fsync; null when the WAL is unusable. */
+  private Segment appendToWal(List<StockTxn> txns) {
+    StringBuilder lines = new StringBuilder();
+    try {
+      for (StockTxn txn : txns) {
+        lines.append(objectMapper.writeValueAsString(txn)).append('\n');
+      }
+    } catch (JsonProcessingException ex) {
+      walFailedCounter.increment();
+      log.error("Serialize stock txn for WAL failed: txns={}", txns, ex);
+      return null;
+    }
+    byte[] data = lines.toString().getBytes(StandardCharsets.UTF_8);
+    for (int attempt = 0; attempt < WAL_APPEND_ATTEMPTS; attempt++) {
+      Segment segment = activeSegment.get();
+      if (segment == null) {
+        return null;
+      }
+      segment.pending.addAndGet(txns.size());
+      try {
+        segment.sync(segment.append(data));
+        return segment;
+      } catch (IOException ex) {
+        segment.pending.addAndGet(-txns.size());
+        if (activeSegment.get() == segment) {
+          walFailedCounter.increment();
+          log.warn("Append stock txn WAL failed: segment={}", segment.path, ex);
+          return null;
+        }
+      }
+    }
+    return null;
+  }
+
+  private void abort(List<StockTxn> txns, Segment segment) {
+    StringBuilder markers = new StringBuilder();
+    txns.forEach(txn -> markers.append(ABORT_PREFIX).append(txn.getId()).append('\n'));
+    try {
+      segment.sync(segment.append(markers.toString().getBytes(StandardCharsets.UTF_8)));
+    } catch (IOException ex) {
+      walFailedCounter.increment();
+      log.error(
+          "Append stock txn WAL abort markers failed, replay may restore rolled back rows: txns={}",
+          txns,
+          ex);
+    } finally {
+      segment.pending.addAndGet(-txns.size());
+    }
+  }
+
+  private void runFlusher() {
+    List<Entry> batch = new ArrayList<>(batchSize);
+    while (running || buffered.get() > 0) {
+      Entry entry;
+      while (batch.size() < batchSize && (entry = buffer.poll()) != null) {
+        buffered.decrementAndGet();
+        batch.add(entry);
+      }
+      if (!batch.isEmpty()) {
+        flush(batch);
+        batch.clear();
+      }
+      try {
+        maintainSegments();
+      } catch (RuntimeException ex) {
+        log.warn("Maintain stock txn WAL segments failed", ex);
+      }
+      if (running && buffered.get() < batchSize) {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMs));
+      }
+    }
+  }
+
+  private void flush(List<Entry> batch) {
+    long start = System.nanoTime();
+    try {
+      stockTxnMapper.insertIgnoreBatch(batch.stream().map(Entry::txn).toList());
+      flushedCounter.increment(batch.size());
+    } catch (Exception ex) {
+      flushFailedCounter.increment();
+      log.error(
+          "Flush stock txn journal failed, rows kept for WAL replay: count={}", batch.size(), ex);
+      for (Entry entry : batch) {
+        entry.segment().replayRequired = true;
+      }
+    } finally {
+      flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      for (Entry entry : batch) {
+        entry.segment().pending.decrementAndGet();
+      }
+    }
+  }
+
+  private void maintainSegments() {
+    Segment active = activeSegment.get();
+    if (active != null && shouldRotate(active)) {
+      try {
+        activeSegment.set(openSegment());
+        retiredSegments.add(active);
+      } catch (IOException ex) {
+        log.warn("Rotate stock txn WAL segment failed: segment={}", active.path, ex);
+      }
+    }
+    Iterator<Segment> iterator = retiredSegments.iterator();
+    while (iterator.hasNext()) {
+      Segment segment = iterator.next();
+      if (segment.pending.get() > 0) {
+        continue;
+      }
+      segment.close();
+      if (segment.pending.get() > 0) {
+        continue;
+      }
+      if (segment.replayRequired && !replay(segment.path)) {
+        continue;
+      }
+      deleteQuietly(segment.path);
+      iterator.remove();
+    }
+  }
+
+  private boolean shouldRotate(Segment segment) {
+    long bytes = segment.bytes.get();
+    if (bytes <= 0) {
+      return false;
+    }
+    return bytes >= segmentMaxBytes
+        || System.currentTimeMillis() - segment.openedAt >= segmentMaxAgeMs;
+  }
+
+  private void recoverSegments() throws IOException {
+    List<Path> paths = new ArrayList<>();
+    try (DirectoryStream<Path> stream =
+        Files.newDirectoryStream(walPath, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+      stream.forEach(paths::add);
+    }
+    paths.sort(null);
+    for (Path path : paths) {
+      if (replay(path)) {
+        deleteQuietly(path);
+      } else {
+        Segment segment = new Segment(path, null);
+        segment.replayRequired = true;
+        retiredSegments.add(segment);
+      }
+    }
+  }
+
+  private boolean replay(Path path) {
+    List<StockTxn> txns = new ArrayList<>(batchSize);
+    int replayed = 0;
+    try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      Set<Long> abortedIds = readAbortedIds(path);
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isBlank() || line.startsWith(ABORT_PREFIX)) {
+          continue;
+        }
+        StockTxn txn;
+        try {
+          txn = objectMapper.readValue(line, StockTxn.class);
+        } catch (JsonProcessingException ex) {
+          log.warn("Skip unreadable stock txn WAL line: segment={}", path, ex);
+          continue;
+        }
+        if (abortedIds.contains(txn.getId())) {
+          continue;
+        }
+        txns.add(txn);
+        if (txns.size() >= batchSize) {
+          stockTxnMapper.insertIgnoreBatch(txns);
+          replayed += txns.size();
+          txns.clear();
+        }
+      }
+      if (!txns.isEmpty()) {
+        stockTxnMapper.insertIgnoreBatch(txns);
+        replayed += txns.size();
+      }
+    } catch (Exception ex) {
+      log.error("Replay stock txn WAL failed, will retry: segment={}", path, ex);
+      return false;
+    }
+    replayedCounter.increment(replayed);
+    log.info("Replayed stock txn WAL segment: segment={}, rows={}", path, replayed);
+    return true;
+  }
+
+  private Set<Long> readAbortedIds(Path path) throws IOException {
+    Set<Long> abortedIds = new HashSet<>();
+    try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (!line.startsWith(ABORT_PREFIX)) {
+          continue;
+        }
+        try {
+          abortedIds.add(Long.parseLong(line.substring(ABORT_PREFIX.length()).trim()));
+        } catch (NumberFormatException ex) {
+          log.warn("Skip unreadable stock txn WAL abort marker: segment={}", path);
+        }
+      }
+    }
+    return abortedIds;
+  }
+
+  private Segment openSegment() throws IOException {
+    Path path =
+        walPath.resolve(
+            SEGMENT_PREFIX
+                + System.currentTimeMillis()
+                + "-"
+                + segmentSequence.incrementAndGet()
+                + SEGMENT_SUFFIX);
+    return new Segment(path, new FileOutputStream(path.toFile(), true));
+  }
+
+  private void deleteQuietly(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException ex) {
+      log.warn("Delete stock txn WAL segment failed: segment={}", path, ex);
+    }
+  }
+
+  private record Entry(StockTxn txn, Segment segment) {}
+
+  /**
+   * Collects the rows of one business transaction and appends them with a single fsync before it
+   * commits, so a committed change never depends on a row that only lived in memory. A rollback
+   * appends abort markers that replay honours; without a usable WAL the rows are inserted inside
+   * the transaction instead.
+   */
+  private final class JournalSynchronization implements TransactionSynchronization {
+
+    private final List<StockTxn> txns = new ArrayList<>();
+    private Segment segment;
+
+    private StockTxnAsyncWriter owner() {
+      return StockTxnAsyncWriter.this;
+    }
+
+    @Override
+    public void beforeCommit(boolean readOnly) {
+      if (txns.isEmpty()) {
+        return;
+      }
+      segment = appendToWal(txns);
+      if (segment == null) {
+        txns.forEach(stockTxnMapper::insert);
+      }
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+      if (segment == null) {
+        return;
+      }
+      if (status == STATUS_ROLLED_BACK) {
+        abort(txns, segment);
+        return;
+      }
+      txns.forEach(txn -> enqueue(txn, segment));
+    }
+  }
+
+  private static final class Segment {
+
+    private final Path path;
+    private final FileOutputStream out;
+    private final long openedAt = System.currentTimeMillis();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+    private final Object syncLock = new Object();
+    private volatile long synced;
+    private volatile boolean replayRequired;
+
+    private Segment(Path path, FileOutputStream out) {
+      this.path = path;
+      this.out = out;
+    }
+
+    /** Writes without forcing and returns the end offset the caller must see synced. */
+    private synchronized long append(byte[] data) throws IOException {
+      out.write(data);
+      return bytes.addAndGet(data.length);
+    }
+
+    /**
+     * Group commit: one fsync covers every append written before it started, so concurrent
+     * committers queue behind a single force instead of issuing one each.
+     */
+    private void sync(long offset) throws IOException {
+      if (synced >= offset) {
+        return;
+      }
+      synchronized (syncLock) {
+        if (synced >= offset) {
+          return;
+        }
+        long written = bytes.get();
+        out.getChannel().force(false);
+        synced = written;
+      }
+    }
+
+    private void close() {
+      if (out == null) {
+        return;
+      }
+      try {
+        out.close();
+      } catch (IOException ex) {
+        log.warn("Close stock txn WAL segment failed: segment={}", path, ex);
+      }
+    }
   }
 }
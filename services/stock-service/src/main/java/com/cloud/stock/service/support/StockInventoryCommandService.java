@@ -1,6 +1,5 @@
 package com.cloud.stock.service.support;
 
-import com.cloud.common.domain.dto.stock.StockOperateCommandDTO;
 import com.cloud.common.messaging.event.StockConfirmRequestEvent;
 import com.cloud.common.messaging.event.StockReleaseRequestEvent;
 import com.cloud.common.messaging.event.StockReserveRequestEvent;
@@ -27,9 +26,7 @@ public class StockInventoryCommandService {
           event.getOrderNo(), "insufficient available stock");
       return;
     }
-    for (StockOperateCommandDTO command : event.getItems()) {
-      stockLedgerService.reserve(command);
-    }
+    stockLedgerService.reserveBatch(event.getItems());
     if (!stockMessageProducer.sendStockReservedEvent(event.getOrderNo())) {
       throw new IllegalStateException(
           "failed to enqueue stock reserved event for orderNo=" + event.getOrderNo());
@@ -41,9 +38,7 @@ public class StockInventoryCommandService {
     if (event == null || event.getItems() == null || event.getItems().isEmpty()) {
       return;
     }
-    for (StockOperateCommandDTO command : event.getItems()) {
-      stockLedgerService.confirm(command);
-    }
+    stockLedgerService.confirmBatch(event.getItems());
   }
 
   @Transactional(rollbackFor = Exception.class)
@@ -51,8 +46,6 @@ public class StockInventoryCommandService {
     if (event == null || event.getItems() == null || event.getItems().isEmpty()) {
       return;
     }
-    for (StockOperateCommandDTO command : event.getItems()) {
-      stockLedgerService.release(command);
-    }
+    stockLedgerService.releaseBatch(event.getItems());
   }
 }
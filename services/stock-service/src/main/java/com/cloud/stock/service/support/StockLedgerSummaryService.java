@@ -0,0 +1,141 @@
+package com.cloud.stock.service.support;
+
+import com.cloud.stock.mapper.StockLedgerSummaryMapper;
+import com.cloud.stock.mapper.StockLedgerSummaryMapper.LedgerDelta;
+import com.cloud.stock.mapper.StockSegmentMapper;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockLedgerSummaryService {
+
+  private static final Object PENDING_DELTAS_KEY = new Object();
+
+  private final StockLedgerSummaryMapper stockLedgerSummaryMapper;
+  private final StockSegmentMapper stockSegmentMapper;
+
+  public void recordDelta(Long skuId, int availableDelta, int lockedDelta, int soldDelta) {
+    record(skuId, availableDelta, lockedDelta, soldDelta, 0);
+  }
+
+  public void recordSegmentsAdded(Long skuId, int segments) {
+    record(skuId, 0, 0, 0, segments);
+  }
+
+  /**
+   * Overwrites the summaries of {@code skuIds} from their segments. The upsert reads the segment
+   * rows before it touches a summary row, the same order a stock transaction takes its locks, so a
+   * rebuild cannot deadlock against live traffic. Summaries of SKUs left without active segments
+   * are removed afterwards.
+   */
+  @Transactional(rollbackFor = Exception.class)
+  public int rebuild(List<Long> skuIds) {
+    if (skuIds == null || skuIds.isEmpty()) {
+      return 0;
+    }
+    Set<Long> active = new HashSet<>(stockSegmentMapper.listActiveSkuIds(skuIds));
+    List<Long> orphaned = skuIds.stream().filter(skuId -> !active.contains(skuId)).toList();
+    if (active.isEmpty()) {
+      stockLedgerSummaryMapper.deleteBySkuIds(orphaned);
+      return 0;
+    }
+    stockLedgerSummaryMapper.upsertFromSegments(new ArrayList<>(active));
+    if (!orphaned.isEmpty()) {
+      stockLedgerSummaryMapper.deleteBySkuIds(orphaned);
+    }
+    return active.size();
+  }
+
+  private void record(
+      Long skuId, int availableDelta, int lockedDelta, int soldDelta, int segmentDelta) {
+    if (skuId == null
+        || (availableDelta == 0 && lockedDelta == 0 && soldDelta == 0 && segmentDelta == 0)) {
+      return;
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      Map<Long, int[]> deltas = new TreeMap<>();
+      merge(deltas, skuId, availableDelta, lockedDelta, soldDelta, segmentDelta);
+      apply(deltas);
+      return;
+    }
+    @SuppressWarnings("unchecked")
+    Map<Long, int[]> pending =
+        (Map<Long, int[]>) TransactionSynchronizationManager.getResource(PENDING_DELTAS_KEY);
+    if (pending == null) {
+      Map<Long, int[]> deltas = new TreeMap<>();
+      TransactionSynchronizationManager.bindResource(PENDING_DELTAS_KEY, deltas);
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+              apply(deltas);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+              TransactionSynchronizationManager.unbindResourceIfPossible(PENDING_DELTAS_KEY);
+            }
+          });
+      pending = deltas;
+    }
+    merge(pending, skuId, availableDelta, lockedDelta, soldDelta, segmentDelta);
+  }
+
+  private void merge(
+      Map<Long, int[]> deltas,
+      Long skuId,
+      int availableDelta,
+      int lockedDelta,
+      int soldDelta,
+      int segmentDelta) {
+    int[] delta = deltas.computeIfAbsent(skuId, key -> new int[4]);
+    delta[0] += availableDelta;
+    delta[1] += lockedDelta;
+    delta[2] += soldDelta;
+    delta[3] += segmentDelta;
+  }
+
+  private void apply(Map<Long, int[]> deltas) {
+    List<LedgerDelta> changes = new ArrayList<>(deltas.size());
+    for (Map.Entry<Long, int[]> entry : deltas.entrySet()) {
+      int[] delta = entry.getValue();
+      if (delta[0] == 0 && delta[1] == 0 && delta[2] == 0 && delta[3] == 0) {
+        continue;
+      }
+      changes.add(new LedgerDelta(entry.getKey(), delta[0], delta[1], delta[2], delta[3]));
+    }
+    if (changes.isEmpty()) {
+      return;
+    }
+    int updated = stockLedgerSummaryMapper.applyDeltas(changes);
+    if (updated >= changes.size()) {
+      return;
+    }
+    List<Long> skuIds = changes.stream().map(LedgerDelta::skuId).toList();
+    Set<Long> existing = new HashSet<>(stockLedgerSummaryMapper.listExistingSkuIds(skuIds));
+    for (LedgerDelta change : changes) {
+      if (existing.contains(change.skuId())) {
+        continue;
+      }
+      log.info(
+          "Stock ledger summary row missing, rebuilding from segments: skuId={}", change.skuId());
+      // The row built here already includes this transaction's segment writes. When a concurrent
+      // transaction inserted it first, it could not see them, so the delta still has to be applied.
+      if (stockLedgerSummaryMapper.insertIgnoreFromSegments(List.of(change.skuId())) == 0) {
+        stockLedgerSummaryMapper.applyDeltas(List.of(change));
+      }
+    }
+  }
+}
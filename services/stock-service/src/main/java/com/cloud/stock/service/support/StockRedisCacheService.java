@@ -2,7 +2,7 @@ package com.cloud.stock.service.support;
 
 import com.cloud.common.domain.dto.stock.StockOperateCommandDTO;
 import com.cloud.common.domain.vo.stock.StockLedgerVO;
-import com.cloud.stock.mapper.StockSegmentMapper;
+import com.cloud.stock.mapper.StockLedgerSummaryMapper;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import jakarta.annotation.PostConstruct;
@@ -52,17 +52,17 @@ public class StockRedisCacheService {
   private long delayedDoubleDeleteMs;
 
   private final StringRedisTemplate stringRedisTemplate;
-  private final StockSegmentMapper stockSegmentMapper;
+  private final StockLedgerSummaryMapper stockLedgerSummaryMapper;
   private final TaskScheduler taskScheduler;
   private final DefaultRedisScript<Long> preCheckScript;
   private Cache<Long, StockLedgerVO> localLedgerCache;
 
   public StockRedisCacheService(
       StringRedisTemplate stringRedisTemplate,
-      StockSegmentMapper stockSegmentMapper,
+      StockLedgerSummaryMapper stockLedgerSummaryMapper,
       TaskScheduler taskScheduler) {
     this.stringRedisTemplate = stringRedisTemplate;
-    this.stockSegmentMapper = stockSegmentMapper;
+    this.stockLedgerSummaryMapper = stockLedgerSummaryMapper;
     this.taskScheduler = taskScheduler;
     this.preCheckScript =
         buildScript(
@@ -99,7 +99,7 @@ public class StockRedisCacheService {
     if (cached != null) {
       return cached;
     }
-    StockLedgerVO ledger = stockSegmentMapper.selectLedgerBySkuId(skuId);
+    StockLedgerVO ledger = stockLedgerSummaryMapper.selectLedgerBySkuId(skuId);
     if (ledger == null) {
       return null;
     }
@@ -165,7 +165,7 @@ public class StockRedisCacheService {
     if (skuId == null) {
       return;
     }
-    StockLedgerVO ledger = stockSegmentMapper.selectLedgerBySkuId(skuId);
+    StockLedgerVO ledger = stockLedgerSummaryMapper.selectLedgerBySkuId(skuId);
     if (ledger == null) {
       localLedgerCache.invalidate(skuId);
       stringRedisTemplate.delete(buildKey(skuId));
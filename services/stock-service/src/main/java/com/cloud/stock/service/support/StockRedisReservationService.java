@@ -0,0 +1,788 @@
+package com.cloud.stock.service.support;
+
+import com.cloud.common.annotation.DistributedLock;
+import com.cloud.common.domain.dto.stock.StockOperateCommandDTO;
+import com.cloud.common.enums.ResultCode;
+import com.cloud.common.exception.BizException;
+import com.cloud.common.exception.SystemException;
+import com.cloud.stock.mapper.StockSegmentMapper;
+import com.cloud.stock.module.entity.StockSegment;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+@Slf4j
+@Service
+public class StockRedisReservationService {
+
+  private static final String SEGMENT_KEY_PREFIX = "stock:reserve:segments:";
+  private static final String RECORD_KEY_PREFIX = "stock:reserve:record:";
+  private static final String PENDING_KEY = "stock:reserve:pending";
+  private static final String PROCESSING_KEY = "stock:reserve:processing";
+  private static final String UNFLUSHED_KEY = "stock:reserve:unflushed";
+  private static final String SKU_INDEX_KEY = "stock:reserve:skus";
+  private static final String GUARD_KEY_PREFIX = "stock:reserve:guard:";
+  private static final String FAILURE_KEY = "stock:reserve:failures";
+  private static final String DEAD_LETTER_KEY = "stock:reserve:dead";
+  private static final String RESULT_MISS = "MISS";
+  private static final String RESULT_INSUFFICIENT = "INSUFFICIENT";
+  private static final String RESULT_NEW_PREFIX = "NEW|";
+  private static final String RESULT_DUPLICATE_PREFIX = "DUP|";
+
+  @Value("${stock.reserve.redis.enabled:false}")
+  private boolean enabled;
+
+  @Value("${stock.reserve.redis.flush-batch-size:200}")
+  private int flushBatchSize;
+
+  @Value("${stock.reserve.redis.record-ttl-seconds:172800}")
+  private long recordTtlSeconds;
+
+  @Value("${stock.reserve.redis.max-flush-attempts:5}")
+  private int maxFlushAttempts;
+
+  @Value("${stock.reserve.redis.guard-ttl-seconds:300}")
+  private long guardTtlSeconds;
+
+  private final StringRedisTemplate stringRedisTemplate;
+  private final StockSegmentMapper stockSegmentMapper;
+  private final StockReservationPersistService stockReservationPersistService;
+  private final ObjectMapper objectMapper;
+  private final MeterRegistry meterRegistry;
+  private final DefaultRedisScript<String> reserveScript;
+  private final DefaultRedisScript<Long> cancelScript;
+  private final DefaultRedisScript<Long> loadScript;
+  private final DefaultRedisScript<Long> beginRestoreScript;
+  private final DefaultRedisScript<Long> finishRestoreScript;
+  private final DefaultRedisScript<Long> suspendScript;
+  private final DefaultRedisScript<Long> resumeScript;
+  private final DefaultRedisScript<List> claimScript;
+  private final DefaultRedisScript<Long> ackScript;
+  private final DefaultRedisScript<Long> reconcileScript;
+
+  public StockRedisReservationService(
+      StringRedisTemplate stringRedisTemplate,
+      StockSegmentMapper stockSegmentMapper,
+      StockReservationPersistService stockReservationPersistService,
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry) {
+    this.stringRedisTemplate = stringRedisTemplate;
+    this.stockSegmentMapper = stockSegmentMapper;
+    this.stockReservationPersistService = stockReservationPersistService;
+    this.objectMapper = objectMapper;
+    this.meterRegistry = meterRegistry;
+    this.reserveScript =
+        buildScript(
+            String.class,
+            """
+                local existing = redis.call('GET', KEYS[2])
+                if existing then
+                    return 'DUP|' .. existing
+                end
+                if redis.call('EXISTS', KEYS[1]) == 0 then
+                    return 'MISS'
+                end
+                local qty = tonumber(ARGV[1])
+                local fields = redis.call('HGETALL', KEYS[1])
+                local segments = {}
+                local total = 0
+                for i = 1, #fields, 2 do
+                    local available = tonumber(fields[i + 1])
+                    table.insert(segments, {tonumber(fields[i]), available})
+                    if available > 0 then
+                        total = total + available
+                    end
+                end
+                if total < qty then
+                    return 'INSUFFICIENT'
+                end
+                table.sort(segments, function(a, b) return a[1] < b[1] end)
+                local size = #segments
+                local start = tonumber(ARGV[3]) % size
+                local remaining = qty
+                local allocations = {}
+                local parts = {}
+                for i = 0, size - 1 do
+                    local segment = segments[((start + i) % size) + 1]
+                    if segment[2] > 0 then
+                        local take = math.min(remaining, segment[2])
+                        redis.call('HINCRBY', KEYS[1], segment[1], -take)
+                        table.insert(allocations, {segmentId = segment[1], quantity = take})
+                        table.insert(parts, segment[1] .. ':' .. take)
+                        remaining = remaining - take
+                        if remaining == 0 then
+                            break
+                        end
+                    end
+                end
+                local entry = cjson.decode(ARGV[4])
+                entry['allocations'] = allocations
+                redis.call('RPUSH', KEYS[3], cjson.encode(entry))
+                redis.call('SADD', KEYS[4], ARGV[5])
+                local record = table.concat(parts, ',')
+                redis.call('SET', KEYS[2], record, 'EX', tonumber(ARGV[2]))
+                return 'NEW|' .. record
+                """);
+    this.cancelScript =
+        buildScript(
+            Long.class,
+            """
+                if redis.call('GET', KEYS[2]) ~= ARGV[1] then
+                    return 0
+                end
+                redis.call('DEL', KEYS[2])
+                if redis.call('EXISTS', KEYS[1]) == 1 then
+                    for part in string.gmatch(ARGV[1], '[^,]+') do
+                        local separator = string.find(part, ':', 1, true)
+                        local field = string.sub(part, 1, separator - 1)
+                        if redis.call('HEXISTS', KEYS[1], field) == 1 then
+                            redis.call('HINCRBY', KEYS[1], field, tonumber(string.sub(part, separator + 1)))
+                        end
+                    end
+                end
+                redis.call('RPUSH', KEYS[3], ARGV[2])
+                return 1
+                """);
+    this.loadScript =
+        buildScript(
+            Long.class,
+            """
+                if redis.call('EXISTS', KEYS[1]) == 1 then
+                    return 0
+                end
+                local guard = redis.call('HMGET', KEYS[3], 'inflight', 'epoch')
+                if tonumber(guard[1] or '0') > 0 or (guard[2] or '0') ~= ARGV[2] then
+                    return -1
+                end
+                for i = 3, #ARGV, 2 do
+                    redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+                end
+                redis.call('SADD', KEYS[2], ARGV[1])
+                return 1
+                """);
+    this.beginRestoreScript =
+        buildScript(
+            Long.class,
+            """
+                redis.call('HINCRBY', KEYS[1], 'inflight', 1)
+                redis.call('EXPIRE', KEYS[1], tonumber(ARGV[1]))
+                return 1
+                """);
+    this.finishRestoreScript =
+        buildScript(
+            Long.class,
+            """
+                local applied = 0
+                if ARGV[4] == '1' then
+                    if redis.call('HEXISTS', KEYS[1], ARGV[1]) == 1 then
+                        redis.call('HINCRBY', KEYS[1], ARGV[1], tonumber(ARGV[2]))
+                        applied = 1
+                    end
+                    redis.call('HINCRBY', KEYS[2], 'epoch', 1)
+                end
+                if redis.call('HINCRBY', KEYS[2], 'inflight', -1) < 0 then
+                    redis.call('HSET', KEYS[2], 'inflight', 0)
+                end
+                redis.call('EXPIRE', KEYS[2], tonumber(ARGV[3]))
+                return applied
+                """);
+    this.suspendScript =
+        buildScript(
+            Long.class,
+            """
+                redis.call('HINCRBY', KEYS[1], 'inflight', 1)
+                redis.call('EXPIRE', KEYS[1], tonumber(ARGV[1]))
+                redis.call('DEL', KEYS[2])
+                return 1
+                """);
+    this.resumeScript =
+        buildScript(
+            Long.class,
+            """
+                redis.call('HINCRBY', KEYS[1], 'epoch', 1)
+                if redis.call('HINCRBY', KEYS[1], 'inflight', -1) < 0 then
+                    redis.call('HSET', KEYS[1], 'inflight', 0)
+                end
+                redis.call('EXPIRE', KEYS[1], tonumber(ARGV[1]))
+                return 1
+                """);
+    this.claimScript =
+        buildScript(
+            List.class,
+            """
+                local claimed = redis.call('LRANGE', KEYS[2], 0, -1)
+                if #claimed > 0 then
+                    return claimed
+                end
+                claimed = redis.call('LRANGE', KEYS[1], 0, tonumber(ARGV[1]) - 1)
+                if #claimed == 0 then
+                    return claimed
+                end
+                redis.call('RPUSH', KEYS[2], unpack(claimed))
+                redis.call('LTRIM', KEYS[1], #claimed, -1)
+                return claimed
+                """);
+    this.ackScript =
+        buildScript(
+            Long.class,
+            """
+                redis.call('LTRIM', KEYS[1], tonumber(ARGV[1]), -1)
+                if #ARGV > 1 then
+                    redis.call('SREM', KEYS[2], unpack(ARGV, 2))
+                end
+                return 1
+                """);
+    this.reconcileScript =
+        buildScript(
+            Long.class,
+            """
+                if redis.call('LLEN', KEYS[2]) > 0 or redis.call('LLEN', KEYS[3]) > 0 then
+                    return -1
+                end
+                local guard = redis.call('HMGET', KEYS[4], 'inflight', 'epoch')
+                if tonumber(guard[1] or '0') > 0 or (guard[2] or '0') ~= ARGV[1] then
+                    return -2
+                end
+                local expected = {}
+                for i = 2, #ARGV, 2 do
+                    expected[ARGV[i]] = ARGV[i + 1]
+                end
+                local fixed = 0
+                local current = redis.call('HGETALL', KEYS[1])
+                for i = 1, #current, 2 do
+                    if expected[current[i]] == nil then
+                        redis.call('HDEL', KEYS[1], current[i])
+                        fixed = fixed + 1
+                    end
+                end
+                for field, value in pairs(expected) do
+                    if redis.call('HGET', KEYS[1], field) ~= value then
+                        redis.call('HSET', KEYS[1], field, value)
+                        fixed = fixed + 1
+                    end
+                end
+                return fixed
+                """);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void reserve(StockOperateCommandDTO command) {
+    StockReservationJournal journal = new StockReservationJournal();
+    journal.setType(StockReservationJournal.TYPE_RESERVE);
+    journal.setMainOrderNo(command.getOrderNo());
+    journal.setSubOrderNo(command.getSubOrderNo());
+    journal.setSkuId(command.getSkuId());
+    journal.setReason(command.getReason());
+    String entry = writeJournal(journal);
+
+    String result = executeReserve(command, journal, entry);
+    if (RESULT_MISS.equals(result)) {
+      if (!loadSegments(command.getSkuId())) {
+        incrementResult("guarded");
+        throw new BizException("stock segments are being restored, retry later");
+      }
+      result = executeReserve(command, journal, entry);
+    }
+    if (result == null || RESULT_MISS.equals(result)) {
+      incrementResult("miss");
+      throw new BizException("stock segment not found for skuId=" + command.getSkuId());
+    }
+    if (RESULT_INSUFFICIENT.equals(result)) {
+      incrementResult("insufficient");
+      throw new BizException("insufficient available stock");
+    }
+    if (result.startsWith(RESULT_DUPLICATE_PREFIX)) {
+      incrementResult("duplicate");
+      return;
+    }
+    incrementResult("success");
+    cancelOnRollback(journal, result.substring(RESULT_NEW_PREFIX.length()));
+  }
+
+  public boolean isUnflushed(String subOrderNo, Long skuId) {
+    if (!enabled || subOrderNo == null || skuId == null) {
+      return false;
+    }
+    return Boolean.TRUE.equals(
+        stringRedisTemplate.opsForSet().isMember(UNFLUSHED_KEY, subOrderNo + ":" + skuId));
+  }
+
+  /**
+   * Gives released stock back to the Redis segment once the DB change commits. The SKU's guard is
+   * raised before the commit so that a reload or reconcile reading the DB in between cannot count
+   * the same stock again; both refuse to run until the guard drops.
+   */
+  public void restoreAfterCommit(Long skuId, Integer segmentId, int quantity) {
+    if (!enabled || skuId == null || segmentId == null || quantity <= 0) {
+      return;
+    }
+    try {
+      stringRedisTemplate.execute(
+          beginRestoreScript, List.of(guardKey(skuId)), String.valueOf(safeGuardTtlSeconds()));
+    } catch (Exception ex) {
+      // Without the guard Redis is left below the DB until the next reconcile, which is safe.
+      log.warn(
+          "Guard Redis reservation restore failed, leaving it to reconcile: skuId={}, segmentId={}",
+          skuId,
+          segmentId,
+          ex);
+      return;
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      finishRestore(skuId, segmentId, quantity, true);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCompletion(int status) {
+            finishRestore(skuId, segmentId, quantity, status == STATUS_COMMITTED);
+          }
+        });
+  }
+
+  /**
+   * Takes the SKU out of Redis while its segments are rebalanced in the DB. Must be called under
+   * the flush lock from inside the rebalance transaction, before any segment row is read: it raises
+   * the SKU's guard and drops its segment hash so reserves fail fast instead of reloading, then
+   * drains the journal so the DB holds every reservation Redis has accepted. The guard drops and
+   * the epoch moves on once the transaction completes; the next reserve reloads the hash.
+   */
+  public void suspendForRebalance(Long skuId) {
+    if (!enabled || skuId == null) {
+      return;
+    }
+    stringRedisTemplate.execute(
+        suspendScript,
+        List.of(guardKey(skuId), segmentKey(skuId)),
+        String.valueOf(safeGuardTtlSeconds()));
+    try {
+      drainJournal();
+    } catch (RuntimeException ex) {
+      resumeAfterRebalance(skuId);
+      throw ex;
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      resumeAfterRebalance(skuId);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCompletion(int status) {
+            resumeAfterRebalance(skuId);
+          }
+        });
+  }
+
+  @DistributedLock(
+      key = "'stock:reserve:flush'",
+      waitTime = 0,
+      leaseTime = 120,
+      failStrategy = DistributedLock.LockFailStrategy.RETURN_NULL)
+  public Integer flushPending() {
+    if (!enabled) {
+      return 0;
+    }
+    int batchSize = Math.max(1, flushBatchSize);
+    int total = 0;
+    while (true) {
+      List<String> payloads = claim(batchSize);
+      if (payloads.isEmpty()) {
+        break;
+      }
+      long startNanos = System.nanoTime();
+      int acked = persistClaimed(payloads);
+      meterRegistry
+          .timer("stock.reserve.redis.flush.latency")
+          .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+      meterRegistry.summary("stock.reserve.redis.flush.batch").record(acked);
+      total += acked;
+      if (acked < payloads.size() || payloads.size() < batchSize) {
+        break;
+      }
+    }
+    return total;
+  }
+
+  @DistributedLock(
+      key = "'stock:reserve:flush'",
+      waitTime = 5,
+      leaseTime = 300,
+      failStrategy = DistributedLock.LockFailStrategy.RETURN_NULL)
+  public Integer reconcile() {
+    if (!enabled) {
+      return 0;
+    }
+    Set<String> skuIds = stringRedisTemplate.opsForSet().members(SKU_INDEX_KEY);
+    if (skuIds == null || skuIds.isEmpty()) {
+      return 0;
+    }
+    int fixed = 0;
+    for (String skuIdText : skuIds) {
+      Long skuId = Long.parseLong(skuIdText);
+      String epoch = readGuardEpoch(skuId);
+      List<StockSegment> segments = stockSegmentMapper.listActiveSegmentsBySkuId(skuId);
+      List<String> args = new ArrayList<>();
+      args.add(epoch);
+      if (segments != null) {
+        for (StockSegment segment : segments) {
+          args.add(String.valueOf(segment.getSegmentId()));
+          args.add(String.valueOf(defaultZero(segment.getAvailableQty())));
+        }
+      }
+      Long result =
+          stringRedisTemplate.execute(
+              reconcileScript,
+              List.of(segmentKey(skuId), PENDING_KEY, PROCESSING_KEY, guardKey(skuId)),
+              args.toArray());
+      if (result != null && result == -2L) {
+        log.info("Skip Redis reservation reconcile, restore in flight: skuId={}", skuId);
+        continue;
+      }
+      if (result == null || result < 0) {
+        log.info("Skip Redis reservation reconcile, journal not drained: skuId={}", skuId);
+        break;
+      }
+      if (args.size() == 1) {
+        stringRedisTemplate.opsForSet().remove(SKU_INDEX_KEY, skuIdText);
+      }
+      if (result > 0) {
+        log.warn("Redis reservation stock drift repaired: skuId={}, fields={}", skuId, result);
+        fixed += result.intValue();
+      }
+    }
+    if (fixed > 0) {
+      meterRegistry.counter("stock.reserve.redis.drift", "source", "reconcile").increment(fixed);
+    }
+    return fixed;
+  }
+
+  /**
+   * Persists the entries queued when the drain starts. Later entries cannot belong to a suspended
+   * SKU, so the drain does not chase a journal that other SKUs keep filling.
+   */
+  private void drainJournal() {
+    Long pending = stringRedisTemplate.opsForList().size(PENDING_KEY);
+    Long processing = stringRedisTemplate.opsForList().size(PROCESSING_KEY);
+    long budget = (pending == null ? 0L : pending) + (processing == null ? 0L : processing);
+    int batchSize = Math.max(1, flushBatchSize);
+    long drained = 0;
+    while (drained < budget) {
+      List<String> payloads = claim(batchSize);
+      if (payloads.isEmpty()) {
+        return;
+      }
+      int acked = persistClaimed(payloads);
+      if (acked < payloads.size()) {
+        throw new SystemException(
+            ResultCode.SYSTEM_BUSY, "stock reservation journal not drained, retry later");
+      }
+      drained += acked;
+    }
+  }
+
+  private void resumeAfterRebalance(Long skuId) {
+    try {
+      stringRedisTemplate.execute(
+          resumeScript, List.of(guardKey(skuId)), String.valueOf(safeGuardTtlSeconds()));
+    } catch (Exception ex) {
+      // The guard expires on its own; until then reserves of this SKU keep failing fast.
+      log.warn("Resume Redis reservation after rebalance failed: skuId={}", skuId, ex);
+    }
+  }
+
+  private String executeReserve(
+      StockOperateCommandDTO command, StockReservationJournal journal, String entry) {
+    return stringRedisTemplate.execute(
+        reserveScript,
+        List.of(
+            segmentKey(command.getSkuId()),
+            recordKey(command.getSubOrderNo(), command.getSkuId()),
+            PENDING_KEY,
+            UNFLUSHED_KEY),
+        String.valueOf(command.getQuantity()),
+        String.valueOf(Math.max(60L, recordTtlSeconds)),
+        String.valueOf(command.getSubOrderNo().hashCode() & Integer.MAX_VALUE),
+        entry,
+        journal.reservationKey());
+  }
+
+  /** Loads the SKU's segments from the DB; false when a restore or rebalance holds its guard. */
+  private boolean loadSegments(Long skuId) {
+    String epoch = readGuardEpoch(skuId);
+    List<StockSegment> segments = stockSegmentMapper.listActiveSegmentsBySkuId(skuId);
+    if (segments == null || segments.isEmpty()) {
+      return true;
+    }
+    List<String> args = new ArrayList<>();
+    args.add(String.valueOf(skuId));
+    args.add(epoch);
+    for (StockSegment segment : segments) {
+      args.add(String.valueOf(segment.getSegmentId()));
+      args.add(String.valueOf(defaultZero(segment.getAvailableQty())));
+    }
+    Long loaded =
+        stringRedisTemplate.execute(
+            loadScript, List.of(segmentKey(skuId), SKU_INDEX_KEY, guardKey(skuId)), args.toArray());
+    return loaded == null || loaded >= 0;
+  }
+
+  private void finishRestore(Long skuId, Integer segmentId, int quantity, boolean committed) {
+    try {
+      stringRedisTemplate.execute(
+          finishRestoreScript,
+          List.of(segmentKey(skuId), guardKey(skuId)),
+          String.valueOf(segmentId),
+          String.valueOf(quantity),
+          String.valueOf(safeGuardTtlSeconds()),
+          committed ? "1" : "0");
+    } catch (Exception ex) {
+      // The guard expires on its own; until then reloads and reconciles of this SKU wait.
+      log.warn(
+          "Restore Redis reservation stock failed: skuId={}, segmentId={}, qty={}",
+          skuId,
+          segmentId,
+          quantity,
+          ex);
+    }
+  }
+
+  private String readGuardEpoch(Long skuId) {
+    Object epoch = stringRedisTemplate.opsForHash().get(guardKey(skuId), "epoch");
+    return epoch == null ? "0" : epoch.toString();
+  }
+
+  /**
+   * Persists claimed entries and acks the prefix that made it to the DB. A failing batch is retried
+   * entry by entry in journal order; an entry that keeps failing for a non-transient reason is
+   * moved to the dead-letter list after {@code max-flush-attempts} so it cannot block the ones
+   * behind it. Returns the number of entries acked.
+   */
+  private int persistClaimed(List<String> payloads) {
+    List<StockReservationJournal> journals = readJournals(payloads);
+    try {
+      stockReservationPersistService.persist(nonNull(journals));
+      ack(payloads.size(), journals);
+      return payloads.size();
+    } catch (Exception ex) {
+      log.warn(
+          "Flush Redis reservation batch failed, retrying entry by entry: size={}",
+          payloads.size(),
+          ex);
+    }
+    int done = 0;
+    for (int i = 0; i < payloads.size(); i++) {
+      StockReservationJournal journal = journals.get(i);
+      if (journal != null) {
+        try {
+          stockReservationPersistService.persist(List.of(journal));
+          stringRedisTemplate.opsForHash().delete(FAILURE_KEY, failureField(payloads.get(i)));
+        } catch (Exception ex) {
+          if (!deadLetterIfExhausted(payloads.get(i), ex)) {
+            break;
+          }
+        }
+      }
+      done++;
+    }
+    ack(done, journals.subList(0, done));
+    return done;
+  }
+
+  private boolean deadLetterIfExhausted(String payload, Exception ex) {
+    if (isTransient(ex)) {
+      log.warn("Flush Redis reservation entry deferred, DB unavailable: payload={}", payload, ex);
+      return false;
+    }
+    Long attempts =
+        stringRedisTemplate.opsForHash().increment(FAILURE_KEY, failureField(payload), 1);
+    int maxAttempts = Math.max(1, maxFlushAttempts);
+    if (attempts != null && attempts < maxAttempts) {
+      log.warn(
+          "Flush Redis reservation entry failed: attempt={}/{}, payload={}",
+          attempts,
+          maxAttempts,
+          payload,
+          ex);
+      return false;
+    }
+    deadLetter(payload, ex);
+    stringRedisTemplate.opsForHash().delete(FAILURE_KEY, failureField(payload));
+    return true;
+  }
+
+  private void deadLetter(String payload, Exception ex) {
+    stringRedisTemplate.opsForList().rightPush(DEAD_LETTER_KEY, payload);
+    meterRegistry.counter("stock.reserve.redis.dead-letter").increment();
+    log.error("Redis reservation journal moved to {}: payload={}", DEAD_LETTER_KEY, payload, ex);
+  }
+
+  private boolean isTransient(Exception ex) {
+    return ex instanceof TransientDataAccessException
+        || ex instanceof DataAccessResourceFailureException
+        || ex instanceof CannotCreateTransactionException;
+  }
+
+  private void cancelOnRollback(StockReservationJournal journal, String record) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCompletion(int status) {
+            if (status == STATUS_ROLLED_BACK) {
+              cancel(journal, record);
+            }
+          }
+        });
+  }
+
+  private void cancel(StockReservationJournal reserved, String record) {
+    StockReservationJournal journal = new StockReservationJournal();
+    journal.setType(StockReservationJournal.TYPE_CANCEL);
+    journal.setMainOrderNo(reserved.getMainOrderNo());
+    journal.setSubOrderNo(reserved.getSubOrderNo());
+    journal.setSkuId(reserved.getSkuId());
+    journal.setReason("rollback");
+    journal.setAllocations(parseRecord(record));
+    try {
+      stringRedisTemplate.execute(
+          cancelScript,
+          List.of(
+              segmentKey(reserved.getSkuId()),
+              recordKey(reserved.getSubOrderNo(), reserved.getSkuId()),
+              PENDING_KEY),
+          record,
+          writeJournal(journal));
+      incrementResult("cancelled");
+    } catch (Exception ex) {
+      log.error(
+          "Cancel Redis reservation failed: subOrderNo={}, skuId={}",
+          reserved.getSubOrderNo(),
+          reserved.getSkuId(),
+          ex);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<String> claim(int batchSize) {
+    List<String> claimed =
+        stringRedisTemplate.execute(
+            claimScript, List.of(PENDING_KEY, PROCESSING_KEY), String.valueOf(batchSize));
+    return claimed == null ? List.of() : claimed;
+  }
+
+  private void ack(int count, List<StockReservationJournal> journals) {
+    if (count <= 0) {
+      return;
+    }
+    Set<String> members = new LinkedHashSet<>();
+    for (StockReservationJournal journal : journals) {
+      if (journal != null) {
+        members.add(journal.reservationKey());
+      }
+    }
+    List<Object> args = new ArrayList<>(members.size() + 1);
+    args.add(String.valueOf(count));
+    args.addAll(members);
+    stringRedisTemplate.execute(ackScript, List.of(PROCESSING_KEY, UNFLUSHED_KEY), args.toArray());
+  }
+
+  /** Parsed entries aligned with {@code payloads}; unreadable ones are dead-lettered as null. */
+  private List<StockReservationJournal> readJournals(List<String> payloads) {
+    List<StockReservationJournal> journals = new ArrayList<>(payloads.size());
+    for (String payload : payloads) {
+      try {
+        journals.add(objectMapper.readValue(payload, StockReservationJournal.class));
+      } catch (JsonProcessingException ex) {
+        deadLetter(payload, ex);
+        journals.add(null);
+      }
+    }
+    return journals;
+  }
+
+  private List<StockReservationJournal> nonNull(List<StockReservationJournal> journals) {
+    return journals.stream().filter(journal -> journal != null).toList();
+  }
+
+  private String writeJournal(StockReservationJournal journal) {
+    try {
+      return objectMapper.writeValueAsString(journal);
+    } catch (JsonProcessingException ex) {
+      throw new IllegalStateException("Failed to serialize stock reservation journal", ex);
+    }
+  }
+
+  private List<StockReservationJournal.Allocation> parseRecord(String record) {
+    List<StockReservationJournal.Allocation> allocations = new ArrayList<>();
+    for (String part : record.split(",")) {
+      int separator = part.indexOf(':');
+      if (separator <= 0) {
+        continue;
+      }
+      StockReservationJournal.Allocation allocation = new StockReservationJournal.Allocation();
+      allocation.setSegmentId(Integer.parseInt(part.substring(0, separator)));
+      allocation.setQuantity(Integer.parseInt(part.substring(separator + 1)));
+      allocations.add(allocation);
+    }
+    return allocations;
+  }
+
+  private void incrementResult(String result) {
+    meterRegistry.counter("stock.reserve.redis", "result", result).increment();
+  }
+
+  private <T> DefaultRedisScript<T> buildScript(Class<T> resultType, String scriptText) {
+    DefaultRedisScript<T> script = new DefaultRedisScript<>();
+    script.setResultType(resultType);
+    script.setScriptText(scriptText);
+    return script;
+  }
+
+  private String segmentKey(Long skuId) {
+    return SEGMENT_KEY_PREFIX + skuId;
+  }
+
+  private String guardKey(Long skuId) {
+    return GUARD_KEY_PREFIX + skuId;
+  }
+
+  private String failureField(String payload) {
+    return DigestUtils.md5DigestAsHex(payload.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private long safeGuardTtlSeconds() {
+    return Math.max(30L, guardTtlSeconds);
+  }
+
+  private String recordKey(String subOrderNo, Long skuId) {
+    return RECORD_KEY_PREFIX + subOrderNo + ":" + skuId;
+  }
+
+  private int defaultZero(Integer value) {
+    return value == null ? 0 : value;
+  }
+}
@@ -0,0 +1,40 @@
+package com.cloud.stock.service.support;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.util.List;
+import lombok.Data;
+
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class StockReservationJournal {
+
+  public static final String TYPE_RESERVE = "RESERVE";
+  public static final String TYPE_CANCEL = "CANCEL";
+
+  private String type;
+
+  private String mainOrderNo;
+
+  private String subOrderNo;
+
+  @JsonFormat(shape = JsonFormat.Shape.STRING)
+  private Long skuId;
+
+  private String reason;
+
+  private List<Allocation> allocations;
+
+  public String reservationKey() {
+    return subOrderNo + ":" + skuId;
+  }
+
+  @Data
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  public static class Allocation {
+
+    private Integer segmentId;
+
+    private Integer quantity;
+  }
+}
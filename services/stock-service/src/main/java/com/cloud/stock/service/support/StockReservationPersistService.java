@@ -0,0 +1,299 @@
+package com.cloud.stock.service.support;
+
+import com.cloud.stock.mapper.StockReservationMapper;
+import com.cloud.stock.mapper.StockSegmentMapper;
+import com.cloud.stock.messaging.StockMessageProducer;
+import com.cloud.stock.module.entity.StockReservation;
+import com.cloud.stock.module.entity.StockTxn;
+import com.cloud.stock.service.impl.StockTxnAsyncWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockReservationPersistService {
+
+  private static final String STATUS_LOCKED = "LOCKED";
+  private static final String STATUS_RELEASED = "RELEASED";
+  private static final Comparator<SegmentKey> SEGMENT_ORDER =
+      Comparator.comparing(SegmentKey::skuId).thenComparing(SegmentKey::segmentId);
+
+  private final StockSegmentMapper stockSegmentMapper;
+  private final StockReservationMapper stockReservationMapper;
+  private final StockTxnAsyncWriter stockTxnAsyncWriter;
+  private final StockRedisCacheService stockRedisCacheService;
+  private final StockSearchSyncService stockSearchSyncService;
+  private final StockLedgerSummaryService stockLedgerSummaryService;
+  private final StockMessageProducer stockMessageProducer;
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Runs in its own transaction so a rebalance draining the journal from inside its transaction
+   * commits each flushed batch on its own and keeps per-entry retries independent. Returns the
+   * number of reservations rejected because the DB could not cover them.
+   */
+  @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+  public int persist(List<StockReservationJournal> journals) {
+    if (journals == null || journals.isEmpty()) {
+      return 0;
+    }
+    Map<String, StockReservationJournal> reserves = new LinkedHashMap<>();
+    List<StockReservationJournal> cancels = new ArrayList<>();
+    for (StockReservationJournal journal : journals) {
+      if (journal == null || journal.getSkuId() == null || journal.getSubOrderNo() == null) {
+        continue;
+      }
+      if (StockReservationJournal.TYPE_CANCEL.equals(journal.getType())) {
+        if (reserves.remove(journal.reservationKey()) == null) {
+          cancels.add(journal);
+        }
+        continue;
+      }
+      reserves.put(journal.reservationKey(), journal);
+    }
+
+    Set<Long> touchedSkuIds = new LinkedHashSet<>();
+    int rejected = applyReserves(new ArrayList<>(reserves.values()), touchedSkuIds);
+    applyCancels(cancels, touchedSkuIds);
+    if (!touchedSkuIds.isEmpty()) {
+      stockRedisCacheService.evictLedgersAfterCommit(touchedSkuIds);
+    }
+    return rejected;
+  }
+
+  /**
+   * Moves the reserved quantities from available to locked, one statement per segment in key order.
+   * A segment whose DB row cannot cover its total is retried entry by entry; an entry that still
+   * does not fit was oversold by Redis, so it is rejected instead of driving the row negative: the
+   * segments it already took are given back and a freeze-failed event cancels (or refunds) its
+   * order. Returns the number of rejected reservations.
+   */
+  private int applyReserves(List<StockReservationJournal> journals, Set<Long> touchedSkuIds) {
+    if (journals.isEmpty()) {
+      return 0;
+    }
+    List<String> idempotencyKeys = new ArrayList<>();
+    for (StockReservationJournal journal : journals) {
+      for (StockReservationJournal.Allocation allocation : safeAllocations(journal)) {
+        idempotencyKeys.add(buildIdempotencyKey(journal, allocation.getSegmentId()));
+      }
+    }
+    if (idempotencyKeys.isEmpty()) {
+      return 0;
+    }
+    Set<String> persistedKeys = new HashSet<>();
+    for (StockReservation existing :
+        stockReservationMapper.listByIdempotencyKeys(idempotencyKeys)) {
+      persistedKeys.add(existing.getIdempotencyKey());
+    }
+
+    Map<SegmentKey, List<PendingAllocation>> bySegment = new TreeMap<>(SEGMENT_ORDER);
+    for (StockReservationJournal journal : journals) {
+      for (StockReservationJournal.Allocation allocation : safeAllocations(journal)) {
+        String idempotencyKey = buildIdempotencyKey(journal, allocation.getSegmentId());
+        if (!persistedKeys.add(idempotencyKey)) {
+          continue;
+        }
+        bySegment
+            .computeIfAbsent(
+                new SegmentKey(journal.getSkuId(), allocation.getSegmentId()),
+                key -> new ArrayList<>())
+            .add(
+                new PendingAllocation(
+                    journal, allocation.getSegmentId(), allocation.getQuantity(), idempotencyKey));
+      }
+    }
+    if (bySegment.isEmpty()) {
+      return 0;
+    }
+
+    Map<String, List<PendingAllocation>> appliedByJournal = new LinkedHashMap<>();
+    Map<String, StockReservationJournal> rejected = new LinkedHashMap<>();
+    for (Map.Entry<SegmentKey, List<PendingAllocation>> entry : bySegment.entrySet()) {
+      SegmentKey segment = entry.getKey();
+      List<PendingAllocation> pending =
+          entry.getValue().stream()
+              .filter(allocation -> !rejected.containsKey(allocation.journalKey()))
+              .toList();
+      int total = pending.stream().mapToInt(PendingAllocation::quantity).sum();
+      if (total == 0) {
+        continue;
+      }
+      if (stockSegmentMapper.reserveOnSegment(segment.skuId(), segment.segmentId(), total) == 1) {
+        pending.forEach(allocation -> apply(appliedByJournal, allocation));
+        continue;
+      }
+      for (PendingAllocation allocation : pending) {
+        if (stockSegmentMapper.reserveOnSegment(
+                segment.skuId(), segment.segmentId(), allocation.quantity())
+            == 1) {
+          apply(appliedByJournal, allocation);
+          continue;
+        }
+        rejected.put(allocation.journalKey(), allocation.journal());
+        giveBack(appliedByJournal.remove(allocation.journalKey()));
+      }
+    }
+
+    List<StockReservation> reservations = new ArrayList<>();
+    Map<Long, Integer> reservedBySku = new LinkedHashMap<>();
+    for (List<PendingAllocation> applied : appliedByJournal.values()) {
+      for (PendingAllocation allocation : applied) {
+        StockReservationJournal journal = allocation.journal();
+        StockReservation reservation = new StockReservation();
+        reservation.setMainOrderNo(journal.getMainOrderNo());
+        reservation.setSubOrderNo(journal.getSubOrderNo());
+        reservation.setSkuId(journal.getSkuId());
+        reservation.setSegmentId(allocation.segmentId());
+        reservation.setQuantity(allocation.quantity());
+        reservation.setStatus(STATUS_LOCKED);
+        reservation.setIdempotencyKey(allocation.idempotencyKey());
+        reservations.add(reservation);
+        stockTxnAsyncWriter.write(
+            buildTxn(journal, allocation.segmentId(), allocation.quantity(), "RESERVE"));
+        reservedBySku.merge(journal.getSkuId(), allocation.quantity(), Integer::sum);
+      }
+    }
+    for (Map.Entry<Long, Integer> entry : reservedBySku.entrySet()) {
+      touchedSkuIds.add(entry.getKey());
+      stockSearchSyncService.recordStockChange(entry.getKey(), -entry.getValue(), 0);
+      stockLedgerSummaryService.recordDelta(entry.getKey(), -entry.getValue(), entry.getValue(), 0);
+    }
+    if (!reservations.isEmpty()) {
+      stockReservationMapper.insert(reservations);
+    }
+    rejected.values().forEach(this::rejectOversold);
+    return rejected.size();
+  }
+
+  private void apply(
+      Map<String, List<PendingAllocation>> appliedByJournal, PendingAllocation allocation) {
+    appliedByJournal
+        .computeIfAbsent(allocation.journalKey(), key -> new ArrayList<>())
+        .add(allocation);
+  }
+
+  private void giveBack(List<PendingAllocation> applied) {
+    if (applied == null) {
+      return;
+    }
+    for (PendingAllocation allocation : applied) {
+      if (stockSegmentMapper.releaseOnSegment(
+              allocation.journal().getSkuId(), allocation.segmentId(), allocation.quantity())
+          != 1) {
+        throw new IllegalStateException(
+            "give back rejected reservation failed: skuId="
+                + allocation.journal().getSkuId()
+                + ", segmentId="
+                + allocation.segmentId());
+      }
+    }
+  }
+
+  private void rejectOversold(StockReservationJournal journal) {
+    int quantity = safeAllocations(journal).stream().mapToInt(item -> item.getQuantity()).sum();
+    meterRegistry.counter("stock.reserve.redis.oversell").increment(quantity);
+    log.error(
+        "Redis reservation oversold DB stock, rejected: mainOrderNo={}, subOrderNo={}, skuId={}, qty={}",
+        journal.getMainOrderNo(),
+        journal.getSubOrderNo(),
+        journal.getSkuId(),
+        quantity);
+    if (journal.getMainOrderNo() == null
+        || !stockMessageProducer.sendStockFreezeFailedEvent(
+            journal.getMainOrderNo(), "insufficient available stock: oversold on flush")) {
+      meterRegistry.counter("stock.reserve.redis.oversell.unnotified").increment();
+    }
+  }
+
+  private void applyCancels(List<StockReservationJournal> journals, Set<Long> touchedSkuIds) {
+    for (StockReservationJournal journal : journals) {
+      List<StockReservation> reservations =
+          stockReservationMapper.listActiveBySubOrderNoAndSkuId(
+              journal.getSubOrderNo(), journal.getSkuId());
+      if (reservations == null) {
+        continue;
+      }
+      for (StockReservation reservation : reservations) {
+        if (!STATUS_LOCKED.equals(reservation.getStatus())) {
+          continue;
+        }
+        int updated =
+            stockSegmentMapper.releaseOnSegment(
+                reservation.getSkuId(), reservation.getSegmentId(), reservation.getQuantity());
+        if (updated != 1) {
+          log.warn(
+              "Cancel Redis reservation found no locked stock: subOrderNo={}, skuId={}, segmentId={}",
+              reservation.getSubOrderNo(),
+              reservation.getSkuId(),
+              reservation.getSegmentId());
+          continue;
+        }
+        reservation.setStatus(STATUS_RELEASED);
+        stockReservationMapper.updateById(reservation);
+        stockTxnAsyncWriter.write(
+            buildTxn(journal, reservation.getSegmentId(), reservation.getQuantity(), "RELEASE"));
+        touchedSkuIds.add(reservation.getSkuId());
+        stockSearchSyncService.recordStockChange(
+            reservation.getSkuId(), reservation.getQuantity(), 0);
+        stockLedgerSummaryService.recordDelta(
+            reservation.getSkuId(), reservation.getQuantity(), -reservation.getQuantity(), 0);
+      }
+    }
+  }
+
+  private List<StockReservationJournal.Allocation> safeAllocations(
+      StockReservationJournal journal) {
+    if (journal.getAllocations() == null) {
+      return List.of();
+    }
+    return journal.getAllocations().stream()
+        .filter(
+            allocation ->
+                allocation != null
+                    && allocation.getSegmentId() != null
+                    && allocation.getQuantity() != null
+                    && allocation.getQuantity() > 0)
+        .toList();
+  }
+
+  private String buildIdempotencyKey(StockReservationJournal journal, Integer segmentId) {
+    return journal.getSubOrderNo() + ":" + journal.getSkuId() + ":" + segmentId;
+  }
+
+  private StockTxn buildTxn(
+      StockReservationJournal journal, Integer segmentId, Integer quantity, String txnType) {
+    StockTxn txn = new StockTxn();
+    txn.setSkuId(journal.getSkuId());
+    txn.setSegmentId(segmentId);
+    txn.setSubOrderNo(journal.getSubOrderNo());
+    txn.setTxnType(txnType);
+    txn.setQuantity(quantity);
+    txn.setRemark(journal.getReason());
+    return txn;
+  }
+
+  private record SegmentKey(Long skuId, Integer segmentId) {}
+
+  private record PendingAllocation(
+      StockReservationJournal journal, Integer segmentId, Integer quantity, String idempotencyKey) {
+
+    String journalKey() {
+      return journal.reservationKey();
+    }
+  }
+}
@@ -1,17 +1,23 @@
 package com.cloud.stock.service.support;
 
 import com.cloud.api.product.ProductDubboApi;
-import com.cloud.common.messaging.event.ProductSyncEvent;
+import com.cloud.common.messaging.event.StockChangedEvent;
 import com.cloud.stock.messaging.StockMessageProducer;
-import java.util.Collection;
-import java.util.LinkedHashSet;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.dubbo.config.annotation.DubboReference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Slf4j
 @Service
@@ -19,33 +25,143 @@ import org.springframework.stereotype.Service;
 public class StockSearchSyncService {
 
   private final StockMessageProducer stockMessageProducer;
+  private final MeterRegistry meterRegistry;
+  private final Map<Long, SkuDelta> pendingDeltas = new ConcurrentHashMap<>();
+
+  @Value("${stock.search-sync.batch-size:200}")
+  private int batchSize;
 
   @DubboReference(check = false, timeout = 5000, retries = 0)
   private ProductDubboApi productDubboApi;
 
-  public void syncProductsBySkuIds(Collection<Long> skuIds) {
-    if (skuIds == null || skuIds.isEmpty()) {
+  public void recordStockChange(Long skuId, int stockDelta, int salesDelta) {
+    if (skuId == null || (stockDelta == 0 && salesDelta == 0)) {
       return;
     }
-    List<Long> safeSkuIds = skuIds.stream().filter(id -> id != null).distinct().toList();
-    if (safeSkuIds.isEmpty()) {
+    SkuDelta delta = new SkuDelta(stockDelta, salesDelta);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              pendingDeltas.merge(skuId, delta, SkuDelta::plus);
+            }
+          });
       return;
     }
-    Map<Long, Long> spuIdBySkuId = productDubboApi.mapSpuIdsBySkuIds(safeSkuIds);
-    if (spuIdBySkuId == null || spuIdBySkuId.isEmpty()) {
+    pendingDeltas.merge(skuId, delta, SkuDelta::plus);
+  }
+
+  @Scheduled(fixedDelayString = "${stock.search-sync.window-ms:1000}")
+  public void flush() {
+    if (pendingDeltas.isEmpty()) {
       return;
     }
-    Set<Long> spuIds = new LinkedHashSet<>(spuIdBySkuId.values());
-    for (Long spuId : spuIds) {
-      if (spuId == null) {
-        continue;
+    Map<Long, SkuDelta> drained = new LinkedHashMap<>();
+    for (Long skuId : new ArrayList<>(pendingDeltas.keySet())) {
+      SkuDelta delta = pendingDeltas.remove(skuId);
+      if (delta != null && !delta.isEmpty()) {
+        drained.put(skuId, delta);
+      }
+    }
+    if (drained.isEmpty()) {
+      return;
+    }
+
+    Map<Long, Long> spuIdBySkuId;
+    try {
+      spuIdBySkuId = productDubboApi.mapSpuIdsBySkuIds(new ArrayList<>(drained.keySet()));
+    } catch (Exception ex) {
+      log.warn("Map spu ids for stock search sync failed, requeue: skus={}", drained.size(), ex);
+      drained.forEach((skuId, delta) -> pendingDeltas.merge(skuId, delta, SkuDelta::plus));
+      return;
+    }
+    if (spuIdBySkuId == null) {
+      log.warn(
+          "Map spu ids for stock search sync returned nothing, requeue: skus={}", drained.size());
+      drained.forEach((skuId, delta) -> pendingDeltas.merge(skuId, delta, SkuDelta::plus));
+      return;
+    }
+
+    Map<Long, StockChangedEvent.Item> itemsBySpuId = new LinkedHashMap<>();
+    List<Long> unmapped = new ArrayList<>();
+    drained.forEach(
+        (skuId, delta) -> {
+          Long spuId = spuIdBySkuId.get(skuId);
+          if (spuId == null) {
+            unmapped.add(skuId);
+            return;
+          }
+          StockChangedEvent.Item item =
+              itemsBySpuId.computeIfAbsent(
+                  spuId, id -> new StockChangedEvent.Item(id, new ArrayList<>(), 0, 0));
+          item.getSkuIds().add(skuId);
+          item.setStockDelta(item.getStockDelta() + delta.stockDelta());
+          item.setSalesDelta(item.getSalesDelta() + delta.salesDelta());
+        });
+
+    if (!unmapped.isEmpty()) {
+      // A SKU product-service no longer knows has no document to update; retrying cannot help.
+      meterRegistry
+          .counter("stock.search-sync.dropped", "reason", "unmapped")
+          .increment(unmapped.size());
+      log.warn("Drop stock search sync deltas of unmapped skus: skuIds={}", unmapped);
+    }
+
+    List<StockChangedEvent.Item> items =
+        itemsBySpuId.values().stream()
+            .filter(item -> item.getStockDelta() != 0 || item.getSalesDelta() != 0)
+            .toList();
+    int safeBatchSize = Math.max(1, batchSize);
+    for (int start = 0; start < items.size(); start += safeBatchSize) {
+      List<StockChangedEvent.Item> chunk =
+          items.subList(start, Math.min(items.size(), start + safeBatchSize));
+      boolean sent;
+      try {
+        sent =
+            stockMessageProducer.sendStockChangedEvent(
+                StockChangedEvent.builder().items(new ArrayList<>(chunk)).build());
+      } catch (Exception ex) {
+        log.warn("Send search stock sync failed: spus={}", chunk.size(), ex);
+        sent = false;
       }
-      boolean sent =
-          stockMessageProducer.sendProductSyncEvent(
-              ProductSyncEvent.builder().spuId(spuId).eventType("PRODUCT_UPSERT").build());
       if (!sent) {
-        log.warn("Skip search sync after stock change: spuId={}", spuId);
+        log.warn("Requeue search stock sync after failed send: spus={}", chunk.size());
+        requeue(chunk, drained);
+      }
+    }
+  }
+
+  @PreDestroy
+  public void flushOnShutdown() {
+    flush();
+    if (!pendingDeltas.isEmpty()) {
+      meterRegistry
+          .counter("stock.search-sync.dropped", "reason", "shutdown")
+          .increment(pendingDeltas.size());
+      log.warn("Search stock sync deltas left unsent at shutdown: skus={}", pendingDeltas.size());
+    }
+  }
+
+  private void requeue(List<StockChangedEvent.Item> items, Map<Long, SkuDelta> drained) {
+    for (StockChangedEvent.Item item : items) {
+      for (Long skuId : item.getSkuIds()) {
+        SkuDelta delta = drained.get(skuId);
+        if (delta != null) {
+          pendingDeltas.merge(skuId, delta, SkuDelta::plus);
+        }
       }
     }
   }
+
+  private record SkuDelta(int stockDelta, int salesDelta) {
+
+    SkuDelta plus(SkuDelta other) {
+      return new SkuDelta(stockDelta + other.stockDelta, salesDelta + other.salesDelta);
+    }
+
+    boolean isEmpty() {
+      return stockDelta == 0 && salesDelta == 0;
+    }
+  }
 }
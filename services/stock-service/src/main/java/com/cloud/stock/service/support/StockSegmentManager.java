@@ -0,0 +1,340 @@
+package com.cloud.stock.service.support;
+
+import com.cloud.common.domain.vo.stock.StockSegmentStatsVO;
+import com.cloud.common.exception.BizException;
+import com.cloud.stock.mapper.StockSegmentMapper;
+import com.cloud.stock.module.entity.StockSegment;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+@Slf4j
+@Service
+public class StockSegmentManager {
+
+  private static final String CONTENTION_KEY = "stock:segment:contention";
+  private static final String ADAPTED_KEY = "stock:segment:adapted";
+  private static final String FIELD_ATTEMPTS = ":a";
+  private static final String FIELD_CONFLICTS = ":c";
+  private static final String FIELD_WAIT_MICROS = ":w";
+
+  @Value("${stock.segment.adaptive.enabled:false}")
+  private boolean enabled;
+
+  @Value("${stock.segment.adaptive.base-segments:4}")
+  private int baseSegments;
+
+  @Value("${stock.segment.adaptive.max-segments:16}")
+  private int maxSegments;
+
+  @Value("${stock.segment.adaptive.min-attempts:50}")
+  private long minAttempts;
+
+  @Value("${stock.segment.adaptive.split-conflict-rate:0.2}")
+  private double splitConflictRate;
+
+  @Value("${stock.segment.adaptive.split-lock-wait-ms:20}")
+  private double splitLockWaitMs;
+
+  @Value("${stock.segment.adaptive.cool-attempts:5}")
+  private long coolAttempts;
+
+  private final StringRedisTemplate stringRedisTemplate;
+  private final StockSegmentMapper stockSegmentMapper;
+  private final StockSegmentRebalanceService stockSegmentRebalanceService;
+  private final Map<Long, Contention> pending = new ConcurrentHashMap<>();
+  private final AtomicInteger adaptedSkuCount = new AtomicInteger();
+  private final DefaultRedisScript<List> drainScript;
+  private final Counter attemptCounter;
+  private final Counter conflictCounter;
+  private final Counter splitCounter;
+  private final Counter mergeCounter;
+  private final Timer lockWaitTimer;
+
+  public StockSegmentManager(
+      StringRedisTemplate stringRedisTemplate,
+      StockSegmentMapper stockSegmentMapper,
+      StockSegmentRebalanceService stockSegmentRebalanceService,
+      MeterRegistry meterRegistry) {
+    this.stringRedisTemplate = stringRedisTemplate;
+    this.stockSegmentMapper = stockSegmentMapper;
+    this.stockSegmentRebalanceService = stockSegmentRebalanceService;
+    this.drainScript = new DefaultRedisScript<>();
+    this.drainScript.setResultType(List.class);
+    this.drainScript.setScriptText(
+        """
+            local data = redis.call('HGETALL', KEYS[1])
+            redis.call('DEL', KEYS[1])
+            return data
+            """);
+    this.attemptCounter = meterRegistry.counter("stock.segment.reserve.attempts");
+    this.conflictCounter = meterRegistry.counter("stock.segment.reserve.conflicts");
+    this.splitCounter = meterRegistry.counter("stock.segment.rebalance", "action", "split");
+    this.mergeCounter = meterRegistry.counter("stock.segment.rebalance", "action", "merge");
+    this.lockWaitTimer = meterRegistry.timer("stock.segment.lock.wait");
+    Gauge.builder("stock.segment.adapted.skus", adaptedSkuCount, AtomicInteger::get)
+        .register(meterRegistry);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void recordReserve(Long skuId, int attempts, int conflicts, long lockWaitNanos) {
+    if (!enabled || skuId == null || attempts <= 0) {
+      return;
+    }
+    attemptCounter.increment(attempts);
+    conflictCounter.increment(conflicts);
+    lockWaitTimer.record(lockWaitNanos, TimeUnit.NANOSECONDS);
+    Contention contention = pending.computeIfAbsent(skuId, key -> new Contention());
+    contention.attempts.add(attempts);
+    contention.conflicts.add(conflicts);
+    contention.waitNanos.add(lockWaitNanos);
+  }
+
+  public int publish() {
+    if (pending.isEmpty()) {
+      return 0;
+    }
+    Map<Long, Contention> drained = new HashMap<>();
+    for (Long skuId : new ArrayList<>(pending.keySet())) {
+      Contention contention = pending.remove(skuId);
+      if (contention != null) {
+        drained.put(skuId, contention);
+      }
+    }
+    byte[] key = CONTENTION_KEY.getBytes(StandardCharsets.UTF_8);
+    stringRedisTemplate.executePipelined(
+        (RedisCallback<Object>)
+            connection -> {
+              for (Map.Entry<Long, Contention> entry : drained.entrySet()) {
+                Contention contention = entry.getValue();
+                String prefix = String.valueOf(entry.getKey());
+                connection
+                    .hashCommands()
+                    .hIncrBy(key, field(prefix, FIELD_ATTEMPTS), contention.attempts.sum());
+                connection
+                    .hashCommands()
+                    .hIncrBy(key, field(prefix, FIELD_CONFLICTS), contention.conflicts.sum());
+                connection
+                    .hashCommands()
+                    .hIncrBy(
+                        key,
+                        field(prefix, FIELD_WAIT_MICROS),
+                        TimeUnit.NANOSECONDS.toMicros(contention.waitNanos.sum()));
+              }
+              return null;
+            });
+    return drained.size();
+  }
+
+  public int rebalanceHotSkus() {
+    if (!enabled) {
+      return 0;
+    }
+    Map<Long, long[]> window = drainWindow();
+    Set<Long> adapted = adaptedSkus();
+    Set<Long> candidates = new LinkedHashSet<>(window.keySet());
+    candidates.addAll(adapted);
+    int changed = 0;
+    for (Long skuId : candidates) {
+      long[] stats = window.getOrDefault(skuId, new long[3]);
+      try {
+        if (isHot(stats)) {
+          changed += split(skuId) ? 1 : 0;
+        } else if (adapted.contains(skuId) && stats[0] <= coolAttempts) {
+          changed += merge(skuId) ? 1 : 0;
+        }
+      } catch (Exception ex) {
+        log.warn("Rebalance stock segments failed: skuId={}", skuId, ex);
+      }
+    }
+    Long size = stringRedisTemplate.opsForSet().size(ADAPTED_KEY);
+    adaptedSkuCount.set(size == null ? 0 : size.intValue());
+    return changed;
+  }
+
+  public StockSegmentStatsVO rebalance(Long skuId, int targetSegments) {
+    if (skuId == null) {
+      throw new BizException("skuId is required");
+    }
+    if (targetSegments < 1 || targetSegments > maxSegments) {
+      throw new BizException("targetSegments must be between 1 and " + maxSegments);
+    }
+    int live = stockSegmentRebalanceService.rebalance(skuId, null, targetSegments);
+    markAdapted(skuId, live);
+    return getStats(skuId);
+  }
+
+  public StockSegmentStatsVO getStats(Long skuId) {
+    List<StockSegment> segments = stockSegmentMapper.listActiveSegmentsBySkuId(skuId);
+    StockSegmentStatsVO stats = new StockSegmentStatsVO();
+    stats.setSkuId(skuId);
+    stats.setSegmentCount(segments == null ? 0 : segments.size());
+    stats.setLiveSegmentCount(StockSegmentRebalanceService.countLive(segments));
+    stats.setAvailableQty(
+        segments == null
+            ? 0
+            : segments.stream()
+                .mapToInt(
+                    segment -> segment.getAvailableQty() == null ? 0 : segment.getAvailableQty())
+                .sum());
+    stats.setAdapted(
+        Boolean.TRUE.equals(
+            stringRedisTemplate.opsForSet().isMember(ADAPTED_KEY, String.valueOf(skuId))));
+    String prefix = String.valueOf(skuId);
+    List<Object> values =
+        stringRedisTemplate
+            .opsForHash()
+            .multiGet(
+                CONTENTION_KEY,
+                List.of(
+                    prefix + FIELD_ATTEMPTS, prefix + FIELD_CONFLICTS, prefix + FIELD_WAIT_MICROS));
+    long attempts = parseLong(values.get(0));
+    long conflicts = parseLong(values.get(1));
+    long waitMicros = parseLong(values.get(2));
+    stats.setReserveAttempts(attempts);
+    stats.setReserveConflicts(conflicts);
+    stats.setConflictRate(attempts == 0 ? 0D : (double) conflicts / attempts);
+    stats.setAvgLockWaitMs(attempts == 0 ? 0D : waitMicros / 1000D / attempts);
+    return stats;
+  }
+
+  private boolean split(Long skuId) {
+    int live =
+        StockSegmentRebalanceService.countLive(stockSegmentMapper.listActiveSegmentsBySkuId(skuId));
+    if (live >= maxSegments) {
+      return false;
+    }
+    int target = Math.min(maxSegments, Math.max(live * 2, baseSegments));
+    int after = stockSegmentRebalanceService.rebalance(skuId, live, target);
+    markAdapted(skuId, after);
+    if (after <= live) {
+      return false;
+    }
+    splitCounter.increment();
+    return true;
+  }
+
+  private boolean merge(Long skuId) {
+    int live =
+        StockSegmentRebalanceService.countLive(stockSegmentMapper.listActiveSegmentsBySkuId(skuId));
+    if (live <= baseSegments) {
+      markAdapted(skuId, live);
+      return false;
+    }
+    int after =
+        stockSegmentRebalanceService.rebalance(skuId, live, Math.max(baseSegments, live / 2));
+    markAdapted(skuId, after);
+    if (after >= live) {
+      return false;
+    }
+    mergeCounter.increment();
+    return true;
+  }
+
+  private boolean isHot(long[] stats) {
+    long attempts = stats[0];
+    if (attempts < Math.max(1L, minAttempts)) {
+      return false;
+    }
+    double conflictRate = (double) stats[1] / attempts;
+    double avgLockWaitMs = stats[2] / 1000D / attempts;
+    return conflictRate >= splitConflictRate || avgLockWaitMs >= splitLockWaitMs;
+  }
+
+  private void markAdapted(Long skuId, int live) {
+    if (live > baseSegments) {
+      stringRedisTemplate.opsForSet().add(ADAPTED_KEY, String.valueOf(skuId));
+    } else {
+      stringRedisTemplate.opsForSet().remove(ADAPTED_KEY, String.valueOf(skuId));
+    }
+  }
+
+  private Map<Long, long[]> drainWindow() {
+    List<?> data = stringRedisTemplate.execute(drainScript, List.of(CONTENTION_KEY));
+    Map<Long, long[]> window = new HashMap<>();
+    if (data == null) {
+      return window;
+    }
+    for (int i = 0; i + 1 < data.size(); i += 2) {
+      String field = String.valueOf(data.get(i));
+      int separator = field.lastIndexOf(':');
+      if (separator <= 0) {
+        continue;
+      }
+      Long skuId;
+      try {
+        skuId = Long.valueOf(field.substring(0, separator));
+      } catch (NumberFormatException ex) {
+        continue;
+      }
+      long[] stats = window.computeIfAbsent(skuId, key -> new long[3]);
+      long value = parseLong(data.get(i + 1));
+      switch (field.substring(separator)) {
+        case FIELD_ATTEMPTS -> stats[0] += value;
+        case FIELD_CONFLICTS -> stats[1] += value;
+        case FIELD_WAIT_MICROS -> stats[2] += value;
+        default -> {}
+      }
+    }
+    return window;
+  }
+
+  private Set<Long> adaptedSkus() {
+    Set<String> members = stringRedisTemplate.opsForSet().members(ADAPTED_KEY);
+    Set<Long> skuIds = new LinkedHashSet<>();
+    if (members == null) {
+      return skuIds;
+    }
+    for (String member : members) {
+      try {
+        skuIds.add(Long.valueOf(member));
+      } catch (NumberFormatException ignored) {
+        stringRedisTemplate.opsForSet().remove(ADAPTED_KEY, member);
+      }
+    }
+    return skuIds;
+  }
+
+  private byte[] field(String prefix, String suffix) {
+    return (prefix + suffix).getBytes(StandardCharsets.UTF_8);
+  }
+
+  private long parseLong(Object value) {
+    if (value == null) {
+      return 0L;
+    }
+    try {
+      return Long.parseLong(String.valueOf(value));
+    } catch (NumberFormatException ex) {
+      return 0L;
+    }
+  }
+
+  private static final class Contention {
+
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+  }
+}
@@ -0,0 +1,132 @@
+package com.cloud.stock.service.support;
+
+import com.cloud.common.annotation.DistributedLock;
+import com.cloud.common.exception.BizException;
+import com.cloud.stock.mapper.StockSegmentMapper;
+import com.cloud.stock.mapper.StockSegmentMapper.SegmentDelta;
+import com.cloud.stock.module.entity.StockSegment;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockSegmentRebalanceService {
+
+  private final StockSegmentMapper stockSegmentMapper;
+  private final StockRedisCacheService stockRedisCacheService;
+  private final StockRedisReservationService stockRedisReservationService;
+  private final StockLedgerSummaryService stockLedgerSummaryService;
+
+  @Value("${stock.segment.adaptive.min-available-per-segment:10}")
+  private int minAvailablePerSegment;
+
+  public static int countLive(List<StockSegment> segments) {
+    if (segments == null) {
+      return 0;
+    }
+    return (int)
+        segments.stream()
+            .filter(segment -> segment.getAvailableQty() != null && segment.getAvailableQty() > 0)
+            .count();
+  }
+
+  /**
+   * Spreads the SKU's available stock evenly over {@code targetLive} segment rows. Rows keep their
+   * locked and sold quantities so existing reservations stay valid; surplus rows are drained to
+   * zero instead of being deleted. Returns the live segment count after the call.
+   *
+   * <p>Runs under the Redis reservation flush lock: with the Redis engine enabled the SKU is
+   * suspended and the journal drained first, so the DB rows already carry every accepted
+   * reservation and the Redis hash is rebuilt from the rebalanced rows afterwards.
+   */
+  @DistributedLock(key = "'stock:reserve:flush'", waitTime = 5, leaseTime = 300)
+  @Transactional(rollbackFor = Exception.class)
+  public int rebalance(Long skuId, Integer expectedLive, int targetLive) {
+    stockRedisReservationService.suspendForRebalance(skuId);
+    List<StockSegment> segments = stockSegmentMapper.lockActiveSegmentsBySkuIds(List.of(skuId));
+    if (segments == null || segments.isEmpty()) {
+      throw new BizException("stock segment not found for skuId=" + skuId);
+    }
+    int live = countLive(segments);
+    if (expectedLive != null && expectedLive != live) {
+      return live;
+    }
+    int totalAvailable =
+        segments.stream().mapToInt(segment -> defaultZero(segment.getAvailableQty())).sum();
+    if (totalAvailable < 0) {
+      // Rows left negative by a manual adjustment cannot be spread; leave them for repair.
+      log.warn(
+          "Skip stock segment rebalance, SKU is oversold: skuId={}, available={}",
+          skuId,
+          totalAvailable);
+      return live;
+    }
+    int target =
+        Math.max(1, Math.min(targetLive, totalAvailable / Math.max(1, minAvailablePerSegment)));
+    if (target == live) {
+      return live;
+    }
+
+    List<StockSegment> pool = new ArrayList<>(segments);
+    StockSegment template = segments.get(0);
+    // Inactive and deleted rows still own their (sku_id, segment_id) key.
+    Integer maxSegmentId = stockSegmentMapper.selectMaxSegmentId(skuId);
+    int nextSegmentId =
+        Math.max(
+                maxSegmentId == null ? 0 : maxSegmentId,
+                segments.get(segments.size() - 1).getSegmentId())
+            + 1;
+    List<StockSegment> created = new ArrayList<>();
+    while (pool.size() < target) {
+      StockSegment segment = new StockSegment();
+      segment.setSkuId(skuId);
+      segment.setSegmentId(nextSegmentId++);
+      segment.setAvailableQty(0);
+      segment.setLockedQty(0);
+      segment.setSoldQty(0);
+      segment.setAlertThreshold(template.getAlertThreshold());
+      segment.setStatus(template.getStatus());
+      pool.add(segment);
+      created.add(segment);
+    }
+    if (!created.isEmpty()) {
+      stockSegmentMapper.insert(created);
+      stockLedgerSummaryService.recordSegmentsAdded(skuId, created.size());
+    }
+
+    int share = totalAvailable / target;
+    int remainder = totalAvailable % target;
+    List<SegmentDelta> deltas = new ArrayList<>();
+    for (int i = 0; i < pool.size(); i++) {
+      StockSegment segment = pool.get(i);
+      int desired = i < target ? share + (i < remainder ? 1 : 0) : 0;
+      int delta = desired - defaultZero(segment.getAvailableQty());
+      if (delta != 0) {
+        deltas.add(new SegmentDelta(skuId, segment.getSegmentId(), delta));
+      }
+    }
+    if (!deltas.isEmpty()
+        && stockSegmentMapper.adjustAvailableOnSegments(deltas) != deltas.size()) {
+      throw new BizException("rebalance stock segment failed for skuId=" + skuId);
+    }
+    stockRedisCacheService.evictLedgerAfterCommit(skuId);
+    log.info(
+        "Stock segments rebalanced: skuId={}, liveBefore={}, liveAfter={}, rows={}, available={}",
+        skuId,
+        live,
+        target,
+        pool.size(),
+        totalAvailable);
+    return target;
+  }
+
+  private int defaultZero(Integer value) {
+    return value == null ? 0 : value;
+  }
+}
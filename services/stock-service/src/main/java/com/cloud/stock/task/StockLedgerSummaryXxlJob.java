@@ -0,0 +1,48 @@
+package com.cloud.stock.task;
+
+import com.cloud.common.annotation.DistributedLock;
+import com.cloud.common.task.XxlJobSupport;
+import com.cloud.stock.mapper.StockSegmentMapper;
+import com.cloud.stock.service.support.StockLedgerSummaryService;
+import com.xxl.job.core.handler.annotation.XxlJob;
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockLedgerSummaryXxlJob {
+
+  private final StockSegmentMapper stockSegmentMapper;
+  private final StockLedgerSummaryService stockLedgerSummaryService;
+
+  @Value("${stock.ledger-summary.rebuild-batch-size:500}")
+  private int batchSize;
+
+  @XxlJob("stockLedgerSummaryRebuildJob")
+  @DistributedLock(
+      key = "'xxl:stock:ledger-summary-rebuild'",
+      waitTime = 1,
+      leaseTime = 300,
+      failStrategy = DistributedLock.LockFailStrategy.RETURN_NULL)
+  public void rebuildSummaries() {
+    int limit = Math.max(1, batchSize);
+    long lastSkuId = 0L;
+    int rebuilt = 0;
+    while (true) {
+      List<Long> skuIds = stockSegmentMapper.listSkuIdsAfter(lastSkuId, limit);
+      if (skuIds == null || skuIds.isEmpty()) {
+        break;
+      }
+      rebuilt += stockLedgerSummaryService.rebuild(skuIds);
+      lastSkuId = skuIds.get(skuIds.size() - 1);
+      if (skuIds.size() < limit) {
+        break;
+      }
+    }
+    XxlJobSupport.logCount(log, "stockLedgerSummaryRebuildJob", "rebuilt", rebuilt);
+  }
+}
@@ -0,0 +1,46 @@
+package com.cloud.stock.task;
+
+import com.cloud.common.annotation.DistributedLock;
+import com.cloud.common.task.XxlJobSupport;
+import com.cloud.stock.service.support.StockRedisReservationService;
+import com.xxl.job.core.handler.annotation.XxlJob;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockReservationXxlJob {
+
+  private final StockRedisReservationService stockRedisReservationService;
+
+  @Scheduled(fixedDelayString = "${stock.reserve.redis.flush-interval-ms:500}")
+  public void flushReservations() {
+    if (!stockRedisReservationService.isEnabled()) {
+      return;
+    }
+    try {
+      stockRedisReservationService.flushPending();
+    } catch (Exception ex) {
+      log.error("Flush Redis stock reservations failed", ex);
+    }
+  }
+
+  @XxlJob("stockReservationReconcileJob")
+  @DistributedLock(
+      key = "'xxl:stock:reservation-reconcile'",
+      waitTime = 1,
+      leaseTime = 300,
+      failStrategy = DistributedLock.LockFailStrategy.RETURN_NULL)
+  public void reconcileReservations() {
+    if (!stockRedisReservationService.isEnabled()) {
+      XxlJobSupport.logCount(log, "stockReservationReconcileJob", "fixed", 0);
+      return;
+    }
+    stockRedisReservationService.flushPending();
+    Integer fixed = stockRedisReservationService.reconcile();
+    XxlJobSupport.logCount(log, "stockReservationReconcileJob", "fixed", fixed == null ? 0 : fixed);
+  }
+}
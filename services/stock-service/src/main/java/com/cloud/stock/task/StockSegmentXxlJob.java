@@ -0,0 +1,41 @@
+package com.cloud.stock.task;
+
+import com.cloud.common.annotation.DistributedLock;
+import com.cloud.common.task.XxlJobSupport;
+import com.cloud.stock.service.support.StockSegmentManager;
+import com.xxl.job.core.handler.annotation.XxlJob;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockSegmentXxlJob {
+
+  private final StockSegmentManager stockSegmentManager;
+
+  @Scheduled(fixedDelayString = "${stock.segment.adaptive.publish-interval-ms:5000}")
+  public void publishContention() {
+    if (!stockSegmentManager.isEnabled()) {
+      return;
+    }
+    try {
+      stockSegmentManager.publish();
+    } catch (Exception ex) {
+      log.warn("Publish stock segment contention failed", ex);
+    }
+  }
+
+  @XxlJob("stockSegmentRebalanceJob")
+  @DistributedLock(
+      key = "'xxl:stock:segment-rebalance'",
+      waitTime = 1,
+      leaseTime = 300,
+      failStrategy = DistributedLock.LockFailStrategy.RETURN_NULL)
+  public void rebalanceSegments() {
+    int changed = stockSegmentManager.rebalanceHotSkus();
+    XxlJobSupport.logCount(log, "stockSegmentRebalanceJob", "changed", changed);
+  }
+}
@@ -0,0 +1,248 @@
+package com.cloud.stock.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.cloud.common.domain.dto.stock.StockOperateCommandDTO;
+import com.cloud.common.exception.BizException;
+import com.cloud.common.metrics.TradeMetrics;
+import com.cloud.stock.mapper.StockLedgerSummaryMapper;
+import com.cloud.stock.mapper.StockReservationMapper;
+import com.cloud.stock.mapper.StockSegmentMapper;
+import com.cloud.stock.mapper.StockSegmentMapper.SegmentDelta;
+import com.cloud.stock.messaging.StockMessageProducer;
+import com.cloud.stock.module.entity.StockReservation;
+import com.cloud.stock.module.entity.StockSegment;
+import com.cloud.stock.service.support.StockLedgerSummaryService;
+import com.cloud.stock.service.support.StockRedisCacheService;
+import com.cloud.stock.service.support.StockRedisReservationService;
+import com.cloud.stock.service.support.StockSearchSyncService;
+import com.cloud.stock.service.support.StockSegmentManager;
+import java.util.Collection;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class StockLedgerServiceImplTest {
+
+  @Mock private StockSegmentMapper stockSegmentMapper;
+  @Mock private StockLedgerSummaryMapper stockLedgerSummaryMapper;
+  @Mock private StockReservationMapper stockReservationMapper;
+  @Mock private StockTxnAsyncWriter stockTxnAsyncWriter;
+  @Mock private StockMessageProducer stockMessageProducer;
+  @Mock private TradeMetrics tradeMetrics;
+  @Mock private StockRedisCacheService stockRedisCacheService;
+  @Mock private StockSearchSyncService stockSearchSyncService;
+  @Mock private StockRedisReservationService stockRedisReservationService;
+  @Mock private StockSegmentManager stockSegmentManager;
+  @Mock private StockLedgerSummaryService stockLedgerSummaryService;
+
+  private StockLedgerServiceImpl service;
+
+  @BeforeEach
+  void setUp() {
+    service =
+        new StockLedgerServiceImpl(
+            stockSegmentMapper,
+            stockLedgerSummaryMapper,
+            stockReservationMapper,
+            stockTxnAsyncWriter,
+            stockMessageProducer,
+            tradeMetrics,
+            stockRedisCacheService,
+            stockSearchSyncService,
+            stockRedisReservationService,
+            stockSegmentManager,
+            stockLedgerSummaryService);
+  }
+
+  @Test
+  void reserveBatchTreatsRepeatedCommandAsNoOpAndLocksSegmentsInKeyOrder() {
+    when(stockRedisCacheService.preCheck(anyList())).thenReturn(true);
+    when(stockReservationMapper.listActiveBySubOrderNos(anyList(), eq(null))).thenReturn(List.of());
+    when(stockSegmentMapper.lockActiveSegmentsBySkuIds(List.of(1L, 2L)))
+        .thenReturn(List.of(segment(1L, 0, 10), segment(2L, 0, 10)));
+    when(stockSegmentMapper.reserveOnSegments(anyList()))
+        .thenAnswer(invocation -> invocation.<List<SegmentDelta>>getArgument(0).size());
+
+    service.reserveBatch(
+        List.of(command("SO-1", 2L, 3), command("SO-1", 1L, 2), command("SO-1", 2L, 3)));
+
+    verify(stockSegmentMapper)
+        .reserveOnSegments(List.of(new SegmentDelta(1L, 0, 2), new SegmentDelta(2L, 0, 3)));
+    ArgumentCaptor<Collection<StockReservation>> inserted = reservationsCaptor();
+    verify(stockReservationMapper).insert(inserted.capture());
+    assertThat(inserted.getValue()).hasSize(2);
+    verify(stockLedgerSummaryService).recordDelta(2L, -3, 3, 0);
+    verify(stockLedgerSummaryService).recordDelta(1L, -2, 2, 0);
+  }
+
+  @Test
+  void reserveBatchSkipsCommandsAlreadyReserved() {
+    when(stockRedisCacheService.preCheck(anyList())).thenReturn(true);
+    when(stockReservationMapper.listActiveBySubOrderNos(List.of("SO-1"), null))
+        .thenReturn(List.of(reservation(11L, "SO-1", 1L, 0, 2, "LOCKED")));
+
+    service.reserveBatch(List.of(command("SO-1", 1L, 2)));
+
+    verify(stockSegmentMapper, never()).lockActiveSegmentsBySkuIds(anyList());
+    verify(stockSegmentMapper, never()).reserveOnSegments(anyList());
+  }
+
+  @Test
+  void reserveBatchFailureIsReportedForEveryOrderInTheBatch() {
+    when(stockRedisCacheService.preCheck(anyList())).thenReturn(false);
+
+    assertThatThrownBy(
+            () ->
+                service.reserveBatch(
+                    List.of(
+                        command("SO-1", 1L, 2), command("SO-2", 1L, 1), command("SO-1", 2L, 1))))
+        .isInstanceOf(BizException.class);
+
+    verify(stockMessageProducer)
+        .sendStockFreezeFailedEvent(eq("O-SO-1"), eq("insufficient available stock"));
+    verify(stockMessageProducer)
+        .sendStockFreezeFailedEvent(eq("O-SO-2"), eq("insufficient available stock"));
+    verify(tradeMetrics, times(3)).incrementStockFreeze("failed");
+  }
+
+  @Test
+  void confirmBatchReadsOnlyLockedOrSoldRowsAndUpdatesThemInIdOrder() {
+    when(stockReservationMapper.listActiveBySubOrderNos(List.of("SO-1"), List.of("LOCKED", "SOLD")))
+        .thenReturn(
+            List.of(
+                reservation(21L, "SO-1", 1L, 1, 1, "LOCKED"),
+                reservation(20L, "SO-1", 1L, 0, 2, "LOCKED"),
+                reservation(30L, "SO-1", 2L, 0, 4, "SOLD")));
+    when(stockSegmentMapper.confirmLockedOnSegments(anyList())).thenReturn(2);
+
+    service.confirmBatch(List.of(command("SO-1", 1L, 3), command("SO-1", 2L, 4)));
+
+    verify(stockSegmentMapper)
+        .confirmLockedOnSegments(List.of(new SegmentDelta(1L, 0, 2), new SegmentDelta(1L, 1, 1)));
+    verify(stockReservationMapper).updateStatusByIds(List.of(20L, 21L), "SOLD");
+    verify(stockLedgerSummaryService).recordDelta(1L, 0, -3, 3);
+    verify(stockLedgerSummaryService, never()).recordDelta(eq(2L), anyInt(), anyInt(), anyInt());
+  }
+
+  @Test
+  void releaseBatchSkipsReleasedRowsAndRepeatedCommands() {
+    when(stockReservationMapper.listActiveBySubOrderNos(
+            List.of("SO-1"), List.of("LOCKED", "RELEASED")))
+        .thenReturn(
+            List.of(
+                reservation(40L, "SO-1", 2L, 0, 2, "RELEASED"),
+                reservation(41L, "SO-1", 2L, 1, 5, "LOCKED")));
+    when(stockSegmentMapper.releaseOnSegments(anyList())).thenReturn(1);
+
+    service.releaseBatch(List.of(command("SO-1", 2L, 5), command("SO-1", 2L, 5)));
+
+    verify(stockSegmentMapper).releaseOnSegments(List.of(new SegmentDelta(2L, 1, 5)));
+    verify(stockReservationMapper).updateStatusByIds(List.of(41L), "RELEASED");
+    verify(stockRedisReservationService).restoreAfterCommit(2L, 1, 5);
+    verify(stockRedisReservationService, never()).restoreAfterCommit(2L, 0, 2);
+    verify(stockLedgerSummaryService).recordDelta(2L, 5, -5, 0);
+  }
+
+  @Test
+  void reserveUpdatesSegmentsInSegmentOrderWhateverTheRotation() {
+    String subOrderNo = subOrderNoStartingAt(2, 3);
+    when(stockRedisCacheService.preCheck(anyList())).thenReturn(true);
+    when(stockReservationMapper.listActiveBySubOrderNoAndSkuId(subOrderNo, 1L))
+        .thenReturn(List.of());
+    when(stockSegmentMapper.listActiveSegmentsBySkuId(1L))
+        .thenReturn(List.of(segment(1L, 0, 2), segment(1L, 1, 2), segment(1L, 2, 2)));
+    when(stockSegmentMapper.reserveOnSegment(eq(1L), anyInt(), anyInt())).thenReturn(1);
+
+    service.reserve(command(subOrderNo, 1L, 5));
+
+    InOrder order = inOrder(stockSegmentMapper);
+    order.verify(stockSegmentMapper).reserveOnSegment(1L, 0, 2);
+    order.verify(stockSegmentMapper).reserveOnSegment(1L, 1, 1);
+    order.verify(stockSegmentMapper).reserveOnSegment(1L, 2, 2);
+  }
+
+  @Test
+  void reserveSpillsConflictShortfallOntoLaterSegments() {
+    String subOrderNo = subOrderNoStartingAt(0, 3);
+    when(stockRedisCacheService.preCheck(anyList())).thenReturn(true);
+    when(stockReservationMapper.listActiveBySubOrderNoAndSkuId(subOrderNo, 1L))
+        .thenReturn(List.of());
+    when(stockSegmentMapper.listActiveSegmentsBySkuId(1L))
+        .thenReturn(List.of(segment(1L, 0, 3), segment(1L, 1, 1), segment(1L, 2, 5)));
+    when(stockSegmentMapper.reserveOnSegment(1L, 0, 3)).thenReturn(0);
+    when(stockSegmentMapper.reserveOnSegment(1L, 1, 1)).thenReturn(1);
+    when(stockSegmentMapper.reserveOnSegment(1L, 2, 3)).thenReturn(1);
+
+    service.reserve(command(subOrderNo, 1L, 4));
+
+    ArgumentCaptor<StockReservation> inserted = ArgumentCaptor.forClass(StockReservation.class);
+    verify(stockReservationMapper, times(2)).insert(inserted.capture());
+    assertThat(inserted.getAllValues())
+        .extracting(StockReservation::getSegmentId, StockReservation::getQuantity)
+        .containsExactly(tuple(1, 1), tuple(2, 3));
+    verify(stockSegmentManager).recordReserve(eq(1L), eq(3), eq(1), anyLong());
+    verify(stockMessageProducer, never()).sendStockFreezeFailedEvent(any(), any());
+  }
+
+  private static String subOrderNoStartingAt(int startIndex, int size) {
+    for (int i = 0; ; i++) {
+      String candidate = "SO-" + i;
+      if (Math.floorMod(candidate.hashCode(), size) == startIndex) {
+        return candidate;
+      }
+    }
+  }
+
+  private static StockOperateCommandDTO command(String subOrderNo, Long skuId, int quantity) {
+    StockOperateCommandDTO command = new StockOperateCommandDTO();
+    command.setSubOrderNo(subOrderNo);
+    command.setOrderNo("O-" + subOrderNo);
+    command.setSkuId(skuId);
+    command.setQuantity(quantity);
+    return command;
+  }
+
+  private static StockSegment segment(Long skuId, int segmentId, int available) {
+    StockSegment segment = new StockSegment();
+    segment.setSkuId(skuId);
+    segment.setSegmentId(segmentId);
+    segment.setAvailableQty(available);
+    return segment;
+  }
+
+  private static StockReservation reservation(
+      Long id, String subOrderNo, Long skuId, int segmentId, int quantity, String status) {
+    StockReservation reservation = new StockReservation();
+    reservation.setId(id);
+    reservation.setSubOrderNo(subOrderNo);
+    reservation.setSkuId(skuId);
+    reservation.setSegmentId(segmentId);
+    reservation.setQuantity(quantity);
+    reservation.setStatus(status);
+    return reservation;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static ArgumentCaptor<Collection<StockReservation>> reservationsCaptor() {
+    return ArgumentCaptor.forClass(Collection.class);
+  }
+}
@@ -0,0 +1,183 @@
+package com.cloud.stock.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
+import com.cloud.stock.mapper.StockTxnMapper;
+import com.cloud.stock.module.entity.StockTxn;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+class StockTxnAsyncWriterTest {
+
+  private final ObjectMapper objectMapper =
+      new ObjectMapper()
+          .findAndRegisterModules()
+          .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+  private final List<StockTxnAsyncWriter> writers = new ArrayList<>();
+
+  @Mock private StockTxnMapper stockTxnMapper;
+  @Mock private IdentifierGenerator identifierGenerator;
+
+  @TempDir Path walDir;
+
+  @AfterEach
+  void tearDown() throws Exception {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+    for (StockTxnAsyncWriter writer : writers) {
+      writer.destroy();
+    }
+  }
+
+  @Test
+  void startupReplaysLeftoverSegmentsAndSkipsAbortedRows() throws Exception {
+    Files.writeString(
+        walDir.resolve("stock-txn-1-1.wal"),
+        objectMapper.writeValueAsString(txn(1L))
+            + "\n"
+            + objectMapper.writeValueAsString(txn(2L))
+            + "\nABORT 2\n",
+        StandardCharsets.UTF_8);
+
+    start(walDir.toString());
+
+    ArgumentCaptor<List<StockTxn>> captor = listCaptor();
+    verify(stockTxnMapper).insertIgnoreBatch(captor.capture());
+    assertThat(captor.getValue()).extracting(StockTxn::getId).containsExactly(1L);
+    assertThat(segments()).noneMatch(path -> path.endsWith("stock-txn-1-1.wal"));
+  }
+
+  @Test
+  void committedRowIsDurableBeforeCommitAndFlushedAfterwards() throws Exception {
+    StockTxnAsyncWriter writer = start(walDir.toString());
+    TransactionSynchronizationManager.initSynchronization();
+    writer.write(txn(7L));
+    TransactionSynchronization synchronization =
+        TransactionSynchronizationManager.getSynchronizations().get(0);
+
+    synchronization.beforeCommit(false);
+    assertThat(walContent()).contains("\"id\":7");
+
+    synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+    ArgumentCaptor<List<StockTxn>> captor = listCaptor();
+    verify(stockTxnMapper, timeout(2000)).insertIgnoreBatch(captor.capture());
+    assertThat(captor.getValue()).extracting(StockTxn::getId).containsExactly(7L);
+    verify(stockTxnMapper, never()).insert(txn(7L));
+  }
+
+  @Test
+  void rowsOfOneTransactionShareOneWalAppend() throws Exception {
+    StockTxnAsyncWriter writer = start(walDir.toString());
+    TransactionSynchronizationManager.initSynchronization();
+    writer.write(txn(7L));
+    writer.write(txn(8L));
+    assertThat(TransactionSynchronizationManager.getSynchronizations()).hasSize(1);
+    TransactionSynchronization synchronization =
+        TransactionSynchronizationManager.getSynchronizations().get(0);
+
+    synchronization.beforeCommit(false);
+    assertThat(walContent().lines()).hasSize(2);
+
+    synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+    ArgumentCaptor<List<StockTxn>> captor = listCaptor();
+    verify(stockTxnMapper, timeout(2000)).insertIgnoreBatch(captor.capture());
+    assertThat(captor.getValue()).extracting(StockTxn::getId).containsExactly(7L, 8L);
+  }
+
+  @Test
+  void rolledBackRowIsNotReplayedAfterCrash() throws Exception {
+    StockTxnAsyncWriter crashed = start(walDir.toString());
+    TransactionSynchronizationManager.initSynchronization();
+    crashed.write(txn(9L));
+    TransactionSynchronization synchronization =
+        TransactionSynchronizationManager.getSynchronizations().get(0);
+
+    synchronization.beforeCommit(false);
+    synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+    assertThat(walContent()).contains("ABORT 9");
+
+    start(walDir.toString());
+
+    verify(stockTxnMapper, never()).insertIgnoreBatch(anyList());
+  }
+
+  @Test
+  void startupRequiresWalDirectory() {
+    assertThatThrownBy(() -> start(" "))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("stock.txn.journal.wal-dir");
+  }
+
+  private StockTxnAsyncWriter start(String dir) {
+    StockTxnAsyncWriter writer =
+        new StockTxnAsyncWriter(
+            stockTxnMapper, identifierGenerator, objectMapper, new SimpleMeterRegistry());
+    ReflectionTestUtils.setField(writer, "asyncEnabled", true);
+    ReflectionTestUtils.setField(writer, "bufferCapacity", 16);
+    ReflectionTestUtils.setField(writer, "batchSize", 16);
+    ReflectionTestUtils.setField(writer, "flushIntervalMs", 20L);
+    ReflectionTestUtils.setField(writer, "walDir", dir);
+    ReflectionTestUtils.setField(writer, "segmentMaxBytes", 8388608L);
+    ReflectionTestUtils.setField(writer, "segmentMaxAgeMs", 60000L);
+    writer.afterPropertiesSet();
+    writers.add(writer);
+    return writer;
+  }
+
+  private StockTxn txn(Long id) {
+    StockTxn txn = new StockTxn();
+    txn.setId(id);
+    txn.setSkuId(100L);
+    txn.setSegmentId(0);
+    txn.setSubOrderNo("S" + id);
+    txn.setTxnType("RESERVE");
+    txn.setQuantity(1);
+    txn.setCreatedAt(LocalDateTime.of(2026, 1, 1, 0, 0));
+    return txn;
+  }
+
+  private List<Path> segments() throws Exception {
+    try (Stream<Path> stream = Files.list(walDir)) {
+      return stream.toList();
+    }
+  }
+
+  private String walContent() throws Exception {
+    StringBuilder content = new StringBuilder();
+    for (Path path : segments()) {
+      content.append(Files.readString(path, StandardCharsets.UTF_8));
+    }
+    return content.toString();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static ArgumentCaptor<List<StockTxn>> listCaptor() {
+    return ArgumentCaptor.forClass(List.class);
+  }
+}
@@ -0,0 +1,97 @@
+package com.cloud.stock.service.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.cloud.stock.mapper.StockLedgerSummaryMapper;
+import com.cloud.stock.mapper.StockLedgerSummaryMapper.LedgerDelta;
+import com.cloud.stock.mapper.StockSegmentMapper;
+import java.util.List;
+import org.apache.ibatis.annotations.Insert;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class StockLedgerSummaryServiceTest {
+
+  @Mock private StockLedgerSummaryMapper stockLedgerSummaryMapper;
+  @Mock private StockSegmentMapper stockSegmentMapper;
+
+  private StockLedgerSummaryService service;
+
+  @BeforeEach
+  void setUp() {
+    service = new StockLedgerSummaryService(stockLedgerSummaryMapper, stockSegmentMapper);
+  }
+
+  @Test
+  void missingRowIsBuiltFromSegmentsWithoutReapplyingTheDelta() {
+    when(stockLedgerSummaryMapper.applyDeltas(anyList())).thenReturn(0);
+    when(stockLedgerSummaryMapper.listExistingSkuIds(List.of(7L))).thenReturn(List.of());
+    when(stockLedgerSummaryMapper.insertIgnoreFromSegments(List.of(7L))).thenReturn(1);
+
+    service.recordDelta(7L, -2, 2, 0);
+
+    verify(stockLedgerSummaryMapper, times(1)).applyDeltas(anyList());
+  }
+
+  @Test
+  void deltaIsReappliedWhenAConcurrentTransactionInsertedTheRowFirst() {
+    LedgerDelta delta = new LedgerDelta(7L, -2, 2, 0, 0);
+    when(stockLedgerSummaryMapper.applyDeltas(List.of(delta))).thenReturn(0, 1);
+    when(stockLedgerSummaryMapper.listExistingSkuIds(List.of(7L))).thenReturn(List.of());
+    when(stockLedgerSummaryMapper.insertIgnoreFromSegments(List.of(7L))).thenReturn(0);
+
+    service.recordDelta(7L, -2, 2, 0);
+
+    verify(stockLedgerSummaryMapper, times(2)).applyDeltas(List.of(delta));
+  }
+
+  @Test
+  void rebuildUpsertsActiveSkusAndOnlyDeletesOrphans() {
+    when(stockSegmentMapper.listActiveSkuIds(List.of(1L, 2L, 3L))).thenReturn(List.of(1L, 3L));
+
+    assertEquals(2, service.rebuild(List.of(1L, 2L, 3L)));
+
+    verify(stockLedgerSummaryMapper).upsertFromSegments(List.of(1L, 3L));
+    verify(stockLedgerSummaryMapper).deleteBySkuIds(List.of(2L));
+  }
+
+  @Test
+  void rebuildWithoutOrphansDeletesNothing() {
+    when(stockSegmentMapper.listActiveSkuIds(List.of(1L))).thenReturn(List.of(1L));
+
+    service.rebuild(List.of(1L));
+
+    verify(stockLedgerSummaryMapper, never()).deleteBySkuIds(anyList());
+  }
+
+  @Test
+  void summaryInsertsNeverFailOnAnExistingRow() throws Exception {
+    String insertIgnore =
+        String.join(
+            "",
+            StockLedgerSummaryMapper.class
+                .getMethod("insertIgnoreFromSegments", List.class)
+                .getAnnotation(Insert.class)
+                .value());
+    String upsert =
+        String.join(
+            "",
+            StockLedgerSummaryMapper.class
+                .getMethod("upsertFromSegments", List.class)
+                .getAnnotation(Insert.class)
+                .value());
+
+    assertThat(insertIgnore).contains("INSERT IGNORE INTO stock_ledger_summary");
+    assertThat(upsert).contains("ON DUPLICATE KEY UPDATE").contains("FROM stock_segment");
+  }
+}
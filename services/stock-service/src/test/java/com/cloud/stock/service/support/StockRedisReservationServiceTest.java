@@ -0,0 +1,378 @@
+package com.cloud.stock.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.cloud.common.domain.dto.stock.StockOperateCommandDTO;
+import com.cloud.common.exception.BizException;
+import com.cloud.common.exception.SystemException;
+import com.cloud.stock.mapper.StockSegmentMapper;
+import com.cloud.stock.module.entity.StockSegment;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.LinkedHashSet;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.ListOperations;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class StockRedisReservationServiceTest {
+
+  @Mock private StringRedisTemplate stringRedisTemplate;
+  @Mock private StockSegmentMapper stockSegmentMapper;
+  @Mock private StockReservationPersistService stockReservationPersistService;
+  @Mock private HashOperations<String, Object, Object> hashOperations;
+  @Mock private ListOperations<String, String> listOperations;
+  @Mock private SetOperations<String, String> setOperations;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private SimpleMeterRegistry meterRegistry;
+  private StockRedisReservationService service;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    service =
+        new StockRedisReservationService(
+            stringRedisTemplate,
+            stockSegmentMapper,
+            stockReservationPersistService,
+            objectMapper,
+            meterRegistry);
+    ReflectionTestUtils.setField(service, "enabled", true);
+    ReflectionTestUtils.setField(service, "flushBatchSize", 200);
+    ReflectionTestUtils.setField(service, "recordTtlSeconds", 3600L);
+    ReflectionTestUtils.setField(service, "maxFlushAttempts", 3);
+    ReflectionTestUtils.setField(service, "guardTtlSeconds", 300L);
+    when(stringRedisTemplate.opsForHash()).thenReturn(hashOperations);
+    when(stringRedisTemplate.opsForList()).thenReturn(listOperations);
+    when(stringRedisTemplate.opsForSet()).thenReturn(setOperations);
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void reserveLoadsMissingSegmentsWithGuardEpochAndRetries() {
+    when(stringRedisTemplate.execute(eq(script("reserveScript")), anyList(), any(Object[].class)))
+        .thenReturn("MISS", "NEW|1:2");
+    when(hashOperations.get("stock:reserve:guard:7", "epoch")).thenReturn("4");
+    when(stockSegmentMapper.listActiveSegmentsBySkuId(7L)).thenReturn(List.of(segment(1, 10)));
+    when(stringRedisTemplate.execute(eq(script("loadScript")), anyList(), any(Object[].class)))
+        .thenReturn(1L);
+
+    service.reserve(command("S1", 7L, 2));
+
+    verify(stringRedisTemplate)
+        .execute(
+            script("loadScript"),
+            List.of("stock:reserve:segments:7", "stock:reserve:skus", "stock:reserve:guard:7"),
+            "7",
+            "4",
+            "1",
+            "10");
+    verify(stringRedisTemplate, times(2))
+        .execute(eq(script("reserveScript")), anyList(), any(Object[].class));
+  }
+
+  @Test
+  void reserveFailsFastWhileSegmentsAreGuarded() {
+    when(stringRedisTemplate.execute(eq(script("reserveScript")), anyList(), any(Object[].class)))
+        .thenReturn("MISS");
+    when(stockSegmentMapper.listActiveSegmentsBySkuId(7L)).thenReturn(List.of(segment(1, 10)));
+    when(stringRedisTemplate.execute(eq(script("loadScript")), anyList(), any(Object[].class)))
+        .thenReturn(-1L);
+
+    assertThrows(BizException.class, () -> service.reserve(command("S1", 7L, 2)));
+
+    verify(stringRedisTemplate, times(1))
+        .execute(eq(script("reserveScript")), anyList(), any(Object[].class));
+  }
+
+  @Test
+  void restoreHoldsGuardUntilTransactionCompletes() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    service.restoreAfterCommit(7L, 1, 3);
+
+    verify(stringRedisTemplate)
+        .execute(script("beginRestoreScript"), List.of("stock:reserve:guard:7"), "300");
+    verify(stringRedisTemplate, never())
+        .execute(eq(script("finishRestoreScript")), anyList(), any(Object[].class));
+
+    List<TransactionSynchronization> synchronizations =
+        TransactionSynchronizationManager.getSynchronizations();
+    synchronizations.forEach(
+        synchronization ->
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+    verify(stringRedisTemplate)
+        .execute(
+            script("finishRestoreScript"),
+            List.of("stock:reserve:segments:7", "stock:reserve:guard:7"),
+            "1",
+            "3",
+            "300",
+            "1");
+  }
+
+  @Test
+  void rolledBackRestoreOnlyDropsGuard() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    service.restoreAfterCommit(7L, 1, 3);
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(
+            synchronization ->
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+    verify(stringRedisTemplate)
+        .execute(
+            script("finishRestoreScript"),
+            List.of("stock:reserve:segments:7", "stock:reserve:guard:7"),
+            "1",
+            "3",
+            "300",
+            "0");
+  }
+
+  @Test
+  void flushPersistsClaimedBatchAndAcksIt() throws Exception {
+    String first = payload("S1", 7L);
+    String second = payload("S2", 8L);
+    when(stringRedisTemplate.execute(eq(script("claimScript")), anyList(), any(Object[].class)))
+        .thenReturn(List.of(first, second));
+
+    assertEquals(2, service.flushPending());
+
+    verify(stockReservationPersistService).persist(batchOf("S1", "S2"));
+    verify(stringRedisTemplate)
+        .execute(
+            script("ackScript"),
+            List.of("stock:reserve:processing", "stock:reserve:unflushed"),
+            "2",
+            "S1:7",
+            "S2:8");
+  }
+
+  @Test
+  void flushDeadLettersPoisonEntryAndAcksTheRest() throws Exception {
+    String poison = payload("S1", 7L);
+    String healthy = payload("S2", 8L);
+    when(stringRedisTemplate.execute(eq(script("claimScript")), anyList(), any(Object[].class)))
+        .thenReturn(List.of(poison, healthy));
+    when(stockReservationPersistService.persist(batchOf("S1", "S2")))
+        .thenThrow(new IllegalStateException("stock segment missing"));
+    when(stockReservationPersistService.persist(batchOf("S1")))
+        .thenThrow(new IllegalStateException("stock segment missing"));
+    when(hashOperations.increment(eq("stock:reserve:failures"), anyString(), eq(1L)))
+        .thenReturn(3L);
+
+    assertEquals(2, service.flushPending());
+
+    verify(listOperations).rightPush("stock:reserve:dead", poison);
+    verify(stockReservationPersistService).persist(batchOf("S2"));
+    verify(stringRedisTemplate)
+        .execute(
+            script("ackScript"),
+            List.of("stock:reserve:processing", "stock:reserve:unflushed"),
+            "2",
+            "S1:7",
+            "S2:8");
+    assertEquals(1.0, meterRegistry.counter("stock.reserve.redis.dead-letter").count());
+  }
+
+  @Test
+  void flushKeepsFailingEntryInPlaceBelowAttemptLimit() throws Exception {
+    String failing = payload("S1", 7L);
+    String behind = payload("S2", 8L);
+    when(stringRedisTemplate.execute(eq(script("claimScript")), anyList(), any(Object[].class)))
+        .thenReturn(List.of(failing, behind));
+    when(stockReservationPersistService.persist(anyList()))
+        .thenThrow(new IllegalStateException("stock segment missing"));
+    when(hashOperations.increment(eq("stock:reserve:failures"), anyString(), eq(1L)))
+        .thenReturn(1L);
+
+    assertEquals(0, service.flushPending());
+
+    verify(listOperations, never()).rightPush(anyString(), anyString());
+    verify(stringRedisTemplate, never())
+        .execute(eq(script("ackScript")), anyList(), any(Object[].class));
+  }
+
+  @Test
+  void transientFailureDoesNotCountTowardsDeadLetter() throws Exception {
+    when(stringRedisTemplate.execute(eq(script("claimScript")), anyList(), any(Object[].class)))
+        .thenReturn(List.of(payload("S1", 7L)));
+    when(stockReservationPersistService.persist(anyList()))
+        .thenThrow(new DataAccessResourceFailureException("db down"));
+
+    assertEquals(0, service.flushPending());
+
+    verify(hashOperations, never()).increment(anyString(), any(), any(Long.class));
+    verify(listOperations, never()).rightPush(anyString(), anyString());
+  }
+
+  @Test
+  void reconcileSkipsSkuWithRestoreInFlightAndContinues() {
+    when(setOperations.members("stock:reserve:skus"))
+        .thenReturn(new LinkedHashSet<>(List.of("7", "8")));
+    when(stockSegmentMapper.listActiveSegmentsBySkuId(any())).thenReturn(List.of(segment(1, 5)));
+    when(stringRedisTemplate.execute(
+            eq(script("reconcileScript")),
+            eq(
+                List.of(
+                    "stock:reserve:segments:7",
+                    "stock:reserve:pending",
+                    "stock:reserve:processing",
+                    "stock:reserve:guard:7")),
+            any(Object[].class)))
+        .thenReturn(-2L);
+    when(stringRedisTemplate.execute(
+            eq(script("reconcileScript")),
+            eq(
+                List.of(
+                    "stock:reserve:segments:8",
+                    "stock:reserve:pending",
+                    "stock:reserve:processing",
+                    "stock:reserve:guard:8")),
+            any(Object[].class)))
+        .thenReturn(1L);
+
+    assertEquals(1, service.reconcile());
+  }
+
+  @Test
+  void reconcileStopsWhileJournalIsNotDrained() {
+    when(setOperations.members("stock:reserve:skus"))
+        .thenReturn(new LinkedHashSet<>(List.of("7", "8")));
+    when(stringRedisTemplate.execute(eq(script("reconcileScript")), anyList(), any(Object[].class)))
+        .thenReturn(-1L);
+
+    assertEquals(0, service.reconcile());
+
+    verify(stringRedisTemplate, times(1))
+        .execute(eq(script("reconcileScript")), anyList(), any(Object[].class));
+  }
+
+  @Test
+  void suspendForRebalanceDrainsPendingReservationsAndResumesAfterCompletion() throws Exception {
+    TransactionSynchronizationManager.initSynchronization();
+    when(listOperations.size("stock:reserve:pending")).thenReturn(2L);
+    when(listOperations.size("stock:reserve:processing")).thenReturn(0L);
+    when(stringRedisTemplate.execute(eq(script("claimScript")), anyList(), any(Object[].class)))
+        .thenReturn(List.of(payload("S1", 7L), payload("S2", 8L)));
+
+    service.suspendForRebalance(7L);
+
+    InOrder order = inOrder(stringRedisTemplate, stockReservationPersistService);
+    order
+        .verify(stringRedisTemplate)
+        .execute(
+            script("suspendScript"),
+            List.of("stock:reserve:guard:7", "stock:reserve:segments:7"),
+            "300");
+    order.verify(stockReservationPersistService).persist(batchOf("S1", "S2"));
+    order
+        .verify(stringRedisTemplate)
+        .execute(eq(script("ackScript")), anyList(), any(Object[].class));
+    verify(stringRedisTemplate, never())
+        .execute(eq(script("resumeScript")), anyList(), any(Object[].class));
+
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(
+            synchronization ->
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+
+    verify(stringRedisTemplate)
+        .execute(script("resumeScript"), List.of("stock:reserve:guard:7"), "300");
+  }
+
+  @Test
+  void suspendForRebalanceResumesAndFailsWhenJournalIsStuck() throws Exception {
+    when(listOperations.size("stock:reserve:pending")).thenReturn(1L);
+    when(stringRedisTemplate.execute(eq(script("claimScript")), anyList(), any(Object[].class)))
+        .thenReturn(List.of(payload("S1", 7L)));
+    when(stockReservationPersistService.persist(anyList()))
+        .thenThrow(new DataAccessResourceFailureException("db down"));
+
+    assertThrows(SystemException.class, () -> service.suspendForRebalance(7L));
+
+    verify(stringRedisTemplate)
+        .execute(script("resumeScript"), List.of("stock:reserve:guard:7"), "300");
+  }
+
+  private List<StockReservationJournal> batchOf(String... subOrderNos) {
+    return argThat(
+        journals ->
+            journals != null
+                && journals.stream()
+                    .map(StockReservationJournal::getSubOrderNo)
+                    .toList()
+                    .equals(List.of(subOrderNos)));
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> RedisScript<T> script(String field) {
+    return (RedisScript<T>) ReflectionTestUtils.getField(service, field);
+  }
+
+  private String payload(String subOrderNo, Long skuId) throws Exception {
+    StockReservationJournal journal = new StockReservationJournal();
+    journal.setType(StockReservationJournal.TYPE_RESERVE);
+    journal.setSubOrderNo(subOrderNo);
+    journal.setSkuId(skuId);
+    StockReservationJournal.Allocation allocation = new StockReservationJournal.Allocation();
+    allocation.setSegmentId(1);
+    allocation.setQuantity(1);
+    journal.setAllocations(List.of(allocation));
+    return objectMapper.writeValueAsString(journal);
+  }
+
+  private StockOperateCommandDTO command(String subOrderNo, Long skuId, int quantity) {
+    StockOperateCommandDTO command = new StockOperateCommandDTO();
+    command.setOrderNo("M1");
+    command.setSubOrderNo(subOrderNo);
+    command.setSkuId(skuId);
+    command.setQuantity(quantity);
+    return command;
+  }
+
+  private StockSegment segment(int segmentId, int available) {
+    StockSegment segment = new StockSegment();
+    segment.setSegmentId(segmentId);
+    segment.setAvailableQty(available);
+    return segment;
+  }
+}
@@ -0,0 +1,127 @@
+package com.cloud.stock.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.cloud.stock.mapper.StockReservationMapper;
+import com.cloud.stock.mapper.StockSegmentMapper;
+import com.cloud.stock.messaging.StockMessageProducer;
+import com.cloud.stock.module.entity.StockReservation;
+import com.cloud.stock.service.impl.StockTxnAsyncWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class StockReservationPersistServiceTest {
+
+  @Mock private StockSegmentMapper stockSegmentMapper;
+  @Mock private StockReservationMapper stockReservationMapper;
+  @Mock private StockTxnAsyncWriter stockTxnAsyncWriter;
+  @Mock private StockRedisCacheService stockRedisCacheService;
+  @Mock private StockSearchSyncService stockSearchSyncService;
+  @Mock private StockLedgerSummaryService stockLedgerSummaryService;
+  @Mock private StockMessageProducer stockMessageProducer;
+
+  private SimpleMeterRegistry meterRegistry;
+  private StockReservationPersistService service;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    service =
+        new StockReservationPersistService(
+            stockSegmentMapper,
+            stockReservationMapper,
+            stockTxnAsyncWriter,
+            stockRedisCacheService,
+            stockSearchSyncService,
+            stockLedgerSummaryService,
+            stockMessageProducer,
+            meterRegistry);
+    when(stockReservationMapper.listByIdempotencyKeys(anyList())).thenReturn(List.of());
+  }
+
+  @Test
+  void segmentTotalsAreReservedInOneStatementEach() {
+    when(stockSegmentMapper.reserveOnSegment(anyLong(), anyInt(), anyInt())).thenReturn(1);
+
+    assertEquals(0, service.persist(List.of(journal("M1", "S1", 0, 2), journal("M2", "S2", 0, 3))));
+
+    verify(stockSegmentMapper).reserveOnSegment(7L, 0, 5);
+    verify(stockReservationMapper).insert(reservationsCaptor().capture());
+    verify(stockLedgerSummaryService).recordDelta(7L, -5, 5, 0);
+    verify(stockMessageProducer, never()).sendStockFreezeFailedEvent(anyString(), anyString());
+  }
+
+  @Test
+  void oversoldEntryIsRejectedAndItsOtherSegmentsGivenBack() {
+    StockReservationJournal fits = journal("M1", "S1", 1, 2);
+    StockReservationJournal oversold = journal("M2", "S2", 0, 4);
+    oversold.getAllocations().add(allocation(1, 3));
+    when(stockSegmentMapper.reserveOnSegment(7L, 0, 4)).thenReturn(1);
+    when(stockSegmentMapper.reserveOnSegment(7L, 1, 5)).thenReturn(0);
+    when(stockSegmentMapper.reserveOnSegment(7L, 1, 2)).thenReturn(1);
+    when(stockSegmentMapper.reserveOnSegment(7L, 1, 3)).thenReturn(0);
+    when(stockSegmentMapper.releaseOnSegment(7L, 0, 4)).thenReturn(1);
+    when(stockMessageProducer.sendStockFreezeFailedEvent(eq("M2"), anyString())).thenReturn(true);
+
+    assertEquals(1, service.persist(List.of(fits, oversold)));
+
+    verify(stockSegmentMapper).releaseOnSegment(7L, 0, 4);
+    ArgumentCaptor<Collection<StockReservation>> inserted = reservationsCaptor();
+    verify(stockReservationMapper).insert(inserted.capture());
+    assertEquals(
+        List.of("S1"), inserted.getValue().stream().map(StockReservation::getSubOrderNo).toList());
+    verify(stockLedgerSummaryService).recordDelta(7L, -2, 2, 0);
+    assertEquals(7.0, meterRegistry.counter("stock.reserve.redis.oversell").count());
+  }
+
+  @Test
+  void rejectedEntryWithoutOrderNumberIsCountedAsUnnotified() {
+    when(stockSegmentMapper.reserveOnSegment(anyLong(), anyInt(), anyInt())).thenReturn(0);
+
+    assertEquals(1, service.persist(List.of(journal(null, "S1", 0, 2))));
+
+    verify(stockReservationMapper, never()).insert(anyCollection());
+    assertEquals(1.0, meterRegistry.counter("stock.reserve.redis.oversell.unnotified").count());
+  }
+
+  @SuppressWarnings("unchecked")
+  private ArgumentCaptor<Collection<StockReservation>> reservationsCaptor() {
+    return ArgumentCaptor.forClass(Collection.class);
+  }
+
+  private StockReservationJournal journal(
+      String mainOrderNo, String subOrderNo, int segmentId, int quantity) {
+    StockReservationJournal journal = new StockReservationJournal();
+    journal.setType(StockReservationJournal.TYPE_RESERVE);
+    journal.setMainOrderNo(mainOrderNo);
+    journal.setSubOrderNo(subOrderNo);
+    journal.setSkuId(7L);
+    journal.setAllocations(new ArrayList<>(List.of(allocation(segmentId, quantity))));
+    return journal;
+  }
+
+  private StockReservationJournal.Allocation allocation(int segmentId, int quantity) {
+    StockReservationJournal.Allocation allocation = new StockReservationJournal.Allocation();
+    allocation.setSegmentId(segmentId);
+    allocation.setQuantity(quantity);
+    return allocation;
+  }
+}
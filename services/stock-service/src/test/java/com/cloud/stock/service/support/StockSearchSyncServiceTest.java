@@ -0,0 +1,91 @@
+package com.cloud.stock.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.cloud.api.product.ProductDubboApi;
+import com.cloud.common.messaging.event.StockChangedEvent;
+import com.cloud.stock.messaging.StockMessageProducer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class StockSearchSyncServiceTest {
+
+  @Mock private StockMessageProducer stockMessageProducer;
+  @Mock private ProductDubboApi productDubboApi;
+
+  private SimpleMeterRegistry meterRegistry;
+  private StockSearchSyncService service;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    service = new StockSearchSyncService(stockMessageProducer, meterRegistry);
+    ReflectionTestUtils.setField(service, "productDubboApi", productDubboApi);
+    ReflectionTestUtils.setField(service, "batchSize", 200);
+  }
+
+  @Test
+  void failedSendIsMergedBackAndResentWithLaterDeltas() {
+    when(productDubboApi.mapSpuIdsBySkuIds(anyList())).thenReturn(Map.of(1L, 10L, 2L, 10L));
+    when(stockMessageProducer.sendStockChangedEvent(any())).thenReturn(false, true);
+    service.recordStockChange(1L, -2, 0);
+    service.recordStockChange(2L, -1, 1);
+
+    service.flush();
+    service.recordStockChange(1L, -3, 3);
+    service.flush();
+
+    ArgumentCaptor<StockChangedEvent> captor = ArgumentCaptor.forClass(StockChangedEvent.class);
+    verify(stockMessageProducer, times(2)).sendStockChangedEvent(captor.capture());
+    StockChangedEvent.Item resent = captor.getAllValues().get(1).getItems().get(0);
+    assertEquals(10L, resent.getSpuId());
+    assertEquals(-6, resent.getStockDelta());
+    assertEquals(4, resent.getSalesDelta());
+  }
+
+  @Test
+  void shutdownFlushesBufferedDeltas() {
+    when(productDubboApi.mapSpuIdsBySkuIds(anyList())).thenReturn(Map.of(1L, 10L, 2L, 10L));
+    when(stockMessageProducer.sendStockChangedEvent(any())).thenReturn(true);
+    service.recordStockChange(1L, -2, 2);
+
+    service.flushOnShutdown();
+
+    ArgumentCaptor<StockChangedEvent> captor = ArgumentCaptor.forClass(StockChangedEvent.class);
+    verify(stockMessageProducer).sendStockChangedEvent(captor.capture());
+    assertEquals(List.of(1L), captor.getValue().getItems().get(0).getSkuIds());
+  }
+
+  @Test
+  void missingMappingIsRequeuedAndUnmappedSkusAreCounted() {
+    when(productDubboApi.mapSpuIdsBySkuIds(anyList())).thenReturn(null, Map.of(1L, 10L));
+    when(stockMessageProducer.sendStockChangedEvent(any())).thenReturn(true);
+    service.recordStockChange(1L, -2, 0);
+    service.recordStockChange(2L, -1, 0);
+
+    service.flush();
+    verify(stockMessageProducer, never()).sendStockChangedEvent(any());
+    service.flush();
+
+    ArgumentCaptor<StockChangedEvent> captor = ArgumentCaptor.forClass(StockChangedEvent.class);
+    verify(stockMessageProducer).sendStockChangedEvent(captor.capture());
+    assertEquals(List.of(1L), captor.getValue().getItems().get(0).getSkuIds());
+    assertEquals(
+        1.0, meterRegistry.counter("stock.search-sync.dropped", "reason", "unmapped").count());
+  }
+}
@@ -0,0 +1,122 @@
+package com.cloud.stock.service.support;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.cloud.stock.mapper.StockSegmentMapper;
+import com.cloud.stock.mapper.StockSegmentMapper.SegmentDelta;
+import com.cloud.stock.module.entity.StockSegment;
+import java.util.Collection;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+class StockSegmentRebalanceServiceTest {
+
+  @Mock private StockSegmentMapper stockSegmentMapper;
+  @Mock private StockRedisCacheService stockRedisCacheService;
+  @Mock private StockRedisReservationService stockRedisReservationService;
+  @Mock private StockLedgerSummaryService stockLedgerSummaryService;
+
+  private StockSegmentRebalanceService service;
+
+  @BeforeEach
+  void setUp() {
+    service =
+        new StockSegmentRebalanceService(
+            stockSegmentMapper,
+            stockRedisCacheService,
+            stockRedisReservationService,
+            stockLedgerSummaryService);
+    ReflectionTestUtils.setField(service, "minAvailablePerSegment", 10);
+  }
+
+  @Test
+  void pendingRedisReservationsAreDrainedBeforeSegmentsAreRead() {
+    when(stockSegmentMapper.lockActiveSegmentsBySkuIds(List.of(7L)))
+        .thenReturn(List.of(segment(0, 40), segment(1, 0)));
+    when(stockSegmentMapper.adjustAvailableOnSegments(anyList())).thenReturn(2);
+
+    assertEquals(2, service.rebalance(7L, null, 2));
+
+    InOrder order = inOrder(stockRedisReservationService, stockSegmentMapper);
+    order.verify(stockRedisReservationService).suspendForRebalance(7L);
+    order.verify(stockSegmentMapper).lockActiveSegmentsBySkuIds(List.of(7L));
+    order
+        .verify(stockSegmentMapper)
+        .adjustAvailableOnSegments(
+            List.of(new SegmentDelta(7L, 0, -20), new SegmentDelta(7L, 1, 20)));
+  }
+
+  @Test
+  void newRowsStartAfterHighestSegmentIdIncludingInactiveRows() {
+    when(stockSegmentMapper.lockActiveSegmentsBySkuIds(List.of(7L)))
+        .thenReturn(List.of(segment(0, 40), segment(1, 0)));
+    when(stockSegmentMapper.selectMaxSegmentId(7L)).thenReturn(5);
+    when(stockSegmentMapper.adjustAvailableOnSegments(anyList())).thenReturn(4);
+
+    assertEquals(4, service.rebalance(7L, 1, 4));
+
+    ArgumentCaptor<Collection<StockSegment>> created = segmentsCaptor();
+    verify(stockSegmentMapper).insert(created.capture());
+    assertEquals(
+        List.of(6, 7), created.getValue().stream().map(StockSegment::getSegmentId).toList());
+    verify(stockSegmentMapper)
+        .adjustAvailableOnSegments(
+            List.of(
+                new SegmentDelta(7L, 0, -30),
+                new SegmentDelta(7L, 1, 10),
+                new SegmentDelta(7L, 6, 10),
+                new SegmentDelta(7L, 7, 10)));
+  }
+
+  @Test
+  void negativeRowIsLiftedFromTheNetAvailableStock() {
+    when(stockSegmentMapper.lockActiveSegmentsBySkuIds(List.of(7L)))
+        .thenReturn(List.of(segment(0, -3), segment(1, 23)));
+    when(stockSegmentMapper.adjustAvailableOnSegments(anyList())).thenReturn(2);
+
+    assertEquals(2, service.rebalance(7L, 1, 2));
+
+    verify(stockSegmentMapper)
+        .adjustAvailableOnSegments(
+            List.of(new SegmentDelta(7L, 0, 13), new SegmentDelta(7L, 1, -13)));
+  }
+
+  @Test
+  void oversoldSkuIsLeftUntouched() {
+    when(stockSegmentMapper.lockActiveSegmentsBySkuIds(List.of(7L)))
+        .thenReturn(List.of(segment(0, -5), segment(1, 2)));
+
+    assertEquals(1, service.rebalance(7L, 1, 4));
+
+    verify(stockSegmentMapper, never()).adjustAvailableOnSegments(anyList());
+    verify(stockSegmentMapper, never()).insert(anyCollection());
+  }
+
+  private static StockSegment segment(int segmentId, int available) {
+    StockSegment segment = new StockSegment();
+    segment.setSkuId(7L);
+    segment.setSegmentId(segmentId);
+    segment.setAvailableQty(available);
+    segment.setStatus(1);
+    return segment;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static ArgumentCaptor<Collection<StockSegment>> segmentsCaptor() {
+    return ArgumentCaptor.forClass(Collection.class);
+  }
+}